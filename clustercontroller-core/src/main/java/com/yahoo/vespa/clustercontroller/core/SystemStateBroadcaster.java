@@ -272,13 +272,16 @@ public class SystemStateBroadcaster {
         }
 
         List<NodeInfo> recipients = resolveStateVersionSendSet(dbContext);
+        // The modified bundle is the same for all nodes, and using the same instance lets it be encoded only once
+        ClusterStateBundle modifiedBundle = null;
         for (NodeInfo node : recipients) {
             if (nodeNeedsToObserveStartupTimestamps(node)) {
-                // TODO this is the same for all nodes, compute only once
-                ClusterStateBundle modifiedBundle = clusterStateBundle.cloneWithMapper(state -> buildModifiedClusterState(state, dbContext));
+                if (modifiedBundle == null)
+                    modifiedBundle = clusterStateBundle.cloneWithMapper(state -> buildModifiedClusterState(state, dbContext));
+                ClusterStateBundle bundle = modifiedBundle;
                 log.log(Level.FINE, () -> String.format("Sending modified cluster state version %d" +
-                        " to node %s: %s", baselineState.getVersion(), node, modifiedBundle));
-                communicator.setSystemState(modifiedBundle, node, setClusterStateWaiter);
+                        " to node %s: %s", baselineState.getVersion(), node, bundle));
+                communicator.setSystemState(bundle, node, setClusterStateWaiter);
             } else {
                 log.log(Level.FINE, () -> String.format("Sending system state version %d to node %s. " +
                         "(went down time %d, node start time %d)", baselineState.getVersion(), node,
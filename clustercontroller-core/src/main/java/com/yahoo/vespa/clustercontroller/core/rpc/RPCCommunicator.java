@@ -52,6 +52,11 @@ public class RPCCommunicator implements Communicator {
     private int nodeStateRequestTimeoutIntervalStopPercentage;
     private int nodeStateRequestRoundTripTimeMaxSeconds;
     private final int fleetControllerIndex;
+    private final ClusterStateBundleCodec stateBundleCodec = new SlimeClusterStateBundleCodec();
+
+    /** The most recently sent bundle and its encoding, reused as long as the same bundle is sent to more nodes */
+    private ClusterStateBundle lastEncodedStateBundle = null;
+    private EncodedClusterStateBundle lastEncoding = null;
 
     public static Supervisor createRealSupervisor() {
         return new Supervisor(new Transport("rpc-communicator")).useSmallBuffers();
@@ -149,8 +154,7 @@ public class RPCCommunicator implements Communicator {
             req.parameters().add(new StringValue(baselineState.toString(false)));
         } else {
             req = new Request(SET_DISTRIBUTION_STATES_RPC_METHOD_NAME);
-            SlimeClusterStateBundleCodec codec = new SlimeClusterStateBundleCodec();
-            EncodedClusterStateBundle encodedBundle = codec.encode(stateBundle);
+            EncodedClusterStateBundle encodedBundle = encode(stateBundle);
             Values v = req.parameters();
             v.add(new Int8Value(encodedBundle.getCompression().type().getCode()));
             v.add(new Int32Value(encodedBundle.getCompression().uncompressedSize()));
@@ -166,6 +170,18 @@ public class RPCCommunicator implements Communicator {
         node.setClusterStateVersionBundleSent(stateBundle);
     }
 
+    /**
+     * Returns the encoding of the given bundle. The same bundle instance is broadcast to
+     * all nodes of the cluster, so it is only encoded (and compressed) once per bundle.
+     */
+    private EncodedClusterStateBundle encode(ClusterStateBundle stateBundle) {
+        if (stateBundle != lastEncodedStateBundle) {
+            lastEncoding = stateBundleCodec.encode(stateBundle);
+            lastEncodedStateBundle = stateBundle;
+        }
+        return lastEncoding;
+    }
+
     @Override
     public void activateClusterStateVersion(int clusterStateVersion, NodeInfo node, Waiter<ActivateClusterStateVersionRequest> externalWaiter) {
         var waiter = new RPCActivateClusterStateVersionWaiter(externalWaiter);
@@ -15,6 +15,7 @@ import java.util.stream.Stream;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
@@ -110,6 +111,28 @@ public class SystemStateBroadcasterTest {
         verify(f.mockCommunicator).setSystemState(eq(expectedDistr0Bundle), eq(cf.cluster().getNodeInfo(Node.ofDistributor(0))), any());
     }
 
+    @Test
+    public void nodes_observing_startup_timestamps_are_sent_the_same_modified_bundle() {
+        Fixture f = new Fixture();
+        ClusterStateBundle stateBundle = ClusterStateBundleUtil.makeBundle("distributor:2 storage:2");
+        ClusterFixture cf = ClusterFixture.forFlatCluster(2).bringEntireClusterUp().assignDummyRpcAddresses();
+        f.simulateNodePartitionedAwaySilently(cf);
+        cf.cluster().getNodeInfo(Node.ofDistributor(1)).setStartTimestamp(500);
+        cf.cluster().getNodeInfo(Node.ofDistributor(1)).setReportedState(new NodeState(NodeType.DISTRIBUTOR, State.UP).setStartTimestamp(500), 1000);
+        cf.cluster().getNodeInfo(Node.ofDistributor(1)).setReportedState(new NodeState(NodeType.DISTRIBUTOR, State.DOWN).setStartTimestamp(500), 2000);
+        cf.cluster().getNodeInfo(Node.ofDistributor(1)).setReportedState(new NodeState(NodeType.DISTRIBUTOR, State.UP).setStartTimestamp(500), 3000);
+        f.broadcaster.handleNewClusterStates(stateBundle);
+        f.broadcaster.broadcastNewStateBundleIfRequired(dbContextFrom(cf.cluster()), f.mockCommunicator, 0);
+
+        var distributor0Bundle = ArgumentCaptor.forClass(ClusterStateBundle.class);
+        var distributor1Bundle = ArgumentCaptor.forClass(ClusterStateBundle.class);
+        verify(f.mockCommunicator).setSystemState(distributor0Bundle.capture(), eq(cf.cluster().getNodeInfo(Node.ofDistributor(0))), any());
+        verify(f.mockCommunicator).setSystemState(distributor1Bundle.capture(), eq(cf.cluster().getNodeInfo(Node.ofDistributor(1))), any());
+        assertEquals(ClusterStateBundleUtil.makeBundle("distributor:2 storage:2 .0.t:600 .1.t:700"), distributor0Bundle.getValue());
+        // The same instance is sent to both, such that it is only encoded once
+        assertSame(distributor0Bundle.getValue(), distributor1Bundle.getValue());
+    }
+
     @Test
     public void bucket_space_states_are_published_verbatim_when_no_additional_timestamps_needed() {
         Fixture f = new Fixture();
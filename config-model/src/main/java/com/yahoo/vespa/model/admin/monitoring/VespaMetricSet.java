@@ -63,6 +63,9 @@ public class VespaMetricSet {
         metrics.add(new Metric("jrt.transport.server.unencrypted-connections-established"));
         metrics.add(new Metric("jrt.transport.client.unencrypted-connections-established"));
 
+        // Java message bus metrics
+        metrics.add(new Metric("mbus.compression-ratio.average"));
+
         // C++ TLS metrics
         metrics.add(new Metric("vds.server.network.tls-handshakes-failed"));
         metrics.add(new Metric("vds.server.network.peer-authorization-failures"));
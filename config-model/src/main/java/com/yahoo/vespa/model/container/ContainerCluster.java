@@ -541,6 +541,8 @@ public abstract class ContainerCluster<CONTAINER extends Container>
         for (AbstractSearchCluster searchCluster : searchClusters) {
             searchCluster.getConfig(builder);
         }
+        if (containerDocproc != null)
+            containerDocproc.getConfig(builder);
     }
 
     @Override
@@ -6,6 +6,7 @@ import com.yahoo.config.docproc.DocprocConfig;
 import com.yahoo.config.docproc.SchemamappingConfig;
 import com.yahoo.container.jdisc.ContainerMbusConfig;
 import com.yahoo.container.jdisc.config.SessionConfig;
+import com.yahoo.vespa.configdefinition.IlscriptsConfig;
 import com.yahoo.docproc.jdisc.messagebus.MbusRequestContext;
 import com.yahoo.vespa.model.container.ContainerCluster;
 import com.yahoo.vespa.model.container.component.ContainerSubsystem;
@@ -22,7 +23,8 @@ public class ContainerDocproc extends ContainerSubsystem<DocprocChains>
         implements 
             ContainerMbusConfig.Producer,
             SchemamappingConfig.Producer,
-            DocprocConfig.Producer
+            DocprocConfig.Producer,
+            IlscriptsConfig.Producer
 {
     public final Options options;
 
@@ -35,7 +37,7 @@ public class ContainerDocproc extends ContainerSubsystem<DocprocChains>
     private Map<Pair<String, String>, String> fieldNameSchemaMap = new HashMap<>();
 
     public ContainerDocproc(ContainerCluster cluster, DocprocChains chains) {
-        this(cluster, chains, new Options(false, null, null, null, null, null, null));
+        this(cluster, chains, new Options(false, null, null, null, null, null, null, null));
     }
 
     public ContainerDocproc(ContainerCluster cluster, DocprocChains chains, Options options) {
@@ -104,6 +106,13 @@ public class ContainerDocproc extends ContainerSubsystem<DocprocChains>
         }
     }
     
+    @Override
+    public void getConfig(IlscriptsConfig.Builder builder) {
+        if (options.indexingParallelism != null) {
+            builder.parallelism(options.indexingParallelism);
+        }
+    }
+
     @Override
     public void getConfig(SchemamappingConfig.Builder builder) {
         Map<Pair<String, String>, String> allMappings = new HashMap<>();
@@ -148,7 +157,10 @@ public class ContainerDocproc extends ContainerSubsystem<DocprocChains>
         public final Double documentExpansionFactor;
         public final Integer containerCoreMemory;
 
-        public Options(boolean compressDocuments, Integer maxMessagesInQueue, Integer maxQueueMbSize, Integer maxQueueTimeMs, Double maxConcurrentFactor, Double documentExpansionFactor, Integer containerCoreMemory) {
+        // The number of threads used to execute independent statements of an indexing script in parallel
+        public final Integer indexingParallelism;
+
+        public Options(boolean compressDocuments, Integer maxMessagesInQueue, Integer maxQueueMbSize, Integer maxQueueTimeMs, Double maxConcurrentFactor, Double documentExpansionFactor, Integer containerCoreMemory, Integer indexingParallelism) {
             this.compressDocuments = compressDocuments;
             this.maxMessagesInQueue = maxMessagesInQueue;
             this.maxQueueMbSize = maxQueueMbSize;
@@ -156,6 +168,7 @@ public class ContainerDocproc extends ContainerSubsystem<DocprocChains>
             this.maxConcurrentFactor = maxConcurrentFactor;
             this.documentExpansionFactor = documentExpansionFactor;
             this.containerCoreMemory = containerCoreMemory;
+            this.indexingParallelism = indexingParallelism;
         }
     }
 
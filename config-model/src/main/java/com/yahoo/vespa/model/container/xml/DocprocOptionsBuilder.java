@@ -16,7 +16,8 @@ public class DocprocOptionsBuilder {
                 getTime(spec.getAttribute("maxqueuewait")),
                 getFactor(spec.getAttribute("maxconcurrentfactor")),
                 getFactor(spec.getAttribute("documentexpansionfactor")),
-                getInt(spec.getAttribute("containercorememory")));
+                getInt(spec.getAttribute("containercorememory")),
+                getInt(spec.getAttribute("indexingparallelism")));
     }
 
     private static Integer getInt(String integer) {
@@ -10,6 +10,7 @@ import com.yahoo.container.core.ChainsConfig;
 import com.yahoo.container.jdisc.ContainerMbusConfig;
 import com.yahoo.document.config.DocumentmanagerConfig;
 import com.yahoo.search.config.QrStartConfig;
+import com.yahoo.vespa.configdefinition.IlscriptsConfig;
 import com.yahoo.vespa.model.HostPorts;
 import com.yahoo.vespa.model.container.ApplicationContainer;
 import com.yahoo.vespa.model.container.ApplicationContainerCluster;
@@ -48,6 +49,7 @@ public class DocprocBuilderTest extends DomBuilderTest {
     private SchemamappingConfig schemamappingConfig;
     private DocprocConfig docprocConfig;
     private QrStartConfig qrStartConfig;
+    private IlscriptsConfig ilscriptsConfig;
 
     @Before
     public void setupCluster() {
@@ -65,6 +67,7 @@ public class DocprocBuilderTest extends DomBuilderTest {
         schemamappingConfig = root.getConfig(SchemamappingConfig.class, cluster.getContainers().get(0).getConfigId());
         qrStartConfig = root.getConfig(QrStartConfig.class, cluster.getConfigId());
         docprocConfig = root.getConfig(DocprocConfig.class, cluster.getConfigId());
+        ilscriptsConfig = root.getConfig(IlscriptsConfig.class, cluster.getConfigId());
     }
 
     private Element servicesXml() {
@@ -73,7 +76,7 @@ public class DocprocBuilderTest extends DomBuilderTest {
                 "  <nodes>",
                 "    <node hostalias='mockhost' baseport='1500' />",
                 "  </nodes>",
-                "  <document-processing compressdocuments='true' preferlocalnode='true' numnodesperclient='2' maxqueuebytesize='100m' maxmessagesinqueue='300' maxqueuewait='200'>",
+                "  <document-processing compressdocuments='true' preferlocalnode='true' numnodesperclient='2' maxqueuebytesize='100m' maxmessagesinqueue='300' maxqueuewait='200' indexingparallelism='4'>",
                 "    <documentprocessor id='docproc1' class='com.yahoo.Docproc1' bundle='docproc1bundle'/>",
                 "    <chain id='chein'>",
                 "      <documentprocessor id='docproc2'/>",
@@ -118,6 +121,11 @@ public class DocprocBuilderTest extends DomBuilderTest {
 
     }
 
+    @Test
+    public void testIlscriptsConfig() {
+        assertThat(ilscriptsConfig.parallelism(), is(4));
+    }
+
     @Test
     public void testContainerMbusConfig() {
         assertThat(containerMbusConfig.enabled(), is(true));
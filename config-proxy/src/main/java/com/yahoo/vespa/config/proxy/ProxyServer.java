@@ -61,7 +61,7 @@ public class ProxyServer implements Runnable {
         this.memoryCache = memoryCache;
         this.rpcServer = createRpcServer(spec);
         this.configClient = (configClient == null) ? createRpcClient(rpcServer, source, memoryCache) : configClient;
-        this.fileDistributionAndUrlDownload = new FileDistributionAndUrlDownload(supervisor, source);
+        this.fileDistributionAndUrlDownload = new FileDistributionAndUrlDownload(supervisor, source, (spec == null) ? 0 : spec.port());
     }
 
     @Override
@@ -3,11 +3,16 @@ package com.yahoo.vespa.config.proxy.filedistribution;
 
 import com.yahoo.concurrent.DaemonThreadFactory;
 import com.yahoo.config.subscription.ConfigSourceSet;
+import com.yahoo.jrt.Spec;
 import com.yahoo.jrt.Supervisor;
+import com.yahoo.net.HostName;
 import com.yahoo.vespa.config.JRTConnectionPool;
 import com.yahoo.vespa.filedistribution.FileDownloader;
+import com.yahoo.vespa.filedistribution.PeerFileServer;
 
+import java.io.File;
 import java.time.Duration;
+import java.util.Optional;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -20,13 +25,35 @@ import java.util.concurrent.TimeUnit;
 public class FileDistributionAndUrlDownload {
 
     private static final Duration delay = Duration.ofMinutes(1);
+    // Set to 'true' to download file references from (and serve them to) other nodes, with config servers as tracker
+    private static final String downloadFromPeersEnvVariable = "VESPA_CONFIGPROXY_FILEDOWNLOAD_FROM_PEERS";
     private final FileDistributionRpcServer fileDistributionRpcServer;
     private final UrlDownloadRpcServer urlDownloadRpcServer;
+    private final Optional<PeerFileServer> peerFileServer;
     private final ScheduledExecutorService cleanupExecutor =
             new ScheduledThreadPoolExecutor(1, new DaemonThreadFactory("file references and downloads cleanup"));
 
     public FileDistributionAndUrlDownload(Supervisor supervisor, ConfigSourceSet source) {
-        fileDistributionRpcServer = new FileDistributionRpcServer(supervisor, new FileDownloader(new JRTConnectionPool(source)));
+        this(supervisor, source, 0);
+    }
+
+    /**
+     * @param port the port the supervisor listens on, used when serving file references to other nodes.
+     *             Ignored unless enabled by setting the environment variable VESPA_CONFIGPROXY_FILEDOWNLOAD_FROM_PEERS
+     */
+    public FileDistributionAndUrlDownload(Supervisor supervisor, ConfigSourceSet source, int port) {
+        File downloadDirectory = FileDownloader.defaultDownloadDirectory;
+        FileDownloader downloader;
+        if (Boolean.parseBoolean(System.getenv(downloadFromPeersEnvVariable)) && port > 0) {
+            String peerSpec = new Spec(HostName.getLocalhost(), port).toString();
+            JRTConnectionPool configServers = new JRTConnectionPool(source);
+            downloader = new FileDownloader(configServers, downloadDirectory, peerSpec);
+            peerFileServer = Optional.of(new PeerFileServer(supervisor, downloadDirectory, configServers));
+        } else {
+            downloader = new FileDownloader(new JRTConnectionPool(source), downloadDirectory);
+            peerFileServer = Optional.empty();
+        }
+        fileDistributionRpcServer = new FileDistributionRpcServer(supervisor, downloader);
         urlDownloadRpcServer = new UrlDownloadRpcServer(supervisor);
         cleanupExecutor.scheduleAtFixedRate(new CachedFilesMaintainer(), delay.toSeconds(), delay.toSeconds(), TimeUnit.SECONDS);
     }
@@ -34,6 +61,7 @@ public class FileDistributionAndUrlDownload {
     public void close() {
         fileDistributionRpcServer.close();
         urlDownloadRpcServer.close();
+        peerFileServer.ifPresent(PeerFileServer::close);
         cleanupExecutor.shutdownNow();
         try {
             if ( ! cleanupExecutor.awaitTermination(10, TimeUnit.SECONDS))
@@ -99,7 +99,7 @@ public class JRTServerConfigRequestV3 implements JRTServerConfigRequest {
         }
         request.returnValues().add(createResponseValue(byteArrayOutputStream));
         if (changedConfigAndNewGeneration) {
-            request.returnValues().add(new DataValue(responsePayload.getData().getBytes()));
+            request.returnValues().add(DataValue.wrap(responsePayload.getData().wrap()));
         } else {
             request.returnValues().add(new DataValue(new byte[0]));
         }
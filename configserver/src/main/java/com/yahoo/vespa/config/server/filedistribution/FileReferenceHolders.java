@@ -0,0 +1,95 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.config.server.filedistribution;
+
+import com.yahoo.config.FileReference;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Keeps track of which nodes have completed downloading a file reference, so that other nodes
+ * can download it from them instead of from a config server (peer-assisted file distribution).
+ * Only the most recently used file references are tracked, the number of holders
+ * per file reference is bounded, and holders expire after a while since nodes may
+ * go away or remove their files without telling us.
+ *
+ * @author hmusum
+ */
+public class FileReferenceHolders {
+
+    static final int maxFileReferences = 1000;
+    static final int maxHoldersPerFileReference = 1000;
+    static final Duration holderTimeToLive = Duration.ofHours(1);
+
+    /** The holders of each file reference, with the time they were added, oldest first */
+    private final Map<FileReference, Map<String, Instant>> holders = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<FileReference, Map<String, Instant>> eldest) {
+            return size() > maxFileReferences;
+        }
+    };
+    private final Random random;
+    private final Clock clock;
+
+    public FileReferenceHolders() {
+        this(new Random(), Clock.systemUTC());
+    }
+
+    FileReferenceHolders(Random random, Clock clock) {
+        this.random = random;
+        this.clock = clock;
+    }
+
+    /** Registers that the node listening on the given spec has the given file reference available */
+    public synchronized void add(FileReference fileReference, String spec) {
+        Map<String, Instant> specs = holders.computeIfAbsent(fileReference, __ -> new LinkedHashMap<>());
+        specs.remove(spec); // re-add as the newest
+        if (specs.size() >= maxHoldersPerFileReference) {
+            // Evict the oldest holder, newer holders are more likely to still have the file
+            specs.remove(specs.keySet().iterator().next());
+        }
+        specs.put(spec, clock.instant());
+    }
+
+    /** Removes the node listening on the given spec as holder of the given file reference */
+    public synchronized void remove(FileReference fileReference, String spec) {
+        Map<String, Instant> specs = holders.get(fileReference);
+        if (specs == null) return;
+
+        specs.remove(spec);
+        if (specs.isEmpty()) holders.remove(fileReference);
+    }
+
+    /**
+     * Returns at most <code>count</code> randomly chosen holders of the given file reference. Returning
+     * a random subset spreads the load over all holders, so the number of nodes able to serve a file
+     * grows as downloads complete.
+     */
+    public synchronized List<String> holders(FileReference fileReference, int count) {
+        Map<String, Instant> specs = holders.get(fileReference);
+        if (specs == null) return List.of();
+
+        Instant oldestValid = clock.instant().minus(holderTimeToLive);
+        specs.values().removeIf(added -> added.isBefore(oldestValid));
+        if (specs.isEmpty()) {
+            holders.remove(fileReference);
+            return List.of();
+        }
+
+        List<String> result = new ArrayList<>(specs.keySet());
+        Collections.shuffle(result, random);
+        return List.copyOf(result.subList(0, Math.min(count, result.size())));
+    }
+
+    public synchronized int size() {
+        return holders.size();
+    }
+
+}
@@ -37,6 +37,7 @@ public class FileServer {
     private final ExecutorService pushExecutor;
     private final ExecutorService pullExecutor;
     private final FileDownloader downloader;
+    private final FileReferenceHolders fileReferenceHolders = new FileReferenceHolders();
 
     private enum FileApiErrorCodes {
         OK(0, "OK"),
@@ -198,6 +199,11 @@ public class FileServer {
         return downloader;
     }
 
+    /** Returns the nodes known to have completed downloading file references, used for peer-assisted downloads */
+    public FileReferenceHolders fileReferenceHolders() {
+        return fileReferenceHolders;
+    }
+
     public void close() {
         downloader.close();
         pullExecutor.shutdown();
@@ -10,13 +10,12 @@ import com.yahoo.config.provision.ApplicationId;
 import com.yahoo.config.provision.HostLivenessTracker;
 import com.yahoo.config.provision.TenantName;
 import com.yahoo.jrt.Acceptor;
-import com.yahoo.jrt.DataValue;
 import com.yahoo.jrt.Int32Value;
-import com.yahoo.jrt.Int64Value;
 import com.yahoo.jrt.ListenFailedException;
 import com.yahoo.jrt.Method;
 import com.yahoo.jrt.Request;
 import com.yahoo.jrt.Spec;
+import com.yahoo.jrt.StringArray;
 import com.yahoo.jrt.StringValue;
 import com.yahoo.jrt.Supervisor;
 import com.yahoo.jrt.Target;
@@ -42,11 +41,11 @@ import com.yahoo.vespa.config.server.tenant.Tenant;
 import com.yahoo.vespa.config.server.tenant.TenantListener;
 import com.yahoo.vespa.config.server.tenant.TenantRepository;
 import com.yahoo.vespa.filedistribution.FileDownloader;
-import com.yahoo.vespa.filedistribution.FileReceiver;
 import com.yahoo.vespa.filedistribution.FileReferenceData;
 import com.yahoo.vespa.filedistribution.FileReferenceDownload;
+import com.yahoo.vespa.filedistribution.FileReferenceSender;
 
-import java.nio.ByteBuffer;
+import java.net.InetAddress;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -80,6 +79,7 @@ public class RpcServer implements Runnable, ReloadListener, TenantListener {
     private static final String THREADPOOL_NAME = "rpcserver worker pool";
     private static final long SHUTDOWN_TIMEOUT = 60;
     private static final int JRT_RPC_TRANSPORT_THREADS = threadsToUse();
+    private static final int MAX_FILE_REFERENCE_HOLDERS_RETURNED = 5;
 
     private final Supervisor supervisor = new Supervisor(new Transport("rpc", JRT_RPC_TRANSPORT_THREADS));
     private final Spec spec;
@@ -227,6 +227,25 @@ public class RpcServer implements Runnable, ReloadListener, TenantListener {
                                      .methodDesc("set which file references to download")
                                      .paramDesc(0, "file references", "file reference to download")
                                      .returnDesc(0, "ret", "0 if success, 1 otherwise"));
+        getSupervisor().addMethod(new Method("filedistribution.getFileReferenceHolders", "s", "S", this::getFileReferenceHolders)
+                                     .methodDesc("get nodes that can serve a file reference")
+                                     .paramDesc(0, "file reference", "file reference")
+                                     .returnDesc(0, "specs", "rpc specs of nodes that have downloaded the file reference"));
+        getSupervisor().addMethod(new Method("filedistribution.addFileReferenceHolder", "si", "i", this::addFileReferenceHolder)
+                                     .methodDesc("register the calling node as one that can serve a file reference to other nodes")
+                                     .paramDesc(0, "file reference", "file reference")
+                                     .paramDesc(1, "port", "port the calling node serves the file reference on")
+                                     .returnDesc(0, "ret", "0 if success, 1 otherwise"));
+        getSupervisor().addMethod(new Method("filedistribution.removeFileReferenceHolder", "ss", "i", this::removeFileReferenceHolder)
+                                     .methodDesc("unregister a node which failed to serve a file reference")
+                                     .paramDesc(0, "file reference", "file reference")
+                                     .paramDesc(1, "spec", "rpc spec of the node, as returned by getFileReferenceHolders")
+                                     .returnDesc(0, "ret", "0 if success, 1 otherwise"));
+        getSupervisor().addMethod(new Method("filedistribution.authorizePeerFileRequest", "ss", "i", this::authorizePeerFileRequest)
+                                     .methodDesc("check whether the calling node may serve a file reference to a peer")
+                                     .paramDesc(0, "file reference", "file reference")
+                                     .paramDesc(1, "certificate chain", "PEM encoded certificate chain of the peer, or empty if insecure")
+                                     .returnDesc(0, "ret", "0 if allowed, an error is returned otherwise"));
     }
 
     private ApplicationState getState(ApplicationId id) {
@@ -460,93 +479,19 @@ public class RpcServer implements Runnable, ReloadListener, TenantListener {
     }
 
     static class ChunkedFileReceiver implements FileServer.Receiver {
-        final Target target;
+        final FileReferenceSender sender;
         ChunkedFileReceiver(Target target) {
-            this.target = target;
+            this.sender = new FileReferenceSender(target);
         }
 
         @Override
         public String toString() {
-            return target.toString();
+            return sender.toString();
         }
 
         @Override
         public void receive(FileReferenceData fileData, FileServer.ReplayStatus status) {
-            int session = sendMeta(fileData);
-            sendParts(session, fileData);
-            sendEof(session, fileData, status);
-        }
-        private void sendParts(int session, FileReferenceData fileData) {
-            ByteBuffer bb = ByteBuffer.allocate(0x100000);
-            for (int partId = 0, read = fileData.nextContent(bb); read >= 0; partId++, read = fileData.nextContent(bb)) {
-                byte [] buf = bb.array();
-                if (buf.length != bb.position()) {
-                    buf = new byte [bb.position()];
-                    bb.flip();
-                    bb.get(buf);
-                }
-                sendPart(session, fileData.fileReference(), partId, buf);
-                bb.clear();
-            }
-        }
-        private int sendMeta(FileReferenceData fileData) {
-            Request request = new Request(FileReceiver.RECEIVE_META_METHOD);
-            request.parameters().add(new StringValue(fileData.fileReference().value()));
-            request.parameters().add(new StringValue(fileData.filename()));
-            request.parameters().add(new StringValue(fileData.type().name()));
-            request.parameters().add(new Int64Value(fileData.size()));
-            invokeRpcIfValidConnection(request);
-            if (request.isError()) {
-                log.warning("Failed delivering meta for reference '" + fileData.fileReference().value() + "' with file '" + fileData.filename() + "' to " +
-                        target.toString() + " with error: '" + request.errorMessage() + "'.");
-                return 1;
-            } else {
-                if (request.returnValues().get(0).asInt32() != 0) {
-                    throw new IllegalArgumentException("Unknown error from target '" + target.toString() + "' during rpc call " + request.methodName());
-                }
-                return request.returnValues().get(1).asInt32();
-            }
-        }
-        private void sendPart(int session, FileReference ref, int partId, byte [] buf) {
-            Request request = new Request(FileReceiver.RECEIVE_PART_METHOD);
-            request.parameters().add(new StringValue(ref.value()));
-            request.parameters().add(new Int32Value(session));
-            request.parameters().add(new Int32Value(partId));
-            request.parameters().add(new DataValue(buf));
-            invokeRpcIfValidConnection(request);
-            if (request.isError()) {
-                throw new IllegalArgumentException("Failed delivering reference '" + ref.value() + "' to " +
-                                                           target.toString() + " with error: '" + request.errorMessage() + "'.");
-            } else {
-                if (request.returnValues().get(0).asInt32() != 0) {
-                    throw new IllegalArgumentException("Unknown error from target '" + target.toString() + "' during rpc call " + request.methodName());
-                }
-            }
-        }
-        private void sendEof(int session, FileReferenceData fileData, FileServer.ReplayStatus status) {
-            Request request = new Request(FileReceiver.RECEIVE_EOF_METHOD);
-            request.parameters().add(new StringValue(fileData.fileReference().value()));
-            request.parameters().add(new Int32Value(session));
-            request.parameters().add(new Int64Value(fileData.xxhash()));
-            request.parameters().add(new Int32Value(status.getCode()));
-            request.parameters().add(new StringValue(status.getDescription()));
-            invokeRpcIfValidConnection(request);
-            if (request.isError()) {
-                throw new IllegalArgumentException("Failed delivering reference '" + fileData.fileReference().value() + "' with file '" + fileData.filename() + "' to " +
-                                                           target.toString() + " with error: '" + request.errorMessage() + "'.");
-            } else {
-                if (request.returnValues().get(0).asInt32() != 0) {
-                    throw new IllegalArgumentException("Unknown error from target '" + target.toString() + "' during rpc call " + request.methodName());
-                }
-            }
-        }
-
-        private void invokeRpcIfValidConnection(Request request) {
-            if (target.isValid()) {
-                target.invokeSync(request, 600);
-            } else {
-                throw new RuntimeException("Connection to " + target + " is invalid", target.getConnectionLostReason());
-            }
+            sender.send(fileData, status.getCode(), status.getDescription());
         }
     }
 
@@ -574,6 +519,53 @@ public class RpcServer implements Runnable, ReloadListener, TenantListener {
                 });
     }
 
+    private void getFileReferenceHolders(Request req) {
+        req.detach();
+        rpcAuthorizer.authorizeFileRequest(req)
+                .thenRun(() -> {
+                    FileReference fileReference = new FileReference(req.parameters().get(0).asString());
+                    List<String> holders = fileServer.fileReferenceHolders().holders(fileReference, MAX_FILE_REFERENCE_HOLDERS_RETURNED);
+                    req.returnValues().add(new StringArray(holders.toArray(new String[0])));
+                    req.returnRequest();
+                });
+    }
+
+    private void addFileReferenceHolder(Request req) {
+        req.detach();
+        rpcAuthorizer.authorizeFileRequest(req)
+                .thenRun(() -> {
+                    // The spec is built from the address of the connection to prevent nodes from registering others
+                    Optional<InetAddress> address = req.target().getPeerAddress();
+                    if (address.isPresent()) {
+                        FileReference fileReference = new FileReference(req.parameters().get(0).asString());
+                        Spec spec = new Spec(address.get().getHostAddress(), req.parameters().get(1).asInt32());
+                        fileServer.fileReferenceHolders().add(fileReference, spec.toString());
+                    }
+                    req.returnValues().add(new Int32Value(address.isPresent() ? 0 : 1));
+                    req.returnRequest();
+                });
+    }
+
+    private void removeFileReferenceHolder(Request req) {
+        req.detach();
+        rpcAuthorizer.authorizeFileRequest(req)
+                .thenRun(() -> {
+                    FileReference fileReference = new FileReference(req.parameters().get(0).asString());
+                    fileServer.fileReferenceHolders().remove(fileReference, req.parameters().get(1).asString());
+                    req.returnValues().add(new Int32Value(0));
+                    req.returnRequest();
+                });
+    }
+
+    private void authorizePeerFileRequest(Request req) {
+        req.detach();
+        rpcAuthorizer.authorizePeerFileRequest(req)
+                .thenRun(() -> {
+                    req.returnValues().add(new Int32Value(0));
+                    req.returnRequest();
+                });
+    }
+
     HostLivenessTracker hostLivenessTracker() {
         return hostLivenessTracker;
     }
@@ -11,6 +11,7 @@ import com.yahoo.config.provision.security.NodeIdentifierException;
 import com.yahoo.config.provision.security.NodeIdentity;
 import com.yahoo.jrt.Request;
 import com.yahoo.jrt.SecurityContext;
+import com.yahoo.security.X509CertificateUtils;
 import com.yahoo.security.tls.MixedMode;
 import com.yahoo.security.tls.TransportSecurityUtils;
 import com.yahoo.vespa.config.ConfigKey;
@@ -77,6 +78,17 @@ public class MultiTenantRpcAuthorizer implements RpcAuthorizer {
         return doAsyncAuthorization(request, this::doFileRequestAuthorization);
     }
 
+    @Override
+    public CompletableFuture<Void> authorizePeerFileRequest(Request request) {
+        // The serving node is identified by this connection, while the peer it serves is identified by
+        // the certificate chain the serving node got from it: Both must be allowed to access the file
+        return doAsyncAuthorization(request, (req, servingNodeIdentity) -> {
+            doFileRequestAuthorization(req, servingNodeIdentity);
+            getPeerIdentity(req.parameters().get(1).asString())
+                    .ifPresent(peerIdentity -> doFileRequestAuthorization(req, peerIdentity));
+        });
+    }
+
     private CompletableFuture<Void> doAsyncAuthorization(Request request, BiConsumer<Request, NodeIdentity> authorizer) {
         return CompletableFuture.runAsync(
                 () -> {
@@ -177,10 +189,25 @@ public class MultiTenantRpcAuthorizer implements RpcAuthorizer {
         if (certChain.isEmpty()) {
             throw new IllegalStateException("Client authentication is not enforced!"); // clients should be required to authenticate when TLS is enabled
         }
+        NodeIdentity identity = identifyNode(certChain);
+        log.log(Level.FINE, () -> String.format("Client '%s' identified as %s", request.target().toString(), identity.toString()));
+        return Optional.of(identity);
+    }
+
+    // TODO Make peer identity mandatory once TLS mixed mode is removed
+    private Optional<NodeIdentity> getPeerIdentity(String certChainPem) {
+        if (certChainPem.isEmpty()) {
+            if (TransportSecurityUtils.getInsecureMixedMode() == MixedMode.DISABLED) {
+                throw new AuthorizationException("Certificate chain of peer missing");
+            }
+            return Optional.empty(); // peer choose to communicate over insecure channel
+        }
+        return Optional.of(identifyNode(X509CertificateUtils.certificateListFromPem(certChainPem)));
+    }
+
+    private NodeIdentity identifyNode(List<X509Certificate> certChain) {
         try {
-            NodeIdentity identity = nodeIdentifier.identifyNode(certChain);
-            log.log(Level.FINE, () -> String.format("Client '%s' identified as %s", request.target().toString(), identity.toString()));
-            return Optional.of(identity);
+            return nodeIdentifier.identifyNode(certChain);
         } catch (NodeIdentifierException e) {
             throw new AuthorizationException("Failed to identify peer: " + e.getMessage(), e);
         }
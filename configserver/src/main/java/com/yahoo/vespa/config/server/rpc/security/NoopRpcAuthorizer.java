@@ -21,4 +21,9 @@ public class NoopRpcAuthorizer implements RpcAuthorizer {
     public CompletableFuture<Void> authorizeFileRequest(Request request) {
         return CompletableFuture.completedFuture(null);
     }
+
+    @Override
+    public CompletableFuture<Void> authorizePeerFileRequest(Request request) {
+        return CompletableFuture.completedFuture(null);
+    }
 }
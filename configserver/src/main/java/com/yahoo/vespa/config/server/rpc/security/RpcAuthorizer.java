@@ -16,4 +16,10 @@ public interface RpcAuthorizer {
 
     CompletableFuture<Void> authorizeFileRequest(Request request);
 
+    /**
+     * Authorizes a node to serve the file reference given as the first parameter to the peer node
+     * having the certificate chain given (as PEM) in the second parameter
+     */
+    CompletableFuture<Void> authorizePeerFileRequest(Request request);
+
 }
@@ -0,0 +1,91 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.config.server.filedistribution;
+
+import com.yahoo.config.FileReference;
+import com.yahoo.test.ManualClock;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author hmusum
+ */
+public class FileReferenceHoldersTest {
+
+    private final FileReference foo = new FileReference("foo");
+    private final FileReference bar = new FileReference("bar");
+
+    @Test
+    public void holders_are_tracked_per_file_reference() {
+        FileReferenceHolders holders = new FileReferenceHolders(new Random(1), new ManualClock());
+        assertTrue(holders.holders(foo, 5).isEmpty());
+
+        holders.add(foo, "tcp/host1:19090");
+        holders.add(foo, "tcp/host2:19090");
+        holders.add(foo, "tcp/host2:19090");
+        holders.add(bar, "tcp/host3:19090");
+
+        assertEquals(Set.of("tcp/host1:19090", "tcp/host2:19090"), new HashSet<>(holders.holders(foo, 5)));
+        assertEquals(List.of("tcp/host3:19090"), holders.holders(bar, 5));
+
+        holders.remove(bar, "tcp/host3:19090");
+        assertTrue(holders.holders(bar, 5).isEmpty());
+        assertEquals(1, holders.size());
+    }
+
+    @Test
+    public void returns_random_subset_of_holders() {
+        FileReferenceHolders holders = new FileReferenceHolders(new Random(1), new ManualClock());
+        for (int i = 0; i < 100; i++)
+            holders.add(foo, "tcp/host" + i + ":19090");
+
+        List<String> first = holders.holders(foo, 5);
+        assertEquals(5, first.size());
+        assertEquals(5, new HashSet<>(first).size());
+        assertFalse(first.equals(holders.holders(foo, 5)));
+    }
+
+    @Test
+    public void number_of_holders_and_file_references_is_bounded() {
+        FileReferenceHolders holders = new FileReferenceHolders(new Random(1), new ManualClock());
+        for (int i = 0; i <= FileReferenceHolders.maxHoldersPerFileReference; i++)
+            holders.add(foo, "tcp/host" + i + ":19090");
+        assertEquals(FileReferenceHolders.maxHoldersPerFileReference, holders.holders(foo, Integer.MAX_VALUE).size());
+        assertFalse(holders.holders(foo, Integer.MAX_VALUE).contains("tcp/host0:19090"));
+
+        for (int i = 0; i <= FileReferenceHolders.maxFileReferences; i++)
+            holders.add(new FileReference("ref" + i), "tcp/host1:19090");
+        assertEquals(FileReferenceHolders.maxFileReferences, holders.size());
+        assertTrue(holders.holders(foo, 5).isEmpty());
+    }
+
+    @Test
+    public void holders_expire() {
+        ManualClock clock = new ManualClock();
+        FileReferenceHolders holders = new FileReferenceHolders(new Random(1), clock);
+        holders.add(foo, "tcp/host1:19090");
+        clock.advance(FileReferenceHolders.holderTimeToLive.minus(Duration.ofMinutes(1)));
+        holders.add(foo, "tcp/host2:19090");
+        assertEquals(Set.of("tcp/host1:19090", "tcp/host2:19090"), new HashSet<>(holders.holders(foo, 5)));
+
+        clock.advance(Duration.ofMinutes(2));
+        assertEquals(List.of("tcp/host2:19090"), holders.holders(foo, 5));
+
+        holders.add(foo, "tcp/host2:19090"); // refreshes
+        clock.advance(FileReferenceHolders.holderTimeToLive.minus(Duration.ofMinutes(1)));
+        assertEquals(List.of("tcp/host2:19090"), holders.holders(foo, 5));
+
+        clock.advance(Duration.ofMinutes(2));
+        assertTrue(holders.holders(foo, 5).isEmpty());
+        assertEquals(0, holders.size());
+    }
+
+}
@@ -19,6 +19,7 @@ import com.yahoo.security.KeyAlgorithm;
 import com.yahoo.security.KeyUtils;
 import com.yahoo.security.SignatureAlgorithm;
 import com.yahoo.security.X509CertificateBuilder;
+import com.yahoo.security.X509CertificateUtils;
 import com.yahoo.slime.Cursor;
 import com.yahoo.slime.JsonFormat;
 import com.yahoo.slime.Slime;
@@ -142,6 +143,36 @@ public class MultiTenantRpcAuthorizerTest {
                 .get();
     }
 
+    @Test
+    public void tenant_node_can_serve_its_own_files_to_peers() throws ExecutionException, InterruptedException {
+        NodeIdentity identity = new NodeIdentity.Builder(NodeType.tenant)
+                .applicationId(APPLICATION_ID)
+                .build();
+
+        RpcAuthorizer authorizer = createAuthorizer(identity, new HostRegistry());
+
+        Request peerFileRequest = createPeerFileRequest(FILE_REFERENCE);
+        authorizer.authorizePeerFileRequest(peerFileRequest)
+                .get();
+    }
+
+    @Test
+    public void tenant_node_cannot_serve_other_files_to_peers() throws ExecutionException, InterruptedException {
+        NodeIdentity identity = new NodeIdentity.Builder(NodeType.tenant)
+                .applicationId(APPLICATION_ID)
+                .build();
+
+        RpcAuthorizer authorizer = createAuthorizer(identity, new HostRegistry());
+
+        Request peerFileRequest = createPeerFileRequest(new FileReference("other-file-reference"));
+
+        exceptionRule.expectMessage("Peer is not allowed to access file reference other-file-reference");
+        exceptionRule.expectCause(instanceOf(AuthorizationException.class));
+
+        authorizer.authorizePeerFileRequest(peerFileRequest)
+                .get();
+    }
+
     @Test
     public void tenant_node_cannot_access_other_config() throws ExecutionException, InterruptedException {
         NodeIdentity identity = new NodeIdentity.Builder(NodeType.tenant)
@@ -234,6 +265,10 @@ public class MultiTenantRpcAuthorizerTest {
         return mockJrtRpcRequest(fileReference.value());
     }
 
+    private static Request createPeerFileRequest(FileReference fileReference) {
+        return mockJrtRpcRequest(fileReference.value(), X509CertificateUtils.toPem(PEER_CERTIFICATE_CHAIN));
+    }
+
     private static RequestHandlerProvider createRequestHandlerProviderMock() {
         RequestHandler requestHandler = mock(RequestHandler.class);
         when(requestHandler.hasApplication(APPLICATION_ID, Optional.empty())).thenReturn(true);
@@ -246,7 +281,7 @@ public class MultiTenantRpcAuthorizerTest {
         return handlerProvider;
     }
 
-    private static Request mockJrtRpcRequest(String payload) {
+    private static Request mockJrtRpcRequest(String ... payload) {
         SecurityContext securityContext = mock(SecurityContext.class);
         when(securityContext.peerCertificateChain()).thenReturn(PEER_CERTIFICATE_CHAIN);
         Target target = mock(Target.class);
@@ -254,7 +289,8 @@ public class MultiTenantRpcAuthorizerTest {
         Request request = mock(Request.class);
         when(request.target()).thenReturn(target);
         Values values = new Values();
-        values.add(new StringValue(payload));
+        for (String parameter : payload)
+            values.add(new StringValue(parameter));
         when(request.parameters()).thenReturn(values);
         return request;
     }
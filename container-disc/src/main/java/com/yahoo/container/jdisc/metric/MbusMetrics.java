@@ -0,0 +1,32 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.container.jdisc.metric;
+
+import com.yahoo.jdisc.Metric;
+import com.yahoo.messagebus.network.rpc.CompressionMetrics;
+
+import static com.yahoo.messagebus.network.rpc.CompressionMetrics.Snapshot;
+
+/**
+ * Emits message bus metrics
+ *
+ * @author bratseth
+ */
+class MbusMetrics {
+
+    private final CompressionMetrics compressionMetrics = CompressionMetrics.getInstance();
+    private final Metric metric;
+    private Snapshot previousSnapshot = Snapshot.EMPTY;
+
+    MbusMetrics(Metric metric) {
+        this.metric = metric;
+    }
+
+    void emitMetrics() {
+        Snapshot snapshot = compressionMetrics.snapshot();
+        Snapshot changesSincePrevious = snapshot.changesSince(previousSnapshot);
+        if (changesSincePrevious.uncompressedBytesSent() > 0)
+            metric.set("mbus.compression-ratio", changesSincePrevious.compressionRatio(), null);
+        previousSnapshot = snapshot;
+    }
+
+}
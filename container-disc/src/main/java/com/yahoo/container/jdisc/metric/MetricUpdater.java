@@ -88,12 +88,14 @@ public class MetricUpdater extends AbstractComponent {
         private final ContainerWatchdogMetrics containerWatchdogMetrics;
         private final GarbageCollectionMetrics garbageCollectionMetrics;
         private final JrtMetrics jrtMetrics;
+        private final MbusMetrics mbusMetrics;
 
         public UpdaterTask(Metric metric, ContainerWatchdogMetrics containerWatchdogMetrics) {
             this.metric = metric;
             this.containerWatchdogMetrics = containerWatchdogMetrics;
             this.garbageCollectionMetrics = new GarbageCollectionMetrics(Clock.systemUTC());
             this.jrtMetrics = new JrtMetrics(metric);
+            this.mbusMetrics = new MbusMetrics(metric);
         }
 
         @Override
@@ -110,6 +112,7 @@ public class MetricUpdater extends AbstractComponent {
             containerWatchdogMetrics.emitMetrics(metric);
             garbageCollectionMetrics.emitMetrics(metric);
             jrtMetrics.emitMetrics();
+            mbusMetrics.emitMetrics();
         }
     }
 
@@ -2,6 +2,7 @@
 package com.yahoo.container.jdisc.messagebus;
 
 import com.yahoo.component.AbstractComponent;
+import com.yahoo.compress.CompressionType;
 import com.yahoo.config.subscription.ConfigGetter;
 import com.yahoo.container.jdisc.ContainerMbusConfig;
 import com.yahoo.document.DocumentTypeManager;
@@ -125,7 +126,9 @@ public final class SessionCache extends AbstractComponent {
                 .setNumTargetsPerSpec(mbusConfig.numconnectionspertarget())
                 .setNumNetworkThreads(mbusConfig.numthreads())
                 .setTransportEventsBeforeWakeup(mbusConfig.transport_events_before_wakeup())
-                .setOptimization(RPCNetworkParams.Optimization.valueOf(mbusConfig.optimize_for().name()));
+                .setOptimization(RPCNetworkParams.Optimization.valueOf(mbusConfig.optimize_for().name()))
+                .setCompressionType(CompressionType.valueOf(mbusConfig.compression_type().name()))
+                .setCompressionLevel(mbusConfig.compression_level());
         return SharedMessageBus.newInstance(mbusParams, netParams);
     }
 
@@ -110,9 +110,9 @@ public class NGramSearcher extends Searcher {
         CompositeItem gramsItem = createGramRoot((HasIndexItem)term, query);
         gramsItem.setIndexName(index);
         Substring origin = ((BlockItem)term).getOrigin();
-        for (Iterator<GramSplitter.Gram> i = getGramSplitter().split(text,gramSize); i.hasNext(); ) {
-            GramSplitter.Gram gram = i.next();
-            WordItem gramWord = new WordItem(gram.extractFrom(text), index, false, origin);
+        GramSplitter.GramIterator grams = getGramSplitter().gramIterator().reset(text, gramSize);
+        while (grams.next()) {
+            WordItem gramWord = new WordItem(text.substring(grams.start(), grams.end()), index, false, origin);
             gramWord.setWeight(term.getWeight());
             gramWord.setProtected(true);
             gramsItem.addItem(gramWord);
@@ -0,0 +1,38 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.docproc;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>A document processor which processes multiple processings in one call. Subclass this
+ * instead of {@link DocumentProcessor} when the cost of processing can be amortized over many documents,
+ * e.g when evaluating a model or calling a remote service once per batch.</p>
+ *
+ * <p>A {@link DocprocExecutor} with batching enabled collects concurrent processings into batches before passing them
+ * through the chain. Other processors in the same chain are still called with one processing at a time.
+ * When there is no batching, or when this is called through {@link #process(Processing)},
+ * the batch contains a single processing.</p>
+ *
+ * @author bratseth
+ */
+public abstract class BatchDocumentProcessor extends DocumentProcessor {
+
+    /**
+     * Processes a batch of processings. The implementing document processor is free to modify,
+     * replace or delete elements in the document operation lists of the processings,
+     * but must not change the list of processings itself.
+     * If this throws an exception, all the processings of the batch fail.
+     *
+     * @param processings the processings to process
+     * @return the outcome of each processing, in the same order as the given processings
+     */
+    public abstract List<Progress> process(List<Processing> processings);
+
+    /** Processes a single processing as a batch of one */
+    @Override
+    public Progress process(Processing processing) {
+        return process(Collections.singletonList(processing)).get(0);
+    }
+
+}
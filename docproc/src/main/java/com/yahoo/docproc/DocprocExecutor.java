@@ -8,10 +8,17 @@ import com.yahoo.jdisc.Metric;
 import com.yahoo.statistics.Counter;
 import com.yahoo.text.Utf8;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.ListIterator;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -36,6 +43,11 @@ public class DocprocExecutor {
     private final Metric metric;
     private Function<String, Metric.Context> contexts;
     private final CallStack callStack;
+    private final int maxBatchSize;
+    private final Duration maxBatchDelay;
+
+    /** Collects concurrent processings into batches, or null if this processes each processing separately */
+    private final Batcher batcher;
 
     /**
      * Creates a new named DocprocExecutor with the given CallStack.
@@ -44,6 +56,20 @@ public class DocprocExecutor {
      * @param callStack the chain of document processors this executor shall execute on processings
      */
     public DocprocExecutor(String name, CallStack callStack) {
+        this(name, callStack, 1, Duration.ZERO);
+    }
+
+    /**
+     * Creates a new named DocprocExecutor with the given CallStack, which collects processings passed to
+     * {@link #process(Processing)} concurrently into batches if the CallStack contains a {@link BatchDocumentProcessor}.
+     *
+     * @param name the name of this executor
+     * @param callStack the chain of document processors this executor shall execute on processings
+     * @param maxBatchSize the max number of processings to process together, 1 to process each one separately.
+     *                     Batches only fill up when at least this many threads call process concurrently.
+     * @param maxBatchDelay the max time to wait for more processings before processing a batch which is not full
+     */
+    public DocprocExecutor(String name, CallStack callStack, int maxBatchSize, Duration maxBatchDelay) {
         this.name = name;
         String chainDimension = name != null ? name.replaceAll("[^\\p{Alnum}]", "_") : name;
         docCounterName = "chain_" + chainDimension + "_documents";
@@ -52,6 +78,9 @@ public class DocprocExecutor {
         this.callStack = callStack;
         this.callStack.setName(name);
         this.contexts = cachedContexts(chainDimension);
+        this.maxBatchSize = maxBatchSize;
+        this.maxBatchDelay = maxBatchDelay;
+        this.batcher = createBatcher(callStack);
     }
 
     /**
@@ -68,6 +97,18 @@ public class DocprocExecutor {
         this.metric = oldExecutor.metric;
         this.contexts = oldExecutor.contexts;
         this.callStack = callStack;
+        this.maxBatchSize = oldExecutor.maxBatchSize;
+        this.maxBatchDelay = oldExecutor.maxBatchDelay;
+        this.batcher = createBatcher(callStack);
+    }
+
+    private Batcher createBatcher(CallStack callStack) {
+        if (maxBatchSize <= 1) return null;
+        for (ListIterator<Call> i = callStack.iterator(); i.hasNext(); ) {
+            if (i.next().getDocumentProcessor() instanceof BatchDocumentProcessor)
+                return new Batcher();
+        }
+        return null; // No processor gains anything from batching
     }
 
     public CallStack getCallStack() {
@@ -89,8 +130,21 @@ public class DocprocExecutor {
         }
     }
 
+    private void prepare(Processing processing) {
+        processing.setServiceName(getName());
+        if (processing.callStack() == null) {
+            processing.setCallStack(new CallStack(getCallStack()));
+        }
+
+        //metrics stuff:
+        //TODO: Note that this is *wrong* in case of Progress.LATER, documents are then counted several times until the Processing is DONE or FAILED.
+        incrementNumDocsProcessed(processing);
+    }
+
     /**
-     * Processes a given Processing through the CallStack of this executor.
+     * Processes a given Processing through the CallStack of this executor. If this executor batches processings,
+     * this may wait at each {@link BatchDocumentProcessor} for other processings to be processed together with
+     * this, up to the max batch delay.
      *
      * @param processing the Processing to process. The CallStack of the Processing will be set to a clone of the CallStack of this executor, iff. it is currently null.
      * @return a Progress; if this is LATER, the Processing is not done and must be reprocessed later.
@@ -98,15 +152,8 @@ public class DocprocExecutor {
      * @see com.yahoo.docproc.Processing
      */
     public DocumentProcessor.Progress process(Processing processing) {
-        processing.setServiceName(getName());
-        if (processing.callStack() == null) {
-            processing.setCallStack(new CallStack(getCallStack()));
-        }
-
+        prepare(processing);
         DocumentProcessor.Progress progress = DocumentProcessor.Progress.DONE;
-        //metrics stuff:
-        //TODO: Note that this is *wrong* in case of Progress.LATER, documents are then counted several times until the Processing is DONE or FAILED.
-        incrementNumDocsProcessed(processing);
         do {
             Call call = processing.callStack().pop();
             if (call == null) {
@@ -116,7 +163,10 @@ public class DocprocExecutor {
 
             progress = DocumentProcessor.Progress.DONE;
             //might throw exception, which is OK:
-            progress = call.call(processing);
+            if (batcher != null && call.getDocumentProcessor() instanceof BatchDocumentProcessor)
+                progress = batcher.call(call, processing);
+            else
+                progress = call.call(processing);
 
             if (log.isLoggable(Level.FINEST)) {
                 logProgress(processing, progress, call);
@@ -130,6 +180,101 @@ public class DocprocExecutor {
         return progress;
     }
 
+    /**
+     * Processes the given Processings together through the CallStack of this executor. Each {@link BatchDocumentProcessor}
+     * is called once with all the processings which reach it at the same time, while other document processors
+     * are called with one processing at a time.
+     *
+     * @param processings the Processings to process. The CallStack of each Processing will be set to a clone of the CallStack of this executor, iff. it is currently null.
+     * @return the Progress of each processing, in the same order; where this is LATER, the Processing is not done and must be reprocessed later.
+     * @throws RuntimeException if a document processor throws an exception during processing. The processings
+     *         which did not fail are processed as far as possible before this is thrown.
+     */
+    public List<DocumentProcessor.Progress> process(List<Processing> processings) {
+        List<DocumentProcessor.Progress> progresses = new ArrayList<>(processings.size());
+        for (Outcome outcome : processTogether(processings))
+            progresses.add(outcome.progress());
+        return progresses;
+    }
+
+    private List<Outcome> processTogether(List<Processing> processings) {
+        Outcome[] outcomes = new Outcome[processings.size()];
+        List<Integer> active = new ArrayList<>(processings.size());
+        for (int i = 0; i < processings.size(); i++) {
+            prepare(processings.get(i));
+            active.add(i);
+        }
+
+        while ( ! active.isEmpty()) {
+            // Call the next processor of the first active processing with all the processings for which it is next
+            DocumentProcessor processor = null;
+            List<Integer> batch = new ArrayList<>();
+            for (Iterator<Integer> i = active.iterator(); i.hasNext(); ) {
+                int index = i.next();
+                Call next = processings.get(index).callStack().peek();
+                if (next == null) { // No more processors - done
+                    outcomes[index] = new Outcome(DocumentProcessor.Progress.DONE, null);
+                    i.remove();
+                }
+                else if (processor == null || processor == next.getDocumentProcessor()) {
+                    processor = next.getDocumentProcessor();
+                    batch.add(index);
+                }
+            }
+            if (batch.isEmpty()) break;
+
+            if (processor instanceof BatchDocumentProcessor)
+                callBatch(batch, processings, outcomes);
+            else
+                callEach(batch, processings, outcomes);
+            active.removeIf(index -> outcomes[index] != null);
+        }
+        return Arrays.asList(outcomes);
+    }
+
+    private void callBatch(List<Integer> batch, List<Processing> processings, Outcome[] outcomes) {
+        List<Processing> batchProcessings = new ArrayList<>(batch.size());
+        List<Call> calls = new ArrayList<>(batch.size());
+        for (int index : batch) {
+            batchProcessings.add(processings.get(index));
+            calls.add(processings.get(index).callStack().pop());
+        }
+        try {
+            List<DocumentProcessor.Progress> progresses = calls.get(0).call(batchProcessings);
+            for (int i = 0; i < batch.size(); i++)
+                outcomes[batch.get(i)] = outcomeOf(batchProcessings.get(i), calls.get(i), progresses.get(i));
+        }
+        catch (RuntimeException e) {
+            for (int index : batch)
+                outcomes[index] = new Outcome(null, e);
+        }
+    }
+
+    private void callEach(List<Integer> batch, List<Processing> processings, Outcome[] outcomes) {
+        for (int index : batch) {
+            Processing processing = processings.get(index);
+            Call call = processing.callStack().pop();
+            try {
+                outcomes[index] = outcomeOf(processing, call, call.call(processing));
+            }
+            catch (RuntimeException e) {
+                outcomes[index] = new Outcome(null, e);
+            }
+        }
+    }
+
+    /** Returns the outcome of a processing after the given call returned the given progress, or null if it should continue */
+    private Outcome outcomeOf(Processing processing, Call call, DocumentProcessor.Progress progress) {
+        if (log.isLoggable(Level.FINEST)) {
+            logProgress(processing, progress, call);
+        }
+        if (DocumentProcessor.Progress.DONE.equals(progress)) return null;
+        if (DocumentProcessor.Progress.LATER.equals(progress)) {
+            processing.callStack().addNext(call);
+        }
+        return new Outcome(progress, null);
+    }
+
     private void logProgress(Processing processing, DocumentProcessor.Progress progress, Call call) {
         StringBuilder message = new StringBuilder();
         boolean first = true;
@@ -182,6 +327,125 @@ public class DocprocExecutor {
         return progress;
     }
 
+    /**
+     * Collects the processings which concurrent callers pass to the same batch document processor into batches.
+     * The thread which starts a batch calls the processor with it, while the other threads wait for it,
+     * and then each thread continues processing its own processing through the rest of the chain.
+     */
+    private class Batcher {
+
+        /** The batch currently collecting processings for each batch processor. Guarded by this */
+        private final Map<DocumentProcessor, Batch> current = new HashMap<>();
+
+        DocumentProcessor.Progress call(Call call, Processing processing) {
+            DocumentProcessor processor = call.getDocumentProcessor();
+            Batch batch;
+            int index;
+            boolean started;
+            synchronized (this) {
+                batch = current.get(processor);
+                started = batch == null;
+                if (started) {
+                    batch = new Batch();
+                    current.put(processor, batch);
+                }
+                index = batch.add(processing);
+                if (batch.size() >= maxBatchSize) {
+                    current.remove(processor);
+                    notifyAll();
+                }
+            }
+
+            if (started) {
+                awaitFull(processor, batch);
+                try {
+                    batch.complete(call.call(batch.processings()));
+                }
+                catch (RuntimeException | Error e) {
+                    batch.fail(e);
+                    throw e;
+                }
+            }
+            return batch.progress(index);
+        }
+
+        private synchronized void awaitFull(DocumentProcessor processor, Batch batch) {
+            long deadline = System.nanoTime() + maxBatchDelay.toNanos();
+            long remaining;
+            while (current.get(processor) == batch && (remaining = deadline - System.nanoTime()) > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            if (current.get(processor) == batch)
+                current.remove(processor);
+        }
+
+    }
+
+    private static class Batch {
+
+        private final List<Processing> processings = new ArrayList<>();
+        private final CountDownLatch done = new CountDownLatch(1);
+        private List<DocumentProcessor.Progress> progresses = null;
+        private Throwable failure = null;
+
+        /** Adds a processing to this and returns its index */
+        int add(Processing processing) {
+            processings.add(processing);
+            return processings.size() - 1;
+        }
+
+        int size() { return processings.size(); }
+
+        List<Processing> processings() { return processings; }
+
+        void complete(List<DocumentProcessor.Progress> progresses) {
+            this.progresses = progresses;
+            done.countDown();
+        }
+
+        void fail(Throwable failure) {
+            this.failure = failure;
+            done.countDown();
+        }
+
+        /** Waits until this batch is processed and returns the progress of the processing at the given index */
+        DocumentProcessor.Progress progress(int index) {
+            try {
+                done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+            if (failure != null)
+                throw new RuntimeException("Processing of the batch failed", failure);
+            return progresses.get(index);
+        }
+
+    }
+
+    /** The progress of a processing, or the exception thrown while processing it */
+    private static class Outcome {
+
+        private final DocumentProcessor.Progress progress;
+        private final RuntimeException exception;
+
+        Outcome(DocumentProcessor.Progress progress, RuntimeException exception) {
+            this.progress = progress;
+            this.exception = exception;
+        }
+
+        DocumentProcessor.Progress progress() {
+            if (exception != null) throw exception;
+            return progress;
+        }
+
+    }
+
     private Function<String, Metric.Context> cachedContexts(String chainDimension) {
         Map<String, Metric.Context> contextCache = new ConcurrentHashMap<>();
         return documentType -> contextCache.computeIfAbsent(documentType, type -> {
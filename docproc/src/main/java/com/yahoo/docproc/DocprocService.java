@@ -8,6 +8,7 @@ import com.yahoo.docproc.proxy.SchemaMap;
 import com.yahoo.document.DocumentOperation;
 import com.yahoo.document.DocumentTypeManager;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
@@ -45,9 +46,17 @@ public class DocprocService extends AbstractComponent {
     private boolean acceptingNewProcessings = true;
     public static SchemaMap schemaMap = new SchemaMap();
     private DocumentTypeManager documentTypeManager = null;
+    private final int maxBatchSize;
+    private final Duration maxBatchDelay;
 
     private DocprocService(ComponentId id, int numThreads) {
+        this(id, numThreads, 1, Duration.ZERO);
+    }
+
+    private DocprocService(ComponentId id, int numThreads, int maxBatchSize, Duration maxBatchDelay) {
         super(id);
+        this.maxBatchSize = Math.min(maxBatchSize, numThreads); // a batch never has more processings than threads
+        this.maxBatchDelay = maxBatchDelay;
         queue = new LinkedBlockingQueue<>();
         threadPool = new ThreadPoolExecutor(numThreads,
                 numThreads,
@@ -69,7 +78,24 @@ public class DocprocService extends AbstractComponent {
      * @param numThreads to have in the thread pool
      */
     public DocprocService(ComponentId id, CallStack stack, DocumentTypeManager mgr, int numThreads) {
-        this(id, numThreads);
+        this(id, stack, mgr, numThreads, 1, Duration.ZERO);
+    }
+
+    /**
+     * Creates a new docproc service, which is set to be in service, and which processes concurrent
+     * processings together in batches when the call stack contains a {@link BatchDocumentProcessor}.
+     *
+     * @param id the component id of the new service.
+     * @param stack the call stack to use.
+     * @param mgr the document type manager to use.
+     * @param numThreads to have in the thread pool
+     * @param maxBatchSize the max number of processings to process together, 1 to process each one separately.
+     *                     This is capped at numThreads, as each processing in a batch is processed by its own thread.
+     * @param maxBatchDelay the max time to wait for more processings before processing a batch which is not full
+     */
+    public DocprocService(ComponentId id, CallStack stack, DocumentTypeManager mgr, int numThreads,
+                          int maxBatchSize, Duration maxBatchDelay) {
+        this(id, numThreads, maxBatchSize, maxBatchDelay);
         setCallStack(stack);
         setDocumentTypeManager(mgr);
         setInService(true);
@@ -179,7 +205,7 @@ public class DocprocService extends AbstractComponent {
      * for the call stacks of individual processings in this service
      */
     public void setCallStack(CallStack stack) {
-        DocprocExecutor ex = ((getExecutor() == null) ? new DocprocExecutor(getName(), stack) : new DocprocExecutor(getExecutor(), stack));
+        DocprocExecutor ex = ((getExecutor() == null) ? new DocprocExecutor(getName(), stack, maxBatchSize, maxBatchDelay) : new DocprocExecutor(getExecutor(), stack));
         setExecutor(ex);
     }
 
@@ -27,6 +27,7 @@ import com.yahoo.messagebus.jdisc.MbusRequest;
 import com.yahoo.processing.execution.chain.ChainRegistry;
 import com.yahoo.statistics.Statistics;
 
+import java.time.Duration;
 import java.util.TimerTask;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -56,6 +57,8 @@ public class DocumentProcessingHandler extends AbstractRequestHandler {
                                       ComponentRegistry<DocumentProcessor> documentProcessorComponentRegistry,
                                       ComponentRegistry<AbstractConcreteDocumentFactory> docFactoryRegistry,
                                       int numThreads,
+                                      int maxBatchSize,
+                                      Duration maxBatchDelay,
                                       DocumentTypeManager documentTypeManager,
                                       ChainsModel chainsModel, SchemaMap schemaMap, Statistics statistics,
                                       Metric metric,
@@ -73,7 +76,8 @@ public class DocumentProcessingHandler extends AbstractRequestHandler {
 
             for (Chain<DocumentProcessor> chain : chainRegistry.allComponents()) {
                 log.config("Setting up call stack for chain " + chain.getId());
-                DocprocService service = new DocprocService(chain.getId(), convertToCallStack(chain, statistics, metric), documentTypeManager, computeNumThreads(numThreads));
+                DocprocService service = new DocprocService(chain.getId(), convertToCallStack(chain, statistics, metric), documentTypeManager,
+                                                            computeNumThreads(numThreads), maxBatchSize, maxBatchDelay);
                 service.setInService(true);
                 docprocServiceRegistry.register(service.getId(), service);
             }
@@ -90,6 +94,8 @@ public class DocumentProcessingHandler extends AbstractRequestHandler {
                               DocumentProcessingHandlerParameters params) {
         this(docprocServiceRegistry, documentProcessorComponentRegistry, docFactoryRegistry,
              params.getMaxNumThreads(),
+             params.getMaxBatchSize(),
+             params.getMaxBatchDelay(),
              params.getDocumentTypeManager(), params.getChainsModel(), params.getSchemaMap(),
              params.getStatisticsManager(),
              params.getMetric(),
@@ -110,6 +116,8 @@ public class DocumentProcessingHandler extends AbstractRequestHandler {
              documentProcessorComponentRegistry, docFactoryRegistry,
                 new DocumentProcessingHandlerParameters()
                      .setMaxNumThreads(docprocConfig.numthreads())
+                     .setMaxBatchSize(docprocConfig.maxbatchsize())
+                     .setMaxBatchDelay(Duration.ofMillis(docprocConfig.maxbatchdelayms()))
                      .setDocumentTypeManager(new DocumentTypeManager(docManConfig))
                      .setChainsModel(buildFromConfig(chainsConfig)).setSchemaMap(configureMapping(mappingConfig))
                      .setStatisticsManager(manager)
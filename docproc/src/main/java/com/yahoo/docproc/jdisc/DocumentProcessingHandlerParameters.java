@@ -9,6 +9,8 @@ import com.yahoo.document.DocumentTypeManager;
 import com.yahoo.jdisc.Metric;
 import com.yahoo.statistics.Statistics;
 
+import java.time.Duration;
+
 /**
  * Class to hold parameters given to DocumentProcessingHandler, typically used by unit tests.
  *
@@ -18,6 +20,8 @@ import com.yahoo.statistics.Statistics;
 public class DocumentProcessingHandlerParameters {
 
     private int maxNumThreads = 0;
+    private int maxBatchSize = 1;
+    private Duration maxBatchDelay = Duration.ZERO;
     private DocumentTypeManager documentTypeManager = null;
     private ChainsModel chainsModel = null;
     private SchemaMap schemaMap = null;
@@ -50,6 +54,26 @@ public class DocumentProcessingHandlerParameters {
         return this;
     }
 
+    /** Returns the max number of concurrent processings to process together in batch document processors */
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public DocumentProcessingHandlerParameters setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+        return this;
+    }
+
+    /** Returns the max time to wait for more processings before processing a batch which is not full */
+    public Duration getMaxBatchDelay() {
+        return maxBatchDelay;
+    }
+
+    public DocumentProcessingHandlerParameters setMaxBatchDelay(Duration maxBatchDelay) {
+        this.maxBatchDelay = maxBatchDelay;
+        return this;
+    }
+
     public DocumentTypeManager getDocumentTypeManager() {
         return documentTypeManager;
     }
@@ -0,0 +1,280 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.docproc;
+
+import com.yahoo.component.ComponentId;
+import com.yahoo.document.DataType;
+import com.yahoo.document.Document;
+import com.yahoo.document.DocumentId;
+import com.yahoo.document.DocumentPut;
+import com.yahoo.document.DocumentType;
+import com.yahoo.document.DocumentTypeManager;
+import com.yahoo.document.datatypes.FieldValue;
+import com.yahoo.document.datatypes.StringFieldValue;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * @author bratseth
+ */
+public class BatchDocumentProcessorTestCase {
+
+    private final DocumentType type = new DocumentType("test");
+
+    public BatchDocumentProcessorTestCase() {
+        type.addField("test", DataType.STRING);
+    }
+
+    @Test
+    public void testBatchesArePassedThroughTheChain() {
+        CountingBatchProcessor batchProcessor = new CountingBatchProcessor();
+        DocprocExecutor executor = new DocprocExecutor("batch", stackOf(new AppendingProcessor("a"),
+                                                                         batchProcessor,
+                                                                         new AppendingProcessor("c")));
+        List<Processing> processings = new ArrayList<>();
+        for (int i = 0; i < 5; i++)
+            processings.add(Processing.of(newPut(i)));
+
+        List<DocumentProcessor.Progress> progresses = executor.process(processings);
+
+        assertEquals(Collections.nCopies(5, DocumentProcessor.Progress.DONE), progresses);
+        assertEquals(List.of(5), batchProcessor.batchSizes);
+        for (Processing processing : processings)
+            assertEquals(new StringFieldValue("abc"), documentOf(processing).getFieldValue("test"));
+    }
+
+    @Test
+    public void testLaterProcessingsAreContinuedSeparately() {
+        CountingBatchProcessor batchProcessor = new CountingBatchProcessor();
+        DocprocExecutor executor = new DocprocExecutor("batch", stackOf(new LaterOnceProcessor(1), batchProcessor));
+        List<Processing> processings = List.of(Processing.of(newPut(0)), Processing.of(newPut(1)), Processing.of(newPut(2)));
+
+        List<DocumentProcessor.Progress> progresses = executor.process(processings);
+        assertEquals(DocumentProcessor.Progress.DONE, progresses.get(0));
+        assertEquals(DocumentProcessor.Progress.LATER, progresses.get(1));
+        assertEquals(DocumentProcessor.Progress.DONE, progresses.get(2));
+        assertEquals(List.of(2), batchProcessor.batchSizes);
+
+        assertEquals(DocumentProcessor.Progress.DONE, executor.process(processings.get(1)));
+        assertEquals(List.of(2, 1), batchProcessor.batchSizes);
+        for (Processing processing : processings)
+            assertEquals(new StringFieldValue("b"), documentOf(processing).getFieldValue("test"));
+    }
+
+    @Test
+    public void testFailureOfOneProcessingDoesNotStopTheOthers() {
+        DocprocExecutor executor = new DocprocExecutor("batch", stackOf(new FailingProcessor(1),
+                                                                         new CountingBatchProcessor()));
+        List<Processing> processings = List.of(Processing.of(newPut(0)), Processing.of(newPut(1)), Processing.of(newPut(2)));
+        try {
+            executor.process(processings);
+            fail("Expected exception");
+        }
+        catch (IllegalArgumentException e) {
+            assertEquals("Failing document 1", e.getMessage());
+        }
+        assertEquals(new StringFieldValue("b"), documentOf(processings.get(0)).getFieldValue("test"));
+        assertEquals(null, documentOf(processings.get(1)).getFieldValue("test"));
+        assertEquals(new StringFieldValue("b"), documentOf(processings.get(2)).getFieldValue("test"));
+    }
+
+    @Test
+    public void testSingleProcessingsAreCollectedIntoBatches() throws Exception {
+        CountingBatchProcessor batchProcessor = new CountingBatchProcessor();
+        DocprocExecutor executor = new DocprocExecutor("batch", stackOf(batchProcessor), 4, Duration.ofSeconds(60));
+        ExecutorService threads = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<DocumentProcessor.Progress>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                Processing processing = Processing.of(newPut(i));
+                results.add(threads.submit(() -> executor.process(processing)));
+            }
+            for (Future<DocumentProcessor.Progress> result : results)
+                assertEquals(DocumentProcessor.Progress.DONE, result.get());
+            assertEquals(List.of(4, 4), batchProcessor.batchSizes);
+        }
+        finally {
+            threads.shutdown();
+        }
+    }
+
+    @Test
+    public void testEachThreadProcessesTheRestOfTheChainForItsOwnProcessing() throws Exception {
+        CountingBatchProcessor batchProcessor = new CountingBatchProcessor();
+        ThreadRecordingProcessor before = new ThreadRecordingProcessor();
+        ThreadRecordingProcessor after = new ThreadRecordingProcessor();
+        DocprocExecutor executor = new DocprocExecutor("batch", stackOf(before, batchProcessor, after), 4, Duration.ofSeconds(60));
+        ExecutorService threads = Executors.newFixedThreadPool(4);
+        try {
+            Map<Integer, Thread> callers = new ConcurrentHashMap<>();
+            List<Future<DocumentProcessor.Progress>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                int id = i;
+                results.add(threads.submit(() -> {
+                    callers.put(id, Thread.currentThread());
+                    return executor.process(Processing.of(newPut(id)));
+                }));
+            }
+            for (Future<DocumentProcessor.Progress> result : results)
+                assertEquals(DocumentProcessor.Progress.DONE, result.get());
+            assertEquals(List.of(4), batchProcessor.batchSizes);
+            assertEquals(callers, before.threads);
+            assertEquals(callers, after.threads);
+        }
+        finally {
+            threads.shutdown();
+        }
+    }
+
+    @Test
+    public void testBatchSizeIsCappedAtTheNumberOfThreadsOfAService() throws Exception {
+        CountingBatchProcessor batchProcessor = new CountingBatchProcessor();
+        DocprocService service = new DocprocService(new ComponentId("batch"), stackOf(batchProcessor),
+                                                    new DocumentTypeManager(), 2, 4, Duration.ofSeconds(60));
+        ExecutorService threads = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<DocumentProcessor.Progress>> results = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                Processing processing = Processing.of(newPut(i));
+                results.add(threads.submit(() -> service.getExecutor().process(processing)));
+            }
+            for (Future<DocumentProcessor.Progress> result : results) // does not wait for a batch of 4
+                assertEquals(DocumentProcessor.Progress.DONE, result.get(30, TimeUnit.SECONDS));
+            assertEquals(List.of(2), batchProcessor.batchSizes);
+        }
+        finally {
+            threads.shutdown();
+            service.deconstruct();
+        }
+    }
+
+    @Test
+    public void testBatchIsProcessedWhenDelayExpires() {
+        CountingBatchProcessor batchProcessor = new CountingBatchProcessor();
+        DocprocExecutor executor = new DocprocExecutor("batch", stackOf(batchProcessor), 4, Duration.ofMillis(1));
+        assertEquals(DocumentProcessor.Progress.DONE, executor.process(Processing.of(newPut(0))));
+        assertEquals(List.of(1), batchProcessor.batchSizes);
+    }
+
+    @Test
+    public void testNoBatchingWithoutBatchProcessors() {
+        DocprocExecutor executor = new DocprocExecutor("batch", stackOf(new AppendingProcessor("a")), 4, Duration.ofSeconds(60));
+        Processing processing = Processing.of(newPut(0));
+        assertEquals(DocumentProcessor.Progress.DONE, executor.process(processing)); // does not wait for a full batch
+        assertEquals(new StringFieldValue("a"), documentOf(processing).getFieldValue("test"));
+    }
+
+    private DocumentPut newPut(int i) {
+        return new DocumentPut(type, new DocumentId("id:test:test::" + i));
+    }
+
+    private static Document documentOf(Processing processing) {
+        return ((DocumentPut)processing.getDocumentOperations().get(0)).getDocument();
+    }
+
+    private static CallStack stackOf(DocumentProcessor ... processors) {
+        CallStack stack = new CallStack("batch");
+        for (DocumentProcessor processor : processors)
+            stack.addLast(processor);
+        return stack;
+    }
+
+    private static void append(Processing processing, String value) {
+        Document document = documentOf(processing);
+        FieldValue current = document.getFieldValue("test");
+        document.setFieldValue("test", new StringFieldValue((current == null ? "" : current.toString()) + value));
+    }
+
+    private static int idOf(Processing processing) {
+        return Integer.parseInt(documentOf(processing).getId().getScheme().getNamespaceSpecific());
+    }
+
+    private static class AppendingProcessor extends DocumentProcessor {
+
+        private final String value;
+
+        AppendingProcessor(String value) {
+            this.value = value;
+        }
+
+        @Override
+        public Progress process(Processing processing) {
+            append(processing, value);
+            return Progress.DONE;
+        }
+
+    }
+
+    private static class ThreadRecordingProcessor extends DocumentProcessor {
+
+        final Map<Integer, Thread> threads = new ConcurrentHashMap<>();
+
+        @Override
+        public Progress process(Processing processing) {
+            threads.put(idOf(processing), Thread.currentThread());
+            return Progress.DONE;
+        }
+
+    }
+
+    private static class CountingBatchProcessor extends BatchDocumentProcessor {
+
+        final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public List<Progress> process(List<Processing> processings) {
+            batchSizes.add(processings.size());
+            for (Processing processing : processings)
+                append(processing, "b");
+            return Collections.nCopies(processings.size(), Progress.DONE);
+        }
+
+    }
+
+    private static class LaterOnceProcessor extends DocumentProcessor {
+
+        private final int laterId;
+
+        LaterOnceProcessor(int laterId) {
+            this.laterId = laterId;
+        }
+
+        @Override
+        public Progress process(Processing processing) {
+            if (idOf(processing) != laterId || processing.hasVariable("later")) return Progress.DONE;
+            processing.setVariable("later", true);
+            return Progress.LATER;
+        }
+
+    }
+
+    private static class FailingProcessor extends DocumentProcessor {
+
+        private final int failingId;
+
+        FailingProcessor(int failingId) {
+            this.failingId = failingId;
+        }
+
+        @Override
+        public Progress process(Processing processing) {
+            if (idOf(processing) == failingId)
+                throw new IllegalArgumentException("Failing document " + failingId);
+            return Progress.DONE;
+        }
+
+    }
+
+}
@@ -0,0 +1,107 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.docprocs.indexing;
+
+import com.yahoo.document.DataType;
+import com.yahoo.document.Document;
+import com.yahoo.document.FieldPath;
+import com.yahoo.document.FieldPathEntry;
+import com.yahoo.document.datatypes.FieldValue;
+import com.yahoo.vespa.indexinglanguage.DocumentAdapter;
+import com.yahoo.vespa.indexinglanguage.expressions.Expression;
+import com.yahoo.vespa.indexinglanguage.expressions.FieldValueAdapter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A document adapter which reads from another adapter, but keeps the values written to it until they are
+ * written to that adapter by {@link #writeTo}. Values written to top level fields are visible to later reads
+ * through this. This allows a group of statements to execute in parallel with other groups reading from the
+ * same document, as the document is not changed until all of them are done.
+ *
+ * @author bratseth
+ */
+class BufferedDocumentAdapter implements DocumentAdapter {
+
+    private final DocumentAdapter input;
+
+    /** The values written, in order */
+    private final List<Output> outputs = new ArrayList<>();
+
+    /** The last value written to each field */
+    private final Map<String, FieldValue> values = new HashMap<>();
+
+    BufferedDocumentAdapter(DocumentAdapter input) {
+        this.input = input;
+    }
+
+    @Override
+    public Document getFullOutput() {
+        return input.getFullOutput();
+    }
+
+    /** Returns a new document containing the last value written to each field through this */
+    @Override
+    public Document getUpdatableOutput() {
+        Document full = input.getFullOutput();
+        Document output = new Document(full.getDataType(), full.getId());
+        for (Output value : outputs)
+            output.setFieldValue(value.fieldName, value.value);
+        return output;
+    }
+
+    @Override
+    public DataType getInputType(Expression exp, String fieldName) {
+        return input.getInputType(exp, fieldName);
+    }
+
+    @Override
+    public FieldValue getInputValue(String fieldName) {
+        if (values.containsKey(fieldName)) return values.get(fieldName);
+        return input.getInputValue(fieldName);
+    }
+
+    @Override
+    public FieldValue getInputValue(FieldPath fieldPath) {
+        if (fieldPath.size() == 1 && fieldPath.get(0).getType() == FieldPathEntry.Type.STRUCT_FIELD) {
+            String fieldName = fieldPath.get(0).getFieldRef().getName();
+            if (values.containsKey(fieldName)) return values.get(fieldName);
+        }
+        return input.getInputValue(fieldPath);
+    }
+
+    @Override
+    public void tryOutputType(Expression exp, String fieldName, DataType valueType) {
+        input.tryOutputType(exp, fieldName, valueType);
+    }
+
+    @Override
+    public BufferedDocumentAdapter setOutputValue(Expression exp, String fieldName, FieldValue fieldValue) {
+        outputs.add(new Output(exp, fieldName, fieldValue));
+        values.put(fieldName, fieldValue);
+        return this;
+    }
+
+    /** Writes all the values written to this to the given adapter, in the order they were written */
+    void writeTo(FieldValueAdapter adapter) {
+        for (Output output : outputs)
+            adapter.setOutputValue(output.expression, output.fieldName, output.value);
+    }
+
+    private static class Output {
+
+        final Expression expression;
+        final String fieldName;
+        final FieldValue value;
+
+        Output(Expression expression, String fieldName, FieldValue value) {
+            this.expression = expression;
+            this.fieldName = fieldName;
+            this.value = value;
+        }
+
+    }
+
+}
@@ -17,13 +17,19 @@ import com.yahoo.document.update.FieldUpdate;
 import com.yahoo.document.update.MapValueUpdate;
 import com.yahoo.document.update.ValueUpdate;
 import com.yahoo.vespa.indexinglanguage.AdapterFactory;
+import com.yahoo.vespa.indexinglanguage.DocumentAdapter;
 import com.yahoo.vespa.indexinglanguage.expressions.Expression;
+import com.yahoo.vespa.indexinglanguage.expressions.ScriptExpression;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 /**
  * @author Simon Thoresen Hult
@@ -34,20 +40,59 @@ public class DocumentScript {
     private final Set<String> inputFields;
     private final Expression expression;
 
+    /** The groups of statements of the expression which can be executed in parallel, or empty if none */
+    private final List<ScriptExpression> statementGroups;
+
     public DocumentScript(String documentType, Collection<String> inputFields, Expression expression) {
         this.documentType = documentType;
         this.inputFields = new HashSet<>(inputFields);
         this.expression = expression;
+        this.statementGroups = StatementGroups.of(expression);
     }
 
     public Expression getExpression() { return expression; }
+
+    /** Returns the number of groups of statements in this which can be executed in parallel */
+    int statementGroupCount() { return Math.max(1, statementGroups.size()); }
+
     public Document execute(AdapterFactory adapterFactory, Document document) {
+        return execute(adapterFactory, document, null);
+    }
+
+    /**
+     * Executes this on a document. If an executor is given, and the statements of this can be split into groups
+     * which are independent of each other, the groups are executed in parallel by the executor and the calling
+     * thread. Their outputs are then written to the document in order, when all groups are done.
+     *
+     * @param executor the executor to use for parallel execution, or null to execute on the calling thread only
+     */
+    public Document execute(AdapterFactory adapterFactory, Document document, ForkJoinPool executor) {
         for (Iterator<Map.Entry<Field, FieldValue>> it = document.iterator(); it.hasNext(); ) {
             Map.Entry<Field, FieldValue> entry = it.next();
             requireThatFieldIsDeclaredInDocument(entry.getKey());
             removeAnyLinguisticsSpanTree(entry.getValue());
         }
-        return expression.execute(adapterFactory, document);
+        if (executor == null || statementGroups.size() < 2)
+            return expression.execute(adapterFactory, document);
+        return executeInParallel(adapterFactory.newDocumentAdapter(document), executor);
+    }
+
+    private Document executeInParallel(DocumentAdapter adapter, ForkJoinPool executor) {
+        List<BufferedDocumentAdapter> outputs = new ArrayList<>(statementGroups.size());
+        List<ForkJoinTask<Document>> tasks = new ArrayList<>(statementGroups.size() - 1);
+        for (ScriptExpression group : statementGroups) {
+            BufferedDocumentAdapter output = new BufferedDocumentAdapter(adapter);
+            if ( ! outputs.isEmpty()) // the first group is executed by this thread
+                tasks.add(executor.submit(() -> group.execute(output)));
+            outputs.add(output);
+        }
+        statementGroups.get(0).execute(outputs.get(0));
+        for (ForkJoinTask<Document> task : tasks)
+            task.join();
+
+        for (BufferedDocumentAdapter output : outputs)
+            output.writeTo(adapter);
+        return adapter.getFullOutput();
     }
 
     public DocumentUpdate execute(AdapterFactory adapterFactory, DocumentUpdate update) {
@@ -3,6 +3,7 @@ package com.yahoo.docprocs.indexing;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 import com.google.inject.Inject;
 import com.yahoo.component.chain.dependencies.After;
 import com.yahoo.component.chain.dependencies.Before;
@@ -42,6 +43,9 @@ public class IndexingProcessor extends DocumentProcessor {
     private final ScriptManager scriptMgr;
     private final AdapterFactory adapterFactory;
 
+    /** Executes independent statements of scripts in parallel, or null to execute them on the calling thread */
+    private final ForkJoinPool statementExecutor;
+
     private class ExpressionSelector extends SimpleAdapterFactory.SelectExpression {
         @Override
         public Expression selectExpression(DocumentType documentType, String fieldName) {
@@ -56,6 +60,13 @@ public class IndexingProcessor extends DocumentProcessor {
         docTypeMgr = DocumentTypeManagerConfigurer.configureNewManager(documentmanagerConfig);
         scriptMgr = new ScriptManager(docTypeMgr, ilscriptsConfig, linguistics);
         adapterFactory = new SimpleAdapterFactory(new ExpressionSelector());
+        statementExecutor = ilscriptsConfig.parallelism() > 1 ? new ForkJoinPool(ilscriptsConfig.parallelism()) : null;
+    }
+
+    @Override
+    public void deconstruct() {
+        if (statementExecutor != null)
+            statementExecutor.shutdown();
     }
 
     @Override
@@ -94,7 +105,7 @@ public class IndexingProcessor extends DocumentProcessor {
             return;
         }
         log.log(Level.FINE, "Processing document '%s'.", prev.getId());
-        Document next = script.execute(adapterFactory, prev.getDocument());
+        Document next = script.execute(adapterFactory, prev.getDocument(), statementExecutor);
         if (next == null) {
             log.log(Level.FINE, "Document '" + prev.getId() + "' produced no output.");
             return;
@@ -0,0 +1,182 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.docprocs.indexing;
+
+import com.yahoo.collections.Pair;
+import com.yahoo.vespa.indexinglanguage.expressions.ClearStateExpression;
+import com.yahoo.vespa.indexinglanguage.expressions.Expression;
+import com.yahoo.vespa.indexinglanguage.expressions.GetVarExpression;
+import com.yahoo.vespa.indexinglanguage.expressions.InputExpression;
+import com.yahoo.vespa.indexinglanguage.expressions.OptimizePredicateExpression;
+import com.yahoo.vespa.indexinglanguage.expressions.OutputExpression;
+import com.yahoo.vespa.indexinglanguage.expressions.ScriptExpression;
+import com.yahoo.vespa.indexinglanguage.expressions.SelectInputExpression;
+import com.yahoo.vespa.indexinglanguage.expressions.SetLanguageExpression;
+import com.yahoo.vespa.indexinglanguage.expressions.StatementExpression;
+import com.yahoo.vespa.objects.ObjectOperation;
+import com.yahoo.vespa.objects.ObjectPredicate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Splits the statements of an indexing script into groups which can be executed independently of each other.
+ * Statements which read or write the same field are put in the same group, in their original order, so a group
+ * behaves just as when the whole script is executed sequentially, as long as its writes are visible to its own
+ * later reads. Scripts where statements depend on each other in other ways, through the language or variables
+ * of the execution context, or by reading into a field written by another statement, are not split.
+ *
+ * @author bratseth
+ */
+class StatementGroups {
+
+    private StatementGroups() {}
+
+    /**
+     * Returns the independent statement groups of the given expression,
+     * or an empty list if it is not a script which can be split.
+     */
+    static List<ScriptExpression> of(Expression expression) {
+        if ( ! (expression instanceof ScriptExpression)) return Collections.emptyList();
+
+        List<StatementExpression> statements = ((ScriptExpression)expression).asList();
+        List<FieldNames> fieldNames = new ArrayList<>(statements.size());
+        Set<String> writtenFields = new HashSet<>();
+        for (StatementExpression statement : statements) {
+            FieldNames names = new FieldNames();
+            statement.select(names, names);
+            if (names.requiresSequentialExecution || (names.readsVariables && ! startsByClearingState(statement)))
+                return Collections.emptyList();
+            fieldNames.add(names);
+            writtenFields.addAll(names.written);
+        }
+        for (FieldNames names : fieldNames) {
+            if ( ! Collections.disjoint(names.readNested, writtenFields))
+                return Collections.emptyList();
+        }
+
+        int[] group = new int[statements.size()];
+        for (int i = 0; i < group.length; i++) {
+            group[i] = i;
+            for (int j = 0; j < i; j++) {
+                if ( ! Collections.disjoint(fieldNames.get(i).touched(), fieldNames.get(j).touched()))
+                    merge(group, j, i);
+            }
+        }
+
+        Map<Integer, List<StatementExpression>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < group.length; i++)
+            groups.computeIfAbsent(root(group, i), k -> new ArrayList<>()).add(statements.get(i));
+        List<ScriptExpression> scripts = new ArrayList<>(groups.size());
+        for (List<StatementExpression> groupStatements : groups.values())
+            scripts.add(new ScriptExpression(groupStatements));
+        return scripts;
+    }
+
+    /** Statements starting by clear_state do not see the variables set by earlier statements */
+    private static boolean startsByClearingState(StatementExpression statement) {
+        return ! statement.isEmpty() && statement.get(0) instanceof ClearStateExpression;
+    }
+
+    private static int root(int[] group, int i) {
+        while (group[i] != i)
+            i = group[i];
+        return i;
+    }
+
+    private static void merge(int[] group, int i, int j) {
+        int rootI = root(group, i);
+        int rootJ = root(group, j);
+        // Keep the lowest index as root, so groups are ordered by their first statement
+        group[Math.max(rootI, rootJ)] = Math.min(rootI, rootJ);
+    }
+
+    /** Returns the name of the top level document field of the given field path */
+    private static String topLevelField(String fieldPath) {
+        for (int i = 0; i < fieldPath.length(); i++) {
+            char c = fieldPath.charAt(i);
+            if (c == '.' || c == '{' || c == '[')
+                return fieldPath.substring(0, i);
+        }
+        return fieldPath;
+    }
+
+    /** Collects the fields, and other state, a statement accesses */
+    private static class FieldNames implements ObjectPredicate, ObjectOperation {
+
+        /** The top level fields read */
+        final Set<String> read = new HashSet<>();
+
+        /** The top level fields of which some nested part is read */
+        final Set<String> readNested = new HashSet<>();
+
+        /** The fields written */
+        final Set<String> written = new HashSet<>();
+
+        boolean readsVariables = false;
+        boolean requiresSequentialExecution = false;
+
+        private Set<String> touched = null;
+
+        @Override
+        public boolean check(Object obj) {
+            return obj instanceof InputExpression ||
+                   obj instanceof SelectInputExpression ||
+                   obj instanceof OutputExpression ||
+                   obj instanceof GetVarExpression ||
+                   obj instanceof OptimizePredicateExpression ||
+                   obj instanceof SetLanguageExpression;
+        }
+
+        @Override
+        public void execute(Object obj) {
+            if (obj instanceof InputExpression) {
+                addRead(((InputExpression)obj).getFieldName());
+            }
+            else if (obj instanceof SelectInputExpression) {
+                SelectInputExpression select = (SelectInputExpression)obj;
+                for (Pair<String, Expression> selectCase : select.getCases())
+                    addRead(selectCase.getFirst());
+                select.selectMembers(this, this); // the case expressions
+            }
+            else if (obj instanceof OutputExpression) {
+                String fieldName = ((OutputExpression)obj).getFieldName();
+                if (fieldName == null)
+                    requiresSequentialExecution = true; // Not resolved: Don't try to reason about this statement
+                else
+                    written.add(fieldName);
+            }
+            else if (obj instanceof SetLanguageExpression) {
+                requiresSequentialExecution = true;
+            }
+            else {
+                readsVariables = true;
+            }
+        }
+
+        private void addRead(String fieldPath) {
+            if (fieldPath == null) {
+                requiresSequentialExecution = true; // Not resolved: Don't try to reason about this statement
+                return;
+            }
+            String field = topLevelField(fieldPath);
+            read.add(field);
+            if ( ! field.equals(fieldPath))
+                readNested.add(field);
+        }
+
+        Set<String> touched() {
+            if (touched == null) {
+                touched = new HashSet<>(read);
+                touched.addAll(written);
+            }
+            return touched;
+        }
+
+    }
+
+}
@@ -28,6 +28,7 @@ import com.yahoo.vespa.indexinglanguage.SimpleAdapterFactory;
 import com.yahoo.vespa.indexinglanguage.expressions.Expression;
 import com.yahoo.vespa.indexinglanguage.expressions.IndexExpression;
 import com.yahoo.vespa.indexinglanguage.expressions.InputExpression;
+import com.yahoo.vespa.indexinglanguage.expressions.ScriptExpression;
 import com.yahoo.vespa.indexinglanguage.expressions.StatementExpression;
 import com.yahoo.vespa.indexinglanguage.parser.ParseException;
 import org.junit.Test;
@@ -35,6 +36,7 @@ import org.junit.Test;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -236,6 +238,70 @@ public class DocumentScriptTestCase {
         assertEquals(newTitleValue, assignUpdate.getFieldValue());
     }
 
+    @Test
+    public void requireThatIndependentStatementsAreExecutedInParallel() throws ParseException {
+        DocumentType type = new DocumentType("documentType");
+        for (String field : Arrays.asList("a", "b", "c", "d", "e"))
+            type.addField(field, DataType.STRING);
+        ScriptExpression script = ScriptExpression.fromString("{ input a | summary b; " +
+                                                              "input c | lowercase | summary d; " +
+                                                              "input b | lowercase | summary e; " +
+                                                              "input a | lowercase | summary a; }");
+        DocumentScript documentScript = new DocumentScript("documentType", Arrays.asList("a", "c"), script);
+        assertEquals(2, documentScript.statementGroupCount());
+
+        ForkJoinPool executor = new ForkJoinPool(2);
+        try {
+            Document sequential = documentScript.execute(ADAPTER_FACTORY, newDocument(type, "A", "C"));
+            Document parallel = documentScript.execute(ADAPTER_FACTORY, newDocument(type, "A", "C"), executor);
+            assertEquals(new StringFieldValue("a"), parallel.getFieldValue("a"));
+            assertEquals(new StringFieldValue("A"), parallel.getFieldValue("b"));
+            assertEquals(new StringFieldValue("c"), parallel.getFieldValue("d"));
+            assertEquals(new StringFieldValue("a"), parallel.getFieldValue("e"));
+            for (String field : Arrays.asList("a", "b", "c", "d", "e"))
+                assertEquals(sequential.getFieldValue(field), parallel.getFieldValue(field));
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void requireThatDependentStatementsAreNotSplit() throws ParseException {
+        assertStatementGroups(1, "{ input a | summary b; input b | summary c; }");
+        assertStatementGroups(1, "{ set_language; input a | summary b; input c | summary d; }");
+        assertStatementGroups(1, "{ 1 | set_var x; input a | summary b; get_var x | summary d; }");
+        assertStatementGroups(3, "{ 1 | set_var x; input a | summary b; clear_state | get_var x | summary d; }");
+        assertStatementGroups(2, "{ input a | summary b; input c | summary d; }");
+    }
+
+    @Test
+    public void requireThatBufferedAdapterReturnsItsWritesAsUpdatableOutput() throws ParseException {
+        DocumentType type = new DocumentType("documentType");
+        for (String field : Arrays.asList("a", "b", "c", "d", "e"))
+            type.addField(field, DataType.STRING);
+        Document document = newDocument(type, "A", "C");
+        BufferedDocumentAdapter adapter = new BufferedDocumentAdapter(ADAPTER_FACTORY.newDocumentAdapter(document));
+        ScriptExpression.fromString("{ input a | lowercase | summary b; input b | summary d; }").execute(adapter);
+
+        Document output = adapter.getUpdatableOutput();
+        assertEquals(2, output.getFieldCount());
+        assertEquals(new StringFieldValue("a"), output.getFieldValue("b"));
+        assertEquals(new StringFieldValue("a"), output.getFieldValue("d"));
+    }
+
+    private static void assertStatementGroups(int expected, String script) throws ParseException {
+        assertEquals(expected, new DocumentScript("documentType", Collections.emptyList(),
+                                                  ScriptExpression.fromString(script)).statementGroupCount());
+    }
+
+    private static Document newDocument(DocumentType type, String a, String c) {
+        Document document = new Document(type, "id:ns:documentType::");
+        document.setFieldValue("a", new StringFieldValue(a));
+        document.setFieldValue("c", new StringFieldValue(c));
+        return document;
+    }
+
     private static FieldValue processDocument(FieldValue fieldValue) {
         DocumentType docType = new DocumentType("myDocumentType");
         docType.addField("myField", fieldValue.getDataType());
@@ -9,26 +9,43 @@ import com.yahoo.document.PositionDataType;
 import com.yahoo.document.StructDataType;
 import com.yahoo.document.serialization.FieldReader;
 import com.yahoo.document.serialization.FieldWriter;
+import com.yahoo.document.serialization.SerializedFieldValue;
 import com.yahoo.document.serialization.XmlSerializationHelper;
 import com.yahoo.document.serialization.XmlStream;
 import com.yahoo.vespa.objects.Ids;
 
 import java.util.AbstractSet;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
 
 
 /**
+ * A struct field value.
+ * <p>
+ * Structs created by a lazy deserializer keep their field values in serialized form until they are
+ * first accessed. Such structs may be read from multiple threads, as values are deserialized under
+ * a lock on the struct. As with any struct, writes must not be concurrent with other access.
+ *
  * @author Håkon Humberset
  */
 public class Struct extends StructuredFieldValue {
 
     public static final int classId = registerClass(Ids.document + 33, Struct.class);
     private Hashlet<Integer, FieldValue> values = new Hashlet<>();
-    private int [] order = null;
+    private volatile int [] order = null;
+
+    /**
+     * Field values which are not deserialized yet, by field id, or null if there are none.
+     * This is only accessed when holding the lock of this, except for checking whether it is null:
+     * Once null, values are no longer changed by reads.
+     */
+    private volatile Map<Integer, SerializedFieldValue> serializedValues = null;
 
     private int version;
 
@@ -88,30 +105,93 @@ public class Struct extends StructuredFieldValue {
 
     @Override
     public Struct clone() {
-        Struct struct = (Struct) super.clone();
-        struct.values = new Hashlet<>();
-        struct.values.reserve(values.size());
-        for (int i = 0; i < values.size(); i++) {
-            struct.values.put(values.key(i), values.value(i).clone());
+        synchronized (this) {
+            Struct struct = (Struct) super.clone();
+            struct.values = new Hashlet<>();
+            struct.values.reserve(values.size());
+            for (int i = 0; i < values.size(); i++) {
+                struct.values.put(values.key(i), values.value(i).clone());
+            }
+            if (serializedValues != null)
+                struct.serializedValues = new HashMap<>(serializedValues);
+            return struct;
         }
-        return struct;
     }
 
     @Override
     public void clear() {
         values = new Hashlet<>();
+        serializedValues = null;
         invalidateOrder();
     }
 
     @Override
     public Iterator<Map.Entry<Field, FieldValue>> iterator() {
-        return new FieldSet().iterator();
+        return getFields().iterator();
     }
 
     public Set<Map.Entry<Field, FieldValue>> getFields() {
+        deserializeAll();
         return new FieldSet();
     }
 
+    /**
+     * Returns the fields of this which are deserialized, without deserializing the rest.
+     * Together with {@link #getSerializedFieldValues} this returns all the fields of this, but as other threads
+     * may deserialize fields concurrently, a field may be returned by both if this is called last.
+     */
+    public Set<Map.Entry<Field, FieldValue>> getDeserializedFields() {
+        if (serializedValues == null) return new FieldSet();
+        synchronized (this) {
+            Map<Field, FieldValue> snapshot = new LinkedHashMap<>();
+            for (int id : getInOrder())
+                snapshot.put(getDataType().getField(id), values.get(id));
+            return Collections.unmodifiableMap(snapshot).entrySet();
+        }
+    }
+
+    /** Returns a snapshot of the field values of this which are not yet deserialized, by field id */
+    public Map<Integer, SerializedFieldValue> getSerializedFieldValues() {
+        if (serializedValues == null) return Map.of();
+        synchronized (this) {
+            return serializedValues == null ? Map.of() : Map.copyOf(serializedValues);
+        }
+    }
+
+    /**
+     * Sets the value of a field in serialized form. The value is deserialized when it is first accessed.
+     * This is used by lazy deserializers.
+     */
+    public void setSerializedFieldValue(Field field, SerializedFieldValue value) {
+        synchronized (this) {
+            if (values.getIndexOfKey(field.getId()) != -1)
+                removeFieldValue(field);
+            if (serializedValues == null)
+                serializedValues = new HashMap<>();
+            serializedValues.put(field.getId(), value);
+        }
+    }
+
+    /** Deserializes the value of the field with the given id if it is serialized. The lock of this must be held. */
+    private void deserialize(int fieldId) {
+        if (serializedValues == null) return;
+        SerializedFieldValue serialized = serializedValues.remove(fieldId);
+        if (serialized == null) return;
+        values.put(fieldId, serialized.deserialize(getDataType().getField(fieldId)));
+        invalidateOrder();
+        if (serializedValues.isEmpty())
+            serializedValues = null;
+    }
+
+    private void deserializeAll() {
+        if (serializedValues == null) return;
+        synchronized (this) {
+            if (serializedValues == null) return;
+            for (Integer fieldId : serializedValues.keySet().toArray(new Integer[0]))
+                deserialize(fieldId);
+        }
+    }
+
     @Override
     public void printXml(XmlStream xml) {
         if (getDataType().equals(PositionDataType.INSTANCE)) {
@@ -127,6 +207,12 @@ public class Struct extends StructuredFieldValue {
 
     @Override
     public FieldValue getFieldValue(Field field) {
+        if (serializedValues != null) {
+            synchronized (this) {
+                deserialize(field.getId());
+                return values.get(field.getId());
+            }
+        }
         return values.get(field.getId());
     }
 
@@ -138,6 +224,11 @@ public class Struct extends StructuredFieldValue {
 
     @Override
     public int getFieldCount() {
+        if (serializedValues != null) {
+            synchronized (this) {
+                return values.size() + (serializedValues == null ? 0 : serializedValues.size());
+            }
+        }
         return values.size();
     }
 
@@ -164,6 +255,8 @@ public class Struct extends StructuredFieldValue {
                     "Inconsistent field: " + field);
         }
 
+        if (serializedValues != null && serializedValues.remove(field.getId()) != null && serializedValues.isEmpty())
+            serializedValues = null;
         int index = values.getIndexOfKey(field.getId());
         if (index == -1) {
             values.put(field.getId(), value);
@@ -175,7 +268,7 @@ public class Struct extends StructuredFieldValue {
 
     @Override
     public FieldValue removeFieldValue(Field field) {
-        FieldValue found = values.get(field.getId());
+        FieldValue found = getFieldValue(field);
         if (found != null) {
             Hashlet<Integer, FieldValue> copy = new Hashlet<>();
             copy.reserve(values.size() - 1);
@@ -223,11 +316,14 @@ public class Struct extends StructuredFieldValue {
         if (!super.equals(o)) return false;
 
         Struct struct = (Struct) o;
+        deserializeAll();
+        struct.deserializeAll();
         return values.equals(struct.values);
     }
 
     @Override
     public int hashCode() {
+        deserializeAll();
         int result = super.hashCode();
         result = 31 * result + values.hashCode();
         return result;
@@ -237,6 +333,7 @@ public class Struct extends StructuredFieldValue {
     public String toString() {
         StringBuilder retVal = new StringBuilder();
         retVal.append("Struct (").append(getDataType()).append("): ");
+        deserializeAll();
         int [] increasing = getInOrder();
         for (int i = 0; i < increasing.length; i++) {
             int id = increasing[i];
@@ -257,7 +354,7 @@ public class Struct extends StructuredFieldValue {
             return cmp;
         }
         Struct rhs = (Struct)obj;
-        cmp = values.size() - rhs.values.size();
+        cmp = getFieldCount() - rhs.getFieldCount();
         if (cmp != 0) {
             return cmp;
         }
@@ -29,6 +29,9 @@ public class AttributeNode implements ExpressionNode {
     private ExpressionNode value;
     private final List<Item> items = new ArrayList<>();
 
+    // The field path last resolved by this.
+    private volatile ResolvedFieldPath resolvedFieldPath = null;
+
     public AttributeNode(ExpressionNode value, List items) {
         this.value = value;
         for (Object obj : items) {
@@ -61,13 +64,13 @@ public class AttributeNode implements ExpressionNode {
 
     @Override
     public Object evaluate(Context context) {
-        StringBuilder pos = new StringBuilder(value.toString());
         Object obj = value.evaluate(context);
 
         StringBuilder builder = new StringBuilder();
-        for (Item item : items) {
+        for (int i = 0; i < items.size(); i++) {
+            Item item = items.get(i);
             if (obj == null) {
-                throw new IllegalStateException("Can not invoke '" + item + "' on '" + pos + "' because that term " +
+                throw new IllegalStateException("Can not invoke '" + item + "' on '" + position(i) + "' because that term " +
                                                 "evaluated to null.");
             }
             if (item.getType() != Item.FUNCTION) {
@@ -84,8 +87,6 @@ public class AttributeNode implements ExpressionNode {
 
                 obj = evaluateFunction(item.getName(), obj);
             }
-
-            pos.append(".").append(item);
         }
 
         if (builder.length() > 0) {
@@ -94,6 +95,14 @@ public class AttributeNode implements ExpressionNode {
         return obj;
     }
 
+    /** Returns the textual form of the term this is evaluating before applying the item at the given index */
+    private String position(int itemIndex) {
+        StringBuilder position = new StringBuilder(value.toString());
+        for (int i = 0; i < itemIndex; i++)
+            position.append(".").append(items.get(i));
+        return position.toString();
+    }
+
     public static class VariableValueList extends ArrayList<ResultList.VariableValue> {
 
     }
@@ -151,10 +160,11 @@ public class AttributeNode implements ExpressionNode {
         return documentType.hasImportedField(path);
     }
 
-    private static Object evaluateFieldPath(String fieldPathStr, Object value) {
+    private Object evaluateFieldPath(String fieldPathStr, Object value) {
         if (value instanceof DocumentPut) {
             final Document doc = ((DocumentPut) value).getDocument();
-            if (isSimpleImportedField(fieldPathStr, doc.getDataType())) {
+            ResolvedFieldPath resolved = resolveFieldPath(fieldPathStr, doc.getDataType());
+            if (resolved.isImported()) {
                 // Imported fields can only be meaningfully evaluated in the backend, so we
                 // explicitly treat them as if they are valid fields with missing values. This
                 // will be treated the same as if it's a normal field by the selection operators.
@@ -162,7 +172,7 @@ public class AttributeNode implements ExpressionNode {
                 // augment the FieldPath code with knowledge of imported fields.
                 return null;
             }
-            FieldPath fieldPath = doc.getDataType().buildFieldPath(fieldPathStr);
+            FieldPath fieldPath = resolved.fieldPath;
             IteratorHandler handler = new IteratorHandler();
             doc.iterateNested(fieldPath, 0, handler);
             if (handler.values.isEmpty()) {
@@ -179,6 +189,21 @@ public class AttributeNode implements ExpressionNode {
         return Result.FALSE;
     }
 
+    /**
+     * Returns the given field path resolved in the given document type. Selections are usually evaluated
+     * against documents of the same type, so the last resolved path is kept to avoid parsing it for every document.
+     */
+    private ResolvedFieldPath resolveFieldPath(String fieldPathStr, DocumentType documentType) {
+        ResolvedFieldPath resolved = resolvedFieldPath;
+        if (resolved == null || resolved.documentType != documentType || ! resolved.path.equals(fieldPathStr)) {
+            FieldPath fieldPath = isSimpleImportedField(fieldPathStr, documentType) ? null
+                                                                                    : documentType.buildFieldPath(fieldPathStr);
+            resolved = new ResolvedFieldPath(documentType, fieldPathStr, fieldPath);
+            resolvedFieldPath = resolved;
+        }
+        return resolved;
+    }
+
     private static Object evaluateFunction(String function, Object value) {
         if (value instanceof VariableValueList) {
             VariableValueList retVal = new VariableValueList();
@@ -210,6 +235,24 @@ public class AttributeNode implements ExpressionNode {
         return ret.toString();
     }
 
+    private static class ResolvedFieldPath {
+
+        final DocumentType documentType;
+        final String path;
+
+        /** The field path, or null if this is an imported field */
+        final FieldPath fieldPath;
+
+        ResolvedFieldPath(DocumentType documentType, String path, FieldPath fieldPath) {
+            this.documentType = documentType;
+            this.path = path;
+            this.fieldPath = fieldPath;
+        }
+
+        boolean isImported() { return fieldPath == null; }
+
+    }
+
     public static class Item {
         public static final int ATTRIBUTE = 0;
         public static final int FUNCTION = 1;
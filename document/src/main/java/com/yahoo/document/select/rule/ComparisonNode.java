@@ -26,6 +26,9 @@ public class ComparisonNode implements ExpressionNode {
     // The operator string for this.
     private String operator;
 
+    // The last regex or glob pattern compiled by this.
+    private volatile CompiledPattern compiledPattern = null;
+
     /**
      * Constructs a new comparison node.
      *
@@ -318,11 +321,20 @@ public class ComparisonNode implements ExpressionNode {
     private Result evaluateString(Object lhs, Object rhs) {
         String left = "" + lhs; // Allows null objects to evaluate to string.
         String right = "" + rhs;
-        if (operator.equals("=~")) {
-            return Result.toResult(Pattern.compile(right).matcher(left).find());
-        } else {
-            return Result.toResult(Pattern.compile(globToRegex(right)).matcher(left).find());
+        return Result.toResult(pattern(right, ! operator.equals("=~")).matcher(left).find());
+    }
+
+    /**
+     * Returns the compiled pattern of the given regex or glob. The right hand side is usually a literal,
+     * so the last pattern is kept to avoid compiling it again for every document evaluated.
+     */
+    private Pattern pattern(String source, boolean glob) {
+        CompiledPattern compiled = compiledPattern;
+        if (compiled == null || compiled.glob != glob || ! compiled.source.equals(source)) {
+            compiled = new CompiledPattern(source, glob, Pattern.compile(glob ? globToRegex(source) : source));
+            compiledPattern = compiled;
         }
+        return compiled.pattern;
     }
 
     /**
@@ -381,4 +393,19 @@ public class ComparisonNode implements ExpressionNode {
     public String toString() {
         return lhs + " " + operator + " " + rhs;
     }
+
+    private static class CompiledPattern {
+
+        final String source;
+        final boolean glob;
+        final Pattern pattern;
+
+        CompiledPattern(String source, boolean glob, Pattern pattern) {
+            this.source = source;
+            this.glob = glob;
+            this.pattern = pattern;
+        }
+
+    }
+
 }
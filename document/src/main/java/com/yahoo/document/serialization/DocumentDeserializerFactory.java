@@ -1,6 +1,7 @@
 // Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.document.serialization;
 
+import com.yahoo.document.Document;
 import com.yahoo.document.DocumentTypeManager;
 import com.yahoo.io.GrowableByteBuffer;
 
@@ -19,6 +20,17 @@ public class DocumentDeserializerFactory {
         return new VespaDocumentDeserializerHead(manager, buf);
     }
 
+    /**
+     * Creates a de-serializer for the current head document format which keeps struct field values
+     * in serialized form until they are first accessed. Field values which are never accessed are
+     * serialized again by copying their bytes. This is cheaper when only a few fields of each document are used.
+     * Note that the buffer a struct is read from is kept in memory until all its field values are deserialized,
+     * see {@link SerializedFieldValue}.
+     */
+    public static DocumentDeserializer createLazyHead(DocumentTypeManager manager, GrowableByteBuffer buf) {
+        return new VespaDocumentDeserializerHead(manager, buf, Document.SERIALIZED_VERSION, true);
+    }
+
     /**
      * Creates a de-serializer for the 6.x document format.
      * This format is an extension of the 4.2 format.
@@ -0,0 +1,53 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.document.serialization;
+
+import com.yahoo.document.DocumentTypeManager;
+import com.yahoo.document.Field;
+import com.yahoo.document.datatypes.FieldValue;
+import com.yahoo.io.GrowableByteBuffer;
+
+/**
+ * A struct field value which is kept in serialized form until it is accessed.
+ * This is created by lazy deserializers, see {@link DocumentDeserializerFactory#createLazyHead}.
+ * Instances are immutable.
+ * <p>
+ * This refers to a range of the buffer the struct was deserialized from, without copying it. The entire buffer
+ * (i.e., the decompressed struct, or the whole message if uncompressed) is therefore kept in memory as long as
+ * any field value of it is not yet deserialized.
+ *
+ * @author bratseth
+ */
+public final class SerializedFieldValue {
+
+    private final DocumentTypeManager manager;
+    private final short version;
+    private final byte[] data;
+    private final int offset;
+    private final int length;
+
+    SerializedFieldValue(DocumentTypeManager manager, short version, byte[] data, int offset, int length) {
+        this.manager = manager;
+        this.version = version;
+        this.data = data;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /** Returns the length of the serialized value in bytes */
+    public int length() { return length; }
+
+    /** Returns a new field value deserialized from this */
+    public FieldValue deserialize(Field field) {
+        VespaDocumentDeserializer6 deserializer =
+                new VespaDocumentDeserializerHead(manager, GrowableByteBuffer.wrap(data, offset, length), version, true);
+        FieldValue value = field.getDataType().createFieldValue();
+        value.deserialize(field, deserializer);
+        return value;
+    }
+
+    /** Writes the serialized bytes of this value to the given buffer */
+    public void writeTo(GrowableByteBuffer buffer) {
+        buffer.put(data, offset, length);
+    }
+
+}
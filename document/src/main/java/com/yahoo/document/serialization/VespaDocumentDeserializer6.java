@@ -88,10 +88,18 @@ public class VespaDocumentDeserializer6 extends BufferSerializer implements Docu
     private List<Annotation> annotations;
     private int[] stringPositions;
 
+    /** Whether struct fields should be kept serialized until they are accessed */
+    private final boolean lazy;
+
     VespaDocumentDeserializer6(DocumentTypeManager manager, GrowableByteBuffer buf) {
+        this(manager, buf, Document.SERIALIZED_VERSION, false);
+    }
+
+    VespaDocumentDeserializer6(DocumentTypeManager manager, GrowableByteBuffer buf, short version, boolean lazy) {
         super(buf);
         this.manager = manager;
-        this.version = Document.SERIALIZED_VERSION;
+        this.version = version;
+        this.lazy = lazy;
     }
 
     final public DocumentTypeManager getDocumentTypeManager() { return manager; }
@@ -311,9 +319,7 @@ public class VespaDocumentDeserializer6 extends BufferSerializer implements Docu
                 position(position() + fieldIdsAndLengths.get(i).second.intValue());
             } else {
                 int posBefore = position();
-                FieldValue value = structField.getDataType().createFieldValue();
-                value.deserialize(structField, this);
-                s.setFieldValue(structField, value);
+                readStructField(s, structField, fieldIdsAndLengths.get(i).second.intValue());
                 //jump to beginning of next field:
                 position(posBefore + fieldIdsAndLengths.get(i).second.intValue());
             }
@@ -373,9 +379,7 @@ public class VespaDocumentDeserializer6 extends BufferSerializer implements Docu
             Integer f_id = fieldIdsAndLengths.get(i).first;
             Field structField = priType.getField(f_id);
             if (structField != null) {
-                FieldValue value = structField.getDataType().createFieldValue();
-                value.deserialize(structField, this);
-                primary.setFieldValue(structField, value);
+                readStructField(primary, structField, fieldIdsAndLengths.get(i).second.intValue());
             }
             //jump to beginning of next field:
             position(posBefore + fieldIdsAndLengths.get(i).second.intValue());
@@ -385,6 +389,17 @@ public class VespaDocumentDeserializer6 extends BufferSerializer implements Docu
         buf = bigBuf;
     }
 
+    /** Reads the value of the given field at the current position, or keeps it serialized if this is lazy */
+    private void readStructField(Struct struct, Field field, int length) {
+        if (lazy) {
+            struct.setSerializedFieldValue(field, new SerializedFieldValue(manager, version, buf.array(), position(), length));
+        } else {
+            FieldValue value = field.getDataType().createFieldValue();
+            value.deserialize(field, this);
+            struct.setFieldValue(field, value);
+        }
+    }
+
     public void read(FieldBase field, StructuredFieldValue value) {
         throw new IllegalArgumentException("read not implemented yet.");
     }
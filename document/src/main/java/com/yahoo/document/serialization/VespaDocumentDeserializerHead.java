@@ -23,6 +23,10 @@ public class VespaDocumentDeserializerHead extends VespaDocumentDeserializer6 {
         super(manager, buffer);
     }
 
+    VespaDocumentDeserializerHead(DocumentTypeManager manager, GrowableByteBuffer buffer, short version, boolean lazy) {
+        super(manager, buffer, version, lazy);
+    }
+
     @Override
     protected ValueUpdate readTensorModifyUpdate(DataType type) {
         byte operationId = getByte(null);
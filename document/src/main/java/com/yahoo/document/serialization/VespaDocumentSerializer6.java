@@ -331,7 +331,10 @@ public class VespaDocumentSerializer6 extends BufferSerializer implements Docume
         List<Integer> fieldIds = new LinkedList<>();
         List<java.lang.Integer> fieldLengths = new LinkedList<>();
 
-        for (Map.Entry<Field, FieldValue> value : s.getFields()) {
+        // Taken first, as other threads may deserialize values while this is writing
+        Map<Integer, SerializedFieldValue> serializedValues = s.getSerializedFieldValues();
+        for (Map.Entry<Field, FieldValue> value : s.getDeserializedFields()) {
+            if (serializedValues.containsKey(value.getKey().getId())) continue;
 
             int startPos = buffer.position();
             value.getValue().serialize(value.getKey(), this);
@@ -339,6 +342,12 @@ public class VespaDocumentSerializer6 extends BufferSerializer implements Docume
             fieldLengths.add(buffer.position() - startPos);
             fieldIds.add(value.getKey().getId());
         }
+        // Values which were never deserialized are copied as-is
+        for (Map.Entry<Integer, SerializedFieldValue> value : serializedValues.entrySet()) {
+            value.getValue().writeTo(buffer);
+            fieldLengths.add(value.getValue().length());
+            fieldIds.add(value.getKey());
+        }
 
         // Switch buffers again:
         buffer.flip();
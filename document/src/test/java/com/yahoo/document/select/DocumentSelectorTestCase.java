@@ -777,6 +777,29 @@ public class DocumentSelectorTestCase {
         evaluate("test.my_imported_field.foo", documents.get(0));
     }
 
+    @Test
+    public void reused_selectors_give_the_same_results_as_new_selectors() throws ParseException {
+        List<DocumentOperation> operations = new ArrayList<>(createDocs());
+        operations.add(new DocumentPut(new Document(manager.getDocumentType("user"), new DocumentId("id:ns:user::1"))));
+        operations.add(createRemove("id:ns:test::1"));
+        List<String> expressions = List.of("test.hstring =~ \"^Y\"",
+                                           "test.hstring = \"*ola\"",
+                                           "test.content =~ test.hstring",
+                                           "test.content = test.hstring",
+                                           "test.hint > 20 and test.hstring = \"Y?*\"",
+                                           "test.mystruct.key == 14 or test.structarray[$x].key == 15",
+                                           "user.id == 1 or test.hint == 24");
+        for (String expression : expressions) {
+            DocumentSelector reused = new DocumentSelector(expression);
+            for (int round = 0; round < 2; round++) {
+                for (DocumentOperation operation : operations) {
+                    assertEquals(expression + " on " + operation.getId(),
+                                 evaluate(expression, operation), reused.accepts(operation));
+                }
+            }
+        }
+    }
+
     @Test
     public void testTicket1769674() {
         assertParseError("music.uri=\"junk",
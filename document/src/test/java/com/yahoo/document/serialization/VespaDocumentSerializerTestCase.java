@@ -20,6 +20,12 @@ import com.yahoo.io.GrowableByteBuffer;
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
@@ -75,6 +81,8 @@ public class VespaDocumentSerializerTestCase {
 
             mapType = new MapDataType(DataType.STRING, nestedType);
             docType.addField(new Field("map", mapType));
+            docType.addField("my_str", DataType.STRING);
+            docType.addField("my_int", DataType.INT);
 
             manager = new DocumentTypeManager();
             manager.registerDocumentType(docType);
@@ -129,4 +137,75 @@ public class VespaDocumentSerializerTestCase {
         // rounded up to 4096 bytes.
         assertTrue(buf.remaining() < 4096);
     }
+
+    @Test
+    public void lazily_deserialized_fields_are_deserialized_on_access_and_copied_on_serialization() {
+        CompressionFixture fixture = new CompressionFixture();
+
+        Document doc = new Document(fixture.docType, "id:foo:map_of_structs::flarn");
+        Struct nested = new Struct(fixture.nestedType);
+        nested.setFieldValue("str", new StringFieldValue(CompressionFixture.COMPRESSABLE_STRING));
+        MapFieldValue<StringFieldValue, Struct> map = new MapFieldValue<>(fixture.mapType);
+        map.put(new StringFieldValue("foo"), nested);
+        map.put(new StringFieldValue("bar"), nested);
+        doc.setFieldValue("map", map);
+        doc.setFieldValue("my_str", new StringFieldValue(CompressionFixture.COMPRESSABLE_STRING));
+        doc.setFieldValue("my_int", new IntegerFieldValue(69));
+
+        Document lazy = new Document(DocumentDeserializerFactory.createLazyHead(fixture.manager, CompressionFixture.asSerialized(doc)));
+        assertEquals(3, lazy.getFieldCount());
+        assertEquals(3, lazy.getHeader().getSerializedFieldValues().size());
+        assertEquals(new IntegerFieldValue(69), lazy.getFieldValue("my_int"));
+        assertEquals(2, lazy.getHeader().getSerializedFieldValues().size());
+        assertEquals(3, lazy.getFieldCount());
+
+        // Untouched fields are written by copying their bytes
+        Document reserialized = fixture.roundtripSerialize(lazy);
+        assertEquals(doc, reserialized);
+        assertEquals(2, lazy.getHeader().getSerializedFieldValues().size());
+
+        // Updating and removing fields which are not deserialized
+        lazy.setFieldValue("my_str", new StringFieldValue("updated"));
+        assertEquals(new StringFieldValue("updated"), fixture.roundtripSerialize(lazy).getFieldValue("my_str"));
+        assertEquals(map, lazy.removeFieldValue("map"));
+        assertEquals(2, lazy.getFieldCount());
+        assertTrue(lazy.getHeader().getSerializedFieldValues().isEmpty());
+
+        // Accessing all fields deserializes them
+        Document other = new Document(DocumentDeserializerFactory.createLazyHead(fixture.manager, CompressionFixture.asSerialized(doc)));
+        assertEquals(doc, other);
+        assertEquals(doc.toString(), other.toString());
+        assertTrue(other.getHeader().getSerializedFieldValues().isEmpty());
+    }
+
+    @Test
+    public void lazily_deserialized_fields_can_be_read_concurrently() throws Exception {
+        CompressionFixture fixture = new CompressionFixture();
+
+        Document doc = new Document(fixture.docType, "id:foo:map_of_structs::flarn");
+        doc.setFieldValue("my_str", new StringFieldValue(CompressionFixture.COMPRESSABLE_STRING));
+        doc.setFieldValue("my_int", new IntegerFieldValue(69));
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (int i = 0; i < 100; i++) {
+                Document lazy = new Document(DocumentDeserializerFactory.createLazyHead(fixture.manager, CompressionFixture.asSerialized(doc)));
+                List<Future<Document>> results = new ArrayList<>();
+                for (int thread = 0; thread < 4; thread++) {
+                    String field = thread % 2 == 0 ? "my_str" : "my_int";
+                    results.add(executor.submit(() -> {
+                        lazy.getFieldValue(field);
+                        return fixture.roundtripSerialize(lazy);
+                    }));
+                }
+                for (Future<Document> result : results)
+                    assertEquals(doc, result.get());
+                assertEquals(doc, lazy);
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
 }
@@ -42,10 +42,25 @@ public class FileDownloader implements AutoCloseable {
         this(connectionPool, downloadDirectory , downloadDirectory , Duration.ofMinutes(15), Duration.ofSeconds(10));
     }
 
+    /**
+     * Creates a file downloader which also downloads from, and makes downloaded files available to, other nodes.
+     *
+     * @param peerSpec the rpc spec where this node serves downloaded file references, see {@link PeerFileServer}
+     */
+    public FileDownloader(ConnectionPool connectionPool, File downloadDirectory, String peerSpec) {
+        this(connectionPool, downloadDirectory, downloadDirectory, Duration.ofMinutes(15), Duration.ofSeconds(10), Optional.of(peerSpec));
+    }
+
     public FileDownloader(ConnectionPool connectionPool, File downloadDirectory, File tmpDirectory, Duration timeout, Duration sleepBetweenRetries) {
+        this(connectionPool, downloadDirectory, tmpDirectory, timeout, sleepBetweenRetries, Optional.empty());
+    }
+
+    public FileDownloader(ConnectionPool connectionPool, File downloadDirectory, File tmpDirectory, Duration timeout,
+                          Duration sleepBetweenRetries, Optional<String> peerSpec) {
         this.downloadDirectory = downloadDirectory;
         this.timeout = timeout;
-        this.fileReferenceDownloader = new FileReferenceDownloader(downloadDirectory, tmpDirectory, connectionPool, timeout, sleepBetweenRetries);
+        this.fileReferenceDownloader = new FileReferenceDownloader(downloadDirectory, tmpDirectory, connectionPool, timeout,
+                                                                   sleepBetweenRetries, peerSpec);
     }
 
     public Optional<File> getFile(FileReference fileReference) {
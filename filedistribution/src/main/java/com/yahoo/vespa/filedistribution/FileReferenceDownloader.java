@@ -5,7 +5,9 @@ import com.yahoo.concurrent.DaemonThreadFactory;
 import com.yahoo.config.FileReference;
 import com.yahoo.jrt.Int32Value;
 import com.yahoo.jrt.Request;
+import com.yahoo.jrt.Spec;
 import com.yahoo.jrt.StringValue;
+import com.yahoo.jrt.Target;
 import com.yahoo.vespa.config.Connection;
 import com.yahoo.vespa.config.ConnectionPool;
 
@@ -28,6 +30,10 @@ import java.util.stream.Collectors;
 /**
  * Downloads file reference using rpc requests to config server and keeps track of files being downloaded
  * <p>
+ * If a peer spec is given, downloads are first attempted from other nodes that config servers
+ * know have the file reference, and completed downloads are reported to config servers so that this
+ * node can serve them to other nodes (see {@link PeerFileServer}).
+ * <p>
  * Some methods are synchronized to make sure access to downloads is atomic
  *
  * @author hmusum
@@ -35,6 +41,9 @@ import java.util.stream.Collectors;
 public class FileReferenceDownloader {
 
     private final static Logger log = Logger.getLogger(FileReferenceDownloader.class.getName());
+    private final static int maxPeerDownloadAttempts = 3;
+    private final static int maxPeersPerAttempt = 2;
+    private final static Duration maxPeerRpcTimeout = Duration.ofSeconds(5);
 
     private final ExecutorService downloadExecutor =
             Executors.newFixedThreadPool(Math.max(8, Runtime.getRuntime().availableProcessors()),
@@ -47,15 +56,24 @@ public class FileReferenceDownloader {
     private final Duration downloadTimeout;
     private final Duration sleepBetweenRetries;
     private final Duration rpcTimeout;
-
-    FileReferenceDownloader(File downloadDirectory, File tmpDirectory, ConnectionPool connectionPool, Duration timeout, Duration sleepBetweenRetries) {
+    /* Timeout for requests to peers, kept short as the config servers can serve the file reference instead */
+    private final Duration peerRpcTimeout;
+    /* Spec other nodes can use to download file references from this node, empty if not serving peers */
+    private final Optional<String> peerSpec;
+    /* Peers serving ongoing downloads, file data is received on the connections to these */
+    private final Map<FileReference, Peer> peers = new ConcurrentHashMap<>();
+
+    FileReferenceDownloader(File downloadDirectory, File tmpDirectory, ConnectionPool connectionPool, Duration timeout,
+                            Duration sleepBetweenRetries, Optional<String> peerSpec) {
         this.connectionPool = connectionPool;
         this.downloadTimeout = timeout;
         this.sleepBetweenRetries = sleepBetweenRetries;
+        this.peerSpec = peerSpec;
         // Needed to receive RPC calls receiveFile* from server after asking for files
         new FileReceiver(connectionPool.getSupervisor(), this, downloadDirectory, tmpDirectory);
         String timeoutString = System.getenv("VESPA_CONFIGPROXY_FILEDOWNLOAD_RPC_TIMEOUT");
         this.rpcTimeout = Duration.ofSeconds(timeoutString == null ? 30 : Integer.parseInt(timeoutString));
+        this.peerRpcTimeout = rpcTimeout.compareTo(maxPeerRpcTimeout) < 0 ? rpcTimeout : maxPeerRpcTimeout;
     }
 
     private void startDownload(FileReferenceDownload fileReferenceDownload) {
@@ -65,7 +83,7 @@ public class FileReferenceDownloader {
         int retryCount = 0;
         do {
             try {
-                if (startDownloadRpc(fileReferenceDownload, retryCount)) {
+                if (startDownloadFromPeer(fileReferenceDownload, retryCount) || startDownloadRpc(fileReferenceDownload, retryCount)) {
                     downloadStarted = true;
                 } else {
                     retryCount++;
@@ -98,7 +116,9 @@ public class FileReferenceDownloader {
         if (download.isPresent()) {
             downloadStatuses.get(fileReference).ifPresent(DownloadStatus::finished);
             downloads.remove(fileReference);
+            closePeer(fileReference);
             download.get().future().complete(Optional.of(file));
+            peerSpec.ifPresent(spec -> reportFileReferenceHolder(fileReference, spec));
         } else {
             log.log(Level.FINE, () -> "Received '" + fileReference + "', which was not requested. Can be ignored if happening during upgrades/restarts");
         }
@@ -107,6 +127,81 @@ public class FileReferenceDownloader {
     void failedDownloading(FileReference fileReference) {
         downloadStatuses.get(fileReference).ifPresent(d -> d.setProgress(0.0));
         downloads.remove(fileReference);
+        Peer peer = peers.get(fileReference);
+        if (peer != null) removeFileReferenceHolder(fileReference, peer.spec);
+        closePeer(fileReference);
+    }
+
+    /**
+     * Asks config server which nodes have the file reference and asks some of those nodes to serve it, in random order.
+     * Peers are only tried for the first attempts, later retries go to config servers only.
+     * Peers which fail to serve the file reference are removed as holders of it on the config server.
+     * <p>
+     * This node is not excluded from the holders, as config servers know holders by address only, and this
+     * only reports itself as a holder once it has the file reference. Should this still be listed, e.g., if
+     * the file reference was deleted here, it will not serve it to itself, and is removed as a holder.
+     */
+    private boolean startDownloadFromPeer(FileReferenceDownload fileReferenceDownload, int retryCount) {
+        if (peerSpec.isEmpty() || retryCount >= maxPeerDownloadAttempts) return false;
+
+        String fileReference = fileReferenceDownload.fileReference().value();
+        Request holdersRequest = new Request("filedistribution.getFileReferenceHolders");
+        holdersRequest.parameters().add(new StringValue(fileReference));
+        connectionPool.getCurrent().invokeSync(holdersRequest, (double) rpcTimeout.getSeconds());
+        if (holdersRequest.isError() || ! holdersRequest.checkReturnTypes("S")) {
+            log.log(Level.FINE, () -> "Unable to get holders of file reference '" + fileReference + "': " + holdersRequest.errorMessage());
+            return false;
+        }
+
+        String[] holders = holdersRequest.returnValues().get(0).asStringArray();
+        for (int i = 0; i < holders.length && i < maxPeersPerAttempt; i++) {
+            String holder = holders[i];
+            Target target = connectionPool.getSupervisor().connect(new Spec(holder));
+            Request request = new Request(PeerFileServer.SERVE_FILE_METHOD);
+            request.parameters().add(new StringValue(fileReference));
+            request.parameters().add(new Int32Value(1)); // Peers never download from other sources
+            target.invokeSync(request, peerRpcTimeout.toMillis() / 1000.0);
+            if (validateResponse(request) && request.returnValues().get(0).asInt32() == 0) {
+                log.log(Level.FINE, () -> "Found file reference '" + fileReference + "' available at peer " + holder);
+                peers.put(fileReferenceDownload.fileReference(), new Peer(holder, target));
+                return true;
+            }
+            log.log(Level.FINE, () -> "File reference '" + fileReference + "' not available at peer " + holder +
+                                      (request.isError() ? ": " + request.errorMessage() : ""));
+            target.close();
+            removeFileReferenceHolder(fileReferenceDownload.fileReference(), holder);
+        }
+        return false;
+    }
+
+    /**
+     * Tells config server that this node can serve the given file reference to other nodes.
+     * Only the port is sent, config server uses the address this node connects from.
+     */
+    private void reportFileReferenceHolder(FileReference fileReference, String spec) {
+        Request request = new Request("filedistribution.addFileReferenceHolder");
+        request.parameters().add(new StringValue(fileReference.value()));
+        request.parameters().add(new Int32Value(new Spec(spec).port()));
+        connectionPool.getCurrent().invokeAsync(request, (double) rpcTimeout.getSeconds(), req -> {
+            if (req.isError())
+                log.log(Level.FINE, () -> "Failed reporting file reference '" + fileReference.value() + "' as available: " + req.errorMessage());
+        });
+    }
+
+    /** Tells config server that the node with the given spec failed to serve the given file reference */
+    private void removeFileReferenceHolder(FileReference fileReference, String spec) {
+        Request request = new Request("filedistribution.removeFileReferenceHolder");
+        request.parameters().add(new StringValue(fileReference.value()));
+        request.parameters().add(new StringValue(spec));
+        connectionPool.getCurrent().invokeAsync(request, (double) rpcTimeout.getSeconds(), req -> {
+            if (req.isError())
+                log.log(Level.FINE, () -> "Failed removing " + spec + " as holder of file reference '" + fileReference.value() + "': " + req.errorMessage());
+        });
+    }
+
+    private void closePeer(FileReference fileReference) {
+        Peer peer = peers.remove(fileReference);
+        if (peer != null) peer.target.close();
     }
 
     private boolean startDownloadRpc(FileReferenceDownload fileReferenceDownload, int retryCount) {
@@ -179,6 +274,7 @@ public class FileReferenceDownloader {
     }
 
     public void close() {
+        peers.keySet().forEach(this::closePeer);
         try {
             downloadExecutor.awaitTermination(1, TimeUnit.SECONDS);
         } catch (InterruptedException e) {
@@ -202,6 +298,18 @@ public class FileReferenceDownloader {
         }
     }
 
+    private static class Peer {
+
+        final String spec;
+        final Target target;
+
+        Peer(String spec, Target target) {
+            this.spec = spec;
+            this.target = target;
+        }
+
+    }
+
     private static class DownloadStatus {
         private final FileReference fileReference;
         private double progress; // between 0 and 1
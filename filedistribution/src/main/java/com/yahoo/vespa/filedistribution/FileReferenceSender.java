@@ -0,0 +1,114 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.filedistribution;
+
+import com.yahoo.config.FileReference;
+import com.yahoo.jrt.DataValue;
+import com.yahoo.jrt.Int32Value;
+import com.yahoo.jrt.Int64Value;
+import com.yahoo.jrt.Request;
+import com.yahoo.jrt.StringValue;
+import com.yahoo.jrt.Target;
+
+import java.nio.ByteBuffer;
+import java.util.logging.Logger;
+
+/**
+ * Sends file reference data in chunks to a target, using the RPC methods handled by {@link FileReceiver}.
+ * Used both by config servers and by nodes serving file references to peers.
+ *
+ * @author baldersheim
+ */
+public class FileReferenceSender {
+
+    private final static Logger log = Logger.getLogger(FileReferenceSender.class.getName());
+
+    private final Target target;
+
+    public FileReferenceSender(Target target) {
+        this.target = target;
+    }
+
+    /** Sends meta data, all parts and eof (with the given status) for the given file reference data */
+    public void send(FileReferenceData fileData, int statusCode, String statusDescription) {
+        int session = sendMeta(fileData);
+        sendParts(session, fileData);
+        sendEof(session, fileData, statusCode, statusDescription);
+    }
+
+    private void sendParts(int session, FileReferenceData fileData) {
+        ByteBuffer bb = ByteBuffer.allocate(0x100000);
+        for (int partId = 0, read = fileData.nextContent(bb); read >= 0; partId++, read = fileData.nextContent(bb)) {
+            bb.flip();
+            sendPart(session, fileData.fileReference(), partId, bb);
+            bb.clear();
+        }
+    }
+
+    private int sendMeta(FileReferenceData fileData) {
+        Request request = new Request(FileReceiver.RECEIVE_META_METHOD);
+        request.parameters().add(new StringValue(fileData.fileReference().value()));
+        request.parameters().add(new StringValue(fileData.filename()));
+        request.parameters().add(new StringValue(fileData.type().name()));
+        request.parameters().add(new Int64Value(fileData.size()));
+        invokeRpcIfValidConnection(request);
+        if (request.isError()) {
+            log.warning("Failed delivering meta for reference '" + fileData.fileReference().value() + "' with file '" + fileData.filename() + "' to " +
+                        target.toString() + " with error: '" + request.errorMessage() + "'.");
+            return 1;
+        } else {
+            if (request.returnValues().get(0).asInt32() != 0) {
+                throw new IllegalArgumentException("Unknown error from target '" + target.toString() + "' during rpc call " + request.methodName());
+            }
+            return request.returnValues().get(1).asInt32();
+        }
+    }
+
+    private void sendPart(int session, FileReference ref, int partId, ByteBuffer buf) {
+        Request request = new Request(FileReceiver.RECEIVE_PART_METHOD);
+        request.parameters().add(new StringValue(ref.value()));
+        request.parameters().add(new Int32Value(session));
+        request.parameters().add(new Int32Value(partId));
+        request.parameters().add(DataValue.wrap(buf)); // buf is not reused before the part is sent; invocation is synchronous
+        invokeRpcIfValidConnection(request);
+        if (request.isError()) {
+            throw new IllegalArgumentException("Failed delivering reference '" + ref.value() + "' to " +
+                                               target.toString() + " with error: '" + request.errorMessage() + "'.");
+        } else {
+            if (request.returnValues().get(0).asInt32() != 0) {
+                throw new IllegalArgumentException("Unknown error from target '" + target.toString() + "' during rpc call " + request.methodName());
+            }
+        }
+    }
+
+    private void sendEof(int session, FileReferenceData fileData, int statusCode, String statusDescription) {
+        Request request = new Request(FileReceiver.RECEIVE_EOF_METHOD);
+        request.parameters().add(new StringValue(fileData.fileReference().value()));
+        request.parameters().add(new Int32Value(session));
+        request.parameters().add(new Int64Value(fileData.xxhash()));
+        request.parameters().add(new Int32Value(statusCode));
+        request.parameters().add(new StringValue(statusDescription));
+        invokeRpcIfValidConnection(request);
+        if (request.isError()) {
+            throw new IllegalArgumentException("Failed delivering reference '" + fileData.fileReference().value() + "' with file '" + fileData.filename() + "' to " +
+                                               target.toString() + " with error: '" + request.errorMessage() + "'.");
+        } else {
+            if (request.returnValues().get(0).asInt32() != 0) {
+                throw new IllegalArgumentException("Unknown error from target '" + target.toString() + "' during rpc call " + request.methodName());
+            }
+        }
+    }
+
+    private void invokeRpcIfValidConnection(Request request) {
+        if (target.isValid()) {
+            target.invokeSync(request, 600);
+        } else {
+            throw new RuntimeException("Connection to " + target + " is invalid", target.getConnectionLostReason());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return target.toString();
+    }
+
+}
@@ -0,0 +1,164 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.filedistribution;
+
+import com.yahoo.concurrent.DaemonThreadFactory;
+import com.yahoo.config.FileReference;
+import com.yahoo.jrt.ErrorCode;
+import com.yahoo.jrt.Int32Value;
+import com.yahoo.jrt.Method;
+import com.yahoo.jrt.Request;
+import com.yahoo.jrt.SecurityContext;
+import com.yahoo.jrt.StringValue;
+import com.yahoo.jrt.Supervisor;
+import com.yahoo.jrt.Target;
+import com.yahoo.security.X509CertificateUtils;
+import com.yahoo.vespa.config.Connection;
+import com.yahoo.vespa.config.ConnectionPool;
+import com.yahoo.yolean.Exceptions;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Serves file references that have been completely downloaded by this node to other nodes, using
+ * the same RPC method as config servers ('filedistribution.serveFile'). Config servers keep track of
+ * which nodes have which file references, see {@link FileReferenceDownloader}.
+ * <p>
+ * Before serving a file reference, config servers are asked whether the requesting node is allowed to access it,
+ * so that peers are subject to the same access control as when downloading from config servers.
+ *
+ * @author hmusum
+ */
+public class PeerFileServer {
+
+    private final static Logger log = Logger.getLogger(PeerFileServer.class.getName());
+
+    public static final String SERVE_FILE_METHOD = "filedistribution.serveFile";
+    static final String AUTHORIZE_METHOD = "filedistribution.authorizePeerFileRequest";
+    private static final Duration authorizationTimeout = Duration.ofSeconds(10);
+
+    private final File downloadDirectory;
+    private final ConnectionPool configServers;
+    private final ExecutorService executor = Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors() / 2),
+                                                                          new DaemonThreadFactory("peer file server"));
+
+    public PeerFileServer(Supervisor supervisor, File downloadDirectory, ConnectionPool configServers) {
+        this.downloadDirectory = downloadDirectory;
+        this.configServers = configServers;
+        supervisor.addMethod(new Method(SERVE_FILE_METHOD, "si", "is", this::serveFile)
+                                     .methodDesc("serve a downloaded file reference to another node")
+                                     .paramDesc(0, "file reference", "file reference")
+                                     .paramDesc(1, "downloadFromOtherSourceIfNotFound", "ignored, peers never download from other sources")
+                                     .returnDesc(0, "ret", "0 if file reference will be served, 1 otherwise")
+                                     .returnDesc(1, "description", "description of return code"));
+    }
+
+    private void serveFile(Request request) {
+        request.detach();
+        executor.execute(() -> serveFileInternal(request));
+    }
+
+    private void serveFileInternal(Request request) {
+        FileReference fileReference = new FileReference(request.parameters().get(0).asString());
+        log.log(Level.FINE, () -> "Received request for reference '" + fileReference.value() + "' from " + request.target());
+
+        if ( ! authorize(request, fileReference)) {
+            request.returnRequest();
+            return;
+        }
+        Optional<File> file = completedFile(fileReference);
+        request.returnValues()
+               .add(new Int32Value(file.isPresent() ? 0 : 1))
+               .add(new StringValue(file.isPresent() ? "OK" : "Filereference not found"));
+        request.returnRequest();
+
+        file.ifPresent(f -> send(fileReference, f, new FileReferenceSender(request.target())));
+    }
+
+    /** Asks a config server whether the node making the request may access the file reference, and sets an error if not */
+    private boolean authorize(Request request, FileReference fileReference) {
+        Connection connection = configServers.getCurrent();
+        Request authorizeRequest = new Request(AUTHORIZE_METHOD);
+        authorizeRequest.parameters().add(new StringValue(fileReference.value()));
+        authorizeRequest.parameters().add(new StringValue(peerCertificateChain(request.target())));
+        connection.invokeSync(authorizeRequest, (double) authorizationTimeout.getSeconds());
+        if (authorizeRequest.isError()) {
+            log.log(Level.FINE, () -> "Not serving file reference '" + fileReference.value() + "' to " + request.target() +
+                                      ": " + authorizeRequest.errorMessage());
+            if (authorizeRequest.errorCode() == ErrorCode.CONNECTION || authorizeRequest.errorCode() == ErrorCode.TIMEOUT)
+                configServers.setError(connection, authorizeRequest.errorCode());
+            request.setError(authorizeRequest.errorCode(), "Not authorized to access file reference '" + fileReference.value() +
+                                                           "': " + authorizeRequest.errorMessage());
+            return false;
+        }
+        return true;
+    }
+
+    /** Returns the certificate chain of the other end of the target as PEM, or empty if the connection is insecure */
+    private static String peerCertificateChain(Target target) {
+        return target.getSecurityContext()
+                     .map(SecurityContext::peerCertificateChain)
+                     .map(X509CertificateUtils::toPem)
+                     .orElse("");
+    }
+
+    private void send(FileReference fileReference, File file, FileReferenceSender sender) {
+        FileReferenceData fileData = EmptyFileReferenceData.empty(fileReference, file.getName());
+        boolean success = false;
+        String errorDescription = "OK";
+        try {
+            fileData = readFileReferenceData(fileReference, file);
+            success = true;
+        } catch (IOException e) {
+            errorDescription = "For file reference '" + fileReference.value() + "': failed reading file '" + file.getAbsolutePath() + "'";
+            log.log(Level.WARNING, errorDescription + " for sending to '" + sender + "'. " + e.toString());
+        }
+
+        try {
+            sender.send(fileData, success ? 0 : 1, errorDescription);
+            log.log(Level.FINE, () -> "Done serving file reference '" + fileReference.value() + "' to " + sender);
+        } catch (Exception e) {
+            log.log(Level.WARNING, "Failed serving file reference '" + fileReference.value() + "' to " + sender + ": " +
+                                   Exceptions.toMessageString(e));
+        } finally {
+            fileData.close();
+        }
+    }
+
+    // Files are moved atomically into the download directory, so if it exists the download is complete
+    private Optional<File> completedFile(FileReference fileReference) {
+        File[] files = new File(downloadDirectory, fileReference.value()).listFiles();
+        if (files == null || files.length == 0 || ! files[0].canRead()) return Optional.empty();
+
+        return Optional.of(files[0]);
+    }
+
+    private static FileReferenceData readFileReferenceData(FileReference fileReference, File file) throws IOException {
+        if (file.isDirectory()) {
+            Path tempFile = Files.createTempFile("filereferencedata", fileReference.value());
+            File compressedFile = CompressedFileReference.compress(file.getParentFile(), tempFile.toFile());
+            return new LazyTemporaryStorageFileReferenceData(fileReference, file.getName(), FileReferenceData.Type.compressed, compressedFile);
+        } else {
+            return new LazyFileReferenceData(fileReference, file.getName(), FileReferenceData.Type.file, file);
+        }
+    }
+
+    public void close() {
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.interrupted(); // Ignore and continue shutdown.
+        }
+    }
+
+}
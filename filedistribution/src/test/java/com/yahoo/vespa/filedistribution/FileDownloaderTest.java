@@ -4,9 +4,14 @@ package com.yahoo.vespa.filedistribution;
 
 import com.yahoo.config.FileReference;
 import com.yahoo.io.IOUtils;
+import com.yahoo.jrt.Acceptor;
 import com.yahoo.jrt.Int32Value;
+import com.yahoo.jrt.ListenFailedException;
+import com.yahoo.jrt.Method;
 import com.yahoo.jrt.Request;
 import com.yahoo.jrt.RequestWaiter;
+import com.yahoo.jrt.Spec;
+import com.yahoo.jrt.StringArray;
 import com.yahoo.jrt.StringValue;
 import com.yahoo.jrt.Supervisor;
 import com.yahoo.jrt.Transport;
@@ -26,11 +31,14 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 
 import static com.yahoo.jrt.ErrorCode.CONNECTION;
 import static org.junit.Assert.assertEquals;
@@ -232,6 +240,46 @@ public class FileDownloaderTest {
         executor.shutdownNow();
     }
 
+    @Test
+    public void getFileFromConfigServerWhenPeerCannotServeIt() throws IOException, ListenFailedException, InterruptedException {
+        Supervisor peer = new Supervisor(new Transport());
+        peer.addMethod(new Method(PeerFileServer.SERVE_FILE_METHOD, "si", "is", request -> {
+            request.returnValues().add(new Int32Value(1));
+            request.returnValues().add(new StringValue("Filereference not found"));
+        }));
+        Acceptor peerAcceptor = peer.listen(new Spec(0));
+        try {
+            String peerSpec = new Spec("localhost", peerAcceptor.port()).toString();
+            MockConnection.PeerResponseHandler responseHandler = new MockConnection.PeerResponseHandler(peerSpec);
+            connection.setResponseHandler(responseHandler);
+            fileDownloader = new FileDownloader(connection, downloadDir, tempDir, Duration.ofSeconds(3), sleepBetweenRetries,
+                                                Optional.of("tcp/thishost:19090"));
+
+            FileReference fileReference = new FileReference("fileReference");
+            fileDownloader.downloadIfNeeded(new FileReferenceDownload(fileReference));
+            do {
+                Thread.sleep(10);
+            } while (responseHandler.requests("filedistribution.serveFile").isEmpty());
+
+            // The peer is removed as holder, and the file is downloaded from config server instead
+            List<Request> removeRequests = responseHandler.requests("filedistribution.removeFileReferenceHolder");
+            assertEquals(1, removeRequests.size());
+            assertEquals("fileReference", removeRequests.get(0).parameters().get(0).asString());
+            assertEquals(peerSpec, removeRequests.get(0).parameters().get(1).asString());
+
+            // When downloaded, this node is reported as holder with the port it serves file references on
+            receiveFile(fileDownloader, fileReference, "abc.jar", FileReferenceData.Type.file, "some content");
+            assertTrue(fileDownloader.getFile(fileReference).isPresent());
+            List<Request> addRequests = responseHandler.requests("filedistribution.addFileReferenceHolder");
+            assertEquals(1, addRequests.size());
+            assertEquals("fileReference", addRequests.get(0).parameters().get(0).asString());
+            assertEquals(19090, addRequests.get(0).parameters().get(1).asInt32());
+        }
+        finally {
+            peer.transport().shutdown().join();
+        }
+    }
+
     @Test
     public void setFilesToDownload() throws IOException {
         Duration timeout = Duration.ofMillis(200);
@@ -405,6 +453,38 @@ public class FileDownloaderTest {
             }
         }
 
+        /** Returns the given holders of all file references, and serves all file references */
+        static class PeerResponseHandler implements MockConnection.ResponseHandler {
+
+            private final String[] holders;
+            private final List<Request> requests = new CopyOnWriteArrayList<>();
+
+            PeerResponseHandler(String ... holders) {
+                this.holders = holders;
+            }
+
+            @Override
+            public void request(Request request) {
+                requests.add(request);
+                switch (request.methodName()) {
+                    case "filedistribution.getFileReferenceHolders":
+                        request.returnValues().add(new StringArray(holders));
+                        break;
+                    case "filedistribution.serveFile":
+                        request.returnValues().add(new Int32Value(0));
+                        request.returnValues().add(new StringValue("OK"));
+                        break;
+                    default:
+                        request.returnValues().add(new Int32Value(0));
+                }
+            }
+
+            List<Request> requests(String methodName) {
+                return requests.stream().filter(request -> request.methodName().equals(methodName)).collect(Collectors.toList());
+            }
+
+        }
+
         static class ConnectionErrorResponseHandler implements MockConnection.ResponseHandler {
 
             private final int timesToFail;
@@ -0,0 +1,122 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.filedistribution;
+
+import com.yahoo.io.IOUtils;
+import com.yahoo.jrt.Acceptor;
+import com.yahoo.jrt.Int32Value;
+import com.yahoo.jrt.ListenFailedException;
+import com.yahoo.jrt.Method;
+import com.yahoo.jrt.Request;
+import com.yahoo.jrt.Spec;
+import com.yahoo.jrt.StringValue;
+import com.yahoo.jrt.Supervisor;
+import com.yahoo.jrt.Target;
+import com.yahoo.jrt.Transport;
+import com.yahoo.vespa.config.JRTConnectionPool;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author bratseth
+ */
+public class PeerFileServerTest {
+
+    private static final int unauthorized = 1008;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final List<String> authorizedCertificateChains = new CopyOnWriteArrayList<>();
+    private Supervisor configServer;
+    private JRTConnectionPool configServers;
+    private Supervisor holder;
+    private PeerFileServer peerFileServer;
+    private Supervisor client;
+    private Target target;
+
+    @Before
+    public void setup() throws IOException, ListenFailedException {
+        configServer = new Supervisor(new Transport());
+        configServer.addMethod(new Method(PeerFileServer.AUTHORIZE_METHOD, "ss", "i", this::authorize));
+        Acceptor configServerAcceptor = configServer.listen(new Spec(0));
+        configServers = new JRTConnectionPool(List.of(new Spec("localhost", configServerAcceptor.port()).toString()));
+
+        File downloadDirectory = temporaryFolder.newFolder();
+        for (String fileReference : Set.of("allowed", "forbidden")) {
+            File fileReferenceDirectory = new File(downloadDirectory, fileReference);
+            assertTrue(fileReferenceDirectory.mkdir());
+            IOUtils.writeFile(new File(fileReferenceDirectory, "file.txt"), "content", false);
+        }
+        holder = new Supervisor(new Transport());
+        peerFileServer = new PeerFileServer(holder, downloadDirectory, configServers);
+        Acceptor holderAcceptor = holder.listen(new Spec(0));
+
+        client = new Supervisor(new Transport());
+        target = client.connect(new Spec("localhost", holderAcceptor.port()));
+    }
+
+    @After
+    public void teardown() {
+        target.close();
+        client.transport().shutdown().join();
+        peerFileServer.close();
+        holder.transport().shutdown().join();
+        configServers.close();
+        configServer.transport().shutdown().join();
+    }
+
+    @Test
+    public void serves_file_references_the_peer_is_allowed_to_access() {
+        Request request = serveFile("allowed");
+        assertFalse(request.errorMessage(), request.isError());
+        assertEquals(0, request.returnValues().get(0).asInt32());
+        assertEquals(List.of(""), authorizedCertificateChains); // insecure connection
+    }
+
+    @Test
+    public void does_not_serve_file_references_the_peer_is_not_allowed_to_access() {
+        Request request = serveFile("forbidden");
+        assertTrue(request.isError());
+        assertEquals(unauthorized, request.errorCode());
+        assertEquals("Not authorized to access file reference 'forbidden': Peer is not allowed to access file reference forbidden",
+                     request.errorMessage());
+    }
+
+    @Test
+    public void does_not_serve_file_references_it_does_not_have() {
+        Request request = serveFile("unknown");
+        assertFalse(request.errorMessage(), request.isError());
+        assertEquals(1, request.returnValues().get(0).asInt32());
+    }
+
+    private Request serveFile(String fileReference) {
+        Request request = new Request(PeerFileServer.SERVE_FILE_METHOD);
+        request.parameters().add(new StringValue(fileReference));
+        request.parameters().add(new Int32Value(1));
+        target.invokeSync(request, 10.0);
+        return request;
+    }
+
+    private void authorize(Request request) {
+        String fileReference = request.parameters().get(0).asString();
+        authorizedCertificateChains.add(request.parameters().get(1).asString());
+        if (fileReference.equals("forbidden"))
+            request.setError(unauthorized, "Peer is not allowed to access file reference " + fileReference);
+        else
+            request.returnValues().add(new Int32Value(0));
+    }
+
+}
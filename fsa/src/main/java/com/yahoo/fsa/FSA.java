@@ -14,6 +14,9 @@ import java.nio.CharBuffer;
 import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel.MapMode;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -70,6 +73,10 @@ public class FSA implements Closeable {
         }
 
         public void delta(char chr){
+            if (fsa._utf8) {
+                deltaUtf8(fsa.map(), chr);
+                return;
+            }
             CharBuffer chrbuf = CharBuffer.allocate(1);
             chrbuf.put(0,chr);
             ByteBuffer buf = fsa.encode(chrbuf);
@@ -81,13 +88,72 @@ public class FSA implements Closeable {
 
         /** Jumps ahead by string */
         public void delta(String string){
-            ByteBuffer buf = fsa.encode(string);
             Maps m = fsa.map();
+            if (fsa._utf8) {
+                for (int i = 0; i < string.length() && state > 0; i++) {
+                    char chr = string.charAt(i);
+                    if (Character.isHighSurrogate(chr) && i + 1 < string.length() && Character.isLowSurrogate(string.charAt(i + 1)))
+                        deltaUtf8(m, Character.toCodePoint(chr, string.charAt(++i)));
+                    else
+                        deltaUtf8(m, chr);
+                }
+                return;
+            }
+            ByteBuffer buf = fsa.encode(string);
             while (state >0 && buf.position()<buf.limit()){
                 delta(m, buf.get());
             }
         }
 
+        /**
+         * Jumps ahead by a range of bytes which are already in the encoding of this automaton (usually utf-8).
+         * This walks the mapped automaton directly and does not allocate.
+         *
+         * @param bytes the array holding the encoded input
+         * @param offset the index of the first byte to jump by
+         * @param length the number of bytes to jump by
+         */
+        public void delta(byte[] bytes, int offset, int length) {
+            Maps m = fsa.map();
+            for (int i = offset; i < offset + length && state > 0; i++) {
+                delta(m, bytes[i]);
+            }
+        }
+
+        /**
+         * Jumps ahead by the utf-8 encoding of the given code point, without allocating.
+         * Lone surrogates are encoded as '?', which is what the utf-8 charset encoder does.
+         */
+        private void deltaUtf8(Maps m, int codePoint) {
+            if (codePoint < 0x80) {
+                deltaIfValid(m, codePoint);
+            }
+            else if (codePoint < 0x800) {
+                deltaIfValid(m, 0xc0 | (codePoint >> 6));
+                deltaIfValid(m, 0x80 | (codePoint & 0x3f));
+            }
+            else if (codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE) {
+                deltaIfValid(m, '?');
+            }
+            else if (codePoint < 0x10000) {
+                deltaIfValid(m, 0xe0 | (codePoint >> 12));
+                deltaIfValid(m, 0x80 | ((codePoint >> 6) & 0x3f));
+                deltaIfValid(m, 0x80 | (codePoint & 0x3f));
+            }
+            else {
+                deltaIfValid(m, 0xf0 | (codePoint >> 18));
+                deltaIfValid(m, 0x80 | ((codePoint >> 12) & 0x3f));
+                deltaIfValid(m, 0x80 | ((codePoint >> 6) & 0x3f));
+                deltaIfValid(m, 0x80 | (codePoint & 0x3f));
+            }
+        }
+
+        private void deltaIfValid(Maps m, int symbol) {
+            if (state > 0) {
+                delta(m, (byte)symbol);
+            }
+        }
+
         /**
          * Jumps ahead by string if that puts us into a valid state, does nothing otherwise
          *
@@ -144,6 +210,14 @@ public class FSA implements Closeable {
             return fsa.data(state);
         }
 
+        /**
+         * Returns a read only view of the data of this state in the mapped automaton, without copying it,
+         * or null if this is not a final state. The view must not be accessed after the automaton is closed.
+         */
+        public ByteBuffer dataView(){
+            return fsa.dataView(fsa.map(), state);
+        }
+
         public String dataString(){
             return fsa.dataString(state);
         }
@@ -158,6 +232,18 @@ public class FSA implements Closeable {
             return fsa.data(state);
         }
 
+        /**
+         * Moves to the state reached from the start state by the given range of encoded bytes, without
+         * allocating. The hash and data of the string is then available from this state if it is final.
+         *
+         * @return whether the given bytes is a string accepted by the automaton
+         */
+        public boolean lookup(byte[] bytes, int offset, int length){
+            start();
+            delta(bytes, offset, length);
+            return isFinal();
+        }
+
         public boolean hasPerfectHash(){
             return fsa.hasPerfectHash();
         }
@@ -451,6 +537,8 @@ public class FSA implements Closeable {
     }
     private final boolean _ok;
     private final Charset _charset;
+    /** Whether the charset is utf-8, such that strings can be encoded while traversing, without allocation */
+    private final boolean _utf8;
     private final AtomicReference<Maps> maps = new AtomicReference<>();
 
 
@@ -515,6 +603,7 @@ public class FSA implements Closeable {
     private FSA(FileInputStream file, String charsetname, boolean closeInput) {
         try {
             _charset = Charset.forName(charsetname);
+            _utf8 = _charset.equals(StandardCharsets.UTF_8);
             maps.set(new Maps(file));
             _ok=true;
         }
@@ -600,7 +689,21 @@ public class FSA implements Closeable {
      * @return A new buffer containing the data for the given state.
      **/
     protected ByteBuffer data(int state) {
-        Maps m = maps.get();
+        ByteBuffer view = dataView(maps.get(), state);
+        if(view!=null){
+            ByteBuffer meta = ByteBuffer.allocate(view.remaining());
+            meta.order(ByteOrder.LITTLE_ENDIAN);
+            view.get(meta.array());
+            return meta;
+        }
+        return null;
+    }
+
+    /**
+     * Returns a read only view of the data of the given state in the mapped data buffer,
+     * or null if the state is not final.
+     */
+    private ByteBuffer dataView(Maps m, int state) {
         if(_ok && m.isFinal(state)){
             int offset = m._state_tab.getInt(4*(state+255));
             int length;
@@ -611,13 +714,10 @@ public class FSA implements Closeable {
                 length = m._data.getInt(offset);
                 offset += 4;
             }
-            ByteBuffer meta = ByteBuffer.allocate(length);
-            meta.order(ByteOrder.LITTLE_ENDIAN);
-            byte[] dst = meta.array();
-            for (int i = 0; i < length; ++i) {
-                dst[i] = m._data.get(i + offset);
-            }
-            return meta;
+            ByteBuffer view = m._data.duplicate();
+            view.limit(offset + length);
+            view.position(offset);
+            return view.slice().order(ByteOrder.LITTLE_ENDIAN);
         }
         return null;
     }
@@ -628,7 +728,7 @@ public class FSA implements Closeable {
      * @return A string representation of the data for the given state.
      **/
     protected String dataString(int state) {
-        ByteBuffer meta = data(state);
+        ByteBuffer meta = dataView(maps.get(), state);
         if(meta!=null){
             // Remove trailing '\0' if it exists. This is usually the
             // case for automata built with text format (makefsa -t)
@@ -653,6 +753,24 @@ public class FSA implements Closeable {
         return s.dataString();
     }
 
+    /**
+     * Convenience method that returns the metadata strings in the fsa
+     * for a list of input strings. This is cheaper than looking up each
+     * string separately, as a single traversal state is reused.
+     * @param strings The strings to look up.
+     * @return The metadata string of each input string, in the same order,
+     *         with null for the strings which do not exist in the fsa.  */
+    public List<String> lookup(List<String> strings){
+        State s = getState();
+        List<String> data = new ArrayList<>(strings.size());
+        for (String str : strings) {
+            s.start();
+            s.delta(str);
+            data.add(s.dataString());
+        }
+        return data;
+    }
+
 
     //// test ////
     public static void main(String[] args) {
@@ -11,6 +11,7 @@ import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileChannel.MapMode;
 import java.nio.charset.Charset;
+import java.util.List;
 
 import com.yahoo.fsa.FSA;
 
@@ -154,6 +155,24 @@ public class ConceptNet {
     return -1;
   }
 
+  /**
+   * Looks up a list of units, reusing a single automaton state.
+   *
+   * @return the index of each unit, in the same order, with -1 for the units which are not found
+   */
+  public int[] lookup(List<String> units)
+  {
+    FSA.State state = _fsa.getState();
+    int[] idx = new int[units.size()];
+    int i = 0;
+    for(String unit : units){
+      state.start();
+      state.delta(unit);
+      idx[i++] = state.isFinal() ? state.hash() : -1;
+    }
+    return idx;
+  }
+
   public String lookup(int idx)
   {
     if(!_ok || idx<0 || idx>=h_index_size()){
@@ -73,7 +73,7 @@ public class Segmenter {
         Detector d = (Detector)det_it.next();
         d.state().deltaWord(tokens[i]);
         if(d.state().isFinal()){
-          segments.add(new Segment(d.index(),i+1,d.state().data().getInt(0)));
+          segments.add(new Segment(d.index(),i+1,d.state().dataView().getInt(0)));
         }
 
         if(!d.state().isValid()){
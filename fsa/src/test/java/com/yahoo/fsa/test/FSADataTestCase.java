@@ -8,10 +8,15 @@ import org.junit.Test;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -87,6 +92,34 @@ public class FSADataTestCase {
         assertEquals("dddddd data", state.dataString());
     }
 
+    @Test
+    public void testByteLookup() {
+        FSA.State state = fsa.getState();
+        byte[] bytes = "xxbbbbxx".getBytes(StandardCharsets.UTF_8);
+        assertTrue(state.lookup(bytes, 2, 4));
+        assertEquals("bbbb data", state.dataString());
+        assertFalse(state.lookup(bytes, 2, 3));
+        assertNull(state.dataView());
+        assertFalse(state.lookup(bytes, 0, 4));
+        assertFalse(state.isValid());
+    }
+
+    @Test
+    public void testDataView() {
+        FSA.State state = fsa.getState();
+        state.delta("c");
+        ByteBuffer view = state.dataView();
+        assertTrue(view.isReadOnly());
+        assertEquals(state.data(), view);
+        assertEquals("c data\0", StandardCharsets.UTF_8.decode(view).toString());
+    }
+
+    @Test
+    public void testBatchedLookup() {
+        assertEquals(Arrays.asList("aa data", null, "dddddd data", "c data"),
+                     fsa.lookup(Arrays.asList("aa", "bb", "dddddd", "c")));
+    }
+
     @Test
     public void testMultipleThreads() {
         long numRuns = 10000;
@@ -79,6 +79,31 @@ public class UTF8TestCase {
         assertTrue(state.isFinal());
     }
 
+    @Test
+    public void testByteRangeDelta() {
+        byte[] bytes = new byte[prefixBuf.length + suffixBuf.length];
+        System.arraycopy(prefixBuf, 0, bytes, 0, prefixBuf.length);
+        System.arraycopy(suffixBuf, 0, bytes, prefixBuf.length, suffixBuf.length);
+        state.delta(bytes, 0, prefixBuf.length);
+        assertTrue(state.isValid());
+        assertFalse(state.isFinal());
+        state.delta(bytes, prefixBuf.length, suffixBuf.length);
+        assertTrue(state.isFinal());
+        assertTrue(state.lookup(bytes, 0, bytes.length));
+    }
+
+    @Test
+    public void testNonLatinStringsAreNotAccepted() {
+        state.delta(word + "\u00e6");
+        assertFalse(state.isValid());
+        state.start();
+        state.delta(prefix + "\ud83d\ude00");
+        assertFalse(state.isValid());
+        state.start();
+        state.delta("\ud83d" + suffix);
+        assertFalse(state.isValid());
+    }
+
     @Test
     public void testIteratorAtStart() {
         Iterator<FSA.Iterator.Item> itr = fsa.iterator(state);
@@ -5,6 +5,7 @@ import com.yahoo.document.DataType;
 import com.yahoo.document.Document;
 import com.yahoo.document.Field;
 import com.yahoo.document.FieldPath;
+import com.yahoo.document.FieldPathEntry;
 import com.yahoo.document.datatypes.FieldValue;
 import com.yahoo.vespa.indexinglanguage.expressions.Expression;
 import com.yahoo.vespa.indexinglanguage.expressions.VerificationException;
@@ -57,6 +58,10 @@ public class SimpleDocumentAdapter implements DocumentAdapter {
     @Override
     public FieldValue getInputValue(FieldPath fieldPath) {
         try {
+            if (fieldPath.size() == 1 && fieldPath.get(0).getType() == FieldPathEntry.Type.STRUCT_FIELD) {
+                // The common case of a top level field, which is resolved already: Skip the field path iteration
+                return input.getFieldValue(fieldPath.get(0).getFieldRef());
+            }
             return input.getRecursiveValue(fieldPath);
         } catch (IllegalArgumentException e) {
             return null;
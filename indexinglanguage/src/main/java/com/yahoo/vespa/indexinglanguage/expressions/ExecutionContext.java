@@ -16,7 +16,8 @@ import java.util.Map;
  */
 public class ExecutionContext implements FieldTypeAdapter, FieldValueAdapter, Cloneable {
 
-    private final Map<String, FieldValue> variables = new HashMap<>();
+    /** The variables set in this, or null if none, as most scripts do not use variables */
+    private Map<String, FieldValue> variables = null;
     private final FieldValueAdapter adapter;
     private FieldValue value;
     private Language language;
@@ -77,10 +78,13 @@ public class ExecutionContext implements FieldTypeAdapter, FieldValueAdapter, Cl
     }
 
     public FieldValue getVariable(String name) {
-        return variables.get(name);
+        return variables != null ? variables.get(name) : null;
     }
 
     public ExecutionContext setVariable(String name, FieldValue value) {
+        if (variables == null) {
+            variables = new HashMap<>();
+        }
         variables.put(name, value);
         return this;
     }
@@ -123,7 +127,7 @@ public class ExecutionContext implements FieldTypeAdapter, FieldValueAdapter, Cl
     }
 
     public ExecutionContext clear() {
-        variables.clear();
+        variables = null;
         value = null;
         return this;
     }
@@ -2,6 +2,7 @@
 package com.yahoo.vespa.indexinglanguage.expressions;
 
 import com.yahoo.document.DataType;
+import com.yahoo.document.annotation.Annotation;
 import com.yahoo.document.annotation.AnnotationTypes;
 import com.yahoo.document.annotation.Span;
 import com.yahoo.document.annotation.SpanList;
@@ -13,8 +14,6 @@ import com.yahoo.language.process.GramSplitter;
 import com.yahoo.language.process.TokenType;
 import com.yahoo.vespa.indexinglanguage.linguistics.LinguisticsAnnotator;
 
-import java.util.Iterator;
-
 /**
  * A filter which splits incoming text into n-grams
  *
@@ -25,6 +24,9 @@ public final class NGramExpression extends Expression {
     private final Linguistics linguistics;
     private final int gramSize;
 
+    /** Gram iterators reused by each thread executing this, to avoid creating objects per gram */
+    private final ThreadLocal<GramSplitter.GramIterator> gramIterators;
+
     /**
      * Creates an executable ngram expression
      *
@@ -35,6 +37,7 @@ public final class NGramExpression extends Expression {
         super(DataType.STRING);
         this.linguistics = linguistics;
         this.gramSize = gramSize;
+        this.gramIterators = ThreadLocal.withInitial(() -> linguistics.getGramSplitter().gramIterator());
     }
 
     public Linguistics getLinguistics() {
@@ -56,22 +59,22 @@ public final class NGramExpression extends Expression {
         ctx.setValue(output);
 
         SpanList spanList = output.setSpanTree(new SpanTree(SpanTrees.LINGUISTICS)).spanList();
+        String text = output.getString();
         int lastPosition = 0;
-        for (Iterator<GramSplitter.Gram> it = linguistics.getGramSplitter().split(output.getString(), gramSize); it.hasNext();) {
-            GramSplitter.Gram gram = it.next();
+        GramSplitter.GramIterator grams = gramIterators.get().reset(text, gramSize);
+        while (grams.next()) {
             // if there is a gap before this gram, then annotate the gram as punctuation
             // (technically it may be of various types, but it does not matter - we just
             // need to annotate it somehow (as a non-term) to make sure it is added to the summary)
-            if (lastPosition < gram.getStart()) {
-                typedSpan(lastPosition, gram.getStart() - lastPosition, TokenType.PUNCTUATION, spanList);
+            if (lastPosition < grams.start()) {
+                typedSpan(lastPosition, grams.start() - lastPosition, TokenType.PUNCTUATION, spanList);
             }
 
             // annotate gram as a word term
-            String gramString = gram.extractFrom(output.getString());
-            typedSpan(gram.getStart(), gram.getCodePointCount(), TokenType.ALPHABETIC, spanList).
-                    annotate(LinguisticsAnnotator.lowerCaseTermAnnotation(gramString, gramString));
+            typedSpan(grams.start(), grams.codePointCount(), TokenType.ALPHABETIC, spanList).
+                    annotate(termAnnotation(text, grams.start(), grams.end()));
 
-            lastPosition = gram.getStart() + gram.getCodePointCount();
+            lastPosition = grams.start() + grams.codePointCount();
         }
         // handle punctuation at the end
         if (lastPosition < output.toString().length()) {
@@ -79,6 +82,19 @@ public final class NGramExpression extends Expression {
         }
     }
 
+    /** Returns the term annotation of a gram, without creating a string for the gram when it is already lowercase */
+    private static Annotation termAnnotation(String text, int start, int end) {
+        for (int i = start; i < end; ) {
+            int codePoint = text.codePointAt(i);
+            if (Character.toLowerCase(codePoint) != codePoint) {
+                String gramString = text.substring(start, end);
+                return LinguisticsAnnotator.lowerCaseTermAnnotation(gramString, gramString);
+            }
+            i += Character.charCount(codePoint);
+        }
+        return new Annotation(AnnotationTypes.TERM);
+    }
+
     private Span typedSpan(int from, int length, TokenType tokenType, SpanList spanList) {
         return (Span)spanList.span(from, length).annotate(AnnotationTypes.TOKEN_TYPE, tokenType.getValue());
     }
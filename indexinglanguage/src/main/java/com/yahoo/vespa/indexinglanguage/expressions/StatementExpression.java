@@ -9,6 +9,7 @@ import com.yahoo.vespa.indexinglanguage.ScriptParserContext;
 import com.yahoo.vespa.indexinglanguage.parser.IndexingInput;
 import com.yahoo.vespa.indexinglanguage.parser.ParseException;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
@@ -20,6 +21,9 @@ import java.util.List;
  */
 public final class StatementExpression extends ExpressionList<Expression> {
 
+    /** The expressions to execute, which is all expressions in this except repeated outputs of the same value */
+    private final Expression[] executionPlan;
+
     public StatementExpression(Expression... lst) {
         this(Arrays.asList(lst));
     }
@@ -30,15 +34,49 @@ public final class StatementExpression extends ExpressionList<Expression> {
 
     private StatementExpression(Iterable<Expression> list, Object unused) {
         super(list, resolveInputType(list));
+        executionPlan = createExecutionPlan(asList());
     }
 
     @Override
     protected void doExecute(ExecutionContext ctx) {
-        for (Expression exp : this) {
+        for (Expression exp : executionPlan) {
             ctx.execute(exp);
         }
     }
 
+    /**
+     * Returns the expressions to execute for the given list. Outputs do not change the value of the statement,
+     * so an output to the same field as the output immediately before it, as in "summary foo | index foo", would
+     * write the same value again. Such chains are fused into the first output of the chain.
+     */
+    private static Expression[] createExecutionPlan(List<Expression> expressions) {
+        List<Expression> plan = new ArrayList<>(expressions.size());
+        Expression prev = null;
+        for (Expression exp : expressions) {
+            if ( ! isRepeatedOutput(prev, exp)) {
+                plan.add(exp);
+            }
+            prev = exp;
+        }
+        return plan.toArray(new Expression[plan.size()]);
+    }
+
+    private static boolean isRepeatedOutput(Expression prev, Expression exp) {
+        if ( ! isBuiltinOutput(prev) || ! isBuiltinOutput(exp)) {
+            return false;
+        }
+        String fieldName = ((OutputExpression)exp).getFieldName();
+        return fieldName != null && fieldName.equals(((OutputExpression)prev).getFieldName());
+    }
+
+    /** Returns whether the given is an output expression which does nothing but set its field to the current value */
+    private static boolean isBuiltinOutput(Expression exp) {
+        return exp instanceof AttributeExpression ||
+               exp instanceof IndexExpression ||
+               exp instanceof SummaryExpression ||
+               exp instanceof PassthroughExpression;
+    }
+
     @Override
     protected void doVerify(VerificationContext context) {
         for (Expression exp : this) {
@@ -36,6 +36,8 @@ public class SimpleDocumentAdapterTestCase {
         assertEquals(foo, adapter.getInputValue("foo"));
         assertEquals(barType, adapter.getInputType(null, "foo.bar"));
         assertEquals(bar, adapter.getInputValue("foo.bar"));
+        assertEquals(foo, adapter.getInputValue(docType.buildFieldPath("foo")));
+        assertEquals(bar, adapter.getInputValue(docType.buildFieldPath("foo.bar")));
     }
 
     @Test
@@ -51,5 +53,8 @@ public class SimpleDocumentAdapterTestCase {
             assertEquals("Input field 'foo' not found.", e.getMessage());
         }
         assertNull(adapter.getInputValue("foo"));
+
+        docType.addField("foo", DataType.STRING);
+        assertNull(adapter.getInputValue(docType.buildFieldPath("foo")));
     }
 }
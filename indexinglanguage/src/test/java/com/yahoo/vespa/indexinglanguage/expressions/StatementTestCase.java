@@ -7,7 +7,9 @@ import com.yahoo.document.datatypes.IntegerFieldValue;
 import com.yahoo.vespa.indexinglanguage.SimpleTestAdapter;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 import static com.yahoo.vespa.indexinglanguage.expressions.ExpressionAssert.assertVerify;
 import static com.yahoo.vespa.indexinglanguage.expressions.ExpressionAssert.assertVerifyThrows;
@@ -114,6 +116,31 @@ public class StatementTestCase {
         assertEquals(69, ((IntegerFieldValue)val).getInteger());
     }
 
+    @Test
+    public void requireThatRepeatedOutputsOfTheSameFieldAreFused() {
+        List<String> outputs = new ArrayList<>();
+        SimpleTestAdapter adapter = new SimpleTestAdapter() {
+            @Override
+            public SimpleTestAdapter setOutputValue(Expression exp, String fieldName, FieldValue fieldValue) {
+                outputs.add(exp + "=" + fieldValue);
+                return super.setOutputValue(exp, fieldName, fieldValue);
+            }
+        };
+        ExecutionContext ctx = new ExecutionContext(adapter);
+        StatementExpression statement = newStatement(new SetValueExpression(new IntegerFieldValue(1)),
+                                                     new AttributeExpression("foo"),
+                                                     new SummaryExpression("foo"),
+                                                     new IndexExpression("foo"),
+                                                     new SummaryExpression("bar"),
+                                                     new SetValueExpression(new IntegerFieldValue(2)),
+                                                     new SummaryExpression("bar"));
+        assertEquals(7, statement.size());
+        statement.execute(ctx);
+        assertEquals(Arrays.asList("attribute foo=1", "summary bar=1", "summary bar=2"), outputs);
+        assertEquals(new IntegerFieldValue(1), adapter.getInputValue("foo"));
+        assertEquals(new IntegerFieldValue(2), adapter.getInputValue("bar"));
+    }
+
     private static StatementExpression newStatement(Expression... args) {
         return new StatementExpression(args);
     }
@@ -9,6 +9,7 @@ class Buffer {
 
     static final int MAX_IO = 65000;
 
+    private final BufferPool pool;
     private ByteBuffer buf;
     private int        readPos;
     private int        writePos;
@@ -58,18 +59,56 @@ class Buffer {
             if (buf.capacity() + free < minFree) {
                 size = buf.capacity() + minFree;
             }
-            ByteBuffer tmp = ByteBuffer.allocate(size);
+            ByteBuffer tmp = allocate(size);
             tmp.order(buf.order());
             buf.position(readPos);
             buf.limit(writePos);
             tmp.put(buf);
+            free(buf);
             buf = tmp;
             readPos = 0;
         }
     }
 
+    private ByteBuffer allocate(int size) {
+        return (pool != null) ? pool.allocate(size) : ByteBuffer.allocate(size);
+    }
+
+    private void free(ByteBuffer old) {
+        if (pool != null) {
+            pool.release(old);
+        }
+    }
+
     public Buffer(int size) {
-        buf = ByteBuffer.allocate(size);
+        this(size, null);
+    }
+
+    /**
+     * Create a buffer which obtains its backing storage from the
+     * given pool, or from the heap if the pool is null. The storage
+     * is given back to the pool when the buffer is grown, shrunk or
+     * released.
+     *
+     * @param size initial minimum size
+     * @param pool the pool to allocate from, or null
+     **/
+    public Buffer(int size, BufferPool pool) {
+        this.pool = pool;
+        buf = allocate(size);
+        readPos = 0;
+        writePos = 0;
+        readMode = false;
+    }
+
+    /**
+     * Give the backing storage of this buffer back to its pool and
+     * drop any content. The buffer stays usable, but will need to
+     * allocate again before anything can be written to it.
+     **/
+    public void release() {
+        free(buf);
+        buf = ByteBuffer.allocate(0);
         readPos = 0;
         writePos = 0;
         readMode = false;
@@ -82,11 +121,16 @@ class Buffer {
         if (used > size || buf.capacity() <= size) {
             return false;
         }
-        ByteBuffer tmp = ByteBuffer.allocate(size);
+        ByteBuffer tmp = allocate(size);
+        if (tmp.capacity() >= buf.capacity()) {
+            free(tmp);
+            return false;
+        }
         tmp.order(buf.order());
         buf.position(rpos);
         buf.limit(wpos);
         tmp.put(buf);
+        free(buf);
         buf = tmp;
         readPos = 0;
         writePos = used;
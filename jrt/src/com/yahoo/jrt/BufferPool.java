@@ -0,0 +1,101 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.jrt;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A pool of direct byte buffers used as backing storage for the
+ * {@link Buffer} objects of connections. Buffers are handed out in
+ * slabs with power of two sizes, and released slabs are kept for
+ * reuse as long as the total size of free slabs is below a limit.
+ * Requests larger than the largest slab size get a heap buffer which
+ * is not pooled, so that occasional huge packets do not pin large
+ * amounts of direct memory. This class is thread safe.
+ **/
+class BufferPool {
+
+    static final int MIN_SLAB_SIZE = 4 * 1024;
+    static final int MAX_SLAB_SIZE = 1024 * 1024;
+
+    private static final int MIN_SLAB_BITS = Integer.numberOfTrailingZeros(MIN_SLAB_SIZE);
+    private static final int MAX_SLAB_BITS = Integer.numberOfTrailingZeros(MAX_SLAB_SIZE);
+
+    private final long maxFreeBytes;
+    private final AtomicLong freeBytes = new AtomicLong(0);
+    private final AtomicLong allocated = new AtomicLong(0);
+    private final AtomicLong reused = new AtomicLong(0);
+    private final ConcurrentLinkedQueue<ByteBuffer>[] free;
+
+    /**
+     * Create a buffer pool
+     *
+     * @param maxFreeBytes the max total size of the free slabs kept for reuse
+     **/
+    @SuppressWarnings("unchecked")
+    BufferPool(long maxFreeBytes) {
+        this.maxFreeBytes = maxFreeBytes;
+        free = new ConcurrentLinkedQueue[MAX_SLAB_BITS - MIN_SLAB_BITS + 1];
+        for (int i = 0; i < free.length; i++) {
+            free[i] = new ConcurrentLinkedQueue<>();
+        }
+    }
+
+    private static int slabClass(int size) {
+        int bits = (size <= MIN_SLAB_SIZE) ? MIN_SLAB_BITS : 32 - Integer.numberOfLeadingZeros(size - 1);
+        return bits - MIN_SLAB_BITS;
+    }
+
+    /**
+     * Obtain a cleared buffer with at least the given capacity. The
+     * buffer should be given back with {@link #release} when it is
+     * no longer used.
+     *
+     * @param minSize the minimum capacity of the buffer
+     * @return a buffer in big endian byte order
+     **/
+    ByteBuffer allocate(int minSize) {
+        if (minSize > MAX_SLAB_SIZE) {
+            return ByteBuffer.allocate(minSize);
+        }
+        int slabClass = slabClass(minSize);
+        ByteBuffer buf = free[slabClass].poll();
+        if (buf != null) {
+            freeBytes.addAndGet(-buf.capacity());
+            reused.incrementAndGet();
+            buf.clear();
+            return buf.order(ByteOrder.BIG_ENDIAN);
+        }
+        allocated.incrementAndGet();
+        return ByteBuffer.allocateDirect(MIN_SLAB_SIZE << slabClass);
+    }
+
+    /**
+     * Give back a buffer obtained from {@link #allocate}. The buffer
+     * must not be used by the caller after this.
+     *
+     * @param buf the buffer to give back
+     **/
+    void release(ByteBuffer buf) {
+        if ( ! buf.isDirect() || buf.capacity() > MAX_SLAB_SIZE) {
+            return; // not ours; left to the garbage collector
+        }
+        if (freeBytes.addAndGet(buf.capacity()) > maxFreeBytes) {
+            freeBytes.addAndGet(-buf.capacity());
+            return;
+        }
+        free[slabClass(buf.capacity())].offer(buf);
+    }
+
+    /** Returns the number of slabs allocated from the system by this pool */
+    long allocatedSlabs() { return allocated.get(); }
+
+    /** Returns the number of times a free slab was handed out again */
+    long reusedSlabs() { return reused.get(); }
+
+    /** Returns the total size of the free slabs currently kept for reuse */
+    long freeBytes() { return freeBytes.get(); }
+
+}
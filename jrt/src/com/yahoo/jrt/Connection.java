@@ -2,6 +2,7 @@
 package com.yahoo.jrt;
 
 import java.io.IOException;
+import java.net.InetAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
@@ -32,8 +33,8 @@ class Connection extends Target {
     private int state = INITIAL;
     private final Queue  queue   = new Queue();
     private final Queue  myQueue = new Queue();
-    private final Buffer input   = new Buffer(READ_SIZE * 2);
-    private final Buffer output  = new Buffer(WRITE_SIZE * 2);
+    private final Buffer input;
+    private final Buffer output;
     private int maxInputSize  = 64*1024;
     private int maxOutputSize = 64*1024;
     private final boolean tcpNoDelay;
@@ -94,6 +95,8 @@ class Connection extends Target {
 
         this.parent = parent;
         this.owner = owner;
+        this.input = new Buffer(READ_SIZE * 2, parent.transport().bufferPool());
+        this.output = new Buffer(WRITE_SIZE * 2, parent.transport().bufferPool());
         this.socket = parent.transport().createServerCryptoSocket(channel);
         this.spec = null;
         this.tcpNoDelay = tcpNoDelay;
@@ -105,6 +108,8 @@ class Connection extends Target {
         super(context);
         this.parent = parent;
         this.owner = owner;
+        this.input = new Buffer(READ_SIZE * 2, parent.transport().bufferPool());
+        this.output = new Buffer(WRITE_SIZE * 2, parent.transport().bufferPool());
         this.spec = spec;
         this.tcpNoDelay = tcpNoDelay;
         server = false;
@@ -383,6 +388,8 @@ class Connection extends Target {
         if (selectionKey != null) {
             selectionKey.cancel();
         }
+        input.release();
+        output.release();
     }
 
     public boolean isClosed() {
@@ -450,6 +457,12 @@ class Connection extends Target {
                 .flatMap(CryptoSocket::getSecurityContext);
     }
 
+    @Override
+    public Optional<InetAddress> getPeerAddress() {
+        if ( ! hasSocket()) return Optional.empty();
+        return Optional.ofNullable(socket.channel().socket().getInetAddress());
+    }
+
     public boolean isClient() {
         return !server;
     }
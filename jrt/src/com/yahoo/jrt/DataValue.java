@@ -11,13 +11,34 @@ import java.nio.ByteBuffer;
 public class DataValue extends Value
 {
     private byte[] value;
+    private final ByteBuffer slice; // the bytes of this if it wraps a buffer, null otherwise
 
     /**
      * Create from a Java-type value
      *
      * @param value the value
      **/
-    public DataValue(byte[] value) { this.value = value; }
+    public DataValue(byte[] value) { this(value, null); }
+
+    private DataValue(byte[] value, ByteBuffer slice) {
+        this.value = value;
+        this.slice = slice;
+    }
+
+    /**
+     * Create a value which references the remaining bytes of the
+     * given buffer, without copying them. The bytes are written
+     * directly from the buffer when the value is encoded, which
+     * avoids an intermediate array for large payloads. The position
+     * and limit of the given buffer are not changed, and its
+     * content must not be modified while this value is in use.
+     *
+     * @param value the buffer holding the value
+     * @return a value referencing the remaining bytes of the buffer
+     **/
+    public static DataValue wrap(ByteBuffer value) {
+        return new DataValue(null, value.slice());
+    }
 
     /**
      * Create by decoding the value from the given buffer
@@ -28,6 +49,7 @@ public class DataValue extends Value
         int size = src.getInt();
         value = new byte[size];
         src.get(value);
+        slice = null;
     }
 
     /**
@@ -36,17 +58,38 @@ public class DataValue extends Value
     public byte type() { return DATA; }
     public int count() { return 1; }
 
-    int bytes() { return 4 + value.length; }
+    int bytes() { return 4 + ((slice != null) ? slice.remaining() : value.length); }
     void encode(ByteBuffer dst) {
-        dst.putInt(value.length);
-        dst.put(value);
+        if (slice != null) {
+            dst.putInt(slice.remaining());
+            dst.put(slice.duplicate());
+        } else {
+            dst.putInt(value.length);
+            dst.put(value);
+        }
     }
 
-    public byte[] asData() { return value; }
+    /**
+     * Returns the bytes of this. If this wraps a buffer, the bytes
+     * are copied into an array the first time this is called,
+     * unless the buffer is backed by an array holding exactly the
+     * bytes of this.
+     **/
+    public byte[] asData() {
+        if (value == null) {
+            if (slice.hasArray() && slice.arrayOffset() == 0 && slice.remaining() == slice.array().length) {
+                value = slice.array();
+            } else {
+                value = new byte[slice.remaining()];
+                slice.duplicate().get(value);
+            }
+        }
+        return value;
+    }
 
     @Override
     public String toString() {
-        return String.valueOf(value);
+        return String.valueOf(asData());
     }
 
 }
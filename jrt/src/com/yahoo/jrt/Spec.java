@@ -38,7 +38,7 @@ public class Spec implements Comparable<Spec> {
      */
     public Spec(String spec) {
         if (spec.startsWith("tcp/")) {
-            int sep = spec.indexOf(':');
+            int sep = spec.lastIndexOf(':'); // the host may be an IPv6 address
             String portStr;
             String hostStr = null;
             if (sep == -1) {
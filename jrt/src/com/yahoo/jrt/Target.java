@@ -2,6 +2,7 @@
 package com.yahoo.jrt;
 
 
+import java.net.InetAddress;
 import java.util.Optional;
 
 /**
@@ -74,6 +75,11 @@ public abstract class Target {
      */
     public abstract Optional<SecurityContext> getSecurityContext();
 
+    /**
+     * @return the address of the other end of the connection of this target, or empty if not connected.
+     */
+    public Optional<InetAddress> getPeerAddress() { return Optional.empty(); }
+
     /**
      * Check if this target represents the client side of a
      * connection.
@@ -20,6 +20,9 @@ public class Transport {
 
     private static final Logger log = Logger.getLogger(Transport.class.getName());
 
+    /** The max total size of connection buffers kept for reuse when connections are closed or buffers shrink */
+    private static final long MAX_FREE_BUFFER_BYTES = 16 * 1024 * 1024;
+
     private final String name;
     private final FatalErrorHandler fatalHandler; // NB: this must be set first
     private final CryptoEngine      cryptoEngine;
@@ -28,6 +31,7 @@ public class Transport {
     private final AtomicInteger     runCnt;
     private final boolean tcpNoDelay;
     private final int eventsBeforeWakeup;
+    private final BufferPool bufferPool = new BufferPool(MAX_FREE_BUFFER_BYTES);
 
     private final TransportMetrics metrics = TransportMetrics.getInstance();
     private final ArrayList<TransportThread> threads = new ArrayList<>();
@@ -161,6 +165,11 @@ public class Transport {
         return conn;
     }
 
+    /** Returns the pool of direct buffers used by the connections of this transport */
+    BufferPool bufferPool() {
+        return bufferPool;
+    }
+
     void closeLater(Connection c) {
         worker.closeLater(c);
     }
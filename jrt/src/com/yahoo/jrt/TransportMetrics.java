@@ -1,6 +1,11 @@
 // Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.jrt;
 
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.ToLongFunction;
 
@@ -19,6 +24,7 @@ public class TransportMetrics {
     private final AtomicLong clientTlsConnectionsEstablished = new AtomicLong(0);
     private final AtomicLong serverUnencryptedConnectionsEstablished = new AtomicLong(0);
     private final AtomicLong clientUnencryptedConnectionsEstablished = new AtomicLong(0);
+    private final Set<TransportThread> transportThreads = ConcurrentHashMap.newKeySet();
 
     private TransportMetrics() {}
 
@@ -48,6 +54,17 @@ public class TransportMetrics {
         return clientUnencryptedConnectionsEstablished.get();
     }
 
+    /**
+     * Returns the time spent by each running transport thread since it started, by thread name.
+     * Threads with the same name, e.g., from transports with the same name, are summed.
+     */
+    public Map<String, EventLoopTime> eventLoopTimes() {
+        Map<String, EventLoopTime> times = new TreeMap<>();
+        for (TransportThread thread : transportThreads)
+            times.merge(thread.getName(), new EventLoopTime(thread.busyNanos(), thread.totalNanos()), EventLoopTime::plus);
+        return Collections.unmodifiableMap(times);
+    }
+
     public Snapshot snapshot() { return new Snapshot(this); }
 
     void incrementTlsCertificateVerificationFailures() {
@@ -74,6 +91,14 @@ public class TransportMetrics {
         clientUnencryptedConnectionsEstablished.incrementAndGet();
     }
 
+    void addTransportThread(TransportThread thread) {
+        transportThreads.add(thread);
+    }
+
+    void removeTransportThread(TransportThread thread) {
+        transportThreads.remove(thread);
+    }
+
     @Override
     public String toString() {
         return "TransportMetrics{" +
@@ -83,11 +108,48 @@ public class TransportMetrics {
                 ", clientTlsConnectionsEstablished=" + clientTlsConnectionsEstablished +
                 ", serverUnencryptedConnectionsEstablished=" + serverUnencryptedConnectionsEstablished +
                 ", clientUnencryptedConnectionsEstablished=" + clientUnencryptedConnectionsEstablished +
+                ", eventLoopTimes=" + eventLoopTimes() +
                 '}';
     }
 
+    /**
+     * The time a transport thread has spent in its event loop, and how much of that time it was busy
+     * handling events, as opposed to waiting for them.
+     */
+    public static class EventLoopTime {
+
+        static final EventLoopTime ZERO = new EventLoopTime(0, 0);
+
+        private final long busyNanos;
+        private final long totalNanos;
+
+        public EventLoopTime(long busyNanos, long totalNanos) {
+            this.busyNanos = busyNanos;
+            this.totalNanos = totalNanos;
+        }
+
+        public long busyNanos() { return busyNanos; }
+        public long totalNanos() { return totalNanos; }
+
+        /** Returns the fraction of the total time which was spent handling events, or 0 if no time has passed */
+        public double utilization() { return totalNanos > 0 ? busyNanos / (double) totalNanos : 0; }
+
+        EventLoopTime plus(EventLoopTime other) {
+            return new EventLoopTime(busyNanos + other.busyNanos, totalNanos + other.totalNanos);
+        }
+
+        EventLoopTime minus(EventLoopTime other) {
+            return new EventLoopTime(busyNanos - other.busyNanos, totalNanos - other.totalNanos);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%.3f", utilization());
+        }
+    }
+
     public static class Snapshot {
-        public static final Snapshot EMPTY = new Snapshot(0, 0, 0, 0, 0, 0);
+        public static final Snapshot EMPTY = new Snapshot(0, 0, 0, 0, 0, 0, Map.of());
 
         private final long tlsCertificateVerificationFailures;
         private final long peerAuthorizationFailures;
@@ -95,6 +157,7 @@ public class TransportMetrics {
         private final long clientTlsConnectionsEstablished;
         private final long serverUnencryptedConnectionsEstablished;
         private final long clientUnencryptedConnectionsEstablished;
+        private final Map<String, EventLoopTime> eventLoopTimes;
 
         private Snapshot(TransportMetrics metrics) {
             this(metrics.tlsCertificateVerificationFailures.get(),
@@ -102,7 +165,8 @@ public class TransportMetrics {
                  metrics.serverTlsConnectionsEstablished.get(),
                  metrics.clientTlsConnectionsEstablished.get(),
                  metrics.serverUnencryptedConnectionsEstablished.get(),
-                 metrics.clientUnencryptedConnectionsEstablished.get());
+                 metrics.clientUnencryptedConnectionsEstablished.get(),
+                 metrics.eventLoopTimes());
         }
 
         private Snapshot(long tlsCertificateVerificationFailures,
@@ -110,13 +174,15 @@ public class TransportMetrics {
                         long serverTlsConnectionsEstablished,
                         long clientTlsConnectionsEstablished,
                         long serverUnencryptedConnectionsEstablished,
-                        long clientUnencryptedConnectionsEstablished) {
+                        long clientUnencryptedConnectionsEstablished,
+                        Map<String, EventLoopTime> eventLoopTimes) {
             this.tlsCertificateVerificationFailures = tlsCertificateVerificationFailures;
             this.peerAuthorizationFailures = peerAuthorizationFailures;
             this.serverTlsConnectionsEstablished = serverTlsConnectionsEstablished;
             this.clientTlsConnectionsEstablished = clientTlsConnectionsEstablished;
             this.serverUnencryptedConnectionsEstablished = serverUnencryptedConnectionsEstablished;
             this.clientUnencryptedConnectionsEstablished = clientUnencryptedConnectionsEstablished;
+            this.eventLoopTimes = eventLoopTimes;
         }
 
         public long tlsCertificateVerificationFailures() { return tlsCertificateVerificationFailures; }
@@ -126,6 +192,20 @@ public class TransportMetrics {
         public long serverUnencryptedConnectionsEstablished() { return serverUnencryptedConnectionsEstablished; }
         public long clientUnencryptedConnectionsEstablished() { return clientUnencryptedConnectionsEstablished; }
 
+        /** Returns the event loop time of each transport thread, by thread name */
+        public Map<String, EventLoopTime> eventLoopTimes() { return eventLoopTimes; }
+
+        /**
+         * Returns the fraction of time each transport thread has spent handling events rather than waiting for them,
+         * by thread name. For a snapshot returned by {@link #changesSince} this is the utilization in the period
+         * between the two snapshots.
+         */
+        public Map<String, Double> eventLoopUtilization() {
+            Map<String, Double> utilization = new TreeMap<>();
+            eventLoopTimes.forEach((name, time) -> utilization.put(name, time.utilization()));
+            return Collections.unmodifiableMap(utilization);
+        }
+
         public Snapshot changesSince(Snapshot base) {
             return new Snapshot(
                 changesSince(base, Snapshot::tlsCertificateVerificationFailures),
@@ -133,7 +213,18 @@ public class TransportMetrics {
                 changesSince(base, Snapshot::serverTlsConnectionsEstablished),
                 changesSince(base, Snapshot::clientTlsConnectionsEstablished),
                 changesSince(base, Snapshot::serverUnencryptedConnectionsEstablished),
-                changesSince(base, Snapshot::clientUnencryptedConnectionsEstablished));
+                changesSince(base, Snapshot::clientUnencryptedConnectionsEstablished),
+                eventLoopTimesSince(base));
+        }
+
+        private Map<String, EventLoopTime> eventLoopTimesSince(Snapshot base) {
+            Map<String, EventLoopTime> times = new TreeMap<>();
+            eventLoopTimes.forEach((name, time) -> {
+                EventLoopTime baseTime = base.eventLoopTimes.getOrDefault(name, EventLoopTime.ZERO);
+                // A thread which was replaced by a new one with the same name is counted from zero
+                times.put(name, baseTime.totalNanos() <= time.totalNanos() ? time.minus(baseTime) : time);
+            });
+            return Collections.unmodifiableMap(times);
         }
 
         private long changesSince(Snapshot base, ToLongFunction<Snapshot> metricProperty) {
@@ -149,6 +240,7 @@ public class TransportMetrics {
                     ", clientTlsConnectionsEstablished=" + clientTlsConnectionsEstablished +
                     ", serverUnencryptedConnectionsEstablished=" + serverUnencryptedConnectionsEstablished +
                     ", clientUnencryptedConnectionsEstablished=" + clientUnencryptedConnectionsEstablished +
+                    ", eventLoopTimes=" + eventLoopTimes +
                     '}';
         }
     }
@@ -6,6 +6,7 @@ import java.io.IOException;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -76,6 +77,8 @@ public class TransportThread {
     private final Scheduler scheduler;
     private int             state;
     private final Selector  selector;
+    private final AtomicLong busyNanos  = new AtomicLong(0);
+    private final AtomicLong totalNanos = new AtomicLong(0);
 
     private void handleAddConnection(Connection conn) {
         if (conn.isClosed()) {
@@ -186,6 +189,21 @@ public class TransportThread {
         return parent;
     }
 
+    /** Returns the name of the thread running the event loop of this */
+    String getName() {
+        return thread.getName();
+    }
+
+    /** Returns the time this has spent handling events and tasks, rather than waiting for them */
+    long busyNanos() {
+        return busyNanos.get();
+    }
+
+    /** Returns the total time this has spent in its event loop */
+    long totalNanos() {
+        return totalNanos.get();
+    }
+
     /**
      * Proxy method used to dispatch fatal errors to the enclosing
      * Transport.
@@ -290,7 +308,9 @@ public class TransportThread {
     }
 
     private void run() {
+        parent.metrics().addTransportThread(this);
         while (state == OPEN) {
+            long selectStart = System.nanoTime();
 
             // perform I/O selection
             try {
@@ -298,6 +318,7 @@ public class TransportThread {
             } catch (IOException e) {
                 log.log(Level.WARNING, "error during select", e);
             }
+            long selectEnd = System.nanoTime();
 
             // handle internal events
             handleEvents();
@@ -315,6 +336,10 @@ public class TransportThread {
 
             // check scheduled tasks
             scheduler.checkTasks(System.currentTimeMillis());
+
+            long end = System.nanoTime();
+            totalNanos.addAndGet(end - selectStart); // before busy, so that readers never see busy > total
+            busyNanos.addAndGet(end - selectEnd);
         }
         synchronized (this) {
             state = CLOSED;
@@ -327,6 +352,7 @@ public class TransportThread {
             handleCloseConnection(conn);
         }
         try { selector.close(); } catch (Exception e) {}
+        parent.metrics().removeTransportThread(this);
         parent.notifyDone(this);
     }
 
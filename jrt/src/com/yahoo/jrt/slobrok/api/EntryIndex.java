@@ -0,0 +1,113 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.jrt.slobrok.api;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An immutable index of the entries of a mirror. Entry names are split into segments on '/'
+ * which are stored in a trie, such that a lookup only visits the entries which may match the pattern.
+ * Lookup results are in the order of the entries given to this, as when matching all entries, and are cached by pattern for the lifetime of the index, which is replaced on each mirror update.
+ *
+ * @author bratseth
+ */
+class EntryIndex {
+
+    /** The max number of distinct patterns to cache results for */
+    static final int maxCachedPatterns = 1000;
+
+    private final Mirror.Entry[] entries;
+    private final Node root = new Node();
+    private final Map<String, List<Mirror.Entry>> cache = new ConcurrentHashMap<>();
+
+    EntryIndex(Mirror.Entry[] entries) {
+        this.entries = entries;
+        for (int i = 0; i < entries.length; i++) {
+            Node node = root;
+            for (String segment : segments(entries[i].getName()))
+                node = node.children.computeIfAbsent(segment, __ -> new Node());
+            node.entries.add(i);
+        }
+    }
+
+    /** Returns all the entries of this. The returned array must not be modified */
+    Mirror.Entry[] entries() { return entries; }
+
+    /** Returns a new, modifiable list of the entries matching the given pattern, see {@link IMirror#lookup} */
+    List<Mirror.Entry> lookup(String pattern) {
+        List<Mirror.Entry> found = cache.get(pattern);
+        if (found == null) {
+            found = find(pattern);
+            if (cache.size() < maxCachedPatterns)
+                cache.put(pattern, found);
+        }
+        return new ArrayList<>(found);
+    }
+
+    private List<Mirror.Entry> find(String pattern) {
+        List<Integer> candidates = new ArrayList<>();
+        collect(root, segments(pattern), 0, candidates);
+        Collections.sort(candidates); // The trie visits candidates in segment order, but we keep the order of the entries
+
+        // The trie narrows down the candidates, while matching decides the finer points such as literal '*'s in names
+        char[] patternArray = pattern.toCharArray();
+        List<Mirror.Entry> found = new ArrayList<>(candidates.size());
+        for (int candidate : candidates) {
+            if (Mirror.match(entries[candidate].getNameArray(), patternArray))
+                found.add(entries[candidate]);
+        }
+        return found;
+    }
+
+    /** Adds the positions of the entries below the given node which may match the pattern segments from the given index */
+    private static void collect(Node node, String[] segments, int index, List<Integer> candidates) {
+        if (index == segments.length) {
+            candidates.addAll(node.entries);
+            return;
+        }
+
+        String segment = segments[index];
+        int star = segment.indexOf('*');
+        if (star < 0) { // exact segment
+            Node child = node.children.get(segment);
+            if (child != null)
+                collect(child, segments, index + 1, candidates);
+            return;
+        }
+
+        // '*' matches the rest of this segment, and '**' the rest of the name
+        String prefix = segment.substring(0, star);
+        boolean matchesRestOfName = segment.indexOf("**", star) >= 0;
+        for (Map.Entry<String, Node> child : node.children.tailMap(prefix).entrySet()) {
+            if ( ! child.getKey().startsWith(prefix)) break;
+            if (matchesRestOfName)
+                child.getValue().addAllEntriesTo(candidates);
+            else
+                collect(child.getValue(), segments, index + 1, candidates);
+        }
+    }
+
+    private static String[] segments(String name) {
+        return name.split("/", -1);
+    }
+
+    private static class Node {
+
+        private final TreeMap<String, Node> children = new TreeMap<>();
+
+        /** The positions of the entries having the name ending at this node */
+        private final List<Integer> entries = new ArrayList<>(1);
+
+        void addAllEntriesTo(List<Integer> list) {
+            list.addAll(entries);
+            for (Node child : children.values())
+                child.addAllEntriesTo(list);
+        }
+
+    }
+
+}
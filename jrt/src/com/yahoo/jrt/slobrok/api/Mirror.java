@@ -13,7 +13,6 @@ import com.yahoo.jrt.Task;
 import com.yahoo.jrt.TransportThread;
 import com.yahoo.jrt.Values;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -39,7 +38,7 @@ public class Mirror implements IMirror {
     private final BackOffPolicy     backOff;
     private volatile int      updates    = 0;
     private boolean requestDone = false;
-    private AtomicReference<Entry[]>  specs = new AtomicReference<>(new Entry[0]);
+    private final AtomicReference<EntryIndex> specs = new AtomicReference<>(new EntryIndex(new Entry[0]));
     private int specsGeneration = 0;
     private final TransportThread transportThread;
     private final Task updateTask;
@@ -93,14 +92,7 @@ public class Mirror implements IMirror {
 
     @Override
     public List<Entry> lookup(String pattern) {
-        ArrayList<Entry> found = new ArrayList<>();
-        char[] p = pattern.toCharArray();
-        for (Entry specEntry : specs.get()) {
-            if (match(specEntry.getNameArray(), p)) {
-                found.add(specEntry);
-            }
-        }
-        return found;
+        return specs.get().lookup(pattern);
     }
 
     @Override
@@ -216,7 +208,7 @@ public class Mirror implements IMirror {
                 for (int idx = 0; idx < numNames; idx++) {
                     newSpecs[idx] = new Entry(n[idx], s[idx]);
                 }
-                specs.set(newSpecs);
+                specs.set(new EntryIndex(newSpecs));
 
                 specsGeneration = answer.get(2).asInt32();
                 int u = (updates + 1);
@@ -264,7 +256,7 @@ public class Mirror implements IMirror {
                 }
             } else {
                 Map<String, Entry> map = new HashMap<>();
-                for (Entry e : specs.get()) {
+                for (Entry e : specs.get().entries()) {
                     map.put(e.getName(), e);
                 }
                 for (String rem : r) {
@@ -280,7 +272,7 @@ public class Mirror implements IMirror {
                 }
             }
 
-            specs.set(newSpecs);
+            specs.set(new EntryIndex(newSpecs));
 
             specsGeneration = diffToGeneration;
             int u = (updates + 1);
@@ -306,7 +298,7 @@ public class Mirror implements IMirror {
             target.close();
             target = null;
         }
-        specs.set(new Entry[0]);
+        specs.set(new EntryIndex(new Entry[0]));
     }
 
     /**
@@ -278,4 +278,52 @@ public class BufferTest {
         }
     }
 
+    @org.junit.Test
+    public void testPooledBuffer() {
+        BufferPool pool = new BufferPool(1024 * 1024);
+        Buffer buf = new Buffer(1000, pool);
+        ByteBuffer b = buf.getWritable(10);
+        assertTrue(b.isDirect());
+        assertEquals(BufferPool.MIN_SLAB_SIZE, b.capacity());
+        b.put((byte)42);
+
+        b = buf.getWritable(3 * BufferPool.MIN_SLAB_SIZE);
+        assertEquals(4 * BufferPool.MIN_SLAB_SIZE, b.capacity());
+        assertEquals(BufferPool.MIN_SLAB_SIZE, pool.freeBytes());
+        assertEquals(1, buf.bytes());
+
+        assertTrue(buf.shrink(BufferPool.MIN_SLAB_SIZE));
+        assertEquals(1, pool.reusedSlabs());
+        assertEquals(4 * BufferPool.MIN_SLAB_SIZE, pool.freeBytes());
+        b = buf.getReadable();
+        assertEquals(BufferPool.MIN_SLAB_SIZE, b.capacity());
+        assertEquals(42, b.get());
+
+        b = buf.getWritable(BufferPool.MAX_SLAB_SIZE + 1);
+        assertFalse(b.isDirect());
+        assertEquals(BufferPool.MIN_SLAB_SIZE * 5, pool.freeBytes());
+
+        buf.release();
+        assertEquals(0, buf.bytes());
+        assertEquals(BufferPool.MIN_SLAB_SIZE * 5, pool.freeBytes());
+        assertEquals(2, pool.allocatedSlabs());
+
+        Buffer other = new Buffer(BufferPool.MIN_SLAB_SIZE, pool);
+        other.getWritable(1).put((byte)1);
+        assertEquals(2, pool.allocatedSlabs());
+        assertEquals(2, pool.reusedSlabs());
+        assertEquals(BufferPool.MIN_SLAB_SIZE * 4, pool.freeBytes());
+    }
+
+    @org.junit.Test
+    public void testPoolKeepsLimitedFreeBytes() {
+        BufferPool pool = new BufferPool(BufferPool.MIN_SLAB_SIZE);
+        Buffer a = new Buffer(1, pool);
+        Buffer b = new Buffer(1, pool);
+        a.release();
+        b.release();
+        assertEquals(BufferPool.MIN_SLAB_SIZE, pool.freeBytes());
+        assertEquals(2, pool.allocatedSlabs());
+    }
+
 }
@@ -72,6 +72,18 @@ public class SpecTest {
         assertTrue(addr.equals(spec.resolveAddress()));
     }
 
+    @org.junit.Test
+    public void testIpv6Spec() {
+        Spec              spec = new Spec("tcp/::1:8080");
+        InetSocketAddress addr = new InetSocketAddress("::1", 8080);
+
+        assertEquals("tcp/::1:8080", spec.toString());
+        assertFalse(spec.malformed());
+        assertEquals(8080, spec.port());
+        assertEquals("::1", spec.host());
+        assertTrue(addr.equals(spec.resolveAddress()));
+    }
+
     @org.junit.Test
     public void testBogusSpec1() {
         Spec spec = new Spec("localhost:8080");
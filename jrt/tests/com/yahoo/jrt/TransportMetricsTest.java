@@ -0,0 +1,80 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.jrt;
+
+import org.junit.After;
+import org.junit.Before;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author bratseth
+ */
+public class TransportMetricsTest {
+
+    private static final String serverThread = "metrics-server.jrt-transport.0";
+    private static final String clientThread = "metrics-client.jrt-transport.0";
+
+    TransportMetrics metrics;
+    Supervisor server;
+    Acceptor   acceptor;
+    Supervisor client;
+    Target     target;
+
+    @Before
+    public void setUp() throws ListenFailedException {
+        metrics  = TransportMetrics.getInstance();
+        server   = new Supervisor(new Transport("metrics-server", new NullCryptoEngine(), 1));
+        client   = new Supervisor(new Transport("metrics-client", new NullCryptoEngine(), 1));
+        acceptor = server.listen(new Spec(0));
+        target   = client.connect(new Spec("localhost", acceptor.port()));
+        server.addMethod(new Method("echo", "*", "*", req -> req.returnValues().add(req.parameters().get(0))));
+    }
+
+    @After
+    public void tearDown() {
+        target.close();
+        acceptor.shutdown().join();
+        client.transport().shutdown().join();
+        server.transport().shutdown().join();
+    }
+
+    @org.junit.Test
+    public void testEventLoopUtilizationIsReportedPerTransportThread() {
+        TransportMetrics.Snapshot start = metrics.snapshot();
+        echo();
+
+        TransportMetrics.Snapshot now = metrics.snapshot();
+        TransportMetrics.Snapshot changes = now.changesSince(start);
+        for (String thread : new String[] { serverThread, clientThread }) {
+            TransportMetrics.EventLoopTime time = now.eventLoopTimes().get(thread);
+            assertTrue(thread + " is reported", time != null);
+            assertTrue(time.busyNanos() <= time.totalNanos());
+            assertTrue(changes.eventLoopUtilization().get(thread) >= 0);
+        }
+    }
+
+    @org.junit.Test
+    public void testStoppedTransportThreadsAreNotReported() {
+        echo();
+        assertTrue(metrics.eventLoopTimes().containsKey(clientThread));
+        target.close();
+        client.transport().shutdown().join();
+        assertFalse(metrics.eventLoopTimes().containsKey(clientThread));
+    }
+
+    @org.junit.Test
+    public void testUtilizationOfEventLoopTime() {
+        assertEquals(0.25, new TransportMetrics.EventLoopTime(250, 1000).utilization(), 1e-9);
+        assertEquals(0, new TransportMetrics.EventLoopTime(0, 0).utilization(), 1e-9);
+    }
+
+    private void echo() {
+        Request req = new Request("echo");
+        req.parameters().add(new StringValue("hello"));
+        target.invokeSync(req, 5.0);
+        assertFalse(req.isError());
+    }
+
+}
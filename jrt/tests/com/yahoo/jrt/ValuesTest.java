@@ -271,6 +271,33 @@ public class ValuesTest {
         assertTrue(Arrays.equals(dst.get(0).asData(), val));
     }
 
+    @org.junit.Test
+    public void testWrappedData() {
+        int byteSize = 4 + 1 + 4 + 4;
+        ByteBuffer direct = ByteBuffer.allocateDirect(8);
+        direct.put(new byte[] { 9, 1, 2, 3, 4, 9 });
+        direct.position(1).limit(5);
+        Values src = new Values();
+        src.add(DataValue.wrap(direct));
+        checkSingleValue(src, Value.DATA, byteSize);
+        assertEquals(1, direct.position());
+        assertEquals(5, direct.limit());
+
+        ByteBuffer buf = ByteBuffer.allocate(src.bytes());
+        src.encode(buf);
+        buf.flip();
+        assertEquals(buf.remaining(), byteSize);
+
+        Values dst = new Values();
+        dst.decode(buf);
+        byte[] val = { 1, 2, 3, 4 };
+        assertTrue(Arrays.equals(dst.get(0).asData(), val));
+        assertTrue(Arrays.equals(src.get(0).asData(), val));
+
+        byte[] array = { 1, 2, 3, 4 };
+        assertTrue(DataValue.wrap(ByteBuffer.wrap(array)).asData() == array);
+    }
+
     @org.junit.Test
     public void testDataArray() {
         int byteSize = 4 + 1 + 4 + 4 * (4 + 4);
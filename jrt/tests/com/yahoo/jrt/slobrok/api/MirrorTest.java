@@ -2,6 +2,12 @@
 package com.yahoo.jrt.slobrok.api;
 
 import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.assertFalse;
 
@@ -86,4 +92,32 @@ public class MirrorTest {
         mustNotMatch(nomatch, pattern);
     }
 
+    @Test public void requireThatIndexedLookupFindsTheSameInTheSameOrderAsMatchingAllEntries() {
+        Random random = new Random(1);
+        String[] segments = { "", "a", "ab", "abc", "b", "bar", "*", "a*" };
+        List<Mirror.Entry> entries = new ArrayList<>();
+        for (int i = 0; i < 2000; i++)
+            entries.add(new Mirror.Entry(randomName(segments, random), "tcp/host" + i + ":1234"));
+        EntryIndex index = new EntryIndex(entries.toArray(new Mirror.Entry[0]));
+
+        String[] patternSegments = { "", "a", "ab", "b", "*", "**", "a*", "b*", "a**", "*b", "a*b" };
+        for (int i = 0; i < 2000; i++) {
+            String pattern = randomName(patternSegments, random);
+            List<Mirror.Entry> expected = new ArrayList<>();
+            for (Mirror.Entry entry : entries) {
+                if (Mirror.match(entry.getNameArray(), pattern.toCharArray()))
+                    expected.add(entry);
+            }
+            assertEquals("Lookup of " + pattern, expected, index.lookup(pattern));
+            assertEquals("Cached lookup of " + pattern, expected, index.lookup(pattern));
+        }
+    }
+
+    private static String randomName(String[] segments, Random random) {
+        StringBuilder name = new StringBuilder(segments[random.nextInt(segments.length)]);
+        for (int i = random.nextInt(4); i > 0; i--)
+            name.append('/').append(segments[random.nextInt(segments.length)]);
+        return name.toString();
+    }
+
 }
@@ -0,0 +1,237 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+
+import com.yahoo.jrt.Acceptor;
+import com.yahoo.jrt.CryptoEngine;
+import com.yahoo.jrt.DataValue;
+import com.yahoo.jrt.ListenFailedException;
+import com.yahoo.jrt.Method;
+import com.yahoo.jrt.NullCryptoEngine;
+import com.yahoo.jrt.Request;
+import com.yahoo.jrt.RequestWaiter;
+import com.yahoo.jrt.Spec;
+import com.yahoo.jrt.Supervisor;
+import com.yahoo.jrt.Target;
+import com.yahoo.jrt.Transport;
+import com.yahoo.jrt.TransportMetrics;
+import com.yahoo.jrt.XorCryptoEngine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Measures how RPC throughput and latency scale with the number of transport threads, connections and
+ * payload size, over loopback. Each combination of the given parameters is run in turn, with a server and a
+ * client supervisor with the given number of transport threads each, and a fixed number of outstanding
+ * requests per connection. The event loop utilization of each side is taken from {@link TransportMetrics}.
+ */
+public class RpcBenchmark {
+
+    private enum Phase { WARMUP, MEASURE, DONE }
+
+    private final CryptoEngine crypto;
+    private final String cryptoName;
+    private final int outstanding;
+    private final double warmupSeconds;
+    private final double measureSeconds;
+
+    private volatile Phase phase = Phase.WARMUP;
+
+    private RpcBenchmark(String cryptoName, int outstanding, double warmupSeconds, double measureSeconds) {
+        this.cryptoName = cryptoName;
+        this.crypto = createCrypto(cryptoName);
+        this.outstanding = outstanding;
+        this.warmupSeconds = warmupSeconds;
+        this.measureSeconds = measureSeconds;
+    }
+
+    private static CryptoEngine createCrypto(String name) {
+        switch (name) {
+            case "null": return new NullCryptoEngine();
+            case "xor": return new XorCryptoEngine();
+            case "default": return CryptoEngine.createDefault(); // TLS if configured, see VESPA_TLS_CONFIG_FILE
+            default: throw new IllegalArgumentException("Unknown crypto '" + name + "': Use null, xor or default");
+        }
+    }
+
+    private void rpc_echo(Request request) {
+        request.returnValues().add(request.parameters().get(0));
+    }
+
+    /** Keeps a number of requests outstanding on one connection, and records the latency of each */
+    private class Connection implements RequestWaiter {
+
+        private final Target target;
+        private final byte[] payload;
+        private final CountDownLatch done;
+        private long[] latencies = new long[1024];
+        private int count = 0;
+
+        Connection(Target target, byte[] payload, CountDownLatch done) {
+            this.target = target;
+            this.payload = payload;
+            this.done = done;
+        }
+
+        void send() {
+            Request request = new Request("echo");
+            request.parameters().add(new DataValue(payload));
+            request.setContext(System.nanoTime());
+            target.invokeAsync(request, 60.0, this);
+        }
+
+        @Override
+        public void handleRequestDone(Request request) {
+            if (request.isError()) {
+                System.err.println("Request failed: " + request.errorMessage());
+                done.countDown();
+                return;
+            }
+            Phase current = phase;
+            if (current == Phase.MEASURE) {
+                record(System.nanoTime() - (Long)request.getContext());
+            }
+            if (current == Phase.DONE) {
+                done.countDown();
+            } else {
+                send();
+            }
+        }
+
+        /** Called from the transport thread of this connection only */
+        private void record(long latencyNanos) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latencyNanos;
+        }
+
+    }
+
+    private void run(int threads, int connections, int payloadSize) throws ListenFailedException, InterruptedException {
+        Supervisor server = new Supervisor(new Transport("server", crypto, threads));
+        Supervisor client = new Supervisor(new Transport("client", crypto, threads));
+        server.addMethod(new Method("echo", "x", "x", this::rpc_echo));
+        Acceptor acceptor = server.listen(new Spec(0));
+        phase = Phase.WARMUP;
+
+        byte[] payload = new byte[payloadSize];
+        CountDownLatch done = new CountDownLatch(connections * outstanding);
+        List<Connection> clients = new ArrayList<>();
+        for (int i = 0; i < connections; i++) {
+            clients.add(new Connection(client.connect(new Spec("localhost", acceptor.port())), payload, done));
+        }
+        for (Connection connection : clients) {
+            for (int i = 0; i < outstanding; i++) {
+                connection.send();
+            }
+        }
+
+        Thread.sleep((long)(warmupSeconds * 1000));
+        TransportMetrics.Snapshot start = TransportMetrics.getInstance().snapshot();
+        long startNanos = System.nanoTime();
+        phase = Phase.MEASURE;
+        Thread.sleep((long)(measureSeconds * 1000));
+        phase = Phase.DONE;
+        long elapsedNanos = System.nanoTime() - startNanos;
+        TransportMetrics.Snapshot changes = TransportMetrics.getInstance().snapshot().changesSince(start);
+        done.await();
+
+        int total = 0;
+        for (Connection connection : clients) {
+            total += connection.count;
+        }
+        long[] latencies = new long[total];
+        int offset = 0;
+        for (Connection connection : clients) {
+            System.arraycopy(connection.latencies, 0, latencies, offset, connection.count);
+            offset += connection.count;
+            connection.target.close();
+        }
+        Arrays.sort(latencies);
+
+        System.out.printf("threads=%d connections=%d outstanding=%d payload=%d crypto=%s: %.0f req/s, " +
+                          "latency ms p50=%.3f p90=%.3f p99=%.3f p99.9=%.3f, " +
+                          "server utilization %s, client utilization %s%n",
+                          threads, connections, outstanding, payloadSize, cryptoName,
+                          total / (elapsedNanos / 1e9),
+                          percentile(latencies, 50), percentile(latencies, 90),
+                          percentile(latencies, 99), percentile(latencies, 99.9),
+                          utilization(changes, "server"), utilization(changes, "client"));
+
+        acceptor.shutdown().join();
+        client.transport().shutdown().join();
+        server.transport().shutdown().join();
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) return 0;
+        int index = (int)Math.ceil(percentile / 100 * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    private static String utilization(TransportMetrics.Snapshot changes, String transport) {
+        double sum = 0;
+        double max = 0;
+        int threads = 0;
+        for (Map.Entry<String, Double> entry : changes.eventLoopUtilization().entrySet()) {
+            if ( ! entry.getKey().startsWith(transport + ".jrt-transport.")) continue;
+            sum += entry.getValue();
+            max = Math.max(max, entry.getValue());
+            threads++;
+        }
+        return String.format("avg=%.2f max=%.2f", threads == 0 ? 0 : sum / threads, max);
+    }
+
+    private static int[] intList(String value) {
+        return Arrays.stream(value.split(",")).mapToInt(Integer::parseInt).toArray();
+    }
+
+    private static void usage() {
+        System.err.println("usage: RpcBenchmark [options]");
+        System.err.println("  -threads <n,...>      transport threads in the server and the client (default 1,2,4,8)");
+        System.err.println("  -connections <n,...>  connections from the client to the server (default 16,64)");
+        System.err.println("  -payload <n,...>      bytes of data in each request and reply (default 0,1024,65536)");
+        System.err.println("  -outstanding <n>      outstanding requests per connection (default 4)");
+        System.err.println("  -crypto <name>        null, xor or default, which is TLS when configured (default null)");
+        System.err.println("  -warmup <seconds>     time to run before measuring each combination (default 2)");
+        System.err.println("  -duration <seconds>   time to measure each combination (default 10)");
+        System.exit(1);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int[] threads = { 1, 2, 4, 8 };
+        int[] connections = { 16, 64 };
+        int[] payloads = { 0, 1024, 65536 };
+        int outstanding = 4;
+        String crypto = "null";
+        double warmup = 2;
+        double duration = 10;
+        try {
+            for (int i = 0; i < args.length; i += 2) {
+                if (i + 1 == args.length) usage();
+                switch (args[i]) {
+                    case "-threads": threads = intList(args[i + 1]); break;
+                    case "-connections": connections = intList(args[i + 1]); break;
+                    case "-payload": payloads = intList(args[i + 1]); break;
+                    case "-outstanding": outstanding = Integer.parseInt(args[i + 1]); break;
+                    case "-crypto": crypto = args[i + 1]; break;
+                    case "-warmup": warmup = Double.parseDouble(args[i + 1]); break;
+                    case "-duration": duration = Double.parseDouble(args[i + 1]); break;
+                    default: usage();
+                }
+            }
+        } catch (NumberFormatException e) {
+            usage();
+        }
+
+        RpcBenchmark benchmark = new RpcBenchmark(crypto, outstanding, warmup, duration);
+        for (int threadCount : threads)
+            for (int connectionCount : connections)
+                for (int payload : payloads)
+                    benchmark.run(threadCount, connectionCount, payload);
+    }
+
+}
@@ -22,16 +22,25 @@ import java.io.UncheckedIOException;
 import java.nio.ByteBuffer;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
 import java.util.logging.Level;
 
 /**
  * Detects the language of some sample text using SimpleDetector for CJK and Optimaize otherwise.
+ * The languages of short texts, such as queries, are cached in a cache which is cleared when it is full.
+ * This is cheap, and frequent inputs are quickly added back, while reads never take a lock.
  *
  * @author bratseth
  */
 public class OptimaizeDetector implements Detector {
 
+    /** Inputs up to this length are cached */
+    private static final int maxCachedInputLength = 128;
+
+    /** The max number of cached inputs */
+    private static final int maxCacheSize = 10_000;
+
     static private Object initGuard = new Object();
     static private TextObjectFactory textObjectFactory = null;
     static private LanguageDetector languageDetector = null;
@@ -61,6 +70,7 @@ public class OptimaizeDetector implements Detector {
     }
 
     private SimpleDetector simpleDetector = new SimpleDetector();
+    private final ConcurrentHashMap<String, Language> cache = new ConcurrentHashMap<>();
 
     public OptimaizeDetector() {
         initOptimaize();
@@ -89,9 +99,32 @@ public class OptimaizeDetector implements Detector {
 
     public Language guessLanguage(String input) {
         if (input == null || input.length() == 0) return Language.UNKNOWN;
+        if (input.length() > maxCachedInputLength) return guessLanguageUncached(input);
+
+        Language result = cache.get(input);
+        if (result == null) {
+            result = guessLanguageUncached(input);
+            if (cache.size() >= maxCacheSize)
+                cache.clear();
+            cache.put(input, result);
+        }
+        return result;
+    }
 
-        Language result = simpleDetector.guessLanguage(input);
-        if (result != Language.UNKNOWN) return result;
+    private Language guessLanguageUncached(String input) {
+        boolean ascii = true;
+        boolean letters = false;
+        for (int i = 0; i < input.length() && ascii; i++) {
+            char c = input.charAt(i);
+            ascii = c < 128;
+            letters |= (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+        }
+        if (ascii && ! letters) return Language.UNKNOWN;
+
+        if ( ! ascii) { // SimpleDetector only detects languages which are not written in ASCII
+            Language result = simpleDetector.guessLanguage(input);
+            if (result != Language.UNKNOWN) return result;
+        }
 
         return guessLanguageUsingOptimaize(input);
     }
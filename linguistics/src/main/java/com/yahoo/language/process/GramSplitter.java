@@ -39,34 +39,156 @@ public class GramSplitter {
      * @throws IllegalArgumentException if n is less than 1
      */
     public GramSplitterIterator split(String input, int n) {
-        if (input == null) throw new NullPointerException("input cannot be null");
-        if (n < 1) throw new IllegalArgumentException("n (gram size) cannot be smaller than 1, was " + n);
         return new GramSplitterIterator(input, n, characterClasses);
     }
 
-    public static class GramSplitterIterator implements Iterator<Gram> {
+    /**
+     * Returns a new gram iterator, which splits into the same grams as {@link #split} without creating objects
+     * per gram. The iterator may be {@link GramIterator#reset reset} to split many strings, but must only be used
+     * by one thread at the time.
+     */
+    public GramIterator gramIterator() {
+        return new GramIterator(characterClasses);
+    }
+
+    /**
+     * An iterator over the grams of a string, which exposes the current gram as offsets into the string
+     * rather than as an object. The string is decoded into buffers indexed by code point when this is reset,
+     * and the buffers are reused when this is reset with another string.
+     * <p>
+     * Typical use:
+     * <pre>
+     * GramIterator grams = gramSplitter.gramIterator().reset(input, n);
+     * while (grams.next())
+     *     process(input, grams.start(), grams.end());
+     * </pre>
+     * This is not multithread safe.
+     */
+    public static final class GramIterator {
+
+        private static final int initialCapacity = 64;
+
+        /** Buffers larger than this are only kept until the next input which fits in this */
+        private static final int maxRetainedCapacity = 4096;
 
         private final CharacterClasses characterClasses;
 
-        /** Text to split */
-        private final UnicodeString input;
+        /** The char offset of each code point of the input, followed by the length of the input */
+        private int[] offsets = new int[initialCapacity];
+
+        /** The number of consecutive word code points starting at each code point of the input */
+        private int[] wordLengths = new int[initialCapacity];
+
+        /** The number of code points in the input */
+        private int codePointCount;
 
         /** Gram size in code points */
-        private final int n;
+        private int n;
 
-        /** Current position in the string */
-        private int i = 0;
+        /** Current position in code points */
+        private int i;
 
         /** Whether the last thing that happened was being on a separator (including the start of the string) */
-        private boolean isFirstAfterSeparator = true;
+        private boolean isFirstAfterSeparator;
+
+        /** The current gram, as a code point position and count */
+        private int gramStart, gramCodePointCount;
+
+        GramIterator(CharacterClasses characterClasses) {
+            this.characterClasses = characterClasses;
+        }
+
+        /**
+         * Prepares this to split the given input into grams of size n, positioned before the first gram.
+         *
+         * @param input the input string to be split, cannot be null
+         * @param n     the gram size, a positive integer
+         * @return this for chaining
+         * @throws NullPointerException     if input==null
+         * @throws IllegalArgumentException if n is less than 1
+         */
+        public GramIterator reset(String input, int n) {
+            if (input == null) throw new NullPointerException("input cannot be null");
+            if (n < 1) throw new IllegalArgumentException("n (gram size) cannot be smaller than 1, was " + n);
+            ensureCapacity(input.length() + 1);
+            codePointCount = 0;
+            for (int offset = 0; offset < input.length(); ) {
+                int codePoint = input.codePointAt(offset);
+                offsets[codePointCount] = offset;
+                wordLengths[codePointCount] = characterClasses.isLetterOrDigit(codePoint) ? 1 : 0;
+                codePointCount++;
+                offset += Character.charCount(codePoint);
+            }
+            offsets[codePointCount] = input.length();
+            wordLengths[codePointCount] = 0;
+            for (int k = codePointCount - 1; k >= 0; k--) {
+                if (wordLengths[k] > 0)
+                    wordLengths[k] += wordLengths[k + 1];
+            }
+            this.n = n;
+            this.i = 0;
+            this.isFirstAfterSeparator = true;
+            this.gramStart = 0;
+            this.gramCodePointCount = 0;
+            return this;
+        }
+
+        /** Sizes the buffers to hold the given number of code points, shrinking them if they are unusually large */
+        private void ensureCapacity(int capacity) {
+            if (offsets.length >= capacity && (offsets.length <= maxRetainedCapacity || capacity > maxRetainedCapacity)) return;
+            int size = Math.max(capacity, initialCapacity);
+            offsets = new int[size];
+            wordLengths = new int[size];
+        }
+
+        /** Advances to the next gram and returns true, or returns false if there are no more grams */
+        public boolean next() {
+            while (true) {
+                // Skip to next word character
+                while (i < codePointCount && wordLengths[i] == 0) {
+                    i++;
+                    isFirstAfterSeparator = true;
+                }
+                if (i >= codePointCount) return false;
+
+                int length = Math.min(n, wordLengths[i]);
+                if (length == n || isFirstAfterSeparator) { // a full length gram, or a short one which is all there is
+                    gramStart = i;
+                    gramCodePointCount = length;
+                    i++;
+                    isFirstAfterSeparator = false;
+                    return true;
+                }
+                // gram is too short due either to a non-word separator or end of string: skip to next
+                i += length + 1;
+                isFirstAfterSeparator = true;
+            }
+        }
+
+        /** Returns the char offset in the input where the current gram starts */
+        public int start() { return offsets[gramStart]; }
+
+        /** Returns the char offset in the input after the end of the current gram */
+        public int end() { return offsets[gramStart + gramCodePointCount]; }
+
+        /** Returns the number of code points in the current gram */
+        public int codePointCount() { return gramCodePointCount; }
+
+    }
+
+    public static class GramSplitterIterator implements Iterator<Gram> {
+
+        /** Text to split */
+        private final String input;
+
+        private final GramIterator grams;
 
         /** The next gram or null if not determined yet */
         private Gram nextGram = null;
 
         public GramSplitterIterator(String input, int n, CharacterClasses characterClasses) {
-            this.input = new UnicodeString(input);
-            this.n = n;
-            this.characterClasses = characterClasses;
+            this.input = input;
+            this.grams = new GramIterator(characterClasses).reset(input, n);
         }
 
         @Override
@@ -82,52 +204,14 @@ public class GramSplitter {
             if (currentGram == null)
                 currentGram = findNext();
             if (currentGram == null)
-                throw new NoSuchElementException("No next gram at position " + i);
+                throw new NoSuchElementException("No next gram at position " + grams.i);
             nextGram = null;
             return currentGram;
         }
 
         private Gram findNext() {
-            // Skip to next word character
-            while (i < input.length() && !characterClasses.isLetterOrDigit(input.codePointAt(i))) {
-                i = input.next(i);
-                isFirstAfterSeparator = true;
-            }
-            if (i >= input.length()) return null;
-
-            UnicodeString gram = input.substring(i, n);
-            int nonWordChar = indexOfNonWordCodepoint(gram);
-            if (nonWordChar == 0) throw new RuntimeException("Programming error");
-
-            if (nonWordChar > 0)
-                gram = new UnicodeString(gram.toString().substring(0, nonWordChar));
-
-            if (gram.codePointCount() == n) { // normal case: got a full length gram
-                Gram g = new Gram(i, gram.codePointCount());
-                i = input.next(i);
-                isFirstAfterSeparator = false;
-                return g;
-            }
-            else { // gram is too short due either to a non-word separator or end of string
-                if (isFirstAfterSeparator) { // make a gram anyway
-                    Gram g = new Gram(i, gram.codePointCount());
-                    i = input.next(i);
-                    isFirstAfterSeparator = false;
-                    return g;
-                } else { // skip to next
-                    i = input.skip(gram.codePointCount() + 1, i);
-                    isFirstAfterSeparator = true;
-                    return findNext();
-                }
-            }
-        }
-
-        private int indexOfNonWordCodepoint(UnicodeString s) {
-            for (int i = 0; i < s.length(); i = s.next(i)) {
-                if ( ! characterClasses.isLetterOrDigit(s.codePointAt(i)))
-                    return i;
-            }
-            return -1;
+            if ( ! grams.next()) return null;
+            return new Gram(grams.start(), grams.codePointCount());
         }
 
         @Override
@@ -142,8 +226,10 @@ public class GramSplitter {
          */
         public List<String> toExtractedList() {
             List<String> gramList = new ArrayList<>();
-            while (hasNext())
-                gramList.add(next().extractFrom(input));
+            while (hasNext()) {
+                Gram gram = next();
+                gramList.add(input.substring(gram.getStart(), grams.end()));
+            }
             return Collections.unmodifiableList(gramList);
         }
     }
@@ -219,34 +305,6 @@ public class GramSplitter {
                 return new UnicodeString(s.substring(start, offset));
         }
 
-        /** Returns the position count code points after start (which may be past the end of the string) */
-        public int skip(int codePointCount, int start) {
-            int index = start;
-            for (int i = 0; i < codePointCount; i++) {
-                index = next(index);
-                if (index > s.length()) break;
-            }
-            return index;
-        }
-
-        /** Returns the index of the next code point after start (which may be past the end of the string) */
-        public int next(int index) {
-            int next = index + 1;
-            if (next < s.length() && Character.isLowSurrogate(s.charAt(next)))
-                next++;
-            return next;
-        }
-
-        /** Returns the number of positions (not code points) in this */
-        public int length() { return s.length(); }
-
-        /** Returns the number of code points in this */
-        public int codePointCount() { return s.codePointCount(0, s.length()); }
-
-        public int codePointAt(int index) {
-            return s.codePointAt(index);
-        }
-
         @Override
         public String toString() { return s; }
 
@@ -16,6 +16,8 @@ import java.util.logging.Level;
  * <p>A tokenizer which splits on whitespace, normalizes and transforms using the given implementations
  * and stems using the kstem algorithm.</p>
  *
+ * <p>Stems are cached in a bounded cache shared by all instances of this.</p>
+ *
  * <p>This is not multithread safe.</p>
  *
  * @author Mathias Mølster Lidal
@@ -24,11 +26,28 @@ import java.util.logging.Level;
 public class SimpleTokenizer implements Tokenizer {
 
     private final static int SPACE_CODE = 32;
+    private final static StemCache stemCache = new StemCache(100_000);
     private final Normalizer normalizer;
     private final Transformer transformer;
     private final KStemmer stemmer = new KStemmer();
     private static final Logger log = Logger.getLogger(SimpleTokenizer.class.getName());
 
+    /** Receives the tokens produced by {@link #tokenize(String, Language, StemMode, boolean, TokenSink)} */
+    public interface TokenSink {
+
+        /**
+         * Receives the next token of the input.
+         *
+         * @param input the string being tokenized
+         * @param start the offset of the first char of this token in the input
+         * @param end the offset after the last char of this token in the input
+         * @param type the type of this token
+         * @param tokenString the normalized, transformed and stemmed token string
+         */
+        void accept(String input, int start, int end, TokenType type, String tokenString);
+
+    }
+
     public SimpleTokenizer() {
         this(new SimpleNormalizer(), new SimpleTransformer());
     }
@@ -47,41 +66,52 @@ public class SimpleTokenizer implements Tokenizer {
         if (input.isEmpty()) return Collections.emptyList();
 
         List<Token> tokens = new ArrayList<>();
+        tokenize(input, language, stemMode, removeAccents,
+                 (in, start, end, type, tokenString) -> tokens.add(new SimpleToken(in.substring(start, end)).setOffset(start)
+                                                                                                       .setType(type)
+                                                                                                       .setTokenString(tokenString)));
+        return tokens;
+    }
+
+    /**
+     * Tokenizes the input into the given sink rather than into a list of tokens.
+     * This produces the same tokens as {@link #tokenize(String, Language, StemMode, boolean)},
+     * without creating token objects or a list of them. This is not allocation free: Normalization, accent
+     * removal and stemming work on strings, so the text of each token is still copied out of the input
+     * and its token string created.
+     */
+    public void tokenize(String input, Language language, StemMode stemMode, boolean removeAccents, TokenSink sink) {
+        if (input.isEmpty()) return;
+
         int nextCode = input.codePointAt(0);
         TokenType prevType = SimpleTokenType.valueOf(nextCode);
         for (int prev = 0, next = Character.charCount(nextCode); next <= input.length(); ) {
             nextCode = next < input.length() ? input.codePointAt(next) : SPACE_CODE;
             TokenType nextType = SimpleTokenType.valueOf(nextCode);
             if (!prevType.isIndexable() || !nextType.isIndexable()) {
-                String original = input.substring(prev, next);
-                String token = processToken(original, language, stemMode, removeAccents);
-                tokens.add(new SimpleToken(original).setOffset(prev)
-                                                .setType(prevType)
-                                                .setTokenString(token));
+                String token = processToken(input.substring(prev, next), language, stemMode, removeAccents);
+                sink.accept(input, prev, next, prevType, token);
                 prev = next;
                 prevType = nextType;
             }
             next += Character.charCount(nextCode);
         }
-        return tokens;
     }
 
     private String processToken(String token, Language language, StemMode stemMode, boolean removeAccents) {
-        final String original = token;
-        log.log(Level.FINEST, () -> "processToken '"+original+"'");
+        boolean finest = log.isLoggable(Level.FINEST);
+        if (finest) log.log(Level.FINEST, "processToken '" + token + "'");
         token = normalizer.normalize(token);
         token = LinguisticsCase.toLowerCase(token);
         if (removeAccents)
             token = transformer.accentDrop(token, language);
         if (stemMode != StemMode.NONE) {
-            final String oldToken = token;
-            token = stemmer.stem(token);
-            final String newToken = token;
-            log.log(Level.FINEST, () -> "stem '"+oldToken+"' to '"+newToken+"'");
+            String oldToken = token;
+            token = stemCache.stem(token, stemmer);
+            if (finest) log.log(Level.FINEST, "stem '" + oldToken + "' to '" + token + "'");
         }
-        final String result = token;
-        log.log(Level.FINEST, () -> "processed token is: "+result);
-        return result;
+        if (finest) log.log(Level.FINEST, "processed token is: " + token);
+        return token;
     }
 
 }
@@ -0,0 +1,50 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.language.simple;
+
+import com.yahoo.language.simple.kstem.KStemmer;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A bounded cache of the kstem stems of normalized terms. This is thread safe, and is shared by all
+ * {@link SimpleTokenizer} instances since the stem of a term does not depend on anything else.
+ * When the cache is full it is cleared, which is cheap, and frequent terms are quickly added back.
+ *
+ * @author bratseth
+ */
+class StemCache {
+
+    /** Terms longer than this are not cached, as they are rarely repeated and not stemmed by kstem anyway */
+    private static final int maxTermLength = 50;
+
+    private final int maxSize;
+    private final ConcurrentHashMap<String, String> stems = new ConcurrentHashMap<>();
+
+    StemCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the stem of the given term, using the given stemmer if it is not cached.
+     *
+     * @param term the normalized, lowercased term to stem
+     * @param stemmer the stemmer to use on cache misses, which is owned by the calling thread
+     * @return the stem of the term, which is the term itself if it has no other stem
+     */
+    String stem(String term, KStemmer stemmer) {
+        if (term.length() > maxTermLength) return stemmer.stem(term);
+
+        String stem = stems.get(term);
+        if (stem != null) return stem;
+
+        stem = stemmer.stem(term);
+        if (stems.size() >= maxSize)
+            stems.clear();
+        stems.put(term, stem);
+        return stem;
+    }
+
+    /** Returns the number of cached terms */
+    int size() { return stems.size(); }
+
+}
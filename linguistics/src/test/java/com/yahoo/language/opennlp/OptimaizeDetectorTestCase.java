@@ -29,6 +29,23 @@ public class OptimaizeDetectorTestCase {
         assertLanguage(Language.HEBREW, "אתר יאהו! הוא אחד מאתרי האינטרנט הפופולריים ביותר בעולם, עם מעל 500 מיליון כניסות בכל יום");
     }
 
+    @Test
+    public void testTextWithoutLettersIsUnknown() {
+        assertLanguage(Language.UNKNOWN, "");
+        assertLanguage(Language.UNKNOWN, "1234 5678");
+        assertLanguage(Language.UNKNOWN, "(+47) 555-1234!");
+    }
+
+    @Test
+    public void testCachedDetectionIsStable() {
+        String query = "Материал из Википедии";
+        Language first = detector.detect(query, null).getLanguage();
+        for (int i = 0; i < 3; i++)
+            assertEquals(first, detector.detect(query, null).getLanguage());
+        assertLanguage(Language.CHINESE_TRADITIONAL, "\u6211\u80FD\u541E\u4E0B");
+        assertLanguage(Language.CHINESE_TRADITIONAL, "\u6211\u80FD\u541E\u4E0B");
+    }
+
     private static void assertLanguage(Language language, String input) {
         assertEquals(language, detector.detect(input, null).getLanguage());
     }
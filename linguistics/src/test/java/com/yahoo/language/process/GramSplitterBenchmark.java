@@ -0,0 +1,72 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.language.process;
+
+import com.yahoo.language.simple.SimpleLinguistics;
+
+import java.util.Iterator;
+
+/**
+ * Compares splitting CJK text into grams with the gram object iterator and the allocation free gram iterator.
+ *
+ * @author bratseth
+ */
+public class GramSplitterBenchmark {
+
+    private static final String text =
+            "これは日本語の文章です。" +
+            "彼は東京で毎日電車に乗って会社に行きます、" +
+            "そして夜遅く家に帰ります。" +
+            "石室詩士施氏，嗜獅，誓食十獅。";
+
+    private final GramSplitter gramSplitter = new SimpleLinguistics().getGramSplitter();
+
+    public void benchmark() {
+        String input = text.repeat(100);
+        int runs = 10000;
+
+        for (int i = 0; i < runs; i++) { // warmup
+            splitToGramObjects(input);
+            splitWithGramIterator(input);
+        }
+
+        long result = 0; // observable result to avoid the work being optimized away
+        long startTime = System.currentTimeMillis();
+        for (int i = 0; i < runs; i++)
+            result += splitToGramObjects(input);
+        long gramObjectsTime = System.currentTimeMillis() - startTime;
+
+        startTime = System.currentTimeMillis();
+        for (int i = 0; i < runs; i++)
+            result += splitWithGramIterator(input);
+        long gramIteratorTime = System.currentTimeMillis() - startTime;
+
+        System.out.println("Ignore this: " + result);
+        System.out.println("Time per split of " + input.length() + " chars into bigrams: " +
+                           "With gram objects: " + (gramObjectsTime * 1000 / runs) + " microseconds, " +
+                           "with gram iterator: " + (gramIteratorTime * 1000 / runs) + " microseconds");
+    }
+
+    private long splitToGramObjects(String input) {
+        long result = 0;
+        for (Iterator<GramSplitter.Gram> grams = gramSplitter.split(input, 2); grams.hasNext(); ) {
+            GramSplitter.Gram gram = grams.next();
+            result += gram.extractFrom(input).hashCode();
+        }
+        return result;
+    }
+
+    private final GramSplitter.GramIterator gramIterator = gramSplitter.gramIterator();
+
+    private long splitWithGramIterator(String input) {
+        long result = 0;
+        gramIterator.reset(input, 2);
+        while (gramIterator.next())
+            result += input.substring(gramIterator.start(), gramIterator.end()).hashCode();
+        return result;
+    }
+
+    public static void main(String[] args) {
+        new GramSplitterBenchmark().benchmark();
+    }
+
+}
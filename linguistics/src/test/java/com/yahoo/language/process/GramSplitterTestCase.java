@@ -4,8 +4,10 @@ package com.yahoo.language.process;
 import com.yahoo.language.simple.SimpleLinguistics;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
 
 import static org.junit.Assert.*;
 
@@ -16,6 +18,9 @@ public class GramSplitterTestCase {
 
     private static final GramSplitter gramSplitter = new SimpleLinguistics().getGramSplitter();
 
+    /** Reused for all the splits of a test */
+    private final GramSplitter.GramIterator gramIterator = gramSplitter.gramIterator();
+
     @Test
     public void testNoSpaces() {
         // no spaces
@@ -167,6 +172,14 @@ public class GramSplitterTestCase {
         assertFalse(grams.hasNext());
     }
 
+    @Test
+    public void testGramIteratorReuseAfterLargeInput() {
+        String large = "日本語".repeat(5000);
+        assertEquals(15000 - 1, iterate(large, 2).size());
+        assertGramSplits("en gul bille", 3, "en", "gul", "bil", "ill", "lle");
+        assertEquals(15000 - 1, iterate(large, 2).size());
+    }
+
     @Test
     public void testChineseComma() {
         String text = "我喜欢红色、蓝色和紫色";
@@ -188,10 +201,22 @@ public class GramSplitterTestCase {
 
     private void assertGramSplits(String input, int gramSize, String ... expected) {
         assertEquals(Arrays.asList(expected), gramSplitter.split(input, gramSize).toExtractedList());
+        assertEquals(Arrays.asList(expected), iterate(input, gramSize));
     }
 
     private void assertGramSplit(String input, int gramSize, String expected) {
         assertEquals(expected, gramSplitter.split(input, gramSize).toExtractedList().toString());
+        assertEquals(expected, iterate(input, gramSize).toString());
+    }
+
+    private List<String> iterate(String input, int gramSize) {
+        List<String> grams = new ArrayList<>();
+        gramIterator.reset(input, gramSize);
+        while (gramIterator.next()) {
+            assertEquals(input.codePointCount(gramIterator.start(), gramIterator.end()), gramIterator.codePointCount());
+            grams.add(input.substring(gramIterator.start(), gramIterator.end()));
+        }
+        return grams;
     }
 
 }
@@ -1,10 +1,18 @@
 // Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.language.simple;
 
+import com.yahoo.language.Language;
 import com.yahoo.language.process.AbstractTokenizerTestCase;
 import com.yahoo.language.process.StemMode;
+import com.yahoo.language.process.Token;
+import com.yahoo.language.simple.kstem.KStemmer;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
 /**
  * @author <a href="mailto:steinar@yahoo-inc.com">Steinar Knutsen</a>
  * @author bratseth
@@ -33,4 +41,31 @@ public class SimpleTokenizerTestCase extends AbstractTokenizerTestCase {
                             " ", "gods", ".", "running", ")");
     }
 
+    @Test
+    public void testTokenizingIntoSink() {
+        String input = "Running gods.Offended by 1s, sorry";
+        SimpleTokenizer tokenizer = new SimpleTokenizer();
+        List<String> expected = new ArrayList<>();
+        for (Token token : tokenizer.tokenize(input, Language.ENGLISH, StemMode.ALL, false))
+            expected.add(token.getOffset() + ":" + token.getOrig() + ":" + token.getType() + ":" + token.getTokenString());
+
+        List<String> actual = new ArrayList<>();
+        tokenizer.tokenize(input, Language.ENGLISH, StemMode.ALL, false,
+                           (in, start, end, type, tokenString) -> actual.add(start + ":" + in.substring(start, end) + ":" + type + ":" + tokenString));
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testStemCacheIsBounded() {
+        StemCache cache = new StemCache(2);
+        KStemmer stemmer = new KStemmer();
+        assertEquals("offend", cache.stem("offended", stemmer));
+        assertEquals("cat", cache.stem("cats", stemmer));
+        assertEquals(2, cache.size());
+        assertEquals("offend", cache.stem("offended", stemmer));
+        assertEquals(2, cache.size());
+        assertEquals("walk", cache.stem("walked", stemmer));
+        assertEquals(1, cache.size());
+    }
+
 }
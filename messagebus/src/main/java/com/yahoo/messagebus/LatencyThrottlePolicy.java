@@ -0,0 +1,251 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.messagebus;
+
+import com.yahoo.concurrent.SystemTimer;
+import com.yahoo.concurrent.Timer;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This is an implementation of the {@link ThrottlePolicy} which limits the number of pending messages a
+ * {@link SourceSession} is allowed to have based on the round-trip latency of its messages, rather than on
+ * throughput, as the {@link DynamicThrottlePolicy} does.
+ * <p>
+ * The policy tracks the lowest latency seen, which approximates the latency of an idle server. As long as the
+ * measured latency stays close to this, the server is not queueing messages, and the window size is increased.
+ * When latency increases, messages are being queued, and the window size is reduced in proportion to the latency
+ * gradient, i.e., the ratio between the lowest and the measured latency. Each resize also allows a queue of
+ * <code>sqrt(windowSize)</code> messages, so the window settles where queueing just begins to add latency, which is
+ * where further increases in window size stop increasing throughput. Errors in replies, e.g., due to overload, are
+ * taken as a signal to back off regardless of latency.
+ * </p><p>
+ * Latency is measured as the average number of pending messages divided by the throughput over each resize period,
+ * following Little's law. This does not need to keep any state per message, and is robust to millisecond timer
+ * resolution for fast servers. The lowest latency drifts slowly towards the measured latency, so the policy
+ * adapts when the latency of the idle server changes, e.g., when the size of the documents sent changes.
+ * </p>
+ *
+ * @author bratseth
+ */
+public class LatencyThrottlePolicy extends StaticThrottlePolicy {
+
+    private static final Logger log = Logger.getLogger(LatencyThrottlePolicy.class.getName());
+
+    private final Timer timer;
+
+    private double windowSize = 16;
+    private double minWindowSize = 1;
+    private double maxWindowSize = Integer.MAX_VALUE;
+    private double resizeRate = 3;
+    private double latencyTolerance = 1.5;
+    private double smoothing = 0.2;
+    private double baseLatencyDrift = 0.01;
+    private double windowSizeBackOff = 0.7;
+
+    /** Measurements in the current resize period */
+    private int numSent = 0;
+    private int numOk = 0;
+    private int numErrors = 0;
+    private int pending = 0;
+    private double pendingTime = 0;
+    private long resizeTime;
+    private long lastEventTime;
+
+    /** The lowest latency seen, and the latency measured in the last resize period, in milliseconds, or 0 if none */
+    private double baseLatency = 0;
+    private double latency = 0;
+
+    /**
+     * Constructs a new instance of this policy and sets the appropriate default values of member data.
+     */
+    public LatencyThrottlePolicy() {
+        this(SystemTimer.INSTANCE);
+    }
+
+    /**
+     * Constructs a new instance of this class using the given clock to measure latency.
+     *
+     * @param timer the timer to use
+     */
+    public LatencyThrottlePolicy(Timer timer) {
+        this.timer = timer;
+        this.resizeTime = timer.milliTime();
+        this.lastEventTime = resizeTime;
+    }
+
+    @Override
+    public boolean canSend(Message message, int pendingCount) {
+        if ( ! super.canSend(message, pendingCount)) {
+            return false;
+        }
+        return pendingCount < (int) windowSize;
+    }
+
+    @Override
+    public void processMessage(Message message) {
+        super.processMessage(message);
+        accumulatePendingTime();
+        ++pending;
+        if (++numSent < windowSize * resizeRate) {
+            return;
+        }
+
+        long time = timer.milliTime();
+        double elapsed = time - resizeTime;
+        int numReplies = numOk + numErrors;
+        if (elapsed <= 0 || numReplies == 0) {
+            return; // Nothing to measure yet; keep accumulating
+        }
+
+        double measured = pendingTime / numReplies;
+        if (numErrors > 0) {
+            windowSize *= windowSizeBackOff;
+        }
+        else if (measured > 0) {
+            latency = measured;
+            baseLatency = baseLatency == 0 ? measured : Math.min(measured, baseLatency + (measured - baseLatency) * baseLatencyDrift);
+            double gradient = Math.max(0.5, Math.min(1.0, latencyTolerance * baseLatency / latency));
+            double newWindowSize = windowSize * gradient + Math.sqrt(windowSize);
+            windowSize = windowSize * (1 - smoothing) + newWindowSize * smoothing;
+        }
+        windowSize = Math.max(minWindowSize, Math.min(maxWindowSize, windowSize));
+        if (log.isLoggable(Level.FINE)) {
+            log.log(Level.FINE, "windowSize " + windowSize + " latency " + latency + " base latency " + baseLatency +
+                                " throughput " + numOk / elapsed + " errors " + numErrors);
+        }
+
+        resizeTime = time;
+        numSent = 0;
+        numOk = 0;
+        numErrors = 0;
+        pendingTime = 0;
+    }
+
+    @Override
+    public void processReply(Reply reply) {
+        super.processReply(reply);
+        accumulatePendingTime();
+        pending = Math.max(0, pending - 1);
+        if (reply.hasErrors()) {
+            ++numErrors;
+        } else {
+            ++numOk;
+        }
+    }
+
+    /** Adds the time since the last message or reply times the number of messages pending during that time */
+    private void accumulatePendingTime() {
+        long time = timer.milliTime();
+        pendingTime += pending * (double) (time - lastEventTime);
+        lastEventTime = time;
+    }
+
+    /**
+     * Sets the rate at which the window size is updated, as a multiple of the window size. The larger the value,
+     * the less responsive the resizing becomes, but the more accurate the latency measurements. Capped to [1, )
+     *
+     * @param resizeRate the rate to set
+     * @return this, to allow chaining
+     */
+    public LatencyThrottlePolicy setResizeRate(double resizeRate) {
+        this.resizeRate = Math.max(1, resizeRate);
+        return this;
+    }
+
+    /**
+     * Sets how many times the lowest latency seen the measured latency may be before the window size is reduced.
+     * Larger values trade higher latency for less sensitivity to latency variations. Capped to [1, )
+     *
+     * @param latencyTolerance the tolerance to set
+     * @return this, to allow chaining
+     */
+    public LatencyThrottlePolicy setLatencyTolerance(double latencyTolerance) {
+        this.latencyTolerance = Math.max(1, latencyTolerance);
+        return this;
+    }
+
+    /**
+     * Sets the weight of each new window size computation, relative to the current window size. Capped to (0, 1]
+     *
+     * @param smoothing the smoothing factor to set
+     * @return this, to allow chaining
+     */
+    public LatencyThrottlePolicy setSmoothing(double smoothing) {
+        if (smoothing <= 0)
+            throw new IllegalArgumentException("Smoothing must be positive");
+
+        this.smoothing = Math.min(1, smoothing);
+        return this;
+    }
+
+    /**
+     * Sets the factor of window size to back off to when replies have errors. Capped to [0, 1]
+     *
+     * @param windowSizeBackOff the back off to set
+     * @return this, to allow chaining
+     */
+    public LatencyThrottlePolicy setWindowSizeBackOff(double windowSizeBackOff) {
+        this.windowSizeBackOff = Math.max(0, Math.min(1, windowSizeBackOff));
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of pending operations allowed at any time, in
+     * order to avoid using too much resources.
+     *
+     * @param max the max to set
+     * @return this, to allow chaining
+     */
+    public LatencyThrottlePolicy setMaxWindowSize(double max) {
+        if (max < 1)
+            throw new IllegalArgumentException("Maximum window size cannot be less than one");
+
+        this.maxWindowSize = max;
+        this.windowSize = Math.min(windowSize, maxWindowSize);
+        return this;
+    }
+
+    /** Returns the maximum number of pending operations allowed at any time. */
+    public double getMaxWindowSize() {
+        return maxWindowSize;
+    }
+
+    /**
+     * Sets the minimum number of pending operations allowed at any time, in
+     * order to keep a level of performance.
+     *
+     * @param min the min to set
+     * @return this, to allow chaining
+     */
+    public LatencyThrottlePolicy setMinWindowSize(double min) {
+        if (min < 1)
+            throw new IllegalArgumentException("Minimum window size cannot be less than one");
+
+        this.minWindowSize = min;
+        this.windowSize = Math.max(windowSize, minWindowSize);
+        return this;
+    }
+
+    /** Returns the minimum number of pending operations allowed at any time. */
+    public double getMinWindowSize() {
+        return minWindowSize;
+    }
+
+    @Override
+    public LatencyThrottlePolicy setMaxPendingCount(int maxCount) {
+        super.setMaxPendingCount(maxCount);
+        setMaxWindowSize(maxCount);
+        return this;
+    }
+
+    /** Returns the current number of pending messages allowed. */
+    public double getWindowSize() { return windowSize; }
+
+    /** Returns the latency measured in the last resize period, in milliseconds, or 0 if not measured yet. */
+    public double getLatency() { return latency; }
+
+    /** Returns the latency this considers the latency of an idle server, in milliseconds, or 0 if not measured yet. */
+    public double getBaseLatency() { return baseLatency; }
+
+}
@@ -1,21 +1,26 @@
 // Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.messagebus;
 
-import java.util.logging.Level;
-
-import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
  * <p>This class implements a single thread that is able to process arbitrary
- * tasks. Tasks are enqueued using the synchronized {@link #enqueue(Task)}
+ * tasks. Tasks are enqueued using the thread-safe, non-blocking {@link #enqueue(Task)}
  * method, and are run in the order they were enqueued.</p>
  *
+ * <p>Messages and replies are not delivered through this thread, but directly
+ * in the thread calling {@link #deliverMessage} or {@link #deliverReply}, so the
+ * queue is only used for internal house-keeping tasks.</p>
+ *
  * @author Simon Thoresen Hult
  */
 public class Messenger implements Runnable {
@@ -23,7 +28,7 @@ public class Messenger implements Runnable {
     private static final Logger log = Logger.getLogger(Messenger.class.getName());
     private final AtomicBoolean destroyed = new AtomicBoolean(false);
     private final List<Task> children = new ArrayList<>();
-    private final Queue<Task> queue = new ArrayDeque<>();
+    private final Queue<Task> queue = new ConcurrentLinkedQueue<>();
 
     private final Thread thread = new Thread(this, "Messenger");
 
@@ -54,9 +59,8 @@ public class Messenger implements Runnable {
     }
 
     /**
-     * <p>Convenience method to post a {@link Task} that delivers a {@link
-     * Message} to a {@link MessageHandler} to the queue of tasks to be
-     * executed.</p>
+     * <p>Delivers a {@link Message} to a {@link MessageHandler} in the calling
+     * thread, or discards it if this has been destroyed.</p>
      *
      * @param msg     The message to send.
      * @param handler The handler to send to.
@@ -70,9 +74,8 @@ public class Messenger implements Runnable {
     }
 
     /**
-     * <p>Convenience method to post a {@link Task} that delivers a {@link
-     * Reply} to a {@link ReplyHandler} to the queue of tasks to be
-     * executed.</p>
+     * <p>Delivers a {@link Reply} to a {@link ReplyHandler} in the calling
+     * thread, or discards it if this has been destroyed.</p>
      *
      * @param reply   The reply to return.
      * @param handler The handler to return to.
@@ -97,12 +100,8 @@ public class Messenger implements Runnable {
             task.destroy();
             return;
         }
-        synchronized (this) {
-            queue.offer(task);
-            if (queue.size() == 1) {
-                notify();
-            }
-        }
+        queue.offer(task);
+        LockSupport.unpark(thread);
     }
 
     /**
@@ -131,15 +130,11 @@ public class Messenger implements Runnable {
         enqueue(Terminate.INSTANCE);
         if (!destroyed.getAndSet(true)) {
             try {
-                synchronized (this) {
-                    while (!queue.isEmpty()) {
-                        wait();
-                    }
-                }
                 thread.join();
             } catch (final InterruptedException e) {
                 // ignore
             }
+            destroyQueuedTasks(); // in case the thread was never started, or tasks were enqueued while it was exiting
             done = true;
         }
         return done;
@@ -148,18 +143,11 @@ public class Messenger implements Runnable {
     @Override
     public void run() {
         while (true) {
-            Task task = null;
-            synchronized (this) {
-                if (queue.isEmpty()) {
-                    try {
-                        wait(10);
-                    } catch (final InterruptedException e) {
-                        continue;
-                    }
-                }
-                if (queue.size() > 0) {
-                    task = queue.poll();
-                }
+            Task task = queue.poll();
+            if (task == null) {
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(10));
+                Thread.interrupted(); // an interrupt just wakes us up, like a task would
+                task = queue.poll();
             }
             if (task == Terminate.INSTANCE) {
                 break;
@@ -185,12 +173,12 @@ public class Messenger implements Runnable {
         for (final Task child : children) {
             child.destroy();
         }
-        synchronized (this) {
-            while (!queue.isEmpty()) {
-                final Task task = queue.poll();
-                task.destroy();
-            }
-            notify();
+        destroyQueuedTasks();
+    }
+
+    private void destroyQueuedTasks() {
+        for (Task task; (task = queue.poll()) != null; ) {
+            task.destroy();
         }
     }
 
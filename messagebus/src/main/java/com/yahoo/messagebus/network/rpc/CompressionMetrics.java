@@ -0,0 +1,61 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.messagebus.network.rpc;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The total size of all message and reply payloads sent by the RPC networks of this process,
+ * before and after compression.
+ *
+ * @author bratseth
+ */
+public class CompressionMetrics {
+
+    private static final CompressionMetrics instance = new CompressionMetrics();
+
+    private final LongAdder uncompressedBytesSent = new LongAdder();
+    private final LongAdder compressedBytesSent = new LongAdder();
+
+    private CompressionMetrics() {}
+
+    public static CompressionMetrics getInstance() { return instance; }
+
+    void add(int uncompressedBytes, int compressedBytes) {
+        uncompressedBytesSent.add(uncompressedBytes);
+        compressedBytesSent.add(compressedBytes);
+    }
+
+    public Snapshot snapshot() {
+        return new Snapshot(uncompressedBytesSent.sum(), compressedBytesSent.sum());
+    }
+
+    public static class Snapshot {
+
+        public static final Snapshot EMPTY = new Snapshot(0, 0);
+
+        private final long uncompressedBytesSent;
+        private final long compressedBytesSent;
+
+        private Snapshot(long uncompressedBytesSent, long compressedBytesSent) {
+            this.uncompressedBytesSent = uncompressedBytesSent;
+            this.compressedBytesSent = compressedBytesSent;
+        }
+
+        public long uncompressedBytesSent() { return uncompressedBytesSent; }
+
+        public long compressedBytesSent() { return compressedBytesSent; }
+
+        /** Returns the compressed size divided by the uncompressed size, or 1 if nothing is sent */
+        public double compressionRatio() {
+            if (uncompressedBytesSent == 0) return 1;
+            return (double)compressedBytesSent / uncompressedBytesSent;
+        }
+
+        public Snapshot changesSince(Snapshot base) {
+            return new Snapshot(uncompressedBytesSent - base.uncompressedBytesSent,
+                                compressedBytesSent - base.compressedBytesSent);
+        }
+
+    }
+
+}
@@ -60,6 +60,7 @@ public class RPCNetwork implements Network, MethodHandler {
     private final Mirror mirror;
     private final Register register;
     private final TreeMap<Version, RPCSendAdapter> sendAdapters = new TreeMap<>();
+    private final RPCSendV2 sendV2;
     private NetworkOwner owner;
     private final SlobrokConfigSubscriber slobroksConfig;
     private final LinkedHashMap<String, Route> lruRouteMap = new LinkedHashMap<>(10000, 0.5f, true);
@@ -93,6 +94,7 @@ public class RPCNetwork implements Network, MethodHandler {
         orb.setMaxOutputBufferSize(params.getMaxOutputBufferSize());
         targetPool = new RPCTargetPool(params.getConnectionExpireSecs(), params.getNumTargetsPerSpec());
         servicePool = new RPCServicePool(this, 4096);
+        sendV2 = new RPCSendV2(params.getCompressionType(), params.getCompressionLevel());
 
         Method method = new Method("mbus.getVersion", "", "s", this);
         method.methodDesc("Retrieves the message bus version.");
@@ -185,9 +187,8 @@ public class RPCNetwork implements Network, MethodHandler {
         this.owner = owner;
 
         RPCSendAdapter adapter1 = new RPCSendV1();
-        RPCSendAdapter adapter2 = new RPCSendV2();
         addSendAdapter(new Version(5), adapter1);
-        addSendAdapter(new Version(6,149), adapter2);
+        addSendAdapter(new Version(6,149), sendV2);
     }
 
     @Override
@@ -1,6 +1,7 @@
 // Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.messagebus.network.rpc;
 
+import com.yahoo.compress.CompressionType;
 import com.yahoo.messagebus.network.Identity;
 import com.yahoo.cloud.config.SlobroksConfig;
 
@@ -23,6 +24,8 @@ public class RPCNetworkParams {
     private int numNetworkThreads = 2;
 
     private int transportEventsBeforeWakeup = 1;
+    private CompressionType compressionType = CompressionType.LZ4;
+    private int compressionLevel = 3;
     public enum Optimization {LATENCY, THROUGHPUT}
     Optimization optimization = Optimization.LATENCY;
 
@@ -49,6 +52,8 @@ public class RPCNetworkParams {
         numTargetsPerSpec = params.numTargetsPerSpec;
         numNetworkThreads = params.numNetworkThreads;
         optimization = params.optimization;
+        compressionType = params.compressionType;
+        compressionLevel = params.compressionLevel;
     }
 
     /**
@@ -227,4 +232,48 @@ public class RPCNetworkParams {
         this.transportEventsBeforeWakeup = transportEventsBeforeWakeup;
         return this;
     }
+
+    /** Returns the type of compression used for message and reply payloads sent by this network */
+    public CompressionType getCompressionType() {
+        return compressionType;
+    }
+
+    /**
+     * Sets the type of compression to use for message and reply payloads sent by this network.
+     * Receivers decompress according to the type of each payload. Zstd is only sent to receivers
+     * of a version which can decompress it, and LZ4 is sent to older receivers. Zstd achieves
+     * a better compression ratio than the default LZ4, which is useful when bandwidth is the
+     * bottleneck, at a higher cpu cost.
+     *
+     * @param compressionType the compression type, which must be NONE, LZ4 or ZSTD
+     * @return this, to allow chaining
+     */
+    public RPCNetworkParams setCompressionType(CompressionType compressionType) {
+        if (compressionType != CompressionType.NONE && compressionType != CompressionType.LZ4 && compressionType != CompressionType.ZSTD)
+            throw new IllegalArgumentException("Unsupported compression type " + compressionType);
+        this.compressionType = compressionType;
+        return this;
+    }
+
+    /** Returns the level of compression used for message and reply payloads sent by this network */
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    /**
+     * Sets the level of compression to use for message and reply payloads sent by this network,
+     * trading cpu for compression ratio. This only affects LZ4, which uses its high compression variant
+     * at level 7 and above: The pure Java zstd implementation has no level setting and always compresses
+     * at its default level.
+     *
+     * @param compressionLevel the compression level, between 0 and 9, inclusive
+     * @return this, to allow chaining
+     */
+    public RPCNetworkParams setCompressionLevel(int compressionLevel) {
+        if (compressionLevel < 0 || compressionLevel > 9)
+            throw new IllegalArgumentException("Compression level must be between 0 and 9, but was " + compressionLevel);
+        this.compressionLevel = compressionLevel;
+        return this;
+    }
+
 }
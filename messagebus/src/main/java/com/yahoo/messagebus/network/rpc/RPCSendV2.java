@@ -23,6 +23,7 @@ import com.yahoo.slime.Inspector;
 import com.yahoo.slime.Slime;
 import com.yahoo.text.Utf8Array;
 
+
 /**
  * Implements the request adapter for method "mbus.slime".
  *
@@ -33,7 +34,25 @@ public class RPCSendV2 extends RPCSend {
     private final static String METHOD_NAME = "mbus.slime";
     private final static String METHOD_PARAMS = "bixbix";
     private final static String METHOD_RETURN = "bixbix";
-    private final Compressor compressor = new Compressor(CompressionType.LZ4, 3, 0.90, 1024);
+
+    /** The first version which can decompress zstd payloads, which do not carry their compressed size */
+    static final Version zstdVersion = new Version(7, 165);
+
+    private final Compressor compressor;
+
+    /** Used instead of a zstd compressor when the receiver is older than zstdVersion */
+    private final Compressor fallbackCompressor;
+
+    public RPCSendV2() {
+        this(CompressionType.LZ4, 3);
+    }
+
+    public RPCSendV2(CompressionType compressionType, int compressionLevel) {
+        this.compressor = new Compressor(compressionType, compressionLevel, 0.90, 1024);
+        this.fallbackCompressor = compressionType == CompressionType.ZSTD
+                                  ? new Compressor(CompressionType.LZ4, compressionLevel, 0.90, 1024)
+                                  : compressor;
+    }
 
     @Override
     protected String getReturnSpec() { return METHOD_RETURN; }
@@ -98,7 +117,7 @@ public class RPCSendV2 extends RPCSend {
         root.setData(BLOB_F, payload);
 
         byte[] serializedSlime = BinaryFormat.encode(slime);
-        Compressor.Compression compressionResult = compressor.compress(serializedSlime);
+        Compressor.Compression compressionResult = compress(serializedSlime, version);
 
         v.add(new Int8Value(compressionResult.type().getCode()));
         v.add(new Int32Value(compressionResult.uncompressedSize()));
@@ -198,11 +217,19 @@ public class RPCSendV2 extends RPCSend {
         }
 
         byte[] serializedSlime = BinaryFormat.encode(slime);
-        Compressor.Compression compressionResult = compressor.compress(serializedSlime);
+        Compressor.Compression compressionResult = compress(serializedSlime, version);
 
         ret.add(new Int8Value(compressionResult.type().getCode()));
         ret.add(new Int32Value(compressionResult.uncompressedSize()));
         ret.add(new DataValue(compressionResult.data()));
     }
 
+    /** Compresses the given data in a format which can be decompressed by a receiver of the given version */
+    Compressor.Compression compress(byte[] data, Version version) {
+        Compressor.Compression compression = version.isBefore(zstdVersion) ? fallbackCompressor.compress(data)
+                                                                            : compressor.compress(data);
+        CompressionMetrics.getInstance().add(compression.uncompressedSize(), compression.data().length);
+        return compression;
+    }
+
 }
@@ -0,0 +1,144 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.messagebus;
+
+import com.yahoo.messagebus.DynamicThrottlePolicyTest.MockServer;
+import com.yahoo.messagebus.DynamicThrottlePolicyTest.Summary;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static com.yahoo.messagebus.DynamicThrottlePolicyTest.assertInRange;
+import static com.yahoo.messagebus.DynamicThrottlePolicyTest.error;
+import static com.yahoo.messagebus.DynamicThrottlePolicyTest.message;
+import static com.yahoo.messagebus.DynamicThrottlePolicyTest.success;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs the {@link LatencyThrottlePolicy} against the simulated server of {@link DynamicThrottlePolicyTest}.
+ *
+ * @author bratseth
+ */
+public class LatencyThrottlePolicyTest {
+
+    @Test
+    public void singlePolicyWithShortTaskQueue() {
+        long operations = 1_000_000;
+        int numberOfWorkers = 1;
+        int maximumTasksPerWorker = 16;
+        int workerParallelism = 12;
+
+        // Unlike the dynamic policy, this does not depend on luck with the latency of the server.
+        for (int workPerSuccess : new int[] { 4, 5, 8 }) {
+            CustomTimer timer = new CustomTimer();
+            LatencyThrottlePolicy policy = new LatencyThrottlePolicy(timer);
+            Summary summary = run(operations, workPerSuccess, numberOfWorkers, maximumTasksPerWorker, workerParallelism, timer, policy);
+
+            double minMaxPending = numberOfWorkers * workerParallelism;
+            double maxMaxPending = numberOfWorkers * maximumTasksPerWorker;
+            assertInRange(minMaxPending * 0.8, summary.averageWindows[0], maxMaxPending * 1.5);
+            assertInRange(1, summary.inefficiency, 1.2);
+            assertInRange(0, summary.waste, 0.05);
+            assertTrue(policy.getBaseLatency() > 0);
+            assertTrue(policy.getBaseLatency() <= policy.getLatency());
+        }
+    }
+
+    @Test
+    public void singlePolicyIncreasingWorkersWithNoParallelism() {
+        for (int i = 0; i < 4; i++) {
+            CustomTimer timer = new CustomTimer();
+            LatencyThrottlePolicy policy = new LatencyThrottlePolicy(timer);
+            int scaleFactor = (int) Math.pow(10, i);
+            long operations = 5_000L * scaleFactor;
+            int workPerSuccess = 5;
+            int numberOfWorkers = scaleFactor;
+            int maximumTasksPerWorker = 100000;
+            int workerParallelism = 1;
+            Summary summary = run(operations, workPerSuccess, numberOfWorkers, maximumTasksPerWorker, workerParallelism, timer, policy);
+
+            double minMaxPending = numberOfWorkers * workerParallelism;
+            double maxMaxPending = numberOfWorkers * maximumTasksPerWorker;
+            assertInRange(minMaxPending, summary.averagePending, maxMaxPending);
+            assertInRange(minMaxPending, summary.averageWindows[0], maxMaxPending);
+            assertInRange(1, summary.inefficiency, 1 + 0.15 * i); // Ramp-up takes longer with larger windows.
+            assertInRange(0, summary.waste, 0);
+        }
+    }
+
+    @Test
+    public void tenPoliciesVeryParallelServerWithShortTaskQueue() {
+        for (int i = 0; i < 5; i++) {
+            long operations = 1_000_000;
+            int workPerSuccess = 6;
+            int numberOfWorkers = 6;
+            int maximumTasksPerWorker = 180 + (int) (120 * Math.random());
+            int workerParallelism = 60 + (int) (40 * Math.random());
+            CustomTimer timer = new CustomTimer();
+            int p = 10;
+            LatencyThrottlePolicy[] policies = IntStream.range(0, p)
+                                                        .mapToObj(j -> new LatencyThrottlePolicy(timer))
+                                                        .toArray(LatencyThrottlePolicy[]::new);
+            Summary summary = run(operations, workPerSuccess, numberOfWorkers, maximumTasksPerWorker, workerParallelism, timer, policies);
+
+            double minMaxPending = numberOfWorkers * workerParallelism;
+            double maxMaxPending = numberOfWorkers * maximumTasksPerWorker;
+            assertInRange(minMaxPending, summary.averagePending, maxMaxPending);
+            for (int j = 0; j < p; j++) {
+                // Policies with equal settings get roughly equal shares.
+                assertInRange(minMaxPending / p / 2, summary.averageWindows[j], maxMaxPending / p * 2);
+            }
+            assertInRange(1.0, summary.inefficiency, 1.15);
+            assertInRange(0, summary.waste, 0.01);
+        }
+    }
+
+    private Summary run(long operations, int workPerSuccess, int numberOfWorkers, int maximumTasksPerWorker,
+                        int workerParallelism, CustomTimer timer, LatencyThrottlePolicy... policies) {
+        System.err.printf("\n### Running %d operations of %d ticks each against %d workers with parallelism %d and queue size %d\n",
+                          operations, workPerSuccess, numberOfWorkers, workerParallelism, maximumTasksPerWorker);
+
+        MockServer resource = new MockServer(workPerSuccess, numberOfWorkers, maximumTasksPerWorker, workerParallelism);
+        AtomicLong outstanding = new AtomicLong(operations);
+        AtomicLong errors = new AtomicLong(0);
+        long ticks = 0;
+        long totalPending = 0;
+        double[] windows = new double[policies.length];
+        int[] pending = new int[policies.length];
+        while (outstanding.get() + resource.pending() > 0) {
+            for (int i = 0; i < policies.length; i++) {
+                int j = i;
+                LatencyThrottlePolicy policy = policies[i];
+                windows[i] += policy.getWindowSize();
+                while (outstanding.get() > 0 && policy.canSend(message, pending[i])) {
+                    outstanding.decrementAndGet();
+                    policy.processMessage(message);
+                    ++pending[i];
+                    resource.send(successful -> {
+                        --pending[j];
+                        if (successful)
+                            policy.processReply(success);
+                        else {
+                            errors.incrementAndGet();
+                            outstanding.incrementAndGet();
+                            policy.processReply(error);
+                        }
+                    });
+                }
+            }
+            ++ticks;
+            totalPending += resource.pending();
+            resource.tick();
+            ++timer.millis;
+        }
+
+        for (int i = 0; i < windows.length; i++)
+            windows[i] /= ticks;
+
+        return new Summary(timer.milliTime() / (workPerSuccess * operations / (double) numberOfWorkers) * workerParallelism,
+                           errors.get() / (double) operations,
+                           totalPending / (double) ticks,
+                           windows);
+    }
+
+}
@@ -95,6 +95,19 @@ public class MessengerTestCase {
         assertTrue(tryMessenger(msn));
     }
 
+    @Test
+    public void requireThatQueuedTasksAreDestroyedWhenMessengerIsDestroyed() throws InterruptedException {
+        Messenger msn = new Messenger();
+        MyTask task = new MyTask();
+        msn.enqueue(task);
+        msn.destroy();
+        assertTrue(task.destroyLatch.await(60, TimeUnit.SECONDS));
+
+        MyTask late = new MyTask();
+        msn.enqueue(late);
+        assertTrue(late.destroyLatch.await(60, TimeUnit.SECONDS));
+    }
+
     private static boolean tryMessenger(Messenger msn) {
         MyTask task = new MyTask();
         msn.enqueue(task);
@@ -2,6 +2,7 @@
 package com.yahoo.messagebus.network.rpc;
 
 import com.yahoo.component.Version;
+import com.yahoo.compress.CompressionType;
 import com.yahoo.jrt.ListenFailedException;
 import com.yahoo.jrt.slobrok.server.Slobrok;
 import com.yahoo.messagebus.*;
@@ -50,7 +51,8 @@ public class SendAdapterTestCase {
                 new DestinationSessionParams().setName("session").setMessageHandler(new Receptor()));
         itrServer = new TestServer(
                 new MessageBusParams().addProtocol(itrProtocol = new TestProtocol()),
-                new RPCNetworkParams().setIdentity(new Identity("itr")).setSlobrokConfigId(TestServer.getSlobrokConfig(slobrok)));
+                new RPCNetworkParams().setIdentity(new Identity("itr")).setSlobrokConfigId(TestServer.getSlobrokConfig(slobrok))
+                                      .setCompressionType(CompressionType.ZSTD));
         itrSession = itrServer.mb.createIntermediateSession(
                 new IntermediateSessionParams().setName("session").setMessageHandler(new Receptor()).setReplyHandler(new Receptor()));
         srcServer = new TestServer(
@@ -105,6 +107,53 @@ public class SendAdapterTestCase {
         }
     }
 
+    @Test
+    public void requireThatLargeMessagesAreCompressedWithTheConfiguredType() {
+        Version version = new Version(9, 999);
+        srcServer.net.setVersion(version);
+        itrServer.net.setVersion(version);
+        dstServer.net.setVersion(version);
+        CompressionMetrics.Snapshot start = CompressionMetrics.getInstance().snapshot();
+
+        String value = "The quick brown fox jumps over the lazy dog. ".repeat(100);
+        assertTrue(srcSession.send(new SimpleMessage(value), Route.parse("itr/session dst/session")).isAccepted());
+        Message msg = ((Receptor)itrSession.getMessageHandler()).getMessage(300);
+        assertEquals(value, ((SimpleMessage)msg).getValue());
+        itrSession.forward(msg);
+        assertNotNull(msg = ((Receptor)dstSession.getMessageHandler()).getMessage(300));
+        assertEquals(value, ((SimpleMessage)msg).getValue());
+        Reply reply = new SimpleReply(value);
+        reply.swapState(msg);
+        dstSession.reply(reply);
+        assertNotNull(reply = ((Receptor)itrSession.getReplyHandler()).getReply(300));
+        itrSession.forward(reply);
+        assertNotNull(reply = ((Receptor)srcSession.getReplyHandler()).getReply(300));
+        assertEquals(value, ((SimpleReply)reply).getValue());
+
+        CompressionMetrics.Snapshot sent = CompressionMetrics.getInstance().snapshot().changesSince(start);
+        assertTrue(sent.uncompressedBytesSent() > 4 * value.length()); // two hops of both message and reply
+        assertTrue(sent.compressionRatio() < 0.5);
+    }
+
+    @Test
+    public void requireThatZstdIsOnlySentToVersionsWhichCanDecompressIt() {
+        byte[] data = "The quick brown fox jumps over the lazy dog. ".repeat(100).getBytes();
+        RPCSendV2 zstdSend = new RPCSendV2(CompressionType.ZSTD, 3);
+        assertEquals(CompressionType.LZ4, zstdSend.compress(data, new Version(6, 149)).type());
+        assertEquals(CompressionType.LZ4, zstdSend.compress(data, new Version(7, 164, 9)).type());
+        assertEquals(CompressionType.ZSTD, zstdSend.compress(data, RPCSendV2.zstdVersion).type());
+        assertEquals(CompressionType.ZSTD, zstdSend.compress(data, new Version(9, 999)).type());
+
+        RPCSendV2 lz4Send = new RPCSendV2(CompressionType.LZ4, 3);
+        assertEquals(CompressionType.LZ4, lz4Send.compress(data, new Version(6, 149)).type());
+        assertEquals(CompressionType.LZ4, lz4Send.compress(data, new Version(9, 999)).type());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void requireThatInvalidCompressionLevelIsRejected() {
+        new RPCNetworkParams().setCompressionLevel(10);
+    }
+
     ////////////////////////////////////////////////////////////////////////////////
     //
     // Utilities
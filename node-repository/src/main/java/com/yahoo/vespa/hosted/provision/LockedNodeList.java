@@ -22,4 +22,10 @@ public final class LockedNodeList extends NodeList {
         Objects.requireNonNull(lock, "lock must be non-null");
     }
 
+    /** Creates a locked list of the given nodes, sharing their index if they are indexed */
+    public LockedNodeList(NodeList nodes, Mutex lock) {
+        super(nodes.asList(), false, nodes.index());
+        Objects.requireNonNull(lock, "lock must be non-null");
+    }
+
 }
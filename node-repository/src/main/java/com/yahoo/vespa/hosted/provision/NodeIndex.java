@@ -0,0 +1,79 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.hosted.provision;
+
+import com.yahoo.config.provision.ApplicationId;
+import com.yahoo.config.provision.ClusterSpec;
+import com.yahoo.config.provision.NodeType;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * An immutable index of a list of nodes by the properties most commonly used to filter node lists.
+ * The nodes of each index entry are in the same order as in the indexed list.
+ *
+ * @author bratseth
+ */
+class NodeIndex {
+
+    private final Map<Node.State, List<Node>> byState;
+    private final Map<NodeType, List<Node>> byType;
+    private final Map<ApplicationId, List<Node>> byOwner;
+    private final Map<ClusterSpec.Id, List<Node>> byCluster;
+    private final Map<String, List<Node>> byParentHostname;
+    private final Map<String, Node> byHostname;
+
+    NodeIndex(List<Node> nodes) {
+        Map<Node.State, List<Node>> byState = new EnumMap<>(Node.State.class);
+        Map<NodeType, List<Node>> byType = new EnumMap<>(NodeType.class);
+        Map<ApplicationId, List<Node>> byOwner = new HashMap<>();
+        Map<ClusterSpec.Id, List<Node>> byCluster = new HashMap<>();
+        Map<String, List<Node>> byParentHostname = new HashMap<>();
+        Map<String, Node> byHostname = new HashMap<>();
+        for (Node node : nodes) {
+            byState.computeIfAbsent(node.state(), __ -> new ArrayList<>()).add(node);
+            byType.computeIfAbsent(node.type(), __ -> new ArrayList<>()).add(node);
+            node.allocation().ifPresent(allocation -> {
+                byOwner.computeIfAbsent(allocation.owner(), __ -> new ArrayList<>()).add(node);
+                byCluster.computeIfAbsent(allocation.membership().cluster().id(), __ -> new ArrayList<>()).add(node);
+            });
+            node.parentHostname().ifPresent(parent -> byParentHostname.computeIfAbsent(parent, __ -> new ArrayList<>()).add(node));
+            byHostname.putIfAbsent(node.hostname(), node);
+        }
+        this.byState = immutable(byState);
+        this.byType = immutable(byType);
+        this.byOwner = immutable(byOwner);
+        this.byCluster = immutable(byCluster);
+        this.byParentHostname = immutable(byParentHostname);
+        this.byHostname = Map.copyOf(byHostname);
+    }
+
+    /** Returns the nodes in the given state */
+    List<Node> state(Node.State state) { return byState.getOrDefault(state, List.of()); }
+
+    /** Returns the nodes of the given type */
+    List<Node> type(NodeType type) { return byType.getOrDefault(type, List.of()); }
+
+    /** Returns the nodes allocated to the given application */
+    List<Node> owner(ApplicationId application) { return byOwner.getOrDefault(application, List.of()); }
+
+    /** Returns the nodes allocated to a cluster with the given id */
+    List<Node> cluster(ClusterSpec.Id cluster) { return byCluster.getOrDefault(cluster, List.of()); }
+
+    /** Returns the children of the node with the given hostname */
+    List<Node> childrenOf(String hostname) { return byParentHostname.getOrDefault(hostname, List.of()); }
+
+    /** Returns the first node with the given hostname */
+    Optional<Node> node(String hostname) { return Optional.ofNullable(byHostname.get(hostname)); }
+
+    /** Returns the given index with immutable node lists. The index itself is never exposed, and thus not modified */
+    private static <K> Map<K, List<Node>> immutable(Map<K, List<Node>> index) {
+        index.replaceAll((key, nodes) -> List.copyOf(nodes));
+        return index;
+    }
+
+}
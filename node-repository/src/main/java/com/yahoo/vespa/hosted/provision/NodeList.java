@@ -1,6 +1,7 @@
 // Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.vespa.hosted.provision;
 
+import com.google.common.base.Suppliers;
 import com.yahoo.collections.AbstractFilteringList;
 import com.yahoo.component.Version;
 import com.yahoo.config.provision.ApplicationId;
@@ -16,6 +17,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -24,13 +26,28 @@ import static java.util.stream.Collectors.collectingAndThen;
 /**
  * A filterable node list. The result of a filter operation is immutable.
  *
+ * An indexed node list (see {@link #indexedCopyOf}) answers the most common filters (state, type, owner,
+ * cluster and parent) from an index which is built the first time it is needed, instead of scanning all nodes.
+ * This is used for node repository snapshots which are shared by all readers until the next change.
+ *
  * @author bratseth
  * @author mpolden
  */
 public class NodeList extends AbstractFilteringList<Node, NodeList> {
 
+    private final boolean negate;
+
+    /** The index of this, or null if this is not indexed */
+    private final Supplier<NodeIndex> index;
+
     protected NodeList(List<Node> nodes, boolean negate) {
+        this(nodes, negate, null);
+    }
+
+    NodeList(List<Node> nodes, boolean negate, Supplier<NodeIndex> index) {
         super(nodes, negate, NodeList::new);
+        this.negate = negate;
+        this.index = index;
     }
 
     /** Returns the subset of nodes which are retired */
@@ -116,17 +133,20 @@ public class NodeList extends AbstractFilteringList<Node, NodeList> {
 
     /** Returns the subset of nodes assigned to the given cluster */
     public NodeList cluster(ClusterSpec.Id cluster) {
+        if (isIndexed()) return copyOf(index.get().cluster(cluster));
         return matching(node -> node.allocation().isPresent() && node.allocation().get().membership().cluster().id().equals(cluster));
     }
 
     /** Returns the subset of nodes owned by the given application */
     public NodeList owner(ApplicationId application) {
+        if (isIndexed()) return copyOf(index.get().owner(application));
         return matching(node -> node.allocation().map(a -> a.owner().equals(application)).orElse(false));
     }
 
     /** Returns the subset of nodes matching the given node type(s) */
     public NodeList nodeType(NodeType first, NodeType... rest) {
         if (rest.length == 0) {
+            if (isIndexed()) return copyOf(index.get().type(first));
             return matching(node -> node.type() == first);
         }
         EnumSet<NodeType> nodeTypes = EnumSet.of(first, rest);
@@ -145,6 +165,7 @@ public class NodeList extends AbstractFilteringList<Node, NodeList> {
 
     /** Returns the child nodes of the given parent node */
     public NodeList childrenOf(String hostname) {
+        if (isIndexed()) return copyOf(index.get().childrenOf(hostname));
         return matching(node -> node.hasParent(hostname));
     }
 
@@ -155,6 +176,7 @@ public class NodeList extends AbstractFilteringList<Node, NodeList> {
     /** Returns the subset of nodes that are in any of the given state(s) */
     public NodeList state(Node.State first, Node.State... rest) {
         if (rest.length == 0) {
+            if (isIndexed()) return copyOf(index.get().state(first));
             return matching(node -> node.state() == first);
         }
         return state(EnumSet.of(first, rest));
@@ -190,6 +212,7 @@ public class NodeList extends AbstractFilteringList<Node, NodeList> {
 
     /** Returns the parent node of the given child node */
     public Optional<Node> parentOf(Node child) {
+        if (isIndexed()) return child.parentHostname().flatMap(parentHostname -> index.get().node(parentHostname));
         return child.parentHostname()
                     .flatMap(parentHostname -> stream().filter(node -> node.hostname().equals(parentHostname))
                                                        .findFirst());
@@ -262,10 +285,24 @@ public class NodeList extends AbstractFilteringList<Node, NodeList> {
     /** Returns the nodes of this as a stream */
     public Stream<Node> stream() { return asList().stream(); }
 
+    /** Returns the index of this, or null if this is not indexed */
+    Supplier<NodeIndex> index() { return index; }
+
+    /** Returns whether filters may be answered from the index of this, which is not the case for negated filters */
+    private boolean isIndexed() {
+        return index != null && ! negate;
+    }
+
     public static NodeList copyOf(List<Node> nodes) {
         return new NodeList(nodes, false);
     }
 
+    /** Returns an indexed copy of the given nodes. Use this for lists which are filtered many times. */
+    public static NodeList indexedCopyOf(List<Node> nodes) {
+        List<Node> copy = List.copyOf(nodes);
+        return new NodeList(copy, false, Suppliers.memoize(() -> new NodeIndex(copy))::get);
+    }
+
     @Override
     public String toString() {
         return asList().toString();
@@ -0,0 +1,98 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.hosted.provision.autoscale;
+
+import java.util.Arrays;
+
+/**
+ * A growable sequence of bits, where values of up to 64 bits are written at the end and read in the same order.
+ * Bits are stored from the most significant bit of each long.
+ * This is not thread safe.
+ *
+ * @author bratseth
+ */
+class BitBuffer {
+
+    private long[] words;
+
+    /** The number of bits written to this */
+    private long size = 0;
+
+    BitBuffer() {
+        this(4);
+    }
+
+    private BitBuffer(int initialWords) {
+        this.words = new long[initialWords];
+    }
+
+    /** Writes the lowest number of the given bits of the given value. Bits must be in the range 0 to 64 */
+    void write(long value, int bits) {
+        if (bits == 0) return;
+        ensureCapacity(size + bits);
+        if (bits < 64)
+            value &= (1L << bits) - 1;
+        int index = (int)(size >>> 6);
+        int free = 64 - (int)(size & 63);
+        if (bits <= free) {
+            words[index] |= value << (free - bits);
+        }
+        else {
+            words[index] |= value >>> (bits - free);
+            words[index + 1] |= value << (64 - (bits - free));
+        }
+        size += bits;
+    }
+
+    void writeBit(boolean bit) {
+        write(bit ? 1 : 0, 1);
+    }
+
+    /** Returns the number of bits written to this */
+    long size() { return size; }
+
+    /** Returns the number of bytes of memory used by the content of this */
+    long byteSize() { return words.length * 8L; }
+
+    /** Removes unused capacity. Call this when no more bits will be written */
+    void trim() {
+        int usedWords = (int)((size + 63) >>> 6);
+        if (usedWords < words.length)
+            words = Arrays.copyOf(words, usedWords);
+    }
+
+    /** Returns a reader of the bits currently in this, from the start */
+    Reader reader() { return new Reader(); }
+
+    private void ensureCapacity(long bits) {
+        int neededWords = (int)((bits + 63) >>> 6);
+        if (neededWords > words.length)
+            words = Arrays.copyOf(words, Math.max(neededWords, words.length * 2));
+    }
+
+    class Reader {
+
+        private long position = 0;
+
+        /** Reads the given number of bits (0 to 64) as the lowest bits of the returned value */
+        long read(int bits) {
+            if (bits == 0) return 0;
+            if (position + bits > size)
+                throw new IllegalStateException("Attempted to read past the " + size + " bits written");
+            int index = (int)(position >>> 6);
+            int free = 64 - (int)(position & 63);
+            long value;
+            if (bits <= free)
+                value = words[index] >>> (free - bits);
+            else
+                value = (words[index] << (bits - free)) | (words[index + 1] >>> (64 - (bits - free)));
+            position += bits;
+            return bits == 64 ? value : value & ((1L << bits) - 1);
+        }
+
+        boolean readBit() {
+            return read(1) == 1;
+        }
+
+    }
+
+}
@@ -0,0 +1,144 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.hosted.provision.autoscale;
+
+import com.google.inject.Inject;
+import com.yahoo.collections.Pair;
+import com.yahoo.config.provision.ApplicationId;
+import com.yahoo.config.provision.ClusterSpec;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * An in-memory metrics db storing node metrics in compressed columnar blocks, see {@link NodeMetricsBlock}.
+ * A snapshot takes about a byte when its values are unchanged, and up to about 20 bytes when all its values change
+ * at random, so weeks of metrics for tens of thousands of nodes fits in memory.
+ * Reads only decode the blocks overlapping the requested period.
+ * Thread model: One writer, many readers.
+ *
+ * @author bratseth
+ */
+public class CompressedMetricsDb implements MetricsDb {
+
+    /** The max number of snapshots in each block */
+    static final int blockSize = 512;
+
+    private final Clock clock;
+    private final Duration retention;
+
+    /** Metric blocks by node (hostname). Each list is ordered by increasing time and only the last block is appended to */
+    private final Map<String, List<NodeMetricsBlock>> nodeMetrics = new HashMap<>();
+
+    private final Map<Pair<ApplicationId, ClusterSpec.Id>, ClusterTimeseries> clusterTimeseries = new HashMap<>();
+
+    /** Lock all access for now since we modify blocks inside a map */
+    private final Object lock = new Object();
+
+    @Inject
+    public CompressedMetricsDb() {
+        this(Clock.systemUTC(), Duration.ofDays(14));
+    }
+
+    public CompressedMetricsDb(Clock clock, Duration retention) {
+        this.clock = clock;
+        this.retention = retention;
+    }
+
+    @Override
+    public Clock clock() { return clock; }
+
+    @Override
+    public void addNodeMetrics(Collection<Pair<String, NodeMetricSnapshot>> nodeMetrics) {
+        synchronized (lock) {
+            for (var value : nodeMetrics)
+                add(value.getFirst(), value.getSecond());
+        }
+    }
+
+    @Override
+    public void addClusterMetrics(ApplicationId application, Map<ClusterSpec.Id, ClusterMetricSnapshot> clusterMetrics) {
+        synchronized (lock) {
+            for (var value : clusterMetrics.entrySet()) {
+                var key = new Pair<>(application, value.getKey());
+                var existing = clusterTimeseries.computeIfAbsent(key, __ -> new ClusterTimeseries(value.getKey(), List.of()));
+                clusterTimeseries.put(key, existing.add(value.getValue()));
+            }
+        }
+    }
+
+    @Override
+    public List<NodeTimeseries> getNodeTimeseries(Duration period, Set<String> hostnames) {
+        Instant startTime = clock.instant().minus(period);
+        synchronized (lock) {
+            return hostnames.stream()
+                            .map(hostname -> new NodeTimeseries(hostname, snapshotsAtOrAfter(startTime, hostname)))
+                            .collect(Collectors.toList());
+        }
+    }
+
+    @Override
+    public ClusterTimeseries getClusterTimeseries(ApplicationId application, ClusterSpec.Id cluster) {
+        synchronized (lock) {
+            return clusterTimeseries.getOrDefault(new Pair<>(application, cluster), new ClusterTimeseries(cluster, List.of()));
+        }
+    }
+
+    @Override
+    public void gc() {
+        Instant oldestToKeep = clock.instant().minus(retention);
+        synchronized (lock) {
+            for (var iterator = nodeMetrics.values().iterator(); iterator.hasNext(); ) {
+                List<NodeMetricsBlock> blocks = iterator.next();
+                blocks.removeIf(block -> ! block.hasSnapshotsAtOrAfter(oldestToKeep));
+                if (blocks.isEmpty())
+                    iterator.remove();
+            }
+            for (var iterator = clusterTimeseries.entrySet().iterator(); iterator.hasNext(); ) {
+                var entry = iterator.next();
+                var snapshots = entry.getValue().asList().stream()
+                                     .filter(snapshot -> ! snapshot.at().isBefore(oldestToKeep))
+                                     .collect(Collectors.toList());
+                if (snapshots.isEmpty())
+                    iterator.remove();
+                else if (snapshots.size() < entry.getValue().size())
+                    entry.setValue(new ClusterTimeseries(entry.getValue().cluster(), snapshots));
+            }
+        }
+    }
+
+    @Override
+    public void close() {}
+
+    /** Returns the number of bytes of memory used to store node metric values */
+    long nodeMetricsByteSize() {
+        synchronized (lock) {
+            return nodeMetrics.values().stream().flatMap(List::stream).mapToLong(NodeMetricsBlock::byteSize).sum();
+        }
+    }
+
+    private void add(String hostname, NodeMetricSnapshot snapshot) {
+        List<NodeMetricsBlock> blocks = nodeMetrics.computeIfAbsent(hostname, __ -> new ArrayList<>());
+        if (blocks.isEmpty() || blocks.get(blocks.size() - 1).size() >= blockSize) {
+            if ( ! blocks.isEmpty())
+                blocks.get(blocks.size() - 1).trim();
+            blocks.add(new NodeMetricsBlock());
+        }
+        blocks.get(blocks.size() - 1).add(snapshot);
+    }
+
+    private List<NodeMetricSnapshot> snapshotsAtOrAfter(Instant startTime, String hostname) {
+        List<NodeMetricSnapshot> snapshots = new ArrayList<>();
+        for (NodeMetricsBlock block : nodeMetrics.getOrDefault(hostname, List.of()))
+            block.addSnapshotsAtOrAfter(startTime, snapshots);
+        return snapshots;
+    }
+
+}
@@ -0,0 +1,295 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.hosted.provision.autoscale;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * A block of metric snapshots from a single node, where each value is stored in a separate, compressed column:
+ * Timestamps are stored as delta-of-deltas, doubles as the xor with the previous value (as in Facebook's Gorilla),
+ * generations as a single bit when unchanged and booleans as single bits.
+ * Snapshots are appended to the block, and read back in the order they were added.
+ * This is not thread safe.
+ *
+ * @author bratseth
+ */
+class NodeMetricsBlock {
+
+    private int size = 0;
+    private long newest = Long.MIN_VALUE;
+
+    private final TimestampColumn at = new TimestampColumn();
+    private final DoubleColumn cpu = new DoubleColumn();
+    private final DoubleColumn memory = new DoubleColumn();
+    private final DoubleColumn disk = new DoubleColumn();
+    private final DoubleColumn queryRate = new DoubleColumn();
+    private final LongColumn generation = new LongColumn();
+    private final BitBuffer flags = new BitBuffer();
+
+    void add(NodeMetricSnapshot snapshot) {
+        long millis = snapshot.at().toEpochMilli();
+        at.add(millis);
+        cpu.add(snapshot.cpu());
+        memory.add(snapshot.memory());
+        disk.add(snapshot.disk());
+        queryRate.add(snapshot.queryRate());
+        generation.add(snapshot.generation());
+        flags.writeBit(snapshot.inService());
+        flags.writeBit(snapshot.stable());
+        newest = Math.max(newest, millis);
+        size++;
+    }
+
+    /** Returns the number of snapshots in this */
+    int size() { return size; }
+
+    /** Returns whether this contains any snapshot at or after the given time */
+    boolean hasSnapshotsAtOrAfter(Instant time) { return size > 0 && newest >= time.toEpochMilli(); }
+
+    /** Adds the snapshots in this which are at or after the given time to the given list */
+    void addSnapshotsAtOrAfter(Instant time, List<NodeMetricSnapshot> snapshots) {
+        if ( ! hasSnapshotsAtOrAfter(time)) return;
+
+        long oldestMillis = time.toEpochMilli();
+        TimestampColumn.Decoder at = this.at.decoder();
+        DoubleColumn.Decoder cpu = this.cpu.decoder();
+        DoubleColumn.Decoder memory = this.memory.decoder();
+        DoubleColumn.Decoder disk = this.disk.decoder();
+        DoubleColumn.Decoder queryRate = this.queryRate.decoder();
+        LongColumn.Decoder generation = this.generation.decoder();
+        BitBuffer.Reader flags = this.flags.reader();
+        for (int i = 0; i < size; i++) {
+            long millis = at.next();
+            double cpuValue = cpu.next();
+            double memoryValue = memory.next();
+            double diskValue = disk.next();
+            double queryRateValue = queryRate.next();
+            long generationValue = generation.next();
+            boolean inService = flags.readBit();
+            boolean stable = flags.readBit();
+            if (millis < oldestMillis) continue;
+            snapshots.add(new NodeMetricSnapshot(Instant.ofEpochMilli(millis), cpuValue, memoryValue, diskValue,
+                                                 generationValue, inService, stable, queryRateValue));
+        }
+    }
+
+    /** Removes unused capacity. Call this when no more snapshots will be added */
+    void trim() {
+        at.bits.trim();
+        cpu.bits.trim();
+        memory.bits.trim();
+        disk.bits.trim();
+        queryRate.bits.trim();
+        generation.bits.trim();
+        flags.trim();
+    }
+
+    /** Returns the number of bytes of memory used by the values in this */
+    long byteSize() {
+        return at.bits.byteSize() + cpu.bits.byteSize() + memory.bits.byteSize() + disk.bits.byteSize() +
+               queryRate.bits.byteSize() + generation.bits.byteSize() + flags.byteSize();
+    }
+
+    /**
+     * Timestamps in milliseconds, stored as the difference between the current and previous delta,
+     * which is zero for regularly sampled values.
+     */
+    static class TimestampColumn {
+
+        private final BitBuffer bits = new BitBuffer();
+        private boolean first = true;
+        private long previous;
+        private long previousDelta = 0;
+
+        void add(long timestamp) {
+            if (first) {
+                bits.write(timestamp, 64);
+                first = false;
+            }
+            else {
+                long delta = timestamp - previous;
+                writeDeltaOfDelta(delta - previousDelta);
+                previousDelta = delta;
+            }
+            previous = timestamp;
+        }
+
+        private void writeDeltaOfDelta(long deltaOfDelta) {
+            if (deltaOfDelta == 0) {
+                bits.write(0b0, 1);
+            }
+            else if (deltaOfDelta >= -63 && deltaOfDelta <= 64) {
+                bits.write(0b10, 2);
+                bits.write(deltaOfDelta + 63, 7);
+            }
+            else if (deltaOfDelta >= -255 && deltaOfDelta <= 256) {
+                bits.write(0b110, 3);
+                bits.write(deltaOfDelta + 255, 9);
+            }
+            else if (deltaOfDelta >= -2047 && deltaOfDelta <= 2048) {
+                bits.write(0b1110, 4);
+                bits.write(deltaOfDelta + 2047, 12);
+            }
+            else {
+                bits.write(0b1111, 4);
+                bits.write(deltaOfDelta, 64);
+            }
+        }
+
+        Decoder decoder() { return new Decoder(bits.reader()); }
+
+        static class Decoder {
+
+            private final BitBuffer.Reader reader;
+            private boolean first = true;
+            private long previous;
+            private long previousDelta = 0;
+
+            Decoder(BitBuffer.Reader reader) {
+                this.reader = reader;
+            }
+
+            long next() {
+                if (first) {
+                    first = false;
+                    return previous = reader.read(64);
+                }
+                long delta = previousDelta + readDeltaOfDelta();
+                previousDelta = delta;
+                return previous += delta;
+            }
+
+            private long readDeltaOfDelta() {
+                if ( ! reader.readBit()) return 0;
+                if ( ! reader.readBit()) return reader.read(7) - 63;
+                if ( ! reader.readBit()) return reader.read(9) - 255;
+                if ( ! reader.readBit()) return reader.read(12) - 2047;
+                return reader.read(64);
+            }
+
+        }
+
+    }
+
+    /**
+     * Doubles stored as the xor with the previous value. A zero xor is a single bit,
+     * otherwise we store the bits between the leading and trailing zeroes of the xor,
+     * reusing the previous number of leading and trailing zeroes when the bits fit within them.
+     */
+    static class DoubleColumn {
+
+        private final BitBuffer bits = new BitBuffer();
+        private boolean first = true;
+        private long previous;
+        private int previousLeading = -1;
+        private int previousTrailing = 0;
+
+        void add(double value) {
+            long valueBits = Double.doubleToRawLongBits(value);
+            if (first) {
+                bits.write(valueBits, 64);
+                first = false;
+                previous = valueBits;
+                return;
+            }
+
+            long xor = valueBits ^ previous;
+            previous = valueBits;
+            if (xor == 0) {
+                bits.write(0b0, 1);
+                return;
+            }
+
+            int leading = Math.min(Long.numberOfLeadingZeros(xor), 31); // Must fit in 5 bits
+            int trailing = Long.numberOfTrailingZeros(xor);
+            if (previousLeading >= 0 && leading >= previousLeading && trailing >= previousTrailing) {
+                bits.write(0b10, 2);
+                bits.write(xor >>> previousTrailing, 64 - previousLeading - previousTrailing);
+            }
+            else {
+                int significant = 64 - leading - trailing;
+                bits.write(0b11, 2);
+                bits.write(leading, 5);
+                bits.write(significant - 1, 6); // 1 to 64 stored as 0 to 63
+                bits.write(xor >>> trailing, significant);
+                previousLeading = leading;
+                previousTrailing = trailing;
+            }
+        }
+
+        Decoder decoder() { return new Decoder(bits.reader()); }
+
+        static class Decoder {
+
+            private final BitBuffer.Reader reader;
+            private boolean first = true;
+            private long previous;
+            private int previousLeading;
+            private int previousTrailing;
+
+            Decoder(BitBuffer.Reader reader) {
+                this.reader = reader;
+            }
+
+            double next() {
+                if (first) {
+                    first = false;
+                    previous = reader.read(64);
+                }
+                else if (reader.readBit()) {
+                    if (reader.readBit()) {
+                        previousLeading = (int)reader.read(5);
+                        int significant = (int)reader.read(6) + 1;
+                        previousTrailing = 64 - previousLeading - significant;
+                    }
+                    int significant = 64 - previousLeading - previousTrailing;
+                    previous ^= reader.read(significant) << previousTrailing;
+                }
+                return Double.longBitsToDouble(previous);
+            }
+
+        }
+
+    }
+
+    /** Longs which rarely change, stored as a single bit when unchanged */
+    static class LongColumn {
+
+        private final BitBuffer bits = new BitBuffer();
+        private boolean first = true;
+        private long previous;
+
+        void add(long value) {
+            if ( ! first && value == previous) {
+                bits.write(0b0, 1);
+            }
+            else {
+                bits.write(0b1, 1);
+                bits.write(value, 64);
+            }
+            first = false;
+            previous = value;
+        }
+
+        Decoder decoder() { return new Decoder(bits.reader()); }
+
+        static class Decoder {
+
+            private final BitBuffer.Reader reader;
+            private long previous;
+
+            Decoder(BitBuffer.Reader reader) {
+                this.reader = reader;
+            }
+
+            long next() {
+                if (reader.readBit())
+                    previous = reader.read(64);
+                return previous;
+            }
+
+        }
+
+    }
+
+}
@@ -80,12 +80,12 @@ public class Nodes {
      * @param inState the states to return nodes from. If no states are given, all nodes of the given type are returned
      */
     public NodeList list(Node.State... inState) {
-        return NodeList.copyOf(db.readNodes(inState));
+        return db.readNodeList(inState);
     }
 
     /** Returns a locked list of all nodes in this repository */
     public LockedNodeList list(Mutex lock) {
-        return new LockedNodeList(list().asList(), lock);
+        return new LockedNodeList(list(), lock);
     }
 
     /**
@@ -1,10 +1,16 @@
 // Copyright 2020 Oath Inc. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.vespa.hosted.provision.persistence;
 
+import com.yahoo.path.Path;
 import com.yahoo.vespa.curator.Curator;
 import com.yahoo.vespa.curator.recipes.CuratorCounter;
+import com.yahoo.vespa.curator.transaction.CuratorOperation;
 import com.yahoo.vespa.curator.transaction.CuratorTransaction;
 
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+
 /**
  * CuratorTransaction wrapper which increments a counter, to signal invalidation of node repository caches.
  *
@@ -17,26 +23,38 @@ import com.yahoo.vespa.curator.transaction.CuratorTransaction;
  * The usual locking for modifications of shared data is then enough to ensure the cache provides a
  * consistent view of the shared data, with one exception: when incrementing the counter fails. This is
  * assumed to be extremely rare, and the consequence is temporary neglect of cache invalidation.
+ * After each increment the listener is told the new counter value and which paths may have changed, so that
+ * a cache which is known to be current up to the previous value only needs to invalidate those paths.
  *
  * @author jonmv
  */
 class CountingCuratorTransaction extends CuratorTransaction {
 
     private final CuratorCounter counter;
+    private final Listener listener;
 
     public CountingCuratorTransaction(Curator curator, CuratorCounter counter) {
+        this(curator, counter, (generation, changedPaths) -> {});
+    }
+
+    CountingCuratorTransaction(Curator curator, CuratorCounter counter, Listener listener) {
         super(curator);
         this.counter = counter;
+        this.listener = listener;
     }
 
     @Override
     public void prepare() {
+        boolean prepared = false;
         try {
             counter.get();
             super.prepare();
+            prepared = true;
         }
         finally {
-            counter.next();
+            long generation = counter.next();
+            // A failed prepare may be caused by an inconsistent cache anywhere
+            listener.incremented(generation, prepared ? changedPaths() : Optional.empty());
         }
     }
 
@@ -46,8 +64,19 @@ class CountingCuratorTransaction extends CuratorTransaction {
             super.commit();
         }
         finally {
-            counter.next();
+            listener.incremented(counter.next(), changedPaths());
+        }
+    }
+
+    /** Returns the paths this may change, or empty if it may change any path */
+    private Optional<Set<Path>> changedPaths() {
+        Set<Path> paths = new HashSet<>();
+        for (Operation operation : operations()) {
+            Optional<String> path = ((CuratorOperation)operation).path();
+            if (path.isEmpty()) return Optional.empty();
+            paths.add(Path.fromString(path.get()));
         }
+        return Optional.of(paths);
     }
 
     @Override
@@ -55,4 +84,18 @@ class CountingCuratorTransaction extends CuratorTransaction {
         return "(" + super.toString() + "), INCREMENT " + counter;
     }
 
+    /** Receives each new value of the counter incremented by this */
+    interface Listener {
+
+        /**
+         * Called after the counter is incremented by this.
+         *
+         * @param generation the new value of the counter
+         * @param changedPaths the paths which may have been changed by this since the previous value,
+         *                     or empty if any path may have changed
+         */
+        void incremented(long generation, Optional<Set<Path>> changedPaths);
+
+    }
+
 }
@@ -16,8 +16,11 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
@@ -26,6 +29,8 @@ import java.util.stream.Collectors;
  * It serves reads from an in-memory cache of the content which is invalidated when changed on another node
  * using a global, shared counter. The counter is updated on all write operations, ensured by wrapping write
  * operations in a try block, with the counter increment in a finally block. Locks must be used to ensure consistency.
+ * When the counter is incremented by a write from this, and there were no other changes since the cache was created,
+ * the cache is carried over to the new generation with only the paths written invalidated.
  *
  * @author bratseth
  * @author jonmv
@@ -45,6 +50,12 @@ public class CuratorDatabase {
 
     private final Object cacheCreationLock = new Object();
 
+    /** Hits and misses of all the caches of this */
+    private final AbstractCache.SimpleStatsCounter stats = new AbstractCache.SimpleStatsCounter();
+
+    /** The number of cache entries which have been invalidated */
+    private final LongAdder evictions = new LongAdder();
+
     /**
      * Creates a curator database
      *
@@ -81,7 +92,7 @@ public class CuratorDatabase {
      */
     public CuratorTransaction newCuratorTransactionIn(NestedTransaction transaction) {
         // Wrap the curator transaction with an increment of the generation counter.
-        CountingCuratorTransaction curatorTransaction = new CountingCuratorTransaction(curator, changeGenerationCounter);
+        CountingCuratorTransaction curatorTransaction = new CountingCuratorTransaction(curator, changeGenerationCounter, this::advanceCache);
         transaction.add(curatorTransaction);
         return curatorTransaction;
     }
@@ -111,20 +122,41 @@ public class CuratorDatabase {
     Session getSession() {
         if (changeGenerationCounter.get() != cache.get().generation)
             synchronized (cacheCreationLock) {
-                while (changeGenerationCounter.get() != cache.get().generation)
+                while (changeGenerationCounter.get() != cache.get().generation) {
+                    evictions.add(cache.get().size());
                     cache.set(newCache(changeGenerationCounter.get()));
+                }
             }
             
         return cache.get();
     }
 
     CacheStats cacheStats() {
-        return cache.get().stats();
+        return new CacheStats(stats.snapshot().hitRate(), evictions.sum(), cache.get().size());
     }
 
     /** Caches must only be instantiated using this method */
     private Cache newCache(long generation) {
-        return useCache ? new Cache(generation, curator) : new NoCache(generation, curator);
+        return useCache ? new Cache(generation, curator, stats) : new NoCache(generation, curator, stats);
+    }
+
+    /**
+     * Moves the cache to the given generation, keeping all content except that of the changed paths,
+     * if the cache is at the generation immediately before it. Otherwise the current cache is
+     * left as-is, and will be replaced on the next read, as there may be other changes we don't know about.
+     *
+     * @param generation the new value of the generation counter
+     * @param changedPaths the paths which may have changed since the previous generation, or empty if any may have
+     */
+    private void advanceCache(long generation, Optional<Set<Path>> changedPaths) {
+        if ( ! useCache || changedPaths.isEmpty()) return;
+        synchronized (cacheCreationLock) {
+            Cache current = cache.get();
+            if (current.generation != generation - 1) return;
+            Cache next = current.advance(generation, changedPaths.get());
+            evictions.add(current.size() - next.size());
+            cache.set(next);
+        }
     }
 
     /**
@@ -145,14 +177,18 @@ public class CuratorDatabase {
         private final Map<Path, List<String>> children = new ConcurrentHashMap<>();
         private final Map<Path, Optional<byte[]>> data = new ConcurrentHashMap<>();
 
-        private final AbstractCache.SimpleStatsCounter stats = new AbstractCache.SimpleStatsCounter();
+        private final AbstractCache.SimpleStatsCounter stats;
 
         /** Create an empty snapshot at a given generation (as an empty snapshot is a valid partial snapshot) */
-        private Cache(long generation, Curator curator) {
+        private Cache(long generation, Curator curator, AbstractCache.SimpleStatsCounter stats) {
             this.generation = generation;
             this.curator = curator;
+            this.stats = stats;
         }
 
+        @Override
+        public OptionalLong generation() { return OptionalLong.of(generation); }
+
         @Override
         public List<String> getChildren(Path path) {
             return get(children, path, () -> ImmutableList.copyOf(curator.getChildren(path)));
@@ -174,17 +210,31 @@ public class CuratorDatabase {
             });
         }
 
-        public CacheStats stats() {
-            var stats = this.stats.snapshot();
-            return new CacheStats(stats.hitRate(), stats.evictionCount(), children.size() + data.size());
+        /**
+         * Returns a snapshot at the given generation with the content of this, except for the data and children of
+         * the given paths, and the children of their parents.
+         */
+        private Cache advance(long generation, Set<Path> changedPaths) {
+            Cache next = new Cache(generation, curator, stats);
+            next.children.putAll(children);
+            next.data.putAll(data);
+            for (Path path : changedPaths) {
+                next.data.remove(path);
+                next.children.remove(path);
+                next.children.remove(path.getParentPath());
+            }
+            return next;
         }
 
+        /** Returns the number of entries in this */
+        int size() { return children.size() + data.size(); }
+
     }
 
     /** An implementation of the curator database cache which does no caching */
     private static class NoCache extends Cache {
 
-        private NoCache(long generation, Curator curator) { super(generation, curator); }
+        private NoCache(long generation, Curator curator, AbstractCache.SimpleStatsCounter stats) { super(generation, curator, stats); }
 
         @Override
         public List<String> getChildren(Path path) { return curator.getChildren(path); }
@@ -192,6 +242,9 @@ public class CuratorDatabase {
         @Override
         public Optional<byte[]> getData(Path path) { return curator.getData(path); }
 
+        @Override
+        public OptionalLong generation() { return OptionalLong.empty(); }
+
     }
 
     interface Session {
@@ -206,6 +259,12 @@ public class CuratorDatabase {
          */
         Optional<byte[]> getData(Path path);
 
+        /**
+         * Returns the generation of the content returned by this session, or empty if this does not cache,
+         * and content derived from this must therefore not be reused.
+         */
+        OptionalLong generation();
+
     }
 
 }
@@ -21,6 +21,7 @@ import com.yahoo.vespa.curator.recipes.CuratorCounter;
 import com.yahoo.vespa.curator.transaction.CuratorOperations;
 import com.yahoo.vespa.curator.transaction.CuratorTransaction;
 import com.yahoo.vespa.hosted.provision.Node;
+import com.yahoo.vespa.hosted.provision.NodeList;
 import com.yahoo.vespa.hosted.provision.applications.Application;
 import com.yahoo.vespa.hosted.provision.lb.LoadBalancer;
 import com.yahoo.vespa.hosted.provision.lb.LoadBalancerId;
@@ -38,6 +39,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.logging.Level;
@@ -80,6 +82,9 @@ public class CuratorDatabaseClient {
     private final Zone zone;
     private final CuratorCounter provisionIndexCounter;
 
+    /** An indexed snapshot of all nodes, reused until the generation of the cache of the curator database changes */
+    private final AtomicReference<NodeSnapshot> nodeSnapshot = new AtomicReference<>();
+
     public CuratorDatabaseClient(NodeFlavors flavors, Curator curator, Clock clock, Zone zone, boolean useCache,
                                  long nodeCacheSize) {
         this.nodeSerializer = new NodeSerializer(flavors, nodeCacheSize);
@@ -268,10 +273,13 @@ public class CuratorDatabaseClient {
      * @return the nodes in a mutable list owned by the caller
      */
     public List<Node> readNodes(Node.State ... states) {
+        return readNodes(db.getSession(), states);
+    }
+
+    private List<Node> readNodes(CuratorDatabase.Session session, Node.State ... states) {
         List<Node> nodes = new ArrayList<>();
         if (states.length == 0)
             states = Node.State.values();
-        CuratorDatabase.Session session = db.getSession();
         for (Node.State state : states) {
             for (String hostname : session.getChildren(toPath(state))) {
                 Optional<Node> node = readNode(session, hostname, state);
@@ -281,6 +289,31 @@ public class CuratorDatabaseClient {
         return nodes;
     }
 
+    /**
+     * Returns all nodes which are in one of the given states, in the order of the given states.
+     * If no states are given this returns all nodes.
+     *
+     * The returned list is indexed, and when caching is enabled, all nodes are read and indexed once
+     * per cache generation and shared between all callers.
+     */
+    public NodeList readNodeList(Node.State ... states) {
+        CuratorDatabase.Session session = db.getSession();
+        if (session.generation().isEmpty()) return NodeList.indexedCopyOf(readNodes(session, states));
+
+        long generation = session.generation().getAsLong();
+        NodeSnapshot snapshot = nodeSnapshot.get();
+        if (snapshot == null || snapshot.generation != generation) {
+            snapshot = new NodeSnapshot(generation, NodeList.indexedCopyOf(readNodes(session)));
+            nodeSnapshot.set(snapshot);
+        }
+        if (states.length == 0) return snapshot.nodes;
+
+        List<Node> nodes = new ArrayList<>();
+        for (Node.State state : states)
+            nodes.addAll(snapshot.nodes.state(state).asList());
+        return NodeList.indexedCopyOf(nodes);
+    }
+
     /**
      * Returns a particular node, or empty if this node is not in any of the given states.
      * If no states are given this returns the node if it is present in any state.
@@ -561,4 +594,16 @@ public class CuratorDatabaseClient {
                                             : CuratorOperations.create(path.getAbsolute(), data);
     }
 
+    private static class NodeSnapshot {
+
+        private final long generation;
+        private final NodeList nodes;
+
+        private NodeSnapshot(long generation, NodeList nodes) {
+            this.generation = generation;
+            this.nodes = nodes;
+        }
+
+    }
+
 }
@@ -0,0 +1,82 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.hosted.provision;
+
+import com.yahoo.component.Version;
+import com.yahoo.config.provision.ApplicationId;
+import com.yahoo.config.provision.ClusterMembership;
+import com.yahoo.config.provision.ClusterSpec;
+import com.yahoo.config.provision.Flavor;
+import com.yahoo.config.provision.NodeType;
+import com.yahoo.transaction.Mutex;
+import com.yahoo.vespa.hosted.provision.provisioning.FlavorConfigBuilder;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author bratseth
+ */
+public class NodeListTest {
+
+    private final Flavor flavor = FlavorConfigBuilder.createDummies("default").getFlavorOrThrow("default");
+    private final ApplicationId app1 = ApplicationId.from("t1", "a1", "default");
+    private final ApplicationId app2 = ApplicationId.from("t2", "a2", "default");
+
+    @Test
+    public void indexed_list_gives_same_results_as_unindexed_list() {
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            String host = "host" + i;
+            nodes.add(Node.create(host, host, flavor, Node.State.active, NodeType.host).ipConfigWithEmptyPool(Set.of("::" + i)).build());
+            for (int j = 0; j < 3; j++) {
+                Node.State state = j == 0 ? Node.State.ready : Node.State.active;
+                Node child = Node.create(host + "-" + j, host + "-" + j, flavor, state, NodeType.tenant)
+                                 .ipConfigWithEmptyPool(Set.of("::" + i + ":" + j))
+                                 .parentHostname(host).build();
+                if (state == Node.State.active)
+                    child = child.allocate(i % 2 == 0 ? app1 : app2,
+                                           ClusterMembership.from("container/c" + j + "/0/" + i, Version.fromString("7.1"), Optional.empty()),
+                                           flavor.resources(),
+                                           Instant.EPOCH);
+                nodes.add(child);
+            }
+        }
+        nodes.add(Node.create("cfg1", "cfg1", flavor, Node.State.active, NodeType.config).ipConfigWithEmptyPool(Set.of("::100")).build());
+
+        NodeList plain = NodeList.copyOf(nodes);
+        NodeList indexed = NodeList.indexedCopyOf(nodes);
+        assertEquals(plain, indexed);
+
+        for (Node.State state : Node.State.values())
+            assertEquals(plain.state(state), indexed.state(state));
+        for (NodeType type : NodeType.values())
+            assertEquals(plain.nodeType(type), indexed.nodeType(type));
+        assertEquals(plain.owner(app1), indexed.owner(app1));
+        assertEquals(plain.owner(app2), indexed.owner(app2));
+        assertEquals(4, indexed.owner(app2).size());
+        assertEquals(plain.cluster(ClusterSpec.Id.from("c1")), indexed.cluster(ClusterSpec.Id.from("c1")));
+        assertEquals(4, indexed.cluster(ClusterSpec.Id.from("c1")).size());
+        assertEquals(plain.childrenOf("host2"), indexed.childrenOf("host2"));
+        assertEquals(3, indexed.childrenOf("host2").size());
+        assertEquals(0, indexed.childrenOf("cfg1").size());
+        for (Node node : nodes)
+            assertEquals(plain.parentOf(node), indexed.parentOf(node));
+        assertEquals(plain.parentsOf(plain.state(Node.State.ready)), indexed.parentsOf(indexed.state(Node.State.ready)));
+
+        // Negated filters are not answered from the index
+        assertEquals(plain.not().state(Node.State.ready), indexed.not().state(Node.State.ready));
+        assertEquals(plain.not().owner(app1), indexed.not().owner(app1));
+        assertEquals(plain.not().nodeType(NodeType.host), indexed.not().nodeType(NodeType.host));
+
+        // Locked lists share the index
+        Mutex lock = () -> {};
+        assertEquals(plain.childrenOf("host1"), new LockedNodeList(indexed, lock).childrenOf("host1"));
+    }
+
+}
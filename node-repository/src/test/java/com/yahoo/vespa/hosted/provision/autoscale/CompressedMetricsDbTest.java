@@ -0,0 +1,156 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.hosted.provision.autoscale;
+
+import com.yahoo.collections.Pair;
+import com.yahoo.config.provision.ApplicationId;
+import com.yahoo.config.provision.ClusterSpec;
+import com.yahoo.test.ManualClock;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the compressed metrics db.
+ *
+ * @author bratseth
+ */
+public class CompressedMetricsDbTest {
+
+    @Test
+    public void testNodeMetricsReadWrite() {
+        ManualClock clock = new ManualClock("2020-10-01T00:00:00");
+        CompressedMetricsDb db = new CompressedMetricsDb(clock, Duration.ofDays(14));
+        Instant startTime = clock.instant();
+
+        clock.advance(Duration.ofSeconds(1));
+        List<NodeMetricSnapshot> written = new ArrayList<>();
+        db.addNodeMetrics(nodeTimeseries(2000, clock, new Random(1), written, "host1", "host2"));
+        clock.advance(Duration.ofSeconds(1));
+
+        List<NodeTimeseries> all = db.getNodeTimeseries(Duration.between(startTime, clock.instant()), Set.of("host1"));
+        assertEquals(1, all.size());
+        assertEquals("host1", all.get(0).hostname());
+        assertEquals(written.size(), all.get(0).size());
+        for (int i = 0; i < written.size(); i++)
+            assertEquals(written.get(i).toString(), all.get(0).get(i).toString());
+        assertTrue("Snapshots of random values take about 20 bytes each, plus the unused capacity of the last blocks",
+                   db.nodeMetricsByteSize() < 2 * written.size() * 25);
+
+        // Read a short interval, which is inside the last block
+        NodeTimeseries recent = db.getNodeTimeseries(Duration.ofMinutes(5), Set.of("host1")).get(0);
+        assertTrue(recent.size() > 0);
+        assertTrue(recent.size() < 60);
+        for (NodeMetricSnapshot snapshot : recent.asList())
+            assertTrue( ! snapshot.at().isBefore(clock.instant().minus(Duration.ofMinutes(5))));
+        assertEquals(written.get(written.size() - 1).toString(), recent.get(recent.size() - 1).toString());
+
+        // Unknown hosts have empty time series
+        assertTrue(db.getNodeTimeseries(Duration.ofDays(1), Set.of("host3")).get(0).isEmpty());
+    }
+
+    @Test
+    public void testCompression() {
+        ManualClock clock = new ManualClock("2020-10-01T00:00:00");
+        CompressedMetricsDb db = new CompressedMetricsDb(clock, Duration.ofDays(14));
+        int count = 10 * CompressedMetricsDb.blockSize;
+        Collection<Pair<String, NodeMetricSnapshot>> timeseries = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            timeseries.add(new Pair<>("host1", new NodeMetricSnapshot(clock.instant(), 0.5, 0.7, 0.4, 3, true, true, 30.0)));
+            clock.advance(Duration.ofMinutes(1));
+        }
+        db.addNodeMetrics(timeseries);
+        assertTrue("Regular, unchanging snapshots take about a byte each", db.nodeMetricsByteSize() < count * 2);
+        assertEquals(count, db.getNodeTimeseries(Duration.ofDays(14), Set.of("host1")).get(0).size());
+    }
+
+    @Test
+    public void testClusterMetricsReadWrite() {
+        ManualClock clock = new ManualClock("2020-10-01T00:00:00");
+        CompressedMetricsDb db = new CompressedMetricsDb(clock, Duration.ofDays(14));
+        Instant startTime = clock.instant();
+
+        var application1 = ApplicationId.from("t1", "a1", "i1");
+        var application2 = ApplicationId.from("t1", "a2", "i1");
+        var cluster1 = new ClusterSpec.Id("cluster1");
+        var cluster2 = new ClusterSpec.Id("cluster2");
+        db.addClusterMetrics(application1, Map.of(cluster1, new ClusterMetricSnapshot(clock.instant(), 30.0)));
+        db.addClusterMetrics(application1, Map.of(cluster2, new ClusterMetricSnapshot(clock.instant(), 60.0)));
+        clock.advance(Duration.ofMinutes(1));
+        db.addClusterMetrics(application1, Map.of(cluster1, new ClusterMetricSnapshot(clock.instant(), 45.0)));
+        clock.advance(Duration.ofMinutes(1));
+        db.addClusterMetrics(application2, Map.of(cluster1, new ClusterMetricSnapshot(clock.instant(), 90.0)));
+
+        ClusterTimeseries clusterTimeseries11 = db.getClusterTimeseries(application1, cluster1);
+        assertEquals(cluster1, clusterTimeseries11.cluster());
+        assertEquals(2, clusterTimeseries11.size());
+        assertEquals(startTime, clusterTimeseries11.get(0).at());
+        assertEquals(30, clusterTimeseries11.get(0).queryRate(), 0.0000001);
+        assertEquals(45, clusterTimeseries11.get(1).queryRate(), 0.0000001);
+        assertEquals(1, db.getClusterTimeseries(application1, cluster2).size());
+        assertEquals(1, db.getClusterTimeseries(application2, cluster1).size());
+        assertTrue(db.getClusterTimeseries(application2, cluster2).isEmpty());
+    }
+
+    @Test
+    public void testGc() {
+        ManualClock clock = new ManualClock("2020-10-01T00:00:00");
+        CompressedMetricsDb db = new CompressedMetricsDb(clock, Duration.ofDays(1));
+        var application = ApplicationId.from("t1", "a1", "i1");
+        var cluster = new ClusterSpec.Id("cluster1");
+        db.addClusterMetrics(application, Map.of(cluster, new ClusterMetricSnapshot(clock.instant(), 30.0)));
+        Collection<Pair<String, NodeMetricSnapshot>> timeseries = new ArrayList<>();
+        for (int i = 0; i < 3 * CompressedMetricsDb.blockSize; i++) {
+            timeseries.add(new Pair<>("host1", new NodeMetricSnapshot(clock.instant(), 0.5, 0.7, 0.4, 3, true, true, 30.0)));
+            clock.advance(Duration.ofMinutes(3));
+        }
+        db.addNodeMetrics(timeseries);
+        db.addClusterMetrics(application, Map.of(cluster, new ClusterMetricSnapshot(clock.instant(), 30.0)));
+        assertEquals(3 * CompressedMetricsDb.blockSize, db.getNodeTimeseries(Duration.ofDays(10), Set.of("host1")).get(0).size());
+
+        db.gc();
+        int remaining = db.getNodeTimeseries(Duration.ofDays(10), Set.of("host1")).get(0).size();
+        assertEquals("Only the whole blocks older than a day are removed", CompressedMetricsDb.blockSize, remaining);
+        assertEquals(1, db.getClusterTimeseries(application, cluster).size());
+
+        clock.advance(Duration.ofDays(2));
+        db.gc();
+        assertTrue(db.getNodeTimeseries(Duration.ofDays(10), Set.of("host1")).get(0).isEmpty());
+        assertEquals(0, db.nodeMetricsByteSize());
+        assertTrue(db.getClusterTimeseries(application, cluster).isEmpty());
+    }
+
+    /** Returns snapshots with irregular timestamps and varying values, also adding those of the first host to the given list */
+    private Collection<Pair<String, NodeMetricSnapshot>> nodeTimeseries(int countPerHost, ManualClock clock, Random random,
+                                                                        List<NodeMetricSnapshot> firstHostSnapshots,
+                                                                        String ... hosts) {
+        Collection<Pair<String, NodeMetricSnapshot>> timeseries = new ArrayList<>();
+        for (int i = 1; i <= countPerHost; i++) {
+            for (String host : hosts) {
+                var snapshot = new NodeMetricSnapshot(clock.instant(),
+                                                      random.nextDouble(),
+                                                      i % 10 == 0 ? 0.5 : random.nextDouble(),
+                                                      0.4,
+                                                      i / 100,
+                                                      random.nextBoolean(),
+                                                      i % 7 != 0,
+                                                      random.nextInt(1000) * 0.25);
+                timeseries.add(new Pair<>(host, snapshot));
+                if (host.equals(hosts[0]))
+                    firstHostSnapshots.add(snapshot);
+            }
+            clock.advance(Duration.ofMillis(i % 5 == 0 ? 1000 + random.nextInt(100000) : 10000));
+        }
+        return timeseries;
+    }
+
+}
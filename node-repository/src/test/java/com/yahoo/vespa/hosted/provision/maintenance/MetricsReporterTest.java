@@ -23,6 +23,7 @@ import com.yahoo.vespa.hosted.provision.node.Agent;
 import com.yahoo.vespa.hosted.provision.node.Allocation;
 import com.yahoo.vespa.hosted.provision.node.Generation;
 import com.yahoo.vespa.hosted.provision.node.IP;
+import com.yahoo.vespa.hosted.provision.persistence.CacheStats;
 import com.yahoo.vespa.hosted.provision.provisioning.FlavorConfigBuilder;
 import com.yahoo.vespa.hosted.provision.provisioning.ProvisioningTester;
 import com.yahoo.vespa.orchestrator.Orchestrator;
@@ -43,6 +44,7 @@ import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
@@ -122,9 +124,6 @@ public class MetricsReporterTest {
         expectedMetrics.put("cache.nodeObject.size", 2L);
 
         nodeRepository.nodes().list();
-        expectedMetrics.put("cache.curator.hitRate", 0.52D);
-        expectedMetrics.put("cache.curator.evictionCount", 0L);
-        expectedMetrics.put("cache.curator.size", 12L);
 
         tester.clock().setInstant(Instant.ofEpochSecond(124));
 
@@ -143,7 +142,26 @@ public class MetricsReporterTest {
         verifyAndRemoveIntegerMetricSum(metric, "lockAttempt.deadlock", 0);
         verifyAndRemoveIntegerMetricSum(metric, "lockAttempt.errors", 0);
 
+        // The curator cache statistics depend on the exact reads and writes done while provisioning,
+        // so these are verified against bounds, and removed before comparing the other metrics
+        double curatorHitRate = metric.values.remove("cache.curator.hitRate").doubleValue();
+        assertTrue("Curator cache hit rate " + curatorHitRate, curatorHitRate > 0 && curatorHitRate < 1);
+        assertTrue(metric.values.remove("cache.curator.evictionCount").longValue() >= 0);
+        assertTrue(metric.values.remove("cache.curator.size").longValue() > 0);
+
         assertEquals(expectedMetrics, new TreeMap<>(metric.values));
+
+        // The curator cache survives our own writes, dropping only what the write may have changed,
+        // and its statistics accumulate across cache generations
+        CacheStats beforeWrite = nodeRepository.database().cacheStats();
+        nodeRepository.database().writeFirmwareCheck(Optional.of(tester.clock().instant()));
+        CacheStats afterWrite = nodeRepository.database().cacheStats();
+        assertTrue(afterWrite.size() > 0);
+        assertEquals(beforeWrite.size() - afterWrite.size(), afterWrite.evictionCount() - beforeWrite.evictionCount());
+        assertEquals(beforeWrite.hitRate(), afterWrite.hitRate(), 0);
+        assertEquals(Optional.of(tester.clock().instant()), nodeRepository.database().readFirmwareCheck());
+        assertEquals("Reading the written data adds to the kept entries",
+                     afterWrite.size() + 1, nodeRepository.database().cacheStats().size());
     }
 
     private void verifyAndRemoveIntegerMetricSum(TestMetric metric, String key, int expected) {
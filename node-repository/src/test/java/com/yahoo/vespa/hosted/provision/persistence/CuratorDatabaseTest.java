@@ -16,7 +16,6 @@ import java.util.List;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
-import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.fail;
 
 /**
@@ -49,8 +48,38 @@ public class CuratorDatabaseTest {
         commitCreate("/2/2", database);
         List<String> children1Call3 = database.getChildren(Path.fromString("/1"));
         assertEquals(2, database.getChildren(Path.fromString("/2")).size());
-        assertFalse("We do not reuse cached data in different parts of the tree when there are commits",
-                    children1Call3 == children1Call2);
+        assertTrue("We reuse cached data in parts of the tree not changed by our commits",
+                   children1Call3 == children1Call2);
+    }
+
+    @Test
+    public void testOnlyChangedPathsAreInvalidated() throws Exception {
+        MockCurator curator = new MockCurator();
+        CuratorDatabase database = new CuratorDatabase(curator, Path.fromString("/"), true);
+        commitCreate("/1", database);
+        commitCreate("/2", database);
+        commitCreate("/1/1", database);
+
+        byte[] data1 = database.getData(Path.fromString("/1")).get();
+        List<String> children1 = database.getChildren(Path.fromString("/1"));
+        List<String> children2 = database.getChildren(Path.fromString("/2"));
+        assertEquals(0.0, database.cacheStats().hitRate(), 0.0000001);
+        assertEquals(3, database.cacheStats().size());
+
+        commitCreate("/2/1", database);
+        assertTrue(children1 == database.getChildren(Path.fromString("/1")));
+        assertArrayEquals(data1, database.getData(Path.fromString("/1")).get());
+        List<String> newChildren2 = database.getChildren(Path.fromString("/2"));
+        assertEquals(List.of("1"), newChildren2);
+        assertTrue(children2 != newChildren2);
+        assertEquals(2.0 / 6, database.cacheStats().hitRate(), 0.0000001);
+        assertEquals("The children of /2 were invalidated", 1, database.cacheStats().evictionCount());
+
+        // Changes we don't know the paths of invalidate everything
+        curator.counter("/changeCounter").get().increment();
+        assertTrue(children1 != database.getChildren(Path.fromString("/1")));
+        assertEquals(1, database.cacheStats().size());
+        assertEquals(4, database.cacheStats().evictionCount());
     }
 
     @Test
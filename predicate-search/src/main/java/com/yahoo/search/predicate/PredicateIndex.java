@@ -6,11 +6,18 @@ import com.yahoo.document.predicate.Predicate;
 import com.yahoo.search.predicate.index.*;
 import com.yahoo.search.predicate.index.conjunction.ConjunctionHit;
 import com.yahoo.search.predicate.index.conjunction.ConjunctionIndex;
+import com.yahoo.search.predicate.serialization.MappedInput;
 import com.yahoo.search.predicate.serialization.SerializationHelper;
 
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicReference;
@@ -31,6 +38,10 @@ import java.util.stream.Stream;
  * </p><p>
  * Note that the {@link PredicateIndex} is thread-safe, but a {@link Searcher} is not.
  * Each thread <strong>must</strong> use its own searcher.
+ * </p><p>
+ * An index can be written to a stream and read back onto the heap, or written to a file in a format which
+ * is memory mapped when read back, such that the posting lists and intervals are searched in place
+ * rather than being loaded onto the heap. See {@link #writeToMappableFile} and {@link #fromMappedFile}.
  * </p>
  * @author Magnar Nedland
  * @author bjorncs
@@ -39,6 +50,7 @@ import java.util.stream.Stream;
 public class PredicateIndex {
 
     private static final int SERIALIZATION_FORMAT_VERSION = 3;
+    private static final int MAPPABLE_FORMAT_VERSION = 1000 + SERIALIZATION_FORMAT_VERSION;
 
     private final PredicateRangeTermExpander expander;
     private final int[] internalToExternalIdMapping;
@@ -143,6 +155,71 @@ public class PredicateIndex {
         );
     }
 
+    /**
+     * Writes this to a file in a format which can be memory mapped by {@link #fromMappedFile}.
+     * Each of the posting list and interval sections of the file is limited to 2 GB.
+     */
+    public void writeToMappableFile(Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAPPABLE_FORMAT_VERSION);
+            ByteArrayOutputStream block = new ByteArrayOutputStream();
+            DataOutputStream blockOut = new DataOutputStream(block);
+            config.writeToOutputStream(blockOut);
+            blockOut.writeInt(highestIntervalEnd);
+            conjunctionIndex.writeToOutputStream(blockOut);
+            blockOut.flush();
+            SerializationHelper.writeByteArray(block.toByteArray(), out);
+            SerializationHelper.writeIntArray(internalToExternalIdMapping, out);
+            SerializationHelper.writeByteArray(minFeatureIndex, out);
+            SerializationHelper.writeShortArray(intervalEnds, out);
+            SerializationHelper.writeIntArray(zeroConstraintDocuments, out);
+            intervalIndex.writeToMappableOutputStream(out);
+            boundsIndex.writeToMappableOutputStream(out);
+            conjunctionIntervalIndex.writeToMappableOutputStream(out);
+            intervalStore.writeToMappableOutputStream(out);
+        }
+    }
+
+    /**
+     * Reads an index written by {@link #writeToMappableFile}. The posting lists and intervals are memory mapped
+     * and searched in place, while the document arrays and the conjunction index are read onto the heap.
+     */
+    public static PredicateIndex fromMappedFile(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedInput in = new MappedInput(channel);
+            int version = in.readInt();
+            if (version != MAPPABLE_FORMAT_VERSION) {
+                throw new IllegalArgumentException(String.format(
+                        "Invalid mappable format version. Expected %d, was %d.", MAPPABLE_FORMAT_VERSION, version));
+            }
+            DataInputStream block = in.readBlock();
+            Config config = Config.fromInputStream(block);
+            int highestIntervalEnd = block.readInt();
+            ConjunctionIndex conjunctionIndex = ConjunctionIndex.fromInputStream(block);
+            int[] internalToExternalIdMapping = in.readIntArray();
+            byte[] minFeatureIndex = in.readByteArray();
+            short[] intervalEnds = in.readShortArray();
+            int[] zeroConstraintDocuments = in.readIntArray();
+            SimpleIndex intervalIndex = SimpleIndex.fromMappedInput(in);
+            SimpleIndex boundsIndex = SimpleIndex.fromMappedInput(in);
+            SimpleIndex conjunctionIntervalIndex = SimpleIndex.fromMappedInput(in);
+            PredicateIntervalStore intervalStore = PredicateIntervalStore.fromMappedInput(in);
+            return new PredicateIndex(
+                    config,
+                    internalToExternalIdMapping,
+                    minFeatureIndex,
+                    intervalEnds,
+                    highestIntervalEnd,
+                    intervalIndex,
+                    boundsIndex,
+                    conjunctionIntervalIndex,
+                    intervalStore,
+                    conjunctionIndex,
+                    zeroConstraintDocuments
+            );
+        }
+    }
+
     @Beta
     public class Searcher {
         private final byte[] nPostingListsForDocument;
@@ -155,11 +232,29 @@ public class PredicateIndex {
 
         /**
          * Retrieves a stream of hits for the given query.
+         * The stream can be made parallel, in which case the document id space is partitioned across
+         * the threads of the stream, which lowers the latency of expensive queries.
+         * A parallel stream must be consumed before the next search with this searcher.
          *
          * @param query Specifies the boolean variables that are true.
          * @return A stream of hits.
          */
         public Stream<Hit> search(PredicateQuery query) {
+            List<ConjunctionHit> conjunctionHits = conjunctionIndexSearcher.search(query);
+            List<PostingList> postingLists = createPostingLists(query, conjunctionHits);
+
+            CachedPostingListCounter counter = postingListCounter.get();
+            counter.registerUsage(postingLists);
+            counter.countPostingListsPerDocument(postingLists, nPostingListsForDocument);
+            return new PredicateSearch(
+                    postingLists, () -> createPostingLists(query, conjunctionHits),
+                    nPostingListsForDocument, minFeatureIndex, intervalEnds, highestIntervalEnd).stream()
+                    // Map to external id. Note that internal id for first document is 1.
+                    .map(hit -> new Hit(internalToExternalIdMapping[hit.getDocId()], hit.getSubquery()));
+        }
+
+        /** Creates the posting lists of a query. This is thread-safe, as parts of a parallel search call it */
+        private List<PostingList> createPostingLists(PredicateQuery query, List<ConjunctionHit> conjunctionHits) {
             ArrayList<PostingList> postingLists = new ArrayList<>();
             for (PredicateQuery.Feature feature : query.getFeatures()) {
                 addIntervalPostingList(feature.featureHash, feature.subqueryBitmap, postingLists);
@@ -172,22 +267,15 @@ public class PredicateIndex {
                         (featureHash, value) -> addBoundsPostingList(featureHash, value, feature.subqueryBitmap, postingLists));
             }
             addCompressedZStarPostingList(postingLists);
-            addConjunctionPostingLists(query, postingLists);
+            addConjunctionPostingLists(conjunctionHits, postingLists);
             addZeroConstraintPostingList(postingLists);
-
-            CachedPostingListCounter counter = postingListCounter.get();
-            counter.registerUsage(postingLists);
-            counter.countPostingListsPerDocument(postingLists, nPostingListsForDocument);
-            return new PredicateSearch(
-                    postingLists, nPostingListsForDocument, minFeatureIndex, intervalEnds, highestIntervalEnd).stream()
-                    // Map to external id. Note that internal id for first document is 1.
-                    .map(hit -> new Hit(internalToExternalIdMapping[hit.getDocId()], hit.getSubquery()));
+            return postingLists;
         }
 
         private void addCompressedZStarPostingList(List<PostingList> postingLists) {
             SimpleIndex.Entry e = intervalIndex.getPostingList(Feature.Z_STAR_COMPRESSED_ATTRIBUTE_HASH);
             if (e != null) {
-                postingLists.add(new ZstarCompressedPostingList(intervalStore, e.docIds, e.dataRefs));
+                postingLists.add(new ZstarCompressedPostingList(intervalStore, e));
             }
         }
 
@@ -195,23 +283,22 @@ public class PredicateIndex {
                 long featureHash, int value, long subqueryBitMap, List<PostingList> postingLists) {
             SimpleIndex.Entry e = boundsIndex.getPostingList(featureHash);
             if (e != null) {
-                postingLists.add(new BoundsPostingList(intervalStore, e.docIds, e.dataRefs, subqueryBitMap, value));
+                postingLists.add(new BoundsPostingList(intervalStore, e, subqueryBitMap, value));
             }
         }
 
         private void addIntervalPostingList(long featureHash, long subqueryBitMap, List<PostingList> postingLists) {
             SimpleIndex.Entry e = intervalIndex.getPostingList(featureHash);
             if (e != null) {
-                postingLists.add(new IntervalPostingList(intervalStore, e.docIds, e.dataRefs, subqueryBitMap));
+                postingLists.add(new IntervalPostingList(intervalStore, e, subqueryBitMap));
             }
         }
 
-        private void addConjunctionPostingLists(PredicateQuery query, List<PostingList> postingLists) {
-            List<ConjunctionHit> hits = conjunctionIndexSearcher.search(query);
+        private void addConjunctionPostingLists(List<ConjunctionHit> hits, List<PostingList> postingLists) {
             for (ConjunctionHit hit : hits) {
                 SimpleIndex.Entry e = conjunctionIntervalIndex.getPostingList(hit.conjunctionId);
                 if (e != null) {
-                    postingLists.add(new IntervalPostingList(intervalStore, e.docIds, e.dataRefs, hit.subqueryBitmap));
+                    postingLists.add(new IntervalPostingList(intervalStore, e, hit.subqueryBitmap));
                 }
             }
         }
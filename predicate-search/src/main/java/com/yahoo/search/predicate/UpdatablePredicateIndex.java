@@ -0,0 +1,305 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.predicate;
+
+import com.google.common.annotations.Beta;
+import com.google.common.collect.Iterators;
+import com.yahoo.document.predicate.Predicate;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A {@link PredicateIndex} which supports adding, replacing and removing documents without rebuilding the whole index.
+ * <p>
+ * The index consists of a large main segment and a small delta segment, each an immutable {@link PredicateIndex}.
+ * Changes go to the delta segment, which is rebuilt when changes are committed, while documents removed or replaced
+ * are masked out of the main segment. When the delta segment grows larger than a given size, the two are merged into
+ * a new main segment in the background. Searches run concurrently with changes and merges, and see the segments
+ * as of the last commit.
+ * </p><p>
+ * Changes are made visible to new searches by {@link #commit()}. A completed merge also makes all changes visible.
+ * </p><p>
+ * The predicates of all documents are kept on the heap, as segments are built from predicates: Each commit rebuilds
+ * the delta segment, and each merge rebuilds the main segment from all documents. Keep the max delta size small
+ * enough that rebuilding the delta segment is cheap, and large enough that merges are infrequent.
+ * </p><p>
+ * Note that this is thread-safe, but a {@link Searcher} is not. Each thread <strong>must</strong> use its own searcher.
+ * </p>
+ *
+ * @author bratseth
+ */
+@Beta
+public class UpdatablePredicateIndex {
+
+    private static final Logger log = Logger.getLogger(UpdatablePredicateIndex.class.getName());
+
+    private final Config config;
+    private final int maxDeltaDocuments;
+    private final Executor mergeExecutor;
+
+    /** The documents of the main segment. Guarded by this */
+    private Map<Integer, Predicate> mainDocuments = new HashMap<>();
+
+    /** The documents added or replaced since the main segment was built. Guarded by this */
+    private Map<Integer, Predicate> deltaDocuments = new HashMap<>();
+
+    /** The ids of the documents of the main segment which are removed or replaced. Guarded by this */
+    private Set<Integer> maskedInMain = new HashSet<>();
+
+    /** The ids of the documents changed since the current merge started, or null if not merging. Guarded by this */
+    private Set<Integer> changedDuringMerge = null;
+
+    /** Whether there are changes which are not committed. Guarded by this */
+    private boolean uncommitted = false;
+
+    /** The segments searched by new searches */
+    private volatile Segments segments;
+
+    /**
+     * Creates an empty index which merges in a background thread of its own.
+     *
+     * @param config the configuration of the segments of this
+     * @param maxDeltaDocuments the number of documents changed since the last merge which triggers a new merge
+     */
+    public UpdatablePredicateIndex(Config config, int maxDeltaDocuments) {
+        this(config, maxDeltaDocuments, Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "predicate-index-merger");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    /**
+     * Creates an empty index.
+     *
+     * @param config the configuration of the segments of this
+     * @param maxDeltaDocuments the number of documents changed since the last merge which triggers a new merge
+     * @param mergeExecutor the executor running merges
+     */
+    public UpdatablePredicateIndex(Config config, int maxDeltaDocuments, Executor mergeExecutor) {
+        this.config = config;
+        this.maxDeltaDocuments = maxDeltaDocuments;
+        this.mergeExecutor = mergeExecutor;
+        this.segments = new Segments(buildIndex(Collections.emptyMap()), Collections.emptySet(), null);
+    }
+
+    /**
+     * Adds a document, or replaces it if a document with this id is already present.
+     *
+     * @param docId     a 32-bit document id, returned in the Hit objects when the predicate matches
+     * @param predicate the predicate to index
+     * @throws IllegalStateException if the predicate is too complex to be indexed
+     */
+    public void indexDocument(int docId, Predicate predicate) {
+        new PredicateIndexBuilder(config).indexDocument(docId, predicate); // Fail here rather than on commit
+        synchronized (this) {
+            deltaDocuments.put(docId, predicate);
+            if (mainDocuments.containsKey(docId))
+                maskedInMain.add(docId);
+            changed(docId);
+        }
+    }
+
+    /** Removes a document. This does nothing if no document with this id is present. */
+    public synchronized void removeDocument(int docId) {
+        boolean removed = deltaDocuments.remove(docId) != null;
+        if (mainDocuments.containsKey(docId))
+            removed |= maskedInMain.add(docId);
+        if (removed)
+            changed(docId);
+    }
+
+    private void changed(int docId) {
+        uncommitted = true;
+        if (changedDuringMerge != null)
+            changedDuringMerge.add(docId);
+    }
+
+    /**
+     * Makes all changes since the last commit visible to new searches,
+     * and starts a merge in the background if the delta segment has become too large.
+     */
+    public synchronized void commit() {
+        if ( ! uncommitted) return;
+        segments = new Segments(segments.main, new HashSet<>(maskedInMain), buildDelta(deltaDocuments));
+        uncommitted = false;
+        if (changedDuringMerge == null && deltaDocuments.size() + maskedInMain.size() > maxDeltaDocuments) {
+            Map<Integer, Predicate> merged = startMerge();
+            mergeExecutor.execute(() -> merge(merged));
+        }
+    }
+
+    /**
+     * Merges all the documents of this into a new main segment in the calling thread, which is useful after adding
+     * many documents to an empty index. This also makes all changes visible.
+     *
+     * @return false if this did nothing because a merge is already in progress
+     */
+    public boolean merge() {
+        Map<Integer, Predicate> merged;
+        synchronized (this) {
+            if (changedDuringMerge != null) return false;
+            merged = startMerge();
+        }
+        merge(merged);
+        return true;
+    }
+
+    /** Returns the documents to merge into a new main segment, and starts recording changes made during the merge */
+    private Map<Integer, Predicate> startMerge() {
+        Map<Integer, Predicate> merged = new HashMap<>(mainDocuments);
+        merged.keySet().removeAll(maskedInMain);
+        merged.putAll(deltaDocuments);
+        changedDuringMerge = new HashSet<>();
+        return merged;
+    }
+
+    private void merge(Map<Integer, Predicate> merged) {
+        try {
+            completeMerge(merged, buildIndex(merged));
+        }
+        catch (RuntimeException e) {
+            log.log(Level.WARNING, "Merging the segments of a predicate index failed", e);
+            synchronized (this) {
+                changedDuringMerge = null;
+            }
+            throw e;
+        }
+    }
+
+    private synchronized void completeMerge(Map<Integer, Predicate> merged, PredicateIndex main) {
+        // Documents changed during the merge stay in the delta segment
+        Map<Integer, Predicate> delta = new HashMap<>();
+        Set<Integer> masked = new HashSet<>();
+        for (int docId : changedDuringMerge) {
+            Predicate current = currentPredicate(docId);
+            if (current == merged.get(docId)) continue;
+            if (merged.containsKey(docId))
+                masked.add(docId);
+            if (current != null)
+                delta.put(docId, current);
+        }
+        mainDocuments = merged;
+        deltaDocuments = delta;
+        maskedInMain = masked;
+        changedDuringMerge = null;
+        segments = new Segments(main, new HashSet<>(masked), buildDelta(delta));
+        uncommitted = false;
+    }
+
+    /** Returns the current predicate of a document, or null if it is not present */
+    private Predicate currentPredicate(int docId) {
+        Predicate predicate = deltaDocuments.get(docId);
+        if (predicate != null) return predicate;
+        if (maskedInMain.contains(docId)) return null;
+        return mainDocuments.get(docId);
+    }
+
+    private PredicateIndex buildDelta(Map<Integer, Predicate> documents) {
+        return documents.isEmpty() ? null : buildIndex(documents);
+    }
+
+    /** Builds an index of the given documents, where hits are returned in increasing doc id order */
+    private PredicateIndex buildIndex(Map<Integer, Predicate> documents) {
+        PredicateIndexBuilder builder = new PredicateIndexBuilder(config);
+        documents.keySet().stream().sorted().forEach(docId -> builder.indexDocument(docId, documents.get(docId)));
+        return builder.build();
+    }
+
+    /** Rebuilds the posting list cache of the main segment from the usage seen by searches since it was built */
+    public void rebuildPostingListCache() {
+        segments.main.rebuildPostingListCache();
+    }
+
+    /** Returns the number of documents in the delta segment, including uncommitted changes */
+    public synchronized int getDeltaDocumentCount() {
+        return deltaDocuments.size();
+    }
+
+    /** Returns whether a merge is in progress */
+    public synchronized boolean isMerging() {
+        return changedDuringMerge != null;
+    }
+
+    /**
+     * Create a new searcher.
+     */
+    public Searcher searcher() {
+        return new Searcher();
+    }
+
+    /** The segments searched at some point in time. Immutable */
+    private static class Segments {
+
+        final PredicateIndex main;
+        final Set<Integer> maskedInMain;
+        final PredicateIndex delta; // null if empty
+
+        Segments(PredicateIndex main, Set<Integer> maskedInMain, PredicateIndex delta) {
+            this.main = main;
+            this.maskedInMain = maskedInMain;
+            this.delta = delta;
+        }
+
+    }
+
+    @Beta
+    public class Searcher {
+
+        private Segments searched = null;
+        private PredicateIndex.Searcher mainSearcher;
+        private PredicateIndex.Searcher deltaSearcher;
+
+        private Searcher() {}
+
+        /**
+         * Retrieves a stream of hits for the given query from the segments as of the last commit,
+         * in increasing doc id order.
+         *
+         * @param query Specifies the boolean variables that are true.
+         * @return A stream of hits.
+         */
+        public Stream<Hit> search(PredicateQuery query) {
+            Segments current = segments;
+            if (current != searched) {
+                if (searched == null || searched.main != current.main)
+                    mainSearcher = current.main.searcher();
+                if (searched == null || searched.delta != current.delta)
+                    deltaSearcher = current.delta == null ? null : current.delta.searcher();
+                searched = current;
+            }
+
+            Stream<Hit> hits = mainSearcher.search(query);
+            if ( ! current.maskedInMain.isEmpty())
+                hits = hits.filter(hit -> ! current.maskedInMain.contains(hit.getDocId()));
+            if (deltaSearcher != null)
+                hits = mergeByDocId(hits, deltaSearcher.search(query));
+            return hits;
+        }
+
+        /** Merges two streams of hits in doc id order into one, which is also in doc id order */
+        private Stream<Hit> mergeByDocId(Stream<Hit> hits1, Stream<Hit> hits2) {
+            Iterator<Hit> merged = Iterators.mergeSorted(List.of(hits1.iterator(), hits2.iterator()),
+                                                         Comparator.comparingInt(Hit::getDocId));
+            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(merged, Spliterator.ORDERED | Spliterator.NONNULL),
+                                        false)
+                                .onClose(() -> { hits1.close(); hits2.close(); });
+        }
+
+    }
+
+}
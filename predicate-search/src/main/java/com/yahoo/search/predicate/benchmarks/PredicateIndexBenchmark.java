@@ -37,6 +37,7 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -128,6 +129,7 @@ public class PredicateIndexBenchmark {
         output.put("Max documents", args.maxDocuments);
         output.put("Max queries", args.maxQueries);
         output.put("Threads", args.nThreads);
+        output.put("Search threads per query", args.nSearchThreads);
         output.put("Runtime", args.runtime);
         output.put("Algorithm", args.algorithm);
         output.put("Serialized index output file", args.indexOutputFile);
@@ -140,12 +142,12 @@ public class PredicateIndexBenchmark {
 
     private static void runQueries(BenchmarkArguments args, PredicateIndex index) throws IOException {
         List<PredicateQuery> queries = parseQueries(args.queryFile, args.maxQueries, args.format);
-        long warmup1 = warmup(queries, index, args.nThreads, args.warmup / 2);
+        long warmup1 = warmup(queries, index, args.nThreads, args.nSearchThreads, args.warmup / 2);
         output.put("Time warmup before building posting cache", warmup1);
         rebuildPostingListCache(index);
-        long warmup2 = warmup(queries, index, args.nThreads, args.warmup / 2);
+        long warmup2 = warmup(queries, index, args.nThreads, args.nSearchThreads, args.warmup / 2);
         output.put("Time warmup after building posting cache", warmup2);
-        searchIndex(queries, index, args.nThreads, args.runtime);
+        searchIndex(queries, index, args.nThreads, args.nSearchThreads, args.runtime);
     }
 
     private static void rebuildPostingListCache(PredicateIndex index) {
@@ -164,27 +166,29 @@ public class PredicateIndexBenchmark {
         return queries;
     }
 
-    private static long warmup(List<PredicateQuery> queries, PredicateIndex index, int nThreads, int warmup) {
+    private static long warmup(List<PredicateQuery> queries, PredicateIndex index, int nThreads, int nSearchThreads,
+                               int warmup) {
         ExecutorService executor = Executors.newFixedThreadPool(nThreads);
         Random random = new Random(42);
         for (int i = 0; i < nThreads; i++) {
             List<PredicateQuery> shuffledQueries = new ArrayList<>(queries);
             Collections.shuffle(shuffledQueries, random);
-            executor.submit(new QueryRunner(shuffledQueries, index.searcher()));
+            executor.submit(new QueryRunner(shuffledQueries, index.searcher(), nSearchThreads));
         }
         long start = System.currentTimeMillis();
         waitAndShutdown(warmup, executor);
         return System.currentTimeMillis() - start;
     }
 
-    private static void searchIndex(List<PredicateQuery> queries, PredicateIndex index, int nThreads, int runtime) {
+    private static void searchIndex(List<PredicateQuery> queries, PredicateIndex index, int nThreads, int nSearchThreads,
+                                    int runtime) {
         ExecutorService executor = Executors.newFixedThreadPool(nThreads);
         Random random = new Random(42);
         List<QueryRunner> runners = new ArrayList<>();
         for (int i = 0; i < nThreads; i++) {
             List<PredicateQuery> shuffledQueries = new ArrayList<>(queries);
             Collections.shuffle(shuffledQueries, random);
-            runners.add(new QueryRunner(shuffledQueries, index.searcher()));
+            runners.add(new QueryRunner(shuffledQueries, index.searcher(), nSearchThreads));
         }
         long start = System.currentTimeMillis();
         List<Future<ResultMetrics>> futureResults = runners.stream().map(executor::submit).collect(toList());
@@ -218,24 +222,38 @@ public class PredicateIndexBenchmark {
     private static class QueryRunner implements Callable<ResultMetrics> {
         private final List<PredicateQuery> queries;
         private final PredicateIndex.Searcher searcher;
+        private final ForkJoinPool searchPool; // null if searching sequentially
 
-        public QueryRunner(List<PredicateQuery> queries, PredicateIndex.Searcher seacher) {
+        public QueryRunner(List<PredicateQuery> queries, PredicateIndex.Searcher seacher, int nSearchThreads) {
             this.queries = queries;
             this.searcher = seacher;
+            this.searchPool = nSearchThreads > 1 ? new ForkJoinPool(nSearchThreads) : null;
         }
 
         @Override
         public ResultMetrics call() throws Exception {
             Iterator<PredicateQuery> iterator = Iterators.cycle(queries);
             ResultMetrics result = new ResultMetrics();
-            while (!Thread.interrupted()) {
-                long start = System.nanoTime();
-                long hits = searcher.search(iterator.next()).count();
-                double latencyMilliseconds = (System.nanoTime() - start) / 1_000_000d;
-                result.registerResult(hits, latencyMilliseconds);
+            try {
+                while (!Thread.interrupted()) {
+                    long start = System.nanoTime();
+                    long hits = search(iterator.next());
+                    double latencyMilliseconds = (System.nanoTime() - start) / 1_000_000d;
+                    result.registerResult(hits, latencyMilliseconds);
+                }
+            } catch (InterruptedException e) {
+                // Interrupted while waiting for a parallel search: Done
+            } finally {
+                if (searchPool != null) searchPool.shutdownNow();
             }
             return result;
         }
+
+        private long search(PredicateQuery query) throws InterruptedException, ExecutionException {
+            if (searchPool == null) return searcher.search(query).count();
+            // A parallel stream runs in the pool of the task which consumes it
+            return searchPool.submit(() -> searcher.search(query).parallel().count()).get();
+        }
     }
 
     private static void writeOutputToStandardOut() {
@@ -256,6 +274,10 @@ public class PredicateIndexBenchmark {
         @Option(name = {"-t", "--threads"}, description = "Number of search threads")
         public int nThreads = 1;
 
+        @Option(name = {"-st", "--search-threads"},
+                description = "Number of threads searching each query in parallel, each taking a part of the documents")
+        public int nSearchThreads = 1;
+
         @Option(name = {"-a", "--arity"}, description = "Arity")
         public int arity = 2;
 
@@ -23,9 +23,21 @@ public class BoundsPostingList extends MultiIntervalPostingList {
         this.store = store;
     }
 
+    /**
+     * @param valueDiff Difference from the collapsed leaf node's actual value.
+     */
+    public BoundsPostingList(PredicateIntervalStore store, SimpleIndex.Entry entry, long subquery, int valueDiff) {
+        super(entry, subquery);
+        this.valueDiff = valueDiff;
+        this.store = store;
+    }
+
     @Override
     protected boolean prepareIntervals(int dataRef) {
-        intervalWithBounds.setIntervalArray(store.get(dataRef), 0);
+        if (store.isMapped())
+            intervalWithBounds.setIntervalBuffer(store, store.mappedStart(dataRef), store.mappedEnd(dataRef));
+        else
+            intervalWithBounds.setIntervalArray(store.get(dataRef), 0);
         return nextInterval();
     }
 
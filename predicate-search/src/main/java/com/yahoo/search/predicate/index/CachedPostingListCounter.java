@@ -8,11 +8,14 @@ import org.eclipse.collections.impl.map.mutable.primitive.ObjectLongHashMap;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Counts the number of posting lists per document id.
  * Caches the most expensive posting list in a bit vector.
+ * Posting lists are identified by their {@link PostingList#getDocIdsKey() doc ids key}.
  *
  * @author bjorncs
  */
@@ -22,8 +25,10 @@ public class CachedPostingListCounter {
     private static final double THRESHOLD_USE_BIT_VECTOR = 1;
 
     private final int nDocuments;
-    private final ObjectLongHashMap<int[]> frequency = new ObjectLongHashMap<>();
-    private final ObjectIntHashMap<int[]> postingListMapping;
+    private final ObjectLongHashMap<Object> frequency = new ObjectLongHashMap<>();
+    // A posting list of each used key whose doc ids are not on the heap, to iterate them when rebuilding the cache
+    private final Map<Object, PostingList> mappedPostingLists = new HashMap<>();
+    private final ObjectIntHashMap<Object> postingListMapping;
     private final int[] bitVector;
 
     public CachedPostingListCounter(int nDocuments) {
@@ -32,7 +37,7 @@ public class CachedPostingListCounter {
         this.bitVector = new int[0];
     }
 
-    private CachedPostingListCounter(ObjectIntHashMap<int[]> postingListMapping, int[] bitVector) {
+    private CachedPostingListCounter(ObjectIntHashMap<Object> postingListMapping, int[] bitVector) {
         this.nDocuments = bitVector.length;
         this.postingListMapping = postingListMapping;
         this.bitVector = bitVector;
@@ -40,25 +45,32 @@ public class CachedPostingListCounter {
 
     public synchronized void registerUsage(List<PostingList> postingLists) {
         for (PostingList postingList : postingLists) {
-            frequency.updateValue(postingList.getDocIds(), 0, v -> v + 1);
+            int[] docIds = postingList.getDocIds();
+            if (docIds != null) {
+                frequency.updateValue(docIds, 0, v -> v + 1);
+            } else {
+                Object key = postingList.getDocIdsKey();
+                frequency.updateValue(key, 0, v -> v + 1);
+                mappedPostingLists.putIfAbsent(key, postingList);
+            }
         }
     }
 
     public void countPostingListsPerDocument(List<PostingList> postingLists, byte[] nPostingListsForDocument) {
         Arrays.fill(nPostingListsForDocument, (byte) 0);
-        List<int[]> nonCachedPostingLists = new ArrayList<>(postingLists.size());
-        List<int[]> cachedPostingLists = new ArrayList<>(postingLists.size());
+        List<PostingList> nonCachedPostingLists = new ArrayList<>(postingLists.size());
+        List<PostingList> cachedPostingLists = new ArrayList<>(postingLists.size());
         long nDocumentsCachedPostingLists = 0;
         int postingListBitmap = 0;
         for (PostingList postingList : postingLists) {
             int[] docIds = postingList.getDocIds();
-            int index = postingListMapping.getIfAbsent(docIds, -1);
+            int index = postingListMapping.getIfAbsent(docIds != null ? docIds : postingList.getDocIdsKey(), -1);
             if (index >= 0) {
-                cachedPostingLists.add(docIds);
+                cachedPostingLists.add(postingList);
                 postingListBitmap |= (1 << index);
-                nDocumentsCachedPostingLists += docIds.length;
+                nDocumentsCachedPostingLists += docIds != null ? docIds.length : postingList.size();
             } else {
-                nonCachedPostingLists.add(docIds);
+                nonCachedPostingLists.add(postingList);
             }
         }
         if (postingListBitmap != 0) {
@@ -79,10 +91,15 @@ public class CachedPostingListCounter {
         }
     }
 
-    private static void countUsingDocIdIteration(byte[] nPostingListsForDocument, List<int[]> nonCachedPostingLists) {
-        for (int[] docIds : nonCachedPostingLists) {
-            for (int docId : docIds) {
-                ++nPostingListsForDocument[docId];
+    private static void countUsingDocIdIteration(byte[] nPostingListsForDocument, List<PostingList> nonCachedPostingLists) {
+        for (PostingList postingList : nonCachedPostingLists) {
+            int[] docIds = postingList.getDocIds();
+            if (docIds != null) {
+                for (int docId : docIds) {
+                    ++nPostingListsForDocument[docId];
+                }
+            } else {
+                postingList.forEachDocId(docId -> ++nPostingListsForDocument[docId]);
             }
         }
     }
@@ -91,19 +108,23 @@ public class CachedPostingListCounter {
         MinMaxPriorityQueue<Entry> mostExpensive = MinMaxPriorityQueue
                 .maximumSize(32).expectedSize(32).create();
         synchronized (this) {
-            for (ObjectLongPair<int[]> p : frequency.keyValuesView()) {
-                mostExpensive.add(new Entry(p.getOne(), p.getTwo()));
+            for (ObjectLongPair<Object> p : frequency.keyValuesView()) {
+                mostExpensive.add(new Entry(p.getOne(), mappedPostingLists.get(p.getOne()), p.getTwo()));
             }
         }
-        ObjectIntHashMap<int[]> postingListMapping = new ObjectIntHashMap<>();
+        ObjectIntHashMap<Object> postingListMapping = new ObjectIntHashMap<>();
         int[] bitVector = new int[nDocuments];
         int length = mostExpensive.size();
         for (int i = 0; i < length; i++) {
             Entry e = mostExpensive.removeFirst();
-            int[] docIds = e.docIds;
-            postingListMapping.put(docIds, i);
-            for (int docId : docIds) {
-                bitVector[docId] |= (1 << i);
+            postingListMapping.put(e.key, i);
+            int bit = 1 << i;
+            if (e.mappedPostingList == null) {
+                for (int docId : (int[]) e.key) {
+                    bitVector[docId] |= bit;
+                }
+            } else {
+                e.mappedPostingList.forEachDocId(docId -> bitVector[docId] |= bit);
             }
         }
         return new CachedPostingListCounter(postingListMapping, bitVector);
@@ -113,17 +134,20 @@ public class CachedPostingListCounter {
         return bitVector;
     }
 
-    ObjectIntHashMap<int[]> getPostingListMapping() {
+    ObjectIntHashMap<Object> getPostingListMapping() {
         return postingListMapping;
     }
 
     private static class Entry implements Comparable<Entry> {
-        public final int[] docIds;
+        final Object key;
+        final PostingList mappedPostingList; // null if the key is the doc id array
         final double cost;
 
-        private Entry(int[] docIds, long frequency) {
-            this.docIds = docIds;
-            this.cost = docIds.length * (double) frequency;
+        private Entry(Object key, PostingList mappedPostingList, long frequency) {
+            this.key = key;
+            this.mappedPostingList = mappedPostingList;
+            int size = mappedPostingList == null ? ((int[]) key).length : mappedPostingList.size();
+            this.cost = size * (double) frequency;
             assert cost > 0;
         }
 
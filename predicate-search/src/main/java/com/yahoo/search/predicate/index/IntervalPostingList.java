@@ -11,8 +11,9 @@ package com.yahoo.search.predicate.index;
 public class IntervalPostingList extends MultiIntervalPostingList {
 
     private final PredicateIntervalStore store;
-    private int[] currentIntervals;
+    private int[] currentIntervals; // null if the store is mapped
     private int currentIntervalIndex;
+    private int currentIntervalsEnd;
     private int currentInterval;
 
     public IntervalPostingList(PredicateIntervalStore store, int[] docIds, int[] dataRefs, long subquery) {
@@ -20,23 +21,40 @@ public class IntervalPostingList extends MultiIntervalPostingList {
         this.store = store;
     }
 
+    public IntervalPostingList(PredicateIntervalStore store, SimpleIndex.Entry entry, long subquery) {
+        super(entry, subquery);
+        this.store = store;
+    }
+
     @Override
     protected boolean prepareIntervals(int dataRef) {
-        currentIntervals = store.get(dataRef);
-        currentIntervalIndex = 1;
-        currentInterval = currentIntervals[0];
+        if (store.isMapped()) {
+            currentIntervals = null;
+            currentIntervalIndex = store.mappedStart(dataRef);
+            currentIntervalsEnd = store.mappedEnd(dataRef);
+        }
+        else {
+            currentIntervals = store.get(dataRef);
+            currentIntervalIndex = 0;
+            currentIntervalsEnd = currentIntervals.length;
+        }
+        currentInterval = interval(currentIntervalIndex++);
         return true;
     }
 
     @Override
     public boolean nextInterval() {
-        if (currentIntervalIndex < currentIntervals.length) {
-            this.currentInterval = currentIntervals[currentIntervalIndex++];
+        if (currentIntervalIndex < currentIntervalsEnd) {
+            this.currentInterval = interval(currentIntervalIndex++);
             return true;
         }
         return false;
     }
 
+    private int interval(int index) {
+        return currentIntervals != null ? currentIntervals[index] : store.mappedInterval(index);
+    }
+
     @Override
     public int getInterval() {
         return currentInterval;
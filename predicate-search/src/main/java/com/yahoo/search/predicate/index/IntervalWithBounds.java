@@ -11,8 +11,10 @@ import java.util.stream.Stream;
  */
 public class IntervalWithBounds {
 
-    private int[] intervalBoundsArray;
+    private int[] intervalBoundsArray; // null if reading from a mapped store
+    private PredicateIntervalStore mappedStore;
     private int arrayIndex;
+    private int arrayEnd;
 
     public IntervalWithBounds() {
         setIntervalArray(null, 0);
@@ -23,9 +25,20 @@ public class IntervalWithBounds {
 
     public void setIntervalArray(int[] intervalBoundsArray, int arrayIndex) {
         this.intervalBoundsArray = intervalBoundsArray;
+        this.mappedStore = null;
         this.arrayIndex = arrayIndex;
+        this.arrayEnd = intervalBoundsArray == null ? 0 : intervalBoundsArray.length;
     }
-    public boolean hasValue() { return arrayIndex < intervalBoundsArray.length - 1; }
+
+    /** Reads the intervals and bounds between the given positions of a mapped store in place */
+    void setIntervalBuffer(PredicateIntervalStore mappedStore, int start, int end) {
+        this.intervalBoundsArray = null;
+        this.mappedStore = mappedStore;
+        this.arrayIndex = start;
+        this.arrayEnd = end;
+    }
+
+    public boolean hasValue() { return arrayIndex < arrayEnd - 1; }
     public void nextValue() { arrayIndex += 2; }
 
     public Stream<Integer> stream() { return Stream.of(getInterval(), getBounds()); }
@@ -33,7 +46,7 @@ public class IntervalWithBounds {
      * 16 MSB represents interval begin, 16 LSB represents interval end.
      */
     public int getInterval() {
-        return intervalBoundsArray[arrayIndex];
+        return get(arrayIndex);
     }
     /*
      * 2 MSB determines mode for remaining 30 bits.
@@ -42,7 +55,11 @@ public class IntervalWithBounds {
      *  00 => 16 LSB > X >= 16 MSB
      */
     public int getBounds() {
-        return intervalBoundsArray[arrayIndex + 1];
+        return get(arrayIndex + 1);
+    }
+
+    private int get(int index) {
+        return intervalBoundsArray != null ? intervalBoundsArray[index] : mappedStore.mappedInterval(index);
     }
 
     /**
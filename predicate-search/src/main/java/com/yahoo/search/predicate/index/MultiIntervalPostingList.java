@@ -3,6 +3,9 @@ package com.yahoo.search.predicate.index;
 
 import com.yahoo.search.predicate.utils.PostingListSearch;
 
+import java.nio.IntBuffer;
+import java.util.function.IntConsumer;
+
 /**
  * Shared implementation for posting lists that may have multiple intervals.
  *
@@ -11,8 +14,12 @@ import com.yahoo.search.predicate.utils.PostingListSearch;
  */
 public abstract class MultiIntervalPostingList implements PostingList {
 
-    private final int[] docIds;
+    private final int[] docIds; // null if mapped
     private final int[] dataRefs;
+    private final SimpleIndex.Entry mappedEntry; // null if on the heap
+    private final IntBuffer mappedDocIds;
+    private final IntBuffer mappedDataRefs;
+    private final int[] skipDocIds; // the doc id of every (1 << SKIP_BITS)'th posting, or null if not used
     private final long subquery;
     private final int length;
     private int currentIndex;
@@ -21,20 +28,53 @@ public abstract class MultiIntervalPostingList implements PostingList {
     public MultiIntervalPostingList(int[] docIds, int[] dataRefs, long subquery) {
         this.docIds = docIds;
         this.dataRefs = dataRefs;
+        this.mappedEntry = null;
+        this.mappedDocIds = null;
+        this.mappedDataRefs = null;
+        this.skipDocIds = null;
         this.subquery = subquery;
         this.length = docIds.length;
         this.currentIndex = 0;
         this.currentDocId = -1;
     }
 
+    /** Creates a posting list of the postings of an index entry, which may be on the heap or mapped from a file */
+    public MultiIntervalPostingList(SimpleIndex.Entry entry, long subquery) {
+        this.docIds = entry.docIds;
+        this.dataRefs = entry.dataRefs;
+        this.mappedEntry = entry.isMapped() ? entry : null;
+        this.mappedDocIds = entry.mappedDocIds;
+        this.mappedDataRefs = entry.mappedDataRefs;
+        this.skipDocIds = entry.skipDocIds();
+        this.subquery = subquery;
+        this.length = entry.size();
+        this.currentIndex = 0;
+        this.currentDocId = -1;
+    }
+
     @Override
     public final boolean nextDocument(int docId) {
         int index = currentIndex;
-        index = PostingListSearch.interpolationSearch(docIds, index, length, docId);
+        int end = length;
+        if (skipDocIds != null) {
+            // Find the block of postings containing the first doc id larger than docId, and search only that
+            int nextBlock = (index >>> SimpleIndex.Entry.SKIP_BITS) + 1;
+            if (nextBlock < skipDocIds.length && skipDocIds[nextBlock] <= docId) {
+                nextBlock = PostingListSearch.interpolationSearch(skipDocIds, nextBlock, skipDocIds.length, docId);
+                index = (nextBlock - 1) << SimpleIndex.Entry.SKIP_BITS;
+            }
+            if (nextBlock < skipDocIds.length) {
+                end = nextBlock << SimpleIndex.Entry.SKIP_BITS;
+            }
+        }
+        if (docIds != null)
+            index = PostingListSearch.interpolationSearch(docIds, index, end, docId);
+        else
+            index = PostingListSearch.interpolationSearch(mappedDocIds, index, end, docId);
         if (index == length) {
             return false;
         }
-        this.currentDocId = docIds[index];
+        this.currentDocId = docIds != null ? docIds[index] : mappedDocIds.get(index);
         this.currentIndex = index;
         assert currentDocId > docId;
         return true;
@@ -42,7 +82,7 @@ public abstract class MultiIntervalPostingList implements PostingList {
 
     @Override
     public final boolean prepareIntervals() {
-        return prepareIntervals(dataRefs[currentIndex]);
+        return prepareIntervals(dataRefs != null ? dataRefs[currentIndex] : mappedDataRefs.get(currentIndex));
     }
 
     protected abstract boolean prepareIntervals(int dataRef);
@@ -57,11 +97,30 @@ public abstract class MultiIntervalPostingList implements PostingList {
         return currentDocId;
     }
 
+    /** Returns the document ids of this, or null if they are mapped from a file */
     @Override
     public final int[] getDocIds() {
         return docIds;
     }
 
+    @Override
+    public final Object getDocIdsKey() {
+        return docIds != null ? docIds : mappedEntry;
+    }
+
+    @Override
+    public final void forEachDocId(IntConsumer consumer) {
+        if (docIds != null) {
+            for (int docId : docIds) {
+                consumer.accept(docId);
+            }
+        } else {
+            for (int i = 0; i < length; i++) {
+                consumer.accept(mappedDocIds.get(i));
+            }
+        }
+    }
+
     @Override
     public final long getSubquery() {
         return subquery;
@@ -1,6 +1,8 @@
 // Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.search.predicate.index;
 
+import java.util.function.IntConsumer;
+
 /**
  * Interface for posting lists to be used by the algorithm implemented in PredicateSearch.
  *
@@ -48,8 +50,26 @@ public interface PostingList {
     long getSubquery();
 
     /**
-     * @return The document ids
+     * @return The document ids, or null if they are not stored in an array on the heap,
+     *         in which case {@link #getDocIdsKey()} and {@link #forEachDocId} must be overridden
      */
     int[] getDocIds();
 
+    /**
+     * @return An object identifying the document ids of this, which is the same for all posting lists
+     *         of the same postings. This is the document id array by default.
+     */
+    default Object getDocIdsKey() {
+        return getDocIds();
+    }
+
+    /**
+     * Calls the given consumer with each document id of this, in order.
+     */
+    default void forEachDocId(IntConsumer consumer) {
+        for (int docId : getDocIds()) {
+            consumer.accept(docId);
+        }
+    }
+
 }
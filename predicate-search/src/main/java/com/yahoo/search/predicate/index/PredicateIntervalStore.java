@@ -2,11 +2,13 @@
 package com.yahoo.search.predicate.index;
 
 import com.google.common.primitives.Ints;
+import com.yahoo.search.predicate.serialization.MappedInput;
 import com.yahoo.search.predicate.serialization.SerializationHelper;
 
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.IntBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -14,26 +16,100 @@ import java.util.List;
 import java.util.Map;
 
 /**
+ * Stores the interval lists of the postings of a predicate index, either as arrays on the heap
+ * or in buffers mapped from a file.
+ *
  * @author bjorncs
  */
 public class PredicateIntervalStore {
 
-    private final int[][] intervalsList;
+    private final int[][] intervalsList; // null if mapped
+
+    // The intervals of reference i are at offsets[i] until offsets[i + 1] in intervals. Null if on the heap
+    private final IntBuffer offsets;
+    private final IntBuffer intervals;
 
     public PredicateIntervalStore(int[][] intervalsList) {
         this.intervalsList = intervalsList;
+        this.offsets = null;
+        this.intervals = null;
+    }
+
+    private PredicateIntervalStore(IntBuffer offsets, IntBuffer intervals) {
+        this.intervalsList = null;
+        this.offsets = offsets;
+        this.intervals = intervals;
     }
 
+    /**
+     * Returns the intervals of a reference. If this is mapped, this returns a copy of the mapped intervals,
+     * so searches read mapped intervals in place through {@link #mappedStart}, {@link #mappedEnd}
+     * and {@link #mappedInterval} instead.
+     */
     public int[] get(int intervalRef) {
-        assert intervalRef < intervalsList.length;
-        return intervalsList[intervalRef];
+        if (intervalsList != null) {
+            assert intervalRef < intervalsList.length;
+            return intervalsList[intervalRef];
+        }
+        int start = offsets.get(intervalRef);
+        int[] result = new int[offsets.get(intervalRef + 1) - start];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = intervals.get(start + i);
+        }
+        return result;
+    }
+
+    /** Returns whether the intervals of this are mapped from a file rather than stored in arrays on the heap */
+    boolean isMapped() { return intervalsList == null; }
+
+    /** Returns the position of the first mapped interval of a reference. This must only be called if this is mapped */
+    int mappedStart(int intervalRef) { return offsets.get(intervalRef); }
+
+    /** Returns the position after the last mapped interval of a reference. This must only be called if this is mapped */
+    int mappedEnd(int intervalRef) { return offsets.get(intervalRef + 1); }
+
+    /** Returns the mapped interval at a position. This must only be called if this is mapped */
+    int mappedInterval(int position) { return intervals.get(position); }
+
+    /** Returns the number of interval lists in this */
+    public int size() {
+        return intervalsList != null ? intervalsList.length : offsets.limit() - 1;
     }
 
     public void writeToOutputStream(DataOutputStream out) throws IOException {
-        out.writeInt(intervalsList.length);
-        for (int[] intervals : intervalsList) {
-            SerializationHelper.writeIntArray(intervals, out);
+        out.writeInt(size());
+        for (int i = 0; i < size(); i++) {
+            SerializationHelper.writeIntArray(get(i), out);
+        }
+    }
+
+    /**
+     * Writes this in a format where all the intervals are stored in one large array,
+     * such that they can be memory mapped by {@link #fromMappedInput}.
+     */
+    public void writeToMappableOutputStream(DataOutputStream out) throws IOException {
+        int[] offsets = new int[size() + 1];
+        long offset = 0;
+        for (int i = 0; i < size(); i++) {
+            offset += get(i).length;
+            if (offset > Integer.MAX_VALUE / Integer.BYTES)
+                throw new IllegalStateException("Too many intervals to write a mappable index: Sections are limited to 2 GB");
+            offsets[i + 1] = (int)offset;
         }
+        SerializationHelper.writeIntArray(offsets, out);
+        out.writeInt((int)offset);
+        for (int i = 0; i < size(); i++) {
+            for (int interval : get(i)) {
+                out.writeInt(interval);
+            }
+        }
+    }
+
+    /** Reads a store written by {@link #writeToMappableOutputStream}, where the intervals are mapped, not read */
+    public static PredicateIntervalStore fromMappedInput(MappedInput in) throws IOException {
+        IntBuffer offsets = in.mapIntArray();
+        IntBuffer intervals = in.mapIntArray();
+        return new PredicateIntervalStore(offsets, intervals);
     }
 
     public static PredicateIntervalStore fromInputStream(DataInputStream in) throws IOException {
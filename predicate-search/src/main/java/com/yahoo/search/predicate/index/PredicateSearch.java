@@ -11,17 +11,25 @@ import java.util.List;
 import java.util.Optional;
 import java.util.Spliterator;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 /**
  * Implementation of the "Interval" predicate search algorithm.
+ * <p>
+ * A search created with a posting list factory can be split into searches of separate ranges of document ids,
+ * such that a parallel stream of its hits searches each range in a separate thread.
  *
  * @author Magnar Nedland
  * @author bjorncs
  */
 public class PredicateSearch {
 
+    /** Ranges of document ids smaller than this are not split further */
+    private static final int MIN_DOCUMENTS_PER_SPLIT = 4096;
+
+    private final Supplier<List<PostingList>> postingListFactory;
     private final PostingList[] postingLists;
     private final byte[] nPostingListsForDocument;
     private final byte[] minFeatureIndex;
@@ -31,6 +39,9 @@ public class PredicateSearch {
     private final long[] subqueryMarkers;
     private final boolean[] visited;
     private final short[] intervalEnds;
+    private final int highestIntervalEnd;
+    private final int fromDocId;
+    private final int toDocId;
 
     private short[] sortedIndexes;
     private short[] sortedIndexesMergeBuffer;
@@ -48,7 +59,37 @@ public class PredicateSearch {
     public PredicateSearch(
             List<PostingList> postingLists, byte[] nPostingListsForDocument,
             byte[] minFeatureIndex, short[] intervalEnds, int  highestIntervalEnd) {
+        this(postingLists, null, nPostingListsForDocument, minFeatureIndex, intervalEnds, highestIntervalEnd,
+             0, nPostingListsForDocument.length);
+    }
+
+    /**
+     * Creates a search for a set of posting lists which can be split for parallel execution.
+     *
+     * @param postingLists Posting lists for the boolean variables that evaluate to true
+     * @param postingListFactory Creates new posting lists equal to postingLists, for each part of a split search.
+     *                           This may be called from any thread.
+     * @param nPostingListsForDocument The number of posting list for each docId
+     * @param minFeatureIndex Index from docId to min-feature value.
+     * @param intervalEnds The interval end for each document.
+     * @param highestIntervalEnd The highest end value.
+     */
+    public PredicateSearch(
+            List<PostingList> postingLists, Supplier<List<PostingList>> postingListFactory,
+            byte[] nPostingListsForDocument, byte[] minFeatureIndex, short[] intervalEnds, int highestIntervalEnd) {
+        this(postingLists, postingListFactory, nPostingListsForDocument, minFeatureIndex, intervalEnds, highestIntervalEnd,
+             0, nPostingListsForDocument.length);
+    }
+
+    private PredicateSearch(
+            List<PostingList> postingLists, Supplier<List<PostingList>> postingListFactory,
+            byte[] nPostingListsForDocument, byte[] minFeatureIndex, short[] intervalEnds, int highestIntervalEnd,
+            int fromDocId, int toDocId) {
         int size = postingLists.size();
+        this.postingListFactory = postingListFactory;
+        this.highestIntervalEnd = highestIntervalEnd;
+        this.fromDocId = fromDocId;
+        this.toDocId = toDocId;
         this.nPostingListsForDocument = nPostingListsForDocument;
         this.minFeatureIndex = minFeatureIndex;
         this.nPostingLists = size;
@@ -85,7 +126,7 @@ public class PredicateSearch {
     }
 
     private class PredicateSpliterator implements java.util.Spliterator<Hit> {
-        private int lastHit = -1;
+        private int lastHit = fromDocId - 1;
 
         @Override
         public boolean tryAdvance(Consumer<? super Hit> action) {
@@ -97,14 +138,23 @@ public class PredicateSearch {
             return optionalHit.isPresent();
         }
 
+        /** Splits off the lower half of the remaining document ids to a new search, as the order must be kept */
         @Override
         public Spliterator<Hit> trySplit() {
-            return null;
+            if (postingListFactory == null) return null;
+            int from = lastHit + 1;
+            if (toDocId - from < 2 * MIN_DOCUMENTS_PER_SPLIT) return null;
+            int middle = from + (toDocId - from) / 2;
+            PredicateSearch lower = new PredicateSearch(postingListFactory.get(), postingListFactory,
+                                                        nPostingListsForDocument, minFeatureIndex, intervalEnds,
+                                                        highestIntervalEnd, from, middle);
+            lastHit = middle - 1;
+            return lower.new PredicateSpliterator();
         }
 
         @Override
         public long estimateSize() {
-            return Long.MAX_VALUE;
+            return Math.max(0, toDocId - (lastHit + 1));
         }
 
         @Override
@@ -122,6 +172,7 @@ public class PredicateSearch {
         boolean skippedToEnd = skipMinFeature(docId);
         while (nPostingLists > 0 && !skippedToEnd) {
             int docId0 = docIds[sortedIndexes[0]];
+            if (docId0 >= toDocId) break;
             int minFeature = minFeatureIndex[docId0];
             int k = minFeature > 0 ? minFeature - 1 : 0;
             int intervalEnd = Short.toUnsignedInt(intervalEnds[docId0]);
@@ -139,7 +190,7 @@ public class PredicateSearch {
     }
 
     private boolean skipMinFeature(int docId) {
-        int nDocuments = nPostingListsForDocument.length;
+        int nDocuments = toDocId;
         while (docId < nDocuments && minFeatureIndex[docId] > nPostingListsForDocument[docId]) {
             ++docId;
         }
@@ -1,6 +1,7 @@
 // Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.search.predicate.index;
 
+import com.yahoo.search.predicate.serialization.MappedInput;
 import com.yahoo.search.predicate.serialization.SerializationHelper;
 import org.eclipse.collections.api.map.primitive.LongObjectMap;
 import org.eclipse.collections.api.tuple.primitive.LongObjectPair;
@@ -9,6 +10,7 @@ import org.eclipse.collections.impl.map.mutable.primitive.LongObjectHashMap;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.IntBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -44,11 +46,60 @@ public class SimpleIndex {
         for (LongObjectPair<Entry> pair : dictionary.keyValuesView()) {
             out.writeLong(pair.getOne());
             Entry entry = pair.getTwo();
-            SerializationHelper.writeIntArray(entry.docIds, out);
-            SerializationHelper.writeIntArray(entry.dataRefs, out);
+            out.writeInt(entry.size());
+            for (int i = 0; i < entry.size(); i++)
+                out.writeInt(entry.getDocId(i));
+            out.writeInt(entry.size());
+            for (int i = 0; i < entry.size(); i++)
+                out.writeInt(entry.getDataRef(i));
         }
     }
 
+    /**
+     * Writes this in a format where the postings of all keys are stored in two large arrays,
+     * such that they can be memory mapped by {@link #fromMappedInput}.
+     */
+    public void writeToMappableOutputStream(DataOutputStream out) throws IOException {
+        long[] keys = dictionary.keysView().toArray();
+        int[] offsets = new int[keys.length + 1];
+        long offset = 0;
+        for (int i = 0; i < keys.length; i++) {
+            offset += dictionary.get(keys[i]).size();
+            if (offset > Integer.MAX_VALUE / Integer.BYTES)
+                throw new IllegalStateException("Too many postings to write a mappable index: Sections are limited to 2 GB");
+            offsets[i + 1] = (int)offset;
+        }
+        SerializationHelper.writeLongArray(keys, out);
+        SerializationHelper.writeIntArray(offsets, out);
+        out.writeInt((int)offset);
+        for (long key : keys) {
+            Entry entry = dictionary.get(key);
+            for (int i = 0; i < entry.size(); i++)
+                out.writeInt(entry.getDocId(i));
+        }
+        for (long key : keys) {
+            Entry entry = dictionary.get(key);
+            for (int i = 0; i < entry.size(); i++)
+                out.writeInt(entry.getDataRef(i));
+        }
+    }
+
+    /** Reads an index written by {@link #writeToMappableOutputStream}, where the postings are mapped, not read */
+    public static SimpleIndex fromMappedInput(MappedInput in) throws IOException {
+        long[] keys = in.readLongArray();
+        int[] offsets = in.readIntArray();
+        int nPostings = in.readInt();
+        IntBuffer docIds = in.mapInts(nPostings);
+        IntBuffer dataRefs = in.mapInts(nPostings);
+        LongObjectHashMap<Entry> dictionary = new LongObjectHashMap<>(keys.length);
+        for (int i = 0; i < keys.length; i++) {
+            dictionary.put(keys[i], new Entry(MappedInput.slice(docIds, offsets[i], offsets[i + 1]),
+                                              MappedInput.slice(dataRefs, offsets[i], offsets[i + 1])));
+        }
+        dictionary.compact();
+        return new SimpleIndex(dictionary);
+    }
+
     public static SimpleIndex fromInputStream(DataInputStream in) throws IOException {
         int nEntries = in.readInt();
         LongObjectHashMap<Entry> dictionary = new LongObjectHashMap<>(nEntries);
@@ -62,13 +113,69 @@ public class SimpleIndex {
         return new SimpleIndex(dictionary);
     }
 
+    /**
+     * The postings of a key. The postings are either stored in arrays on the heap,
+     * or in buffers mapped from a file, in which case the arrays are null.
+     */
     public static class Entry {
+
+        /** The number of postings per skip pointer, as a power of two */
+        static final int SKIP_BITS = 7;
+
+        /** Posting lists smaller than this have no skip pointers */
+        private static final int MIN_SIZE_FOR_SKIPS = 4 << SKIP_BITS;
+
         public final int[] docIds;
         public final int[] dataRefs;
+        final IntBuffer mappedDocIds;
+        final IntBuffer mappedDataRefs;
+        private volatile int[] skipDocIds; // computed on first use
 
         private Entry(int[] docIds, int[] dataRefs) {
             this.docIds = docIds;
             this.dataRefs = dataRefs;
+            this.mappedDocIds = null;
+            this.mappedDataRefs = null;
+        }
+
+        private Entry(IntBuffer mappedDocIds, IntBuffer mappedDataRefs) {
+            this.docIds = null;
+            this.dataRefs = null;
+            this.mappedDocIds = mappedDocIds;
+            this.mappedDataRefs = mappedDataRefs;
+        }
+
+        public boolean isMapped() { return docIds == null; }
+
+        public int size() {
+            return docIds != null ? docIds.length : mappedDocIds.limit();
+        }
+
+        public int getDocId(int index) {
+            return docIds != null ? docIds[index] : mappedDocIds.get(index);
+        }
+
+        public int getDataRef(int index) {
+            return dataRefs != null ? dataRefs[index] : mappedDataRefs.get(index);
+        }
+
+        /**
+         * Returns the doc id of every {@code 1 << SKIP_BITS}'th posting, such that a search for a doc id far ahead
+         * can find the right block of postings before searching the postings themselves,
+         * or null if this is too small to benefit from skipping.
+         * This is computed on first use, rather than when loading, to avoid reading all postings of a mapped index.
+         */
+        int[] skipDocIds() {
+            if (size() < MIN_SIZE_FOR_SKIPS) return null;
+            int[] skips = skipDocIds;
+            if (skips == null) {
+                skips = new int[((size() - 1) >>> SKIP_BITS) + 1];
+                for (int i = 0; i < skips.length; i++) {
+                    skips[i] = getDocId(i << SKIP_BITS);
+                }
+                skipDocIds = skips;
+            }
+            return skips;
         }
     }
 
@@ -15,8 +15,9 @@ import com.yahoo.search.predicate.SubqueryBitmap;
 public class ZstarCompressedPostingList extends MultiIntervalPostingList {
 
     private final PredicateIntervalStore store;
-    private int[] currentIntervals;
+    private int[] currentIntervals; // null if the store is mapped
     private int currentIntervalIndex;
+    private int currentIntervalsEnd;
     private int prevInterval;
     private int currentInterval;
 
@@ -29,18 +30,32 @@ public class ZstarCompressedPostingList extends MultiIntervalPostingList {
         this.store = store;
     }
 
+    public ZstarCompressedPostingList(PredicateIntervalStore store, SimpleIndex.Entry entry) {
+        super(entry, SubqueryBitmap.ALL_SUBQUERIES);
+        this.store = store;
+    }
+
     @Override
     protected boolean prepareIntervals(int dataRef) {
-        currentIntervals = store.get(dataRef);
-        currentIntervalIndex = 0;
+        if (store.isMapped()) {
+            currentIntervals = null;
+            currentIntervalIndex = store.mappedStart(dataRef);
+            currentIntervalsEnd = store.mappedEnd(dataRef);
+        }
+        else {
+            currentIntervals = store.get(dataRef);
+            currentIntervalIndex = 0;
+            currentIntervalsEnd = currentIntervals.length;
+        }
         return nextInterval();
     }
 
     @Override
     public boolean nextInterval() {
         int nextInterval = -1;
-        if (currentIntervalIndex < currentIntervals.length) {
-            nextInterval = currentIntervals[currentIntervalIndex];
+        if (currentIntervalIndex < currentIntervalsEnd) {
+            nextInterval = currentIntervals != null ? currentIntervals[currentIntervalIndex]
+                                                    : store.mappedInterval(currentIntervalIndex);
         }
         if (prevInterval != 0) {
             if (Interval.isZStar2Interval(nextInterval)) {
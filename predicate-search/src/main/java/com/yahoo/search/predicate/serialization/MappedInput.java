@@ -0,0 +1,105 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.predicate.serialization;
+
+import com.yahoo.search.predicate.PredicateIndex;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads a file written in the mappable format of {@link PredicateIndex} from start to end.
+ * Small arrays are read onto the heap, while large arrays are memory mapped and read from in place.
+ * The mapped buffers stay valid after the file channel is closed.
+ * Values are big-endian, as written by {@link java.io.DataOutputStream}.
+ *
+ * @author bratseth
+ */
+public class MappedInput {
+
+    private final FileChannel channel;
+    private long position = 0;
+
+    public MappedInput(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    public int readInt() throws IOException {
+        return read(Integer.BYTES).getInt();
+    }
+
+    /** Reads a byte array written by {@link SerializationHelper#writeByteArray} onto the heap */
+    public byte[] readByteArray() throws IOException {
+        byte[] array = new byte[readInt()];
+        read(array.length).get(array);
+        return array;
+    }
+
+    /** Reads a short array written by {@link SerializationHelper#writeShortArray} onto the heap */
+    public short[] readShortArray() throws IOException {
+        short[] array = new short[readInt()];
+        read(array.length * Short.BYTES).asShortBuffer().get(array);
+        return array;
+    }
+
+    /** Reads an int array written by {@link SerializationHelper#writeIntArray} onto the heap */
+    public int[] readIntArray() throws IOException {
+        int[] array = new int[readInt()];
+        read(array.length * Integer.BYTES).asIntBuffer().get(array);
+        return array;
+    }
+
+    /** Reads a long array written by {@link SerializationHelper#writeLongArray} onto the heap */
+    public long[] readLongArray() throws IOException {
+        long[] array = new long[readInt()];
+        read(array.length * Long.BYTES).asLongBuffer().get(array);
+        return array;
+    }
+
+    /** Reads a length prefixed block of data, written in the stream format, onto the heap */
+    public DataInputStream readBlock() throws IOException {
+        byte[] block = readByteArray();
+        return new DataInputStream(new ByteArrayInputStream(block));
+    }
+
+    /** Maps an int array written by {@link SerializationHelper#writeIntArray} into memory */
+    public IntBuffer mapIntArray() throws IOException {
+        return mapInts(readInt());
+    }
+
+    /** Maps the given number of ints from the current position into memory */
+    public IntBuffer mapInts(int count) throws IOException {
+        long size = count * (long)Integer.BYTES;
+        if (size > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Can not map " + count + " ints: Sections are limited to 2 GB");
+        if (position + size > channel.size())
+            throw new EOFException("Can not map " + count + " ints at position " + position +
+                                   ": The file has size " + channel.size());
+        ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+        position += size;
+        return buffer.asIntBuffer();
+    }
+
+    /** Returns a buffer containing the given range of the given buffer, with its own indexes starting at 0 */
+    public static IntBuffer slice(IntBuffer buffer, int from, int to) {
+        IntBuffer slice = buffer.duplicate();
+        slice.position(from).limit(to);
+        return slice.slice();
+    }
+
+    private ByteBuffer read(int size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0)
+                throw new EOFException("Unexpected end of file at position " + (position + buffer.position()));
+        }
+        position += size;
+        buffer.flip();
+        return buffer;
+    }
+
+}
@@ -1,6 +1,8 @@
 // Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.search.predicate.utils;
 
+import java.nio.IntBuffer;
+
 /**
  * Algorithms for searching in the docId arrays in posting lists.
  *
@@ -88,4 +90,78 @@ public class PostingListSearch {
         return low;
     }
 
+    /** As {@link #interpolationSearch(int[], int, int, int)}, but searching a buffer, e.g. one mapped from a file */
+    public static int interpolationSearch(IntBuffer a, int fromIndex, int toIndex, int key) {
+        int low = fromIndex;
+        int lowVal = a.get(low);
+        if (key - lowVal < LINEAR_SEARCH_THRESHOLD_2) {
+            return linearSearch(a, low, toIndex, key);
+        }
+        int high = toIndex - 1;
+        int diff = high - low;
+        if (diff <= BINARY_SEARCH_THRESHOLD) {
+            return binarySearch(a, low, toIndex, key);
+        }
+        int highVal = a.get(high);
+        do {
+            if (key == lowVal) {
+                return low + 1;
+            }
+            if (key >= highVal) {
+                return high + 1;
+            }
+            int mean = (int) (diff * (long) (key - lowVal) / (highVal - lowVal));
+            int eps = diff >>> 4;
+            int lowMid = low + Math.max(0, mean - eps);
+            int highMid = low + Math.min(diff, mean + eps);
+            assert lowMid <= highMid;
+            assert lowMid >= low;
+            assert highMid <= high;
+
+            if (a.get(lowMid) > key) {
+                high = lowMid;
+                highVal = a.get(lowMid);
+            } else if (a.get(highMid) <= key) {
+                low = highMid;
+                lowVal = a.get(highMid);
+            } else {
+                low = lowMid;
+                lowVal = a.get(lowMid);
+                high = highMid;
+                highVal = a.get(highMid);
+            }
+            assert low <= high;
+            diff = high - low;
+        } while (diff >= BINARY_SEARCH_THRESHOLD);
+        return binarySearch(a, low, high + 1, key);
+    }
+
+    /**
+     * Modified binary search:
+     *  - Returns the first index where a.get(index) is larger then key
+     */
+    private static int binarySearch(IntBuffer a, int fromIndex, int toIndex, int key) {
+        assert fromIndex < toIndex;
+        int low = fromIndex;
+        int high = toIndex - 1;
+        while (high - low > LINEAR_SEARCH_THRESHOLD) {
+            int mid = (low + high) >>> 1;
+            assert mid < high;
+            if (a.get(mid) < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return linearSearch(a, low, high + 1, key);
+    }
+
+    private static int linearSearch(IntBuffer a, int low, int high, int key) {
+        assert low < high;
+        while (low < high && a.get(low) <= key) {
+            ++low;
+        }
+        return low;
+    }
+
 }
@@ -2,9 +2,13 @@
 package com.yahoo.search.predicate;
 
 import com.yahoo.document.predicate.Predicate;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
 
 import static com.yahoo.search.predicate.serialization.SerializationTestHelper.assertSerializationDeserializationMatches;
 import static java.util.stream.Collectors.toList;
@@ -18,6 +22,9 @@ public class PredicateIndexTest {
 
     private static final int DOC_ID = 42;
 
+    @Rule
+    public TemporaryFolder tmpFolder = new TemporaryFolder();
+
     @Test
     public void requireThatPredicateIndexCanSearch() {
         PredicateIndexBuilder builder = new PredicateIndexBuilder(10);
@@ -138,4 +145,60 @@ public class PredicateIndexTest {
         assertSerializationDeserializationMatches(
                 index, PredicateIndex::writeToOutputStream, PredicateIndex::fromInputStream);
     }
+
+    @Test
+    public void requireThatMappedIndexSearchesLikeTheOriginal() throws IOException {
+        PredicateIndexBuilder builder = new PredicateIndexBuilder(10);
+        builder.indexDocument(1, Predicate.fromString("country in ['no', 'se'] and gender in ['male']"));
+        builder.indexDocument(2, Predicate.fromString("country in ['no'] and gender not in ['male']"));
+        builder.indexDocument(3, Predicate.fromString("gender in ['female'] and age in [20..40]"));
+        builder.indexDocument(4, Predicate.fromString("country not in ['se']"));
+        builder.indexDocument(5, Predicate.fromString("true"));
+        PredicateIndex index = builder.build();
+        Path file = tmpFolder.newFile().toPath();
+        index.writeToMappableFile(file);
+        PredicateIndex mapped = PredicateIndex.fromMappedFile(file);
+
+        PredicateQuery[] queries = { new PredicateQuery(), new PredicateQuery(), new PredicateQuery(), new PredicateQuery() };
+        queries[1].addFeature("country", "no");
+        queries[1].addFeature("gender", "male");
+        queries[2].addFeature("country", "no");
+        queries[2].addFeature("gender", "female");
+        queries[2].addRangeFeature("age", 36);
+        queries[3].addFeature("country", "se", 0x1);
+        queries[3].addFeature("gender", "male", 0x3);
+        for (int i = 0; i < 2; i++) {
+            PredicateIndex.Searcher searcher = index.searcher();
+            PredicateIndex.Searcher mappedSearcher = mapped.searcher();
+            for (PredicateQuery query : queries) {
+                assertEquals(searcher.search(query).collect(toList()).toString(),
+                             mappedSearcher.search(query).collect(toList()).toString());
+            }
+            mapped.rebuildPostingListCache();
+        }
+        assertSerializationDeserializationMatches(
+                mapped, PredicateIndex::writeToOutputStream, PredicateIndex::fromInputStream);
+    }
+
+    @Test
+    public void requireThatParallelSearchFindsTheSameHitsAsSequentialSearch() {
+        PredicateIndexBuilder builder = new PredicateIndexBuilder(10);
+        for (int i = 1; i <= 20000; i++) {
+            if (i % 1000 == 0)
+                builder.indexDocument(i, Predicate.fromString("true"));
+            else if (i % 3 == 0)
+                builder.indexDocument(i, Predicate.fromString("country in ['no'] and gender not in ['male']"));
+            else
+                builder.indexDocument(i, Predicate.fromString("country in ['se'] and age in [20..40]"));
+        }
+        PredicateIndex.Searcher searcher = builder.build().searcher();
+        PredicateQuery query = new PredicateQuery();
+        query.addFeature("country", "no");
+        query.addFeature("country", "se", 0x2);
+        query.addRangeFeature("age", 36, 0x3);
+        List<Hit> sequentialHits = searcher.search(query).collect(toList());
+        assertEquals(20000, sequentialHits.size());
+        assertEquals(sequentialHits, searcher.search(query).parallel().collect(toList()));
+    }
+
 }
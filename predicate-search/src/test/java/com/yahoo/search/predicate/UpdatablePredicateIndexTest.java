@@ -0,0 +1,158 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.predicate;
+
+import com.yahoo.document.predicate.Predicate;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author bratseth
+ */
+public class UpdatablePredicateIndexTest {
+
+    private static final Config config = new Config.Builder().setArity(10).build();
+
+    @Test
+    public void requireThatChangesAreVisibleAfterCommit() {
+        UpdatablePredicateIndex index = new UpdatablePredicateIndex(config, 100, Runnable::run);
+        UpdatablePredicateIndex.Searcher searcher = index.searcher();
+        index.indexDocument(1, Predicate.fromString("country in ['no']"));
+        index.indexDocument(2, Predicate.fromString("country in ['se']"));
+        assertEquals("[]", search(searcher, "no"));
+
+        index.commit();
+        assertEquals("[1]", search(searcher, "no"));
+        assertEquals("[2]", search(searcher, "se"));
+
+        index.indexDocument(1, Predicate.fromString("country in ['se']"));
+        index.removeDocument(2);
+        index.commit();
+        assertEquals("[]", search(searcher, "no"));
+        assertEquals("[1]", search(searcher, "se"));
+    }
+
+    @Test
+    public void requireThatMainSegmentDocumentsCanBeReplacedAndRemoved() {
+        UpdatablePredicateIndex index = new UpdatablePredicateIndex(config, 100, Runnable::run);
+        UpdatablePredicateIndex.Searcher searcher = index.searcher();
+        index.indexDocument(1, Predicate.fromString("country in ['no']"));
+        index.indexDocument(2, Predicate.fromString("country in ['no']"));
+        index.indexDocument(3, Predicate.fromString("country in ['no']"));
+        assertTrue(index.merge());
+        assertEquals(0, index.getDeltaDocumentCount());
+        assertEquals("[1, 2, 3]", search(searcher, "no"));
+
+        index.indexDocument(2, Predicate.fromString("country in ['se']"));
+        index.removeDocument(3);
+        index.indexDocument(4, Predicate.fromString("country in ['no']"));
+        index.commit();
+        assertEquals(2, index.getDeltaDocumentCount());
+        assertEquals("[1, 4]", search(searcher, "no"));
+        assertEquals("[2]", search(searcher, "se"));
+
+        assertTrue(index.merge());
+        assertEquals(0, index.getDeltaDocumentCount());
+        assertEquals("[1, 4]", search(searcher, "no"));
+        assertEquals("[2]", search(searcher, "se"));
+    }
+
+    @Test
+    public void requireThatLargeDeltaIsMergedOnCommit() {
+        UpdatablePredicateIndex index = new UpdatablePredicateIndex(config, 2, Runnable::run);
+        UpdatablePredicateIndex.Searcher searcher = index.searcher();
+        index.indexDocument(1, Predicate.fromString("country in ['no']"));
+        index.indexDocument(2, Predicate.fromString("country in ['no']"));
+        index.commit();
+        assertEquals(2, index.getDeltaDocumentCount());
+        index.indexDocument(3, Predicate.fromString("country in ['no']"));
+        index.commit();
+        assertEquals(0, index.getDeltaDocumentCount());
+        assertEquals("[1, 2, 3]", search(searcher, "no"));
+    }
+
+    @Test
+    public void requireThatChangesDuringMergeAreKept() {
+        DeferredExecutor executor = new DeferredExecutor();
+        UpdatablePredicateIndex index = new UpdatablePredicateIndex(config, 1, executor);
+        UpdatablePredicateIndex.Searcher searcher = index.searcher();
+        index.indexDocument(1, Predicate.fromString("country in ['no']"));
+        index.indexDocument(2, Predicate.fromString("country in ['no']"));
+        index.indexDocument(3, Predicate.fromString("country in ['no']"));
+        index.commit();
+        assertTrue(index.isMerging());
+        assertFalse(index.merge());
+
+        index.indexDocument(1, Predicate.fromString("country in ['se']"));
+        index.removeDocument(2);
+        index.indexDocument(4, Predicate.fromString("country in ['no']"));
+        index.commit();
+        assertEquals("[3, 4]", search(searcher, "no"));
+
+        executor.runAll();
+        assertFalse(index.isMerging());
+        assertEquals(2, index.getDeltaDocumentCount());
+        assertEquals("[3, 4]", search(searcher, "no"));
+        assertEquals("[1]", search(searcher, "se"));
+    }
+
+    @Test
+    public void requireThatAlwaysMatchingDocumentsAreSupported() {
+        UpdatablePredicateIndex index = new UpdatablePredicateIndex(config, 100, Runnable::run);
+        UpdatablePredicateIndex.Searcher searcher = index.searcher();
+        index.indexDocument(1, Predicate.fromString("true"));
+        index.merge();
+        index.indexDocument(2, Predicate.fromString("true"));
+        index.commit();
+        assertEquals("[1, 2]", search(searcher, "no"));
+        index.indexDocument(1, Predicate.fromString("false"));
+        index.commit();
+        assertEquals("[2]", search(searcher, "no"));
+    }
+
+    @Test
+    public void requireThatHitsAreInDocIdOrder() {
+        UpdatablePredicateIndex index = new UpdatablePredicateIndex(config, 100, Runnable::run);
+        UpdatablePredicateIndex.Searcher searcher = index.searcher();
+        for (int docId : new int[] { 7, 2, 9, 4 })
+            index.indexDocument(docId, Predicate.fromString("country in ['no']"));
+        index.merge();
+        for (int docId : new int[] { 8, 1, 5 })
+            index.indexDocument(docId, Predicate.fromString("country in ['no']"));
+        index.removeDocument(9);
+        index.commit();
+
+        PredicateQuery query = new PredicateQuery();
+        query.addFeature("country", "no");
+        assertEquals("[1, 2, 4, 5, 7, 8]",
+                     searcher.search(query).map(Hit::getDocId).collect(toList()).toString());
+    }
+
+    private static String search(UpdatablePredicateIndex.Searcher searcher, String country) {
+        PredicateQuery query = new PredicateQuery();
+        query.addFeature("country", country);
+        return searcher.search(query).sorted().collect(toList()).toString();
+    }
+
+    private static class DeferredExecutor implements Executor {
+
+        private final List<Runnable> tasks = new ArrayList<>();
+
+        @Override
+        public void execute(Runnable task) { tasks.add(task); }
+
+        void runAll() {
+            tasks.forEach(Runnable::run);
+            tasks.clear();
+        }
+
+    }
+
+}
@@ -49,7 +49,7 @@ public class CachedPostingListCounterTest {
         }
         c.registerUsage(list);
         CachedPostingListCounter newC = c.rebuildCache();
-        ObjectIntHashMap<int[]> mapping = newC.getPostingListMapping();
+        ObjectIntHashMap<Object> mapping = newC.getPostingListMapping();
         assertEquals(0, mapping.getIfAbsent(p2.getDocIds(), -1));
         assertEquals(1, mapping.getIfAbsent(p3.getDocIds(), -1));
         assertEquals(2, mapping.getIfAbsent(p1.getDocIds(), -1));
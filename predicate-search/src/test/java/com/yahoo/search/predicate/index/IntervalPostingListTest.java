@@ -41,4 +41,27 @@ public class IntervalPostingListTest {
         assertFalse(postingList.nextDocument(8));
     }
 
+    @Test
+    public void requireThatLargePostingListCanSkipAhead() {
+        PredicateIntervalStore.Builder storeBuilder = new PredicateIntervalStore.Builder();
+        int ref = storeBuilder.insert(Arrays.asList(0x1ffff));
+        SimpleIndex.Builder indexBuilder = new SimpleIndex.Builder();
+        int size = 10000;
+        for (int i = 0; i < size; i++) {
+            indexBuilder.insert(1, new Posting(3 * i + 1, ref));
+        }
+        SimpleIndex.Entry entry = indexBuilder.build().getPostingList(1);
+        IntervalPostingList postingList = new IntervalPostingList(storeBuilder.build(), entry, SubqueryBitmap.ALL_SUBQUERIES);
+
+        int[] targets = {0, 1, 2, 5, 380, 381, 383, 384, 2000, 2001, 2002, 15000, 29995, 29996};
+        for (int target : targets) {
+            assertTrue(postingList.nextDocument(target));
+            int expected = target < 1 ? 1 : ((target - 1) / 3 + 1) * 3 + 1; // The first doc id larger than target
+            assertEquals(expected, postingList.getDocId());
+            assertTrue(postingList.prepareIntervals());
+            assertEquals(0x1ffff, postingList.getInterval());
+        }
+        assertFalse(postingList.nextDocument(29998));
+    }
+
 }
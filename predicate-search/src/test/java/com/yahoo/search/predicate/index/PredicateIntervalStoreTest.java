@@ -2,9 +2,16 @@
 package com.yahoo.search.predicate.index;
 
 import com.google.common.primitives.Ints;
+import com.yahoo.search.predicate.serialization.MappedInput;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -19,6 +26,9 @@ import static org.junit.Assert.assertTrue;
  */
 public class PredicateIntervalStoreTest {
 
+    @Rule
+    public TemporaryFolder tmpFolder = new TemporaryFolder();
+
     @Test(expected = IllegalArgumentException.class)
     public void requireThatEmptyIntervalListThrows() {
         PredicateIntervalStore.Builder builder = new PredicateIntervalStore.Builder();
@@ -70,6 +80,32 @@ public class PredicateIntervalStoreTest {
         assertTrue(a1 == a2);
     }
 
+    @Test
+    public void requireThatMappedIntervalsCanBeReadInPlace() throws IOException {
+        PredicateIntervalStore.Builder builder = new PredicateIntervalStore.Builder();
+        int ref1 = builder.insert(Arrays.asList(0x00010001, 0x00020002));
+        int ref2 = builder.insert(Arrays.asList(0x0fffffff));
+        int ref3 = builder.insert(Arrays.asList(0x00010001, 0x00020002, 0x00030003));
+        PredicateIntervalStore store = builder.build();
+        Path file = tmpFolder.newFile().toPath();
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file))) {
+            store.writeToMappableOutputStream(out);
+        }
+        PredicateIntervalStore mapped;
+        try (FileChannel channel = FileChannel.open(file)) {
+            mapped = PredicateIntervalStore.fromMappedInput(new MappedInput(channel));
+        }
+
+        assertTrue(mapped.isMapped());
+        for (int ref : new int[] { ref1, ref2, ref3 }) {
+            int[] intervals = new int[mapped.mappedEnd(ref) - mapped.mappedStart(ref)];
+            for (int i = 0; i < intervals.length; i++)
+                intervals[i] = mapped.mappedInterval(mapped.mappedStart(ref) + i);
+            assertArrayEquals(store.get(ref), intervals);
+            assertArrayEquals(store.get(ref), mapped.get(ref));
+        }
+    }
+
     private static void testInsertAndRetrieve(int... intervals) {
         PredicateIntervalStore.Builder builder = new PredicateIntervalStore.Builder();
         int ref = builder.insert(Ints.asList(intervals));
@@ -3,6 +3,8 @@ package com.yahoo.search.predicate.utils;
 
 import org.junit.Test;
 
+import java.nio.IntBuffer;
+
 import static org.junit.Assert.assertEquals;
 
 /**
@@ -56,4 +58,21 @@ public class PostingListSearchTest {
         assertEquals(1227, PostingListSearch.interpolationSearch(values, 1, length, 2453));
         assertEquals(1228, PostingListSearch.interpolationSearch(values, 1, length, 2454));
     }
+
+    @Test
+    public void require_that_buffer_search_equals_array_search() {
+        int length = 100000;
+        int[] values = new int[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = 3 * i + (i % 3);
+        }
+        IntBuffer buffer = IntBuffer.wrap(values);
+        for (int key = -1; key < 3 * length + 10; key += 97) {
+            assertEquals(PostingListSearch.interpolationSearch(values, 0, length, key),
+                         PostingListSearch.interpolationSearch(buffer, 0, length, key));
+            assertEquals(PostingListSearch.interpolationSearch(values, 5, length, key),
+                         PostingListSearch.interpolationSearch(buffer, 5, length, key));
+        }
+    }
+
 }
@@ -13,6 +13,7 @@ import com.yahoo.document.BucketId;
 
 import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
@@ -39,8 +40,12 @@ public class Distribution {
         private final boolean distributorAutoOwnershipTransferOnWholeGroupDown;
     }
 
+    private static final int noDistributorGroupAvailable = -1;
+    private static final int noDistributorAvailable = -2;
+
     private ConfigSubscriber configSub;
     private final AtomicReference<Config> config = new AtomicReference<>(new Config(null, 1, false));
+    private final AtomicReference<IdealDistributorCache> idealDistributorCache = new AtomicReference<>();
 
     public Group getRootGroup() {
         return config.getAcquire().nodeGraph;
@@ -445,6 +450,13 @@ public class Distribution {
         }
     }
 
+    /**
+     * Returns the index of the distributor owning the given bucket in the given cluster state.
+     *
+     * The result only depends on the superbucket (the distribution bits of the bucket), so results are cached
+     * per superbucket for the last cluster state, config and up states used. The cache is keyed on the identity,
+     * version and distribution bit count of the state, so a state must not be otherwise modified after being used here.
+     */
     public int getIdealDistributorNode(ClusterState state, BucketId bucket, String upStates) throws TooFewBucketBitsInUseException, NoDistributorsAvailableException {
         if (bucket.getUsedBits() < state.getDistributionBitCount()) {
             throw new TooFewBucketBitsInUseException("Cannot get ideal state for bucket " + bucket + " using " + bucket.getUsedBits()
@@ -452,9 +464,40 @@ public class Distribution {
         }
 
         Config cfg = config.getAcquire();
+        int node;
+        if (state.getDistributionBitCount() <= IdealDistributorCache.maxDistributionBits) {
+            IdealDistributorCache cache = idealDistributorCache.get();
+            if (cache == null || ! cache.isValidFor(cfg, state, upStates)) {
+                cache = new IdealDistributorCache(cfg, state, upStates);
+                idealDistributorCache.set(cache);
+            }
+            int superbucket = getDistributorSeed(bucket, state);
+            node = cache.get(superbucket);
+            if (node == IdealDistributorCache.unknown) {
+                node = computeIdealDistributorNode(cfg, state, bucket, upStates);
+                cache.set(superbucket, node);
+            }
+        }
+        else {
+            node = computeIdealDistributorNode(cfg, state, bucket, upStates);
+        }
+
+        if (node == noDistributorGroupAvailable) {
+            throw new NoDistributorsAvailableException("No distributors available in cluster state version " + state.getVersion());
+        }
+        if (node == noDistributorAvailable) {
+            throw new NoDistributorsAvailableException(
+                    "No available distributors in any of the given upstates '"
+                    + upStates + "'.");
+        }
+        return node;
+    }
+
+    /** Returns the ideal distributor index, or one of the negative noDistributor* values if there is none */
+    private int computeIdealDistributorNode(Config cfg, ClusterState state, BucketId bucket, String upStates) {
         Group idealGroup = getIdealDistributorGroup(cfg.distributorAutoOwnershipTransferOnWholeGroupDown, bucket, state, cfg.nodeGraph, cfg.redundancy);
         if (idealGroup == null) {
-            throw new NoDistributorsAvailableException("No distributors available in cluster state version " + state.getVersion());
+            return noDistributorGroupAvailable;
         }
         int seed = getDistributorSeed(bucket, state);
         RandomGen random = new RandomGen(seed);
@@ -484,13 +527,53 @@ public class Distribution {
             }
         }
         if (!node.valid()) {
-            throw new NoDistributorsAvailableException(
-                    "No available distributors in any of the given upstates '"
-                    + upStates + "'.");
+            return noDistributorAvailable;
         }
         return node.index;
     }
 
+    /**
+     * Ideal distributors by superbucket for a given cluster state, config and set of up states, filled in lazily.
+     * Concurrent lookups may compute and set the same entry, which is harmless as the result is deterministic.
+     */
+    private static class IdealDistributorCache {
+
+        /** Above this many distribution bits we do not cache, to bound the memory used */
+        static final int maxDistributionBits = 16;
+
+        static final int unknown = Integer.MIN_VALUE;
+
+        private final Config config;
+        private final ClusterState state;
+        private final int version;
+        private final int distributionBits;
+        private final String upStates;
+        private final int[] distributors;
+
+        IdealDistributorCache(Config config, ClusterState state, String upStates) {
+            this.config = config;
+            this.state = state;
+            this.version = state.getVersion();
+            this.distributionBits = state.getDistributionBitCount();
+            this.upStates = upStates;
+            this.distributors = new int[1 << distributionBits];
+            Arrays.fill(distributors, unknown);
+        }
+
+        boolean isValidFor(Config config, ClusterState state, String upStates) {
+            return this.config == config
+                   && this.state == state
+                   && this.version == state.getVersion()
+                   && this.distributionBits == state.getDistributionBitCount()
+                   && this.upStates.equals(upStates);
+        }
+
+        int get(int superbucket) { return distributors[superbucket]; }
+
+        void set(int superbucket, int distributor) { distributors[superbucket] = distributor; }
+
+    }
+
     private boolean visitGroups(GroupVisitor visitor, Map<Integer, Group> groups) {
         for (Group g : groups.values()) {
             if (!visitor.visitGroup(g)) return false;
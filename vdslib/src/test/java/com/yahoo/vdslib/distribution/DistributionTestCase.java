@@ -4,7 +4,10 @@ package com.yahoo.vdslib.distribution;
 import com.yahoo.vespa.config.content.StorDistributionConfig;
 import com.yahoo.vdslib.state.ClusterState;
 import com.yahoo.document.BucketId;
+import com.yahoo.vdslib.state.Node;
+import com.yahoo.vdslib.state.NodeState;
 import com.yahoo.vdslib.state.NodeType;
+import com.yahoo.vdslib.state.State;
 import org.junit.After;
 import org.junit.Test;
 
@@ -410,6 +413,47 @@ public class DistributionTestCase {
         assertTrue(Arrays.toString(counts) + ": Too small diff" + diff, diff > 2.9);
     }
 
+    @Test
+    public void cachedIdealDistributorsAreTheSameAsComputed() throws Exception {
+        StorDistributionConfig config = new StorDistributionConfig(buildHierarchicalConfig(6, 3, 1, "1|2|*", 3));
+        Distribution cached = new Distribution(config);
+        List<ClusterState> states = List.of(new ClusterState("version:1 bits:8 distributor:9 storage:9"),
+                                            new ClusterState("version:2 bits:8 distributor:9 .2.s:d storage:9"),
+                                            new ClusterState("version:3 bits:8 distributor:9 .2.s:d .3.s:m storage:9"),
+                                            new ClusterState("version:4 bits:12 distributor:9 .0.s:d .1.s:d .2.s:d storage:9"));
+        Random random = new Random(1);
+        for (int round = 0; round < 2; ++round) {
+            for (ClusterState state : states) {
+                for (int i = 0; i < 1000; ++i) {
+                    BucketId bucket = new BucketId(16, random.nextLong());
+                    assertEquals(idealDistributor(new Distribution(config), state, bucket),
+                                 idealDistributor(cached, state, bucket));
+                }
+            }
+        }
+
+        // Changing the version or distribution bits of a state invalidates the cache
+        ClusterState state = new ClusterState("version:5 bits:8 distributor:9 storage:9");
+        for (int i = 0; i < 3; ++i) {
+            BucketId bucket = new BucketId(16, random.nextLong());
+            idealDistributor(cached, state, bucket);
+            state.setNodeState(new Node(NodeType.DISTRIBUTOR, i), new NodeState(NodeType.DISTRIBUTOR, State.DOWN));
+            state.setVersion(state.getVersion() + 1);
+            state.setDistributionBits(state.getDistributionBitCount() + i);
+            assertEquals(idealDistributor(new Distribution(config), state, bucket),
+                         idealDistributor(cached, state, bucket));
+        }
+    }
+
+    private static String idealDistributor(Distribution distribution, ClusterState state, BucketId bucket) {
+        try {
+            return String.valueOf(distribution.getIdealDistributorNode(state, bucket, "uim"));
+        }
+        catch (Distribution.TooFewBucketBitsInUseException | Distribution.NoDistributorsAvailableException e) {
+            return e.getMessage();
+        }
+    }
+
     @Test(expected = Distribution.NoDistributorsAvailableException.class)
     public void clusterDownInHierarchicSetupThrowsNoDistributorsAvailableException() throws Exception {
         ClusterState clusterState = new ClusterState("cluster:d");
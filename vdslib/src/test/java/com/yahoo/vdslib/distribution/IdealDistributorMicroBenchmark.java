@@ -0,0 +1,62 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vdslib.distribution;
+
+import com.yahoo.document.BucketId;
+import com.yahoo.vdslib.state.ClusterState;
+import com.yahoo.vespa.config.content.StorDistributionConfig;
+
+import java.util.Random;
+
+/**
+ * Measures the throughput of ideal distributor lookups, as done by the content routing policy for each document operation.
+ * The uncached case uses more distribution bits than are cached.
+ *
+ * @author bratseth
+ */
+public class IdealDistributorMicroBenchmark {
+
+    private final Distribution distribution = new Distribution(new StorDistributionConfig(config(200)));
+    private final BucketId[] buckets = buckets(1 << 16);
+
+    public void benchmark() throws Exception {
+        run("uncached", new ClusterState("version:7 bits:17 distributor:200 .13.s:d .57.s:m storage:200"), 100000);
+        run("cached", new ClusterState("version:7 bits:16 distributor:200 .13.s:d .57.s:m storage:200"), 10000000);
+    }
+
+    private void run(String name, ClusterState state, int count) throws Exception {
+        lookups(state, count); // warmup
+        long startTime = System.nanoTime();
+        lookups(state, count);
+        long nanos = System.nanoTime() - startTime;
+        System.out.println(name + ": " + (nanos / count) + " ns per lookup, " +
+                           (long)(count / (nanos / 1e9)) + " lookups per second");
+    }
+
+    private int lookups(ClusterState state, int count) throws Exception {
+        int sum = 0;
+        for (int i = 0; i < count; i++)
+            sum += distribution.getIdealDistributorNode(state, buckets[i % buckets.length], "uim");
+        return sum;
+    }
+
+    private static BucketId[] buckets(int count) {
+        Random random = new Random(0);
+        BucketId[] buckets = new BucketId[count];
+        for (int i = 0; i < count; i++)
+            buckets[i] = new BucketId(32, random.nextLong());
+        return buckets;
+    }
+
+    private static StorDistributionConfig.Builder config(int nodeCount) {
+        StorDistributionConfig.Group.Builder group = new StorDistributionConfig.Group.Builder()
+                .name("invalid").index("invalid").partitions("*");
+        for (int i = 0; i < nodeCount; i++)
+            group.nodes(new StorDistributionConfig.Group.Nodes.Builder().index(i));
+        return new StorDistributionConfig.Builder().redundancy(2).group(group);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new IdealDistributorMicroBenchmark().benchmark();
+    }
+
+}
@@ -119,6 +119,7 @@ public class Compressor {
      * @param compressedDataOffset the offset in the compressed data at which to start decompression
      * @param expectedUncompressedSize the uncompressed size in bytes of this data
      * @param expectedCompressedSize the expected compressed size of the data in bytes, optionally for validation with LZ4.
+     *                               If this is empty, zstd data is assumed to extend to the end of the compressed data array.
      * @return the uncompressed data, of the given size
      * @throws IllegalArgumentException if the compression type is not supported
      * @throws IllegalStateException if the expected compressed size is non-empty and specifies a different size than the actual size
@@ -137,7 +138,7 @@ public class Compressor {
                     throw new IllegalStateException("Compressed size mismatch. Expected " + compressedSize + ". Got " + expectedCompressedSize.get());
                 return uncompressedLZ4Data;
             case ZSTD:
-                int compressedLength = expectedCompressedSize.orElseThrow(() -> new IllegalArgumentException("Zstd decompressor requires input size"));
+                int compressedLength = expectedCompressedSize.orElse(compressedData.length - compressedDataOffset);
                 byte[] decompressedData = zstdCompressor.decompress(compressedData, compressedDataOffset, compressedLength);
                 expectedCompressedSize.ifPresent(expectedSize -> {
                     if (compressedData.length != expectedSize) {
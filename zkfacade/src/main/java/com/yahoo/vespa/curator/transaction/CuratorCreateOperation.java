@@ -42,6 +42,9 @@ class CuratorCreateOperation implements CuratorOperation {
         }
     }
 
+    @Override
+    public Optional<String> path() { return Optional.of(path); }
+
     @Override
     public String toString() {
         return "CREATE " + path;
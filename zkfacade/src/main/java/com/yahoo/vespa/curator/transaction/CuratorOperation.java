@@ -5,6 +5,8 @@ import com.yahoo.transaction.Transaction;
 import com.yahoo.vespa.curator.Curator;
 import org.apache.curator.framework.api.transaction.CuratorTransaction;
 
+import java.util.Optional;
+
 /**
  * The ZooKeeper operations that we support doing transactional.
  *
@@ -42,4 +44,7 @@ public interface CuratorOperation extends Transaction.Operation {
      */
     void check(Curator curator, TransactionChanges changes);
 
+    /** Returns the absolute path this operates on, or empty if it may change any path */
+    default Optional<String> path() { return Optional.empty(); }
+
 }